@@ -1,5 +1,8 @@
 package com.unisoft.algotrader.utils.networking;
 
+import com.unisoft.algotrader.utils.serialization.DirectBufferSerializer;
+import uk.co.real_logic.agrona.concurrent.UnsafeBuffer;
+
 import java.nio.ByteBuffer;
 
 /**
@@ -15,5 +18,12 @@ public interface Publisher{
 
     public boolean publish(ByteBuffer byteBuffer, int length);
 
+    public boolean publish(UnsafeBuffer buffer, int offset, int length);
+
+    /**
+     * Encode the content with the serializer into the buffer of the publisher and publish it.
+     */
+    public boolean publish(Object content, DirectBufferSerializer serializer);
+
     public boolean connected();
 }
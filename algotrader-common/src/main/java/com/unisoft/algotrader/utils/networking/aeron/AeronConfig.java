@@ -14,6 +14,7 @@ import uk.co.real_logic.agrona.concurrent.NoOpIdleStrategy;
 public class AeronConfig {
 
     public static final IdleStrategy DEFAULT_IDLE_STRATEGY = new BusySpinIdleStrategy();
+    public static final int DEFAULT_MAX_RETRIES = 1000;
     public static final MediaDriver.Context LOW_LATENCY_MEDIA_DRIVER = new MediaDriver.Context()
             .threadingMode(ThreadingMode.DEDICATED)
             .conductorIdleStrategy(new BackoffIdleStrategy(1, 1, 1, 1))
@@ -29,6 +30,7 @@ public class AeronConfig {
     public final int fragmentCountLimit;
     public final boolean embeddedMediaDriver;
     public final IdleStrategy idleStrategy;
+    public final int maxRetries;
     public final MediaDriver.Context mediaDriverContext;
 
     public AeronConfig(AeronConfigBuilder configBuilder) {
@@ -39,6 +41,7 @@ public class AeronConfig {
         this.fragmentCountLimit = configBuilder.fragmentCountLimit;
         this.embeddedMediaDriver = configBuilder.embeddedMediaDriver;
         this.idleStrategy = configBuilder.idleStrategy;
+        this.maxRetries = configBuilder.maxRetries;
         this.mediaDriverContext = configBuilder.mediaDriverContext;
     }
 
@@ -50,6 +53,7 @@ public class AeronConfig {
         private int fragmentCountLimit = SampleConfiguration.FRAGMENT_COUNT_LIMIT;
         private boolean embeddedMediaDriver = true;
         private IdleStrategy idleStrategy = DEFAULT_IDLE_STRATEGY;
+        private int maxRetries = DEFAULT_MAX_RETRIES;
         private MediaDriver.Context mediaDriverContext = LOW_LATENCY_MEDIA_DRIVER;
 
         public AeronConfigBuilder streamId(int streamId) {
@@ -87,6 +91,14 @@ public class AeronConfig {
             return this;
         }
 
+        /**
+         * Number of times a back pressured publication is retried before the message is dropped.
+         */
+        public AeronConfigBuilder maxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
         public AeronConfigBuilder mediaDriverContext(MediaDriver.Context mediaDriverContext) {
             this.mediaDriverContext = mediaDriverContext;
             return this;
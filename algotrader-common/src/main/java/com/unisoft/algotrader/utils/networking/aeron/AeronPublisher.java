@@ -1,9 +1,11 @@
 package com.unisoft.algotrader.utils.networking.aeron;
 
 import com.unisoft.algotrader.utils.networking.Publisher;
+import com.unisoft.algotrader.utils.serialization.DirectBufferSerializer;
 import uk.co.real_logic.aeron.Aeron;
 import uk.co.real_logic.aeron.Publication;
 import uk.co.real_logic.aeron.driver.MediaDriver;
+import uk.co.real_logic.aeron.logbuffer.BufferClaim;
 import uk.co.real_logic.agrona.CloseHelper;
 import uk.co.real_logic.agrona.concurrent.IdleStrategy;
 import uk.co.real_logic.agrona.concurrent.UnsafeBuffer;
@@ -14,6 +16,10 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
+ * A publish never blocks the calling thread for long: a message is dropped, and publish returns false, when the
+ * publication has no subscriber connected, and after {@link AeronConfig#maxRetries} retries when it is back
+ * pressured. The dropped messages are counted, see {@link #getDropped()}.
+ *
  * Created by alex on 4/19/15.
  */
 public class AeronPublisher implements Publisher {
@@ -25,14 +31,18 @@ public class AeronPublisher implements Publisher {
     private final MediaDriver.Context mediaDriverContext;
 
     private final UnsafeBuffer unsafeBuffer;
+    private final BufferClaim bufferClaim = new BufferClaim();
+    private final UnsafeBuffer claimBuffer = new UnsafeBuffer(new byte[0]);
     private final IdleStrategy idleStrategy;
     private final boolean embeddedMediaDriver;
+    private final int maxRetries;
 
     private MediaDriver driver;
     private ExecutorService executor;
     private Aeron aeron;
-    private Publication publication;
+    private volatile Publication publication;
     private AtomicBoolean connected = new AtomicBoolean(false);
+    private volatile long dropped;
 
 
     public AeronPublisher(AeronConfig config){
@@ -44,6 +54,7 @@ public class AeronPublisher implements Publisher {
         this.mediaDriverContext = config.mediaDriverContext;
         this.unsafeBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(messageLength));
         this.idleStrategy = config.idleStrategy;
+        this.maxRetries = config.maxRetries;
     }
 
     @Override
@@ -60,6 +71,7 @@ public class AeronPublisher implements Publisher {
     public void disconnect() {
         CloseHelper.quietClose(aeron);
         CloseHelper.quietClose(publication);
+        publication = null;
         CloseHelper.quietClose(driver);
         executor.shutdown();
         connected.set(false);
@@ -70,24 +82,93 @@ public class AeronPublisher implements Publisher {
         return connected.get();
     }
 
+    /**
+     * Number of messages dropped as not connected or back pressured.
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
     @Override
     public boolean publish(byte[] bytes) {
         unsafeBuffer.putBytes(0, bytes);
-        while (publication.offer(unsafeBuffer, 0, bytes.length) < 0L)
-        {
-            idleStrategy.idle(0);
-        }
-        return true;
+        return offer(unsafeBuffer, 0, bytes.length);
     }
 
-
     @Override
     public boolean publish(ByteBuffer byteBuffer, int length) {
         unsafeBuffer.putBytes(0, byteBuffer, length);
-        while (publication.offer(unsafeBuffer, 0, length) < 0L)
-        {
-            idleStrategy.idle(0);
+        return offer(unsafeBuffer, 0, length);
+    }
+
+    @Override
+    public boolean publish(UnsafeBuffer buffer, int offset, int length) {
+        return offer(buffer, offset, length);
+    }
+
+    /**
+     * Claim the space in the term buffer and encode the content straight into it, the message has to fit in one
+     * frame (MTU). The content is not encoded when the message is dropped.
+     */
+    @Override
+    public boolean publish(Object content, DirectBufferSerializer serializer) {
+        int length = serializer.encodedLength(content);
+        long result;
+        int retries = 0;
+        while ((result = tryClaim(length, bufferClaim)) < 0L) {
+            if (!retry(result, retries++)) {
+                return false;
+            }
+        }
+        try {
+            claimBuffer.wrap(bufferClaim.buffer());
+            serializer.serialize(content, claimBuffer, bufferClaim.offset());
+            bufferClaim.commit();
+        }
+        catch (RuntimeException e){
+            bufferClaim.abort();
+            throw e;
+        }
+        return true;
+    }
+
+    private boolean offer(UnsafeBuffer buffer, int offset, int length) {
+        long result;
+        int retries = 0;
+        while ((result = tryOffer(buffer, offset, length)) < 0L) {
+            if (!retry(result, retries++)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Idle before the next attempt, or count the message as dropped when nobody is subscribed or the retries are
+     * exhausted. The other negative results (back pressure, admin action) are retried.
+     */
+    private boolean retry(long result, int retries) {
+        if (result == Publication.NOT_CONNECTED || retries >= maxRetries) {
+            dropped++;
+            return false;
         }
+        idleStrategy.idle(0);
         return true;
     }
+
+    // overridden by the tests to play the results of the publication
+
+    protected long tryOffer(UnsafeBuffer buffer, int offset, int length) {
+        if (publication == null) {
+            return Publication.NOT_CONNECTED;
+        }
+        return publication.offer(buffer, offset, length);
+    }
+
+    protected long tryClaim(int length, BufferClaim bufferClaim) {
+        if (publication == null) {
+            return Publication.NOT_CONNECTED;
+        }
+        return publication.tryClaim(length, bufferClaim);
+    }
 }
@@ -6,6 +6,7 @@ import com.unisoft.algotrader.utils.networking.Subscriber;
 import uk.co.real_logic.aeron.Aeron;
 import uk.co.real_logic.aeron.Subscription;
 import uk.co.real_logic.aeron.driver.MediaDriver;
+import uk.co.real_logic.aeron.logbuffer.FragmentHandler;
 import uk.co.real_logic.aeron.logbuffer.Header;
 import uk.co.real_logic.aeron.samples.SampleConfiguration;
 import uk.co.real_logic.aeron.samples.SamplesUtil;
@@ -30,6 +31,7 @@ public class AeronSubscriber implements Subscriber {
    // private final MediaDriver.Context mediaDriverContext;
     private static final int FRAGMENT_COUNT_LIMIT = SampleConfiguration.FRAGMENT_COUNT_LIMIT;
     private final List<DataHandler> dataHandlers = Lists.newArrayList();
+    private final List<FragmentHandler> fragmentHandlers = Lists.newArrayList();
 
     private MediaDriver driver;
     private ExecutorService executor;
@@ -81,6 +83,13 @@ public class AeronSubscriber implements Subscriber {
     }
 
     public void onData(DirectBuffer buffer, int offset, int length, Header header) {
+        for (int i = 0; i < fragmentHandlers.size(); i++){
+            fragmentHandlers.get(i).onFragment(buffer, offset, length, header);
+        }
+
+        if (dataHandlers.isEmpty()){
+            return;
+        }
         final byte[] data = new byte[length];
         buffer.getBytes(offset, data);
 
@@ -93,4 +102,11 @@ public class AeronSubscriber implements Subscriber {
     public void subscribe(DataHandler handler) {
         dataHandlers.add(handler);
     }
+
+    /**
+     * The handler reads the fragment straight from the term buffer, no copy is made for it.
+     */
+    public void subscribe(FragmentHandler handler) {
+        fragmentHandlers.add(handler);
+    }
 }
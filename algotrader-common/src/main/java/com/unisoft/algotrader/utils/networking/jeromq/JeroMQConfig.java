@@ -14,6 +14,7 @@ public class JeroMQConfig {
     public final String pubSubAddress;
     public final String reqRepAddress;
     public final byte[] topic;
+    public final int messageLength;
 
     private JeroMQConfig(JeroMQConfigBuilder builder){
         this.ioThreads = builder.ioThreads;
@@ -23,6 +24,7 @@ public class JeroMQConfig {
         this.pubSubAddress = builder.pubSubAddress;
         this.reqRepAddress = builder.reqRepAddress;
         this.topic = builder.topic;
+        this.messageLength = builder.messageLength;
     }
 
 
@@ -35,6 +37,7 @@ public class JeroMQConfig {
         private String pubSubAddress = "tcp://localhost:5561";
         private String reqRepAddress = "tcp://localhost:5562";
         private byte[] topic = ZMQ.SUBSCRIPTION_ALL;
+        private int messageLength = 4096;
         public JeroMQConfigBuilder ioThreads(int ioThreads){
             this.ioThreads = ioThreads;
             return this;
@@ -70,6 +73,11 @@ public class JeroMQConfig {
             return this;
         }
 
+        public JeroMQConfigBuilder messageLength(int messageLength){
+            this.messageLength = messageLength;
+            return this;
+        }
+
         public JeroMQConfig build(){
             return new JeroMQConfig(this);
         }
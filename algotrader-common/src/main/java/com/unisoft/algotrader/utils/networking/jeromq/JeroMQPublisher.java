@@ -1,8 +1,10 @@
 package com.unisoft.algotrader.utils.networking.jeromq;
 
 import com.unisoft.algotrader.utils.networking.Publisher;
+import com.unisoft.algotrader.utils.serialization.DirectBufferSerializer;
 import org.zeromq.ZMQ;
 import org.zeromq.ZMQ.Socket;
+import uk.co.real_logic.agrona.concurrent.UnsafeBuffer;
 
 import java.nio.ByteBuffer;
 import java.util.concurrent.ExecutorService;
@@ -16,6 +18,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class JeroMQPublisher implements Publisher {
 
     private final JeroMQConfig config;
+    private final ByteBuffer byteBuffer;
+    private final UnsafeBuffer unsafeBuffer;
 
     private ZMQ.Context context;
     private Socket publisher;
@@ -26,6 +30,8 @@ public class JeroMQPublisher implements Publisher {
 
     public JeroMQPublisher(JeroMQConfig config){
         this.config = config;
+        this.byteBuffer = ByteBuffer.allocateDirect(config.messageLength);
+        this.unsafeBuffer = new UnsafeBuffer(byteBuffer);
     }
 
     @Override
@@ -79,6 +85,31 @@ public class JeroMQPublisher implements Publisher {
         return true;
     }
 
+    /**
+     * Send the array of a buffer wrapping a whole byte[] as is, any other buffer (direct, or wrapping part of an
+     * array) is copied with getBytes, which accounts for where the buffer starts in its memory.
+     */
+    @Override
+    public boolean publish(UnsafeBuffer buffer, int offset, int length) {
+        byte[] array = buffer.byteArray();
+        if (array != null && array.length == buffer.capacity()){
+            publisher.send(array, offset, length, 0);
+            return true;
+        }
+        if (buffer != unsafeBuffer){
+            buffer.getBytes(offset, unsafeBuffer, 0, length);
+        }
+        byteBuffer.limit(length).position(0);
+        publisher.sendByteBuffer(byteBuffer, 0);
+        byteBuffer.clear();
+        return true;
+    }
+
+    @Override
+    public boolean publish(Object content, DirectBufferSerializer serializer) {
+        return publish(unsafeBuffer, 0, serializer.serialize(content, unsafeBuffer, 0));
+    }
+
     @Override
     public boolean connected() {
         return connected.get();
@@ -1,6 +1,7 @@
 package com.unisoft.algotrader.utils.networking.netty;
 
 import com.unisoft.algotrader.utils.networking.Publisher;
+import com.unisoft.algotrader.utils.serialization.DirectBufferSerializer;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
@@ -10,6 +11,7 @@ import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
+import uk.co.real_logic.agrona.concurrent.UnsafeBuffer;
 
 import java.nio.ByteBuffer;
 import java.util.concurrent.ExecutorService;
@@ -25,6 +27,7 @@ public class NettyPublisher extends ChannelInboundHandlerAdapter implements Publ
     private EventLoopGroup workerGroup;
     private ChannelFuture channelFuture;
     private ExecutorService executor;
+    private final UnsafeBuffer unsafeBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(4096));
     //private static ChannelGroup channels = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
 
     public NettyPublisher(){
@@ -104,6 +107,24 @@ public class NettyPublisher extends ChannelInboundHandlerAdapter implements Publ
         return false;
     }
 
+    @Override
+    public boolean publish(UnsafeBuffer buffer, int offset, int length) {
+        if (ctx != null) {
+            ByteBuf buf = ctx.alloc().directBuffer(length);
+            buffer.getBytes(offset, buf.nioBuffer(0, length), length);
+            buf.writerIndex(length);
+            ctx.writeAndFlush(buf);
+            return true;
+        }
+        Thread.yield();
+        return false;
+    }
+
+    @Override
+    public boolean publish(Object content, DirectBufferSerializer serializer) {
+        return publish(unsafeBuffer, 0, serializer.serialize(content, unsafeBuffer, 0));
+    }
+
     @Override
     public boolean connected() {
         return connected.get();
@@ -0,0 +1,25 @@
+package com.unisoft.algotrader.utils.serialization;
+
+import uk.co.real_logic.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Serializer which encodes straight into and decodes straight from an {@link UnsafeBuffer}, so the message can be
+ * handed to the transport (e.g. an Aeron publication) without an intermediate byte[] or stream.
+ */
+public interface DirectBufferSerializer extends Serializer {
+
+    /**
+     * Encode the content at the offset of the buffer, returns the encoded length.
+     */
+    public int serialize(Object content, UnsafeBuffer buffer, int offset);
+
+    /**
+     * Length serialize would encode for the content, used to claim the space before encoding.
+     */
+    public int encodedLength(Object content);
+
+    /**
+     * Decode the message at the offset of the buffer.
+     */
+    public <T> T deserialize(UnsafeBuffer buffer, int offset);
+}
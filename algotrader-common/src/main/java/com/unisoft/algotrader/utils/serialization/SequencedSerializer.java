@@ -0,0 +1,99 @@
+package com.unisoft.algotrader.utils.serialization;
+
+import uk.co.real_logic.agrona.concurrent.UnsafeBuffer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Frames every message encoded by the underlying serializer with a little endian int64 sequence number, starting
+ * from 1 and incremented on each serialize, so the receiver of a stream can detect gaps. Use one instance per
+ * stream; it is not thread safe.
+ */
+public class SequencedSerializer implements DirectBufferSerializer {
+
+    public static final int SEQUENCE_LENGTH = 8;
+
+    private final DirectBufferSerializer serializer;
+    private long sequence;
+
+    public SequencedSerializer(DirectBufferSerializer serializer){
+        this.serializer = serializer;
+    }
+
+    /**
+     * Sequence number of the message framed at the offset of the buffer.
+     */
+    public static long sequence(UnsafeBuffer buffer, int offset){
+        return buffer.getLong(offset, ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Sequence number of the last serialized message, 0 if none.
+     */
+    public long getSequence(){
+        return sequence;
+    }
+
+    /**
+     * Take the sequence number of a message which was dropped instead of published, so the receivers see the gap.
+     */
+    public void skip(){
+        ++sequence;
+    }
+
+    @Override
+    public int serialize(Object content, UnsafeBuffer buffer, int offset) {
+        int length = serializer.serialize(content, buffer, offset + SEQUENCE_LENGTH);
+        buffer.putLong(offset, ++sequence, ByteOrder.LITTLE_ENDIAN);
+        return SEQUENCE_LENGTH + length;
+    }
+
+    @Override
+    public int encodedLength(Object content) {
+        return SEQUENCE_LENGTH + serializer.encodedLength(content);
+    }
+
+    @Override
+    public <T> T deserialize(UnsafeBuffer buffer, int offset) {
+        return serializer.deserialize(buffer, offset + SEQUENCE_LENGTH);
+    }
+
+    @Override
+    public <T> T deserialize(byte[] array) throws Exception {
+        return serializer.deserialize(Arrays.copyOfRange(array, SEQUENCE_LENGTH, array.length));
+    }
+
+    @Override
+    public <T> byte[] serialize(T content) throws Exception {
+        byte[] message = serializer.serialize(content);
+        byte[] bytes = new byte[SEQUENCE_LENGTH + message.length];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putLong(++sequence).put(message);
+        return bytes;
+    }
+
+    @Override
+    public <T> T deserialize(ByteBuffer byteBuffer) throws Exception {
+        byteBuffer.position(byteBuffer.position() + SEQUENCE_LENGTH);
+        return serializer.deserialize(byteBuffer);
+    }
+
+    @Override
+    public <T> void serialize(T content, ByteBuffer byteBuffer) throws Exception {
+        ByteOrder order = byteBuffer.order();
+        byteBuffer.order(ByteOrder.LITTLE_ENDIAN).putLong(++sequence);
+        byteBuffer.order(order);
+        serializer.serialize(content, byteBuffer);
+    }
+
+    @Override
+    public void register(Class clazz) {
+        serializer.register(clazz);
+    }
+
+    @Override
+    public int getId(Class clazz) {
+        return serializer.getId(clazz);
+    }
+}
@@ -117,11 +117,13 @@ public abstract class MultiEventProcessor implements EventProcessor, EventHandle
                     }
                     count += batchCount;
 
-                    if (batchCount == 0)
+                    if (batchCount == 0) {
+                        onIdle();
                         if (waitStrategy == null)
                             Thread.yield();
                         else
                             waitStrategy.waitNext(expNextSeq, barriers, queue);
+                    }
 
                 } catch (AlertException e) {
                     if (!isRunning()) {
@@ -157,6 +159,18 @@ public abstract class MultiEventProcessor implements EventProcessor, EventHandle
 
     }
 
+    /**
+     * @return true when the buffer is one of the ring buffers consumed by the processor
+     */
+    public boolean consumes(RingBuffer buffer){
+        for (int i = 0; providers != null && i < providers.length; i++) {
+            if (providers[i] == buffer){
+                return true;
+            }
+        }
+        return false;
+    }
+
     public long getCount()
     {
         return count;
@@ -219,5 +233,21 @@ public abstract class MultiEventProcessor implements EventProcessor, EventHandle
     public void onShutdown()
     {
     }
+
+    /**
+     * Queue of events polled by the processor besides its ring buffers, or null.
+     */
+    protected Queue<Event> getQueue()
+    {
+        return queue;
+    }
+
+    /**
+     * Called from the processor thread when a pass over the queue and the ring buffers found no event,
+     * before waiting for the next one.
+     */
+    protected void onIdle()
+    {
+    }
 }
 
@@ -0,0 +1,100 @@
+package com.unisoft.algotrader.utils.networking.aeron;
+
+import com.unisoft.algotrader.model.event.data.MarketDataContainer;
+import com.unisoft.algotrader.model.serialization.sbe.SBESerializer;
+import com.unisoft.algotrader.utils.serialization.SequencedSerializer;
+import org.junit.Test;
+import uk.co.real_logic.aeron.Publication;
+import uk.co.real_logic.aeron.logbuffer.BufferClaim;
+import uk.co.real_logic.agrona.concurrent.UnsafeBuffer;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AeronPublisherTest {
+
+    // any negative result other than NOT_CONNECTED is retried
+    private static final long BACK_PRESSURED = -2;
+
+    /**
+     * Plays the given results of the publication, the last one is repeated.
+     */
+    private static class ScriptedPublisher extends AeronPublisher {
+        final Queue<Long> results = new ArrayDeque<>();
+        long last;
+        int attempts;
+
+        ScriptedPublisher(int maxRetries, Long... results) {
+            super(new AeronConfig.AeronConfigBuilder().maxRetries(maxRetries).build());
+            this.results.addAll(Arrays.asList(results));
+        }
+
+        private long next() {
+            attempts++;
+            if (!results.isEmpty()) {
+                last = results.poll();
+            }
+            return last;
+        }
+
+        @Override
+        protected long tryOffer(UnsafeBuffer buffer, int offset, int length) {
+            return next();
+        }
+
+        @Override
+        protected long tryClaim(int length, BufferClaim bufferClaim) {
+            return next();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void test_publish_without_publication_is_dropped(){
+        AeronPublisher publisher = new AeronPublisher(new AeronConfig.AeronConfigBuilder().build());
+        assertFalse(publisher.publish(new byte[]{1, 2, 3}));
+
+        SequencedSerializer serializer = new SequencedSerializer(new SBESerializer());
+        MarketDataContainer container = new MarketDataContainer();
+        container.setTrade(1, 1000, 10, 100);
+        assertFalse(publisher.publish(container, serializer));
+        // nothing was encoded
+        assertEquals(0, serializer.getSequence());
+        assertEquals(2, publisher.getDropped());
+    }
+
+    @Test
+    public void test_not_connected_is_not_retried(){
+        ScriptedPublisher publisher = new ScriptedPublisher(10, Publication.NOT_CONNECTED);
+        assertFalse(publisher.publish(new byte[]{1}));
+        assertEquals(1, publisher.attempts);
+        assertEquals(1, publisher.getDropped());
+    }
+
+    @Test
+    public void test_back_pressure_is_retried(){
+        ScriptedPublisher publisher = new ScriptedPublisher(10, BACK_PRESSURED, BACK_PRESSURED, 64L);
+        assertTrue(publisher.publish(new byte[]{1}));
+        assertEquals(3, publisher.attempts);
+        assertEquals(0, publisher.getDropped());
+    }
+
+    @Test(timeout = 5000)
+    public void test_back_pressure_is_dropped_after_max_retries(){
+        ScriptedPublisher publisher = new ScriptedPublisher(5, BACK_PRESSURED);
+        assertFalse(publisher.publish(new UnsafeBuffer(new byte[8]), 0, 8));
+        assertEquals(6, publisher.attempts);
+        assertEquals(1, publisher.getDropped());
+
+        SequencedSerializer serializer = new SequencedSerializer(new SBESerializer());
+        MarketDataContainer container = new MarketDataContainer();
+        container.setTrade(1, 1000, 10, 100);
+        assertFalse(publisher.publish(container, serializer));
+        assertEquals(0, serializer.getSequence());
+        assertEquals(2, publisher.getDropped());
+    }
+}
@@ -0,0 +1,50 @@
+package com.unisoft.algotrader.utils.serialization;
+
+import com.unisoft.algotrader.model.event.data.MarketDataContainer;
+import com.unisoft.algotrader.model.serialization.sbe.SBESerializer;
+import org.junit.Test;
+import uk.co.real_logic.agrona.concurrent.UnsafeBuffer;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+
+public class SequencedSerializerTest {
+
+    @Test
+    public void test_sequence_framing() throws Exception{
+        SequencedSerializer serializer = new SequencedSerializer(new SBESerializer());
+        UnsafeBuffer buffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+        assertEquals(0, serializer.getSequence());
+
+        int offset = 0;
+        for (int i = 1; i <= 3; i++){
+            MarketDataContainer container = new MarketDataContainer();
+            container.setTrade(i, 1000 * i, 88, 100);
+            int length = serializer.serialize(container, buffer, offset);
+            assertEquals(serializer.encodedLength(container), length);
+
+            assertEquals(i, SequencedSerializer.sequence(buffer, offset));
+            MarketDataContainer decoded = serializer.deserialize(buffer, offset);
+            assertEquals(i, decoded.instId);
+            assertEquals(1000 * i, decoded.trade.dateTime);
+            offset += length;
+        }
+        assertEquals(3, serializer.getSequence());
+    }
+
+    @Test
+    public void test_byte_array() throws Exception{
+        SequencedSerializer serializer = new SequencedSerializer(new SBESerializer());
+        MarketDataContainer container = new MarketDataContainer();
+        container.setQuote(5, 1000, 87, 88, 10, 20);
+
+        serializer.serialize(container);
+        byte[] bytes = serializer.serialize(container);
+        assertEquals(2, SequencedSerializer.sequence(new UnsafeBuffer(bytes), 0));
+
+        MarketDataContainer decoded = serializer.deserialize(bytes);
+        assertEquals(5, decoded.instId);
+        assertEquals(88, decoded.quote.ask, 0.0);
+    }
+}
@@ -1,13 +1,26 @@
 package com.unisoft.algotrader.utils.serialization.sbe;
 
+import com.unisoft.algotrader.model.event.data.*;
 import com.unisoft.algotrader.model.event.data.sbe.MessageHeader;
 import com.unisoft.algotrader.model.event.data.sbe.Quote;
+import com.unisoft.algotrader.model.event.execution.ExecutionReport;
+import com.unisoft.algotrader.model.event.execution.Order;
+import com.unisoft.algotrader.model.serialization.sbe.SBESerializer;
+import com.unisoft.algotrader.model.trading.*;
+import com.unisoft.algotrader.utils.serialization.Serializer;
+import com.unisoft.algotrader.utils.serialization.kryo.KryoSerializer;
+import com.unisoft.algotrader.utils.serialization.msgpack.MsgpackSerializer;
 import org.junit.Assert;
 import org.junit.Test;
 import uk.co.real_logic.agrona.concurrent.UnsafeBuffer;
 
 import java.nio.ByteBuffer;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
 /**
  * Created by alex on 4/27/15.
  */
@@ -180,4 +193,177 @@ public class SBESerializationTest {
 //
 //        System.out.println(sb);
     }
+
+    private static MarketDataContainer sampleMarketData(long instId){
+        MarketDataContainer container = new MarketDataContainer();
+        container.setBar(instId, 60, 1000, 88, 89.5, 87.5, 89, 12000, 3);
+        container.setQuote(instId, 1000, 88.9, 89.1, 300, 500);
+        container.setTrade(instId, 1000, 89, 200);
+        return container;
+    }
+
+    private static Order sampleOrder(){
+        Order order = new Order();
+        order.clOrderId = 100;
+        order.orderId = 200;
+        order.instId = 5;
+        order.strategyId = 3;
+        order.providerId = 1;
+        order.portfolioId = 7;
+        order.accountId = "TestAccount";
+        order.dateTime = 1000;
+        order.ordType = OrdType.Limit;
+        order.side = Side.Buy;
+        order.tif = TimeInForce.Day;
+        order.ordQty = 500;
+        order.limitPrice = 88.5;
+        order.filledQty = 200;
+        order.avgPrice = 88.4;
+        order.stopLimitReady = true;
+        order.text = "partial";
+        return order;
+    }
+
+    private static ExecutionReport sampleExecutionReport(){
+        ExecutionReport executionReport = new ExecutionReport();
+        executionReport.execId = 300;
+        executionReport.orderId = 200;
+        executionReport.clOrderId = 100;
+        executionReport.instId = 5;
+        executionReport.transactionTime = 1000;
+        executionReport.ordType = OrdType.Limit;
+        executionReport.ordStatus = OrdStatus.PartiallyFilled;
+        executionReport.execType = ExecType.PartialFill;
+        executionReport.side = Side.Buy;
+        executionReport.ordQty = 500;
+        executionReport.lastQty = 200;
+        executionReport.lastPrice = 88.4;
+        executionReport.filledQty = 200;
+        executionReport.avgPrice = 88.4;
+        return executionReport;
+    }
+
+    @Test
+    public void test_sbe_serializer_round_trip(){
+        SBESerializer serializer = new SBESerializer();
+        UnsafeBuffer buffer = new UnsafeBuffer(ByteBuffer.allocateDirect(4096));
+
+        MarketDataContainer container = sampleMarketData(12);
+        serializer.serialize(container, buffer, 0);
+        assertEquals(container, serializer.deserialize(buffer, 0));
+
+        MarketDataContainer quoteOnly = new MarketDataContainer();
+        quoteOnly.setQuote(12, 2000, 88, 89, 100, 200);
+        serializer.serialize(quoteOnly, buffer, 0);
+        MarketDataContainer decoded = serializer.deserialize(buffer, 0);
+        assertEquals(quoteOnly, decoded);
+        assertFalse(decoded.hasBar());
+        assertFalse(decoded.hasTrade());
+
+        MarketDepth marketDepth = new MarketDepth(12, 3000, 1, 2, MDOperation.Update, MDSide.Ask, 89.2, 700);
+        serializer.serialize(marketDepth, buffer, 0);
+        assertEquals(marketDepth, serializer.deserialize(buffer, 0));
+
+        Order order = sampleOrder();
+        int length = serializer.serialize(order, buffer, 0);
+        assertEquals(length, serializer.length(buffer, 0));
+        Order decodedOrder = serializer.deserialize(buffer, 0);
+        assertEquals(order, decodedOrder);
+        assertNull(decodedOrder.ocaGroup);
+        assertEquals(OrdStatus.New, decodedOrder.ordStatus);
+
+        ExecutionReport executionReport = sampleExecutionReport();
+        executionReport.text = "fill";
+        length = serializer.serialize(executionReport, buffer, 0);
+        assertEquals(length, serializer.length(buffer, 0));
+        assertEquals(executionReport, serializer.deserialize(buffer, 0));
+    }
+
+    @Test
+    public void test_sbe_serializer_reuse_decoded_instance(){
+        SBESerializer serializer = new SBESerializer();
+        UnsafeBuffer buffer = new UnsafeBuffer(ByteBuffer.allocateDirect(4096));
+
+        Order order = sampleOrder();
+        serializer.serialize(order, buffer, 0);
+        Order decoded1 = serializer.deserialize(buffer, 0);
+        String accountId = decoded1.accountId;
+
+        order.clOrderId = 101;
+        order.ordType = null;
+        order.text = null;
+        serializer.serialize(order, buffer, 0);
+        Order decoded2 = serializer.deserialize(buffer, 0);
+
+        assertSame(decoded1, decoded2);
+        assertSame(accountId, decoded2.accountId);
+        assertEquals(101, decoded2.clOrderId);
+        assertNull(decoded2.ordType);
+        assertNull(decoded2.text);
+    }
+
+    @Test
+    public void test_sbe_serializer_byte_buffer_sequence(){
+        SBESerializer serializer = new SBESerializer();
+        ByteBuffer byteBuffer = ByteBuffer.allocate(4096);
+
+        serializer.serialize(sampleMarketData(1), byteBuffer);
+        serializer.serialize(sampleOrder(), byteBuffer);
+        serializer.serialize(sampleExecutionReport(), byteBuffer);
+        serializer.serialize(sampleMarketData(2), byteBuffer);
+        byteBuffer.flip();
+
+        assertEquals(sampleMarketData(1), serializer.deserialize(byteBuffer));
+        assertEquals(sampleOrder(), serializer.deserialize(byteBuffer));
+        assertEquals(sampleExecutionReport(), serializer.deserialize(byteBuffer));
+        assertEquals(sampleMarketData(2), serializer.deserialize(byteBuffer));
+        assertEquals(byteBuffer.limit(), byteBuffer.position());
+
+        byte[] bytes = serializer.serialize(sampleOrder());
+        assertEquals(sampleOrder(), serializer.deserialize(bytes));
+    }
+
+    /**
+     * Encode and decode the same quote with SBE, Kryo and Msgpack, prints the throughput of each.
+     */
+    @Test
+    public void test_benchmark_against_kryo_and_msgpack() throws Exception{
+        int iter = 1_000_000;
+
+        SBESerializer sbeSerializer = new SBESerializer();
+        UnsafeBuffer buffer = new UnsafeBuffer(ByteBuffer.allocateDirect(4096));
+        MarketDataContainer container = new MarketDataContainer();
+        container.setQuote(127, System.currentTimeMillis(), 98, 99, 500, 329);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iter; i++){
+            container.quote.bid = i;
+            sbeSerializer.serialize(container, buffer, 0);
+            MarketDataContainer decoded = sbeSerializer.deserialize(buffer, 0);
+            assert decoded.quote.bid == i;
+        }
+        printRate("SBE", iter, System.nanoTime() - start);
+
+        com.unisoft.algotrader.model.event.data.Quote quote =
+                new com.unisoft.algotrader.model.event.data.Quote(127, System.currentTimeMillis(), 98, 99, 500, 329);
+        benchmark("Kryo", new KryoSerializer(), quote, iter);
+        benchmark("Msgpack", new MsgpackSerializer(), quote, iter);
+    }
+
+    private static void benchmark(String name, Serializer serializer, Object content, int iter) throws Exception{
+        serializer.register(content.getClass());
+        ByteBuffer byteBuffer = ByteBuffer.allocateDirect(4096);
+        long start = System.nanoTime();
+        for (int i = 0; i < iter; i++){
+            serializer.serialize(content, byteBuffer);
+            byteBuffer.flip();
+            serializer.deserialize(byteBuffer);
+            byteBuffer.clear();
+        }
+        printRate(name, iter, System.nanoTime() - start);
+    }
+
+    private static void printRate(String name, int iter, long nanos){
+        System.out.format("%s: %,d encode/decode per sec%n", name, iter * 1_000_000_000L / Math.max(nanos, 1));
+    }
 }
@@ -0,0 +1,31 @@
+package com.unisoft.algotrader.config;
+
+import com.unisoft.algotrader.model.event.bus.EventBusManager;
+import com.unisoft.algotrader.trading.OrderManager;
+import com.unisoft.algotrader.trading.journal.TradingStateJournal;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+/**
+ * Create the OrderManager journaling its events to the TradingStateJournal, it recovers the state from the journal
+ * when it is started, before it handles any new event.
+ */
+public class OrderManagerProvider implements Provider<OrderManager> {
+
+    private EventBusManager eventBusManager;
+    private TradingStateJournal stateJournal;
+
+    @Inject
+    public OrderManagerProvider(EventBusManager eventBusManager, TradingStateJournal stateJournal){
+        this.eventBusManager = eventBusManager;
+        this.stateJournal = stateJournal;
+    }
+
+    @Override
+    public OrderManager get() {
+        OrderManager orderManager = new OrderManager(eventBusManager);
+        orderManager.setStateJournal(stateJournal);
+        return orderManager;
+    }
+}
@@ -6,8 +6,14 @@ import com.unisoft.algotrader.persistence.RefDataStore;
 import com.unisoft.algotrader.persistence.TradingDataStore;
 import com.unisoft.algotrader.persistence.cassandra.CassandraRefDataStore;
 import com.unisoft.algotrader.persistence.cassandra.CassandraTradingDataStore;
+import com.unisoft.algotrader.trading.OrderManager;
+import com.unisoft.algotrader.trading.PortfolioManager;
+import com.unisoft.algotrader.trading.TradingDataJournal;
+import com.unisoft.algotrader.trading.journal.TradingStateJournal;
 import com.unisoft.algotrader.utils.config.BaseConfigModule;
+import com.unisoft.algotrader.utils.id.AtomicIntIdSupplier;
 
+import javax.inject.Singleton;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -22,5 +28,9 @@ public class TradingConfigModule extends BaseConfigModule {
         bind(RefDataStore.class).to(CassandraRefDataStore.class);
         bind(TradingDataStore.class).to(CassandraTradingDataStore.class);
         bind(ExecutorService.class).toInstance(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()));
+        bind(TradingDataJournal.class).toProvider(TradingDataJournalProvider.class).asEagerSingleton();
+        bind(PortfolioManager.class).toInstance(new PortfolioManager(new AtomicIntIdSupplier()));
+        bind(TradingStateJournal.class).in(Singleton.class);
+        bind(OrderManager.class).toProvider(OrderManagerProvider.class).in(Singleton.class);
     }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.unisoft.algotrader.config;
+
+import com.unisoft.algotrader.model.event.bus.EventBusManager;
+import com.unisoft.algotrader.persistence.TradingDataStore;
+import com.unisoft.algotrader.trading.TradingDataJournal;
+import com.unisoft.algotrader.trading.TradingDataJournalConfig;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Create the TradingDataJournal on the order and execution event ring buffers and start it, it gates them from then on.
+ */
+public class TradingDataJournalProvider implements Provider<TradingDataJournal> {
+
+    private EventBusManager eventBusManager;
+    private TradingDataStore tradingDataStore;
+    private TradingDataJournalConfig config;
+    private ExecutorService executorService;
+
+    @Inject
+    public TradingDataJournalProvider(EventBusManager eventBusManager, TradingDataStore tradingDataStore, TradingDataJournalConfig config, ExecutorService executorService){
+        this.eventBusManager = eventBusManager;
+        this.tradingDataStore = tradingDataStore;
+        this.config = config;
+        this.executorService = executorService;
+    }
+
+    @Override
+    public TradingDataJournal get() {
+        TradingDataJournal tradingDataJournal = new TradingDataJournal(eventBusManager, tradingDataStore, config);
+        executorService.submit(tradingDataJournal);
+        return tradingDataJournal;
+    }
+}
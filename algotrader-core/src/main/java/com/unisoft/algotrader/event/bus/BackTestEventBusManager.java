@@ -15,6 +15,15 @@ public class BackTestEventBusManager extends EventBusManager {
 
     @Inject
     public BackTestEventBusManager(){
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * A back test driven on the caller thread barely touches the ring buffers, so a small size keeps
+     * the per run allocation low when many back tests are created.
+     */
+    public BackTestEventBusManager(int bufferSize){
+        super(bufferSize);
 
         marketDataEventBus = new RingBufferMarketDataEventBus(marketDataRB);
         marketDepthEventBus = new RingBufferMarketDepthEventBus(marketDepthRB);
@@ -14,9 +14,16 @@ public class DefaultEventBusManager extends EventBusManager {
     public final ExecutionEventBus executionEventBus;
     public final OrderEventBus orderEventBus;
 
-    @Inject
     public DefaultEventBusManager(){
-        marketDataEventBus = new RingBufferMarketDataEventBus(marketDataRB);
+        this(new EventBusConfig());
+    }
+
+    @Inject
+    public DefaultEventBusManager(EventBusConfig config){
+        super(config);
+        marketDataEventBus = marketDataRBs.length == 1
+                ? new RingBufferMarketDataEventBus(marketDataRB)
+                : new PartitionedMarketDataEventBus(marketDataRBs);
         marketDepthEventBus = new RingBufferMarketDepthEventBus(marketDepthRB);
         executionEventBus = new RingBufferExecutionEventBus(executionEventRB);
         orderEventBus = new RingBufferOrderEventBus(orderEventRB);
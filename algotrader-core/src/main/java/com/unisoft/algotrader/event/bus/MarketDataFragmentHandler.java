@@ -0,0 +1,78 @@
+package com.unisoft.algotrader.event.bus;
+
+import com.lmax.disruptor.RingBuffer;
+import com.unisoft.algotrader.model.event.bus.EventBusManager;
+import com.unisoft.algotrader.model.event.data.MarketDataContainer;
+import com.unisoft.algotrader.model.serialization.sbe.MarketDataMessage;
+import com.unisoft.algotrader.model.serialization.sbe.SBESerializer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.co.real_logic.aeron.logbuffer.FragmentHandler;
+import uk.co.real_logic.aeron.logbuffer.Header;
+import uk.co.real_logic.agrona.DirectBuffer;
+import uk.co.real_logic.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Aeron {@link FragmentHandler} which decodes the SBE encoded market data straight from the term buffer into the
+ * claimed slot of the market data ring buffer (of the partition of the instrument), no intermediate byte[] or
+ * event object is created. Fragments carrying other messages are ignored.
+ *
+ * Register with {@link com.unisoft.algotrader.utils.networking.aeron.AeronSubscriber#subscribe(FragmentHandler)},
+ * fragments are delivered on the subscriber thread.
+ */
+public class MarketDataFragmentHandler implements FragmentHandler {
+
+    private static final Logger LOG = LogManager.getLogger(MarketDataFragmentHandler.class);
+
+    private final RingBuffer<MarketDataContainer>[] marketDataRBs;
+    private final SBESerializer serializer;
+    private final UnsafeBuffer unsafeBuffer = new UnsafeBuffer(new byte[0]);
+
+    private long ignored;
+
+    public MarketDataFragmentHandler(EventBusManager eventBusManager){
+        this(eventBusManager.getMarketDataRBs());
+    }
+
+    public MarketDataFragmentHandler(RingBuffer<MarketDataContainer>... marketDataRBs){
+        this(new SBESerializer(), marketDataRBs);
+    }
+
+    public MarketDataFragmentHandler(SBESerializer serializer, RingBuffer<MarketDataContainer>... marketDataRBs){
+        this.serializer = serializer;
+        this.marketDataRBs = marketDataRBs;
+    }
+
+    @Override
+    public void onFragment(DirectBuffer buffer, int offset, int length, Header header) {
+        unsafeBuffer.wrap(buffer);
+        if (serializer.templateId(unsafeBuffer, offset) != MarketDataMessage.TEMPLATE_ID){
+            if (ignored++ == 0){
+                LOG.warn("ignore non market data message, templateId={}", serializer.templateId(unsafeBuffer, offset));
+            }
+            return;
+        }
+
+        RingBuffer<MarketDataContainer> rb = marketDataRBs[0];
+        if (marketDataRBs.length > 1){
+            rb = marketDataRBs[EventBusManager.partition(serializer.instId(unsafeBuffer, offset), marketDataRBs.length)];
+        }
+
+        long sequence = rb.next();
+        try {
+            MarketDataContainer container = rb.get(sequence);
+            container.reset();
+            serializer.decode(unsafeBuffer, offset, container);
+        }
+        finally {
+            rb.publish(sequence);
+        }
+    }
+
+    /**
+     * Number of fragments skipped because they were not market data.
+     */
+    public long getIgnored(){
+        return ignored;
+    }
+}
@@ -0,0 +1,41 @@
+package com.unisoft.algotrader.event.bus;
+
+import com.lmax.disruptor.RingBuffer;
+import com.unisoft.algotrader.model.event.bus.EventBusManager;
+import com.unisoft.algotrader.model.event.bus.MarketDataEventBus;
+import com.unisoft.algotrader.model.event.data.MarketDataContainer;
+
+/**
+ * Publish each event into the market data partition of its instrument, see {@link EventBusManager#partition(long, int)}.
+ * All the events of one instrument go through the same ring buffer, so they keep their order.
+ */
+public class PartitionedMarketDataEventBus implements MarketDataEventBus {
+
+    private final RingBufferMarketDataEventBus[] partitions;
+
+    public PartitionedMarketDataEventBus(RingBuffer<MarketDataContainer>[] marketDataRBs){
+        this.partitions = new RingBufferMarketDataEventBus[marketDataRBs.length];
+        for (int i = 0; i < marketDataRBs.length; i++) {
+            partitions[i] = new RingBufferMarketDataEventBus(marketDataRBs[i]);
+        }
+    }
+
+    private RingBufferMarketDataEventBus partition(long instId){
+        return partitions[EventBusManager.partition(instId, partitions.length)];
+    }
+
+    @Override
+    public void publishBar(long instId, int size, long dateTime, double open, double high, double low, double close, long volume, long openInt) {
+        partition(instId).publishBar(instId, size, dateTime, open, high, low, close, volume, openInt);
+    }
+
+    @Override
+    public void publishQuote(long instId, long dateTime, double bid, double ask, int bidSize, int askSize) {
+        partition(instId).publishQuote(instId, dateTime, bid, ask, bidSize, askSize);
+    }
+
+    @Override
+    public void publishTrade(long instId, long dateTime, double price, int size) {
+        partition(instId).publishTrade(instId, dateTime, price, size);
+    }
+}
@@ -1,6 +1,5 @@
 package com.unisoft.algotrader.trading;
 
-import com.unisoft.algotrader.model.event.Event;
 import com.unisoft.algotrader.model.event.bus.EventBusManager;
 import com.unisoft.algotrader.model.event.execution.ExecutionReport;
 import com.unisoft.algotrader.model.event.execution.Order;
@@ -36,19 +35,22 @@ public class BackTestOrderManager extends OrderManager {
     @Override
     public void onNewOrderRequest(Order order) {
         super.onNewOrderRequest(order);
-        providerManager.getExecutionProvider(order.providerId).onNewOrderRequest(order);
+        if (!recovering)
+            providerManager.getExecutionProvider(order.providerId).onNewOrderRequest(order);
     }
 
     @Override
     public void onOrderUpdateRequest(Order order){
         super.onOrderUpdateRequest(order);
-        providerManager.getExecutionProvider(order.providerId).onOrderUpdateRequest(order);
+        if (!recovering)
+            providerManager.getExecutionProvider(order.providerId).onOrderUpdateRequest(order);
     }
 
     @Override
     public void onOrderCancelRequest(Order order){
         super.onOrderCancelRequest(order);
-        providerManager.getExecutionProvider(order.providerId).onOrderCancelRequest(order);
+        if (!recovering)
+            providerManager.getExecutionProvider(order.providerId).onOrderCancelRequest(order);
 
     }
 
@@ -69,7 +71,7 @@ public class BackTestOrderManager extends OrderManager {
             Strategy strategy = strategyManager.get(order.strategyId);
             PortfolioProcessor processor = portfolioManager.getPortfolioProcessor(order.portfolioId);
 
-            if (strategy != null)
+            if (strategy != null && !recovering)
                 strategy.onExecutionReport(executionReport);
 
             if (processor != null) {
@@ -88,7 +90,8 @@ public class BackTestOrderManager extends OrderManager {
                         }
                     }
                 }
-                strategy.onOrderStatusUpdate(order);
+                if (strategy != null && !recovering)
+                    strategy.onOrderStatusUpdate(order);
             }
         } else {
             throw new RuntimeException("Cannot found order, executionReport=" + executionReport);
@@ -98,13 +101,13 @@ public class BackTestOrderManager extends OrderManager {
 
     @Override
     public void onOrderCancelReject(OrderCancelReject orderCancelReject) {
-        Order order = orderTable.getOrder(orderCancelReject.providerId, orderCancelReject.clOrderId);
+        Order order = orderTable.getOrder(orderCancelReject.strategyId, orderCancelReject.clOrderId);
         OrdStatus prevOrdStatus = order.ordStatus;
         order.add(orderCancelReject);
 
         if(prevOrdStatus != order.ordStatus){
             Strategy strategy = strategyManager.get(order.strategyId);
-            if (strategy != null)
+            if (strategy != null && !recovering)
                 strategy.onOrderCancelReject(orderCancelReject);
 
             PortfolioProcessor processor = portfolioManager.getPortfolioProcessor(order.portfolioId);
@@ -114,11 +117,6 @@ public class BackTestOrderManager extends OrderManager {
         }
     }
 
-    @Override
-    public void onEvent(Event event) {
-        event.on(this);
-    }
-
     public void clear(){
         this.orderTable.clear();
     }
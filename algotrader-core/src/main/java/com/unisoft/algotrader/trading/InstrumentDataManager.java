@@ -79,11 +79,11 @@ public class InstrumentDataManager extends MultiEventProcessor implements Market
 
     @Inject
     public InstrumentDataManager(EventBusManager eventBusManager){
-        this(eventBusManager.getMarketDataRB());
+        this(eventBusManager.getMarketDataRBs());
     }
 
-    public InstrumentDataManager(RingBuffer ringBuffer){
-        super(new NoWaitStrategy(), ringBuffer);
+    public InstrumentDataManager(RingBuffer... ringBuffers){
+        super(new NoWaitStrategy(), ringBuffers);
     }
 
     @Override
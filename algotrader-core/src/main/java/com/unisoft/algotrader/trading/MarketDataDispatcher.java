@@ -0,0 +1,243 @@
+package com.unisoft.algotrader.trading;
+
+import com.google.common.collect.Maps;
+import com.lmax.disruptor.RingBuffer;
+import com.unisoft.algotrader.model.event.Event;
+import com.unisoft.algotrader.model.event.bus.EventBusManager;
+import com.unisoft.algotrader.model.event.data.*;
+import com.unisoft.algotrader.utils.threading.disruptor.MultiEventProcessor;
+import com.unisoft.algotrader.utils.threading.disruptor.waitstrategy.NoWaitStrategy;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Single consumer of the market data ring buffers which routes each event by instId to the handlers subscribed
+ * to that instrument, instead of every strategy / portfolio consuming the whole feed and filtering in its handlers.
+ *
+ * The routing table is an open addressing instId -> handler[] table in primitive arrays. It is rebuilt on every
+ * (rare) subscription change and swapped in as an immutable snapshot, so the dispatch path does no locking, boxing
+ * or allocation. Handlers subscribed with {@link #subscribeAll} receive every event.
+ *
+ * The strategies and portfolios receive their market data only from the dispatcher, on the dispatcher thread: a
+ * {@link Strategy} or {@link PortfolioProcessor} registered here is created without the market data ring buffers,
+ * its register method fails otherwise.
+ */
+public class MarketDataDispatcher extends MultiEventProcessor implements MarketDataHandler {
+
+    private static final MarketDataHandler[] NO_HANDLER = new MarketDataHandler[0];
+
+    private final Map<Long, MarketDataHandler[]> subscriptions = Maps.newHashMap();
+    private MarketDataHandler[] allHandlers = NO_HANDLER;
+
+    private final RingBuffer[] marketDataRBs;
+    private volatile RoutingTable routingTable = RoutingTable.EMPTY;
+
+    public MarketDataDispatcher(EventBusManager eventBusManager){
+        this(eventBusManager.getMarketDataRBs());
+    }
+
+    public MarketDataDispatcher(RingBuffer... providers){
+        super(new NoWaitStrategy(), providers);
+        this.marketDataRBs = providers;
+    }
+
+    public synchronized void subscribe(long instId, MarketDataHandler handler){
+        MarketDataHandler[] handlers = subscriptions.getOrDefault(instId, NO_HANDLER);
+        if (indexOf(handlers, handler) < 0){
+            subscriptions.put(instId, add(handlers, handler));
+            rebuild();
+        }
+    }
+
+    public synchronized void unsubscribe(long instId, MarketDataHandler handler){
+        MarketDataHandler[] handlers = subscriptions.get(instId);
+        if (handlers != null && indexOf(handlers, handler) >= 0){
+            handlers = remove(handlers, handler);
+            if (handlers.length == 0){
+                subscriptions.remove(instId);
+            }
+            else {
+                subscriptions.put(instId, handlers);
+            }
+            rebuild();
+        }
+    }
+
+    /**
+     * Route the instruments of the strategy context to the handler.
+     */
+    public void subscribe(StrategyContext strategyContext, MarketDataHandler handler){
+        for (long instId : strategyContext.instIdSet){
+            subscribe(instId, handler);
+        }
+    }
+
+    public void unsubscribe(StrategyContext strategyContext, MarketDataHandler handler){
+        for (long instId : strategyContext.instIdSet){
+            unsubscribe(instId, handler);
+        }
+    }
+
+    public synchronized void subscribeAll(MarketDataHandler handler){
+        if (indexOf(allHandlers, handler) < 0){
+            allHandlers = add(allHandlers, handler);
+            rebuild();
+        }
+    }
+
+    public synchronized void unsubscribeAll(MarketDataHandler handler){
+        if (indexOf(allHandlers, handler) >= 0){
+            allHandlers = remove(allHandlers, handler);
+            rebuild();
+        }
+    }
+
+    /**
+     * Handlers the event of the instrument is routed to, including the handlers subscribed to all instruments.
+     */
+    public MarketDataHandler[] getHandlers(long instId){
+        return routingTable.get(instId);
+    }
+
+    /**
+     * Fail when the processor also consumes one of the ring buffers of the dispatcher, its handlers would receive
+     * each event twice on two threads.
+     */
+    void checkSoleConsumer(MultiEventProcessor processor){
+        for (RingBuffer marketDataRB : marketDataRBs){
+            if (processor.consumes(marketDataRB)){
+                throw new IllegalStateException("Already consumes the market data ring buffer of the dispatcher, processor=" + processor);
+            }
+        }
+    }
+
+    @Override
+    public void onEvent(Event event) {
+        event.on(this);
+    }
+
+    @Override
+    public void onMarketDataContainer(MarketDataContainer container) {
+        MarketDataHandler[] handlers = routingTable.get(container.instId);
+        for (int i = 0; i < handlers.length; i++){
+            handlers[i].onMarketDataContainer(container);
+        }
+    }
+
+    @Override
+    public void onBar(Bar bar) {
+        MarketDataHandler[] handlers = routingTable.get(bar.instId);
+        for (int i = 0; i < handlers.length; i++){
+            handlers[i].onBar(bar);
+        }
+    }
+
+    @Override
+    public void onQuote(Quote quote) {
+        MarketDataHandler[] handlers = routingTable.get(quote.instId);
+        for (int i = 0; i < handlers.length; i++){
+            handlers[i].onQuote(quote);
+        }
+    }
+
+    @Override
+    public void onTrade(Trade trade) {
+        MarketDataHandler[] handlers = routingTable.get(trade.instId);
+        for (int i = 0; i < handlers.length; i++){
+            handlers[i].onTrade(trade);
+        }
+    }
+
+    @Override
+    public void onMarketDepth(MarketDepth marketDepth) {
+        MarketDataHandler[] handlers = routingTable.get(marketDepth.instId);
+        for (int i = 0; i < handlers.length; i++){
+            handlers[i].onMarketDepth(marketDepth);
+        }
+    }
+
+    private void rebuild(){
+        RoutingTable table = new RoutingTable(subscriptions.size(), allHandlers);
+        for (Map.Entry<Long, MarketDataHandler[]> entry : subscriptions.entrySet()){
+            MarketDataHandler[] handlers = entry.getValue();
+            for (MarketDataHandler handler : allHandlers){
+                if (indexOf(handlers, handler) < 0){
+                    handlers = add(handlers, handler);
+                }
+            }
+            table.put(entry.getKey(), handlers);
+        }
+        routingTable = table;
+    }
+
+    private static int indexOf(MarketDataHandler[] handlers, MarketDataHandler handler){
+        for (int i = 0; i < handlers.length; i++){
+            if (handlers[i] == handler){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static MarketDataHandler[] add(MarketDataHandler[] handlers, MarketDataHandler handler){
+        MarketDataHandler[] result = Arrays.copyOf(handlers, handlers.length + 1);
+        result[handlers.length] = handler;
+        return result;
+    }
+
+    private static MarketDataHandler[] remove(MarketDataHandler[] handlers, MarketDataHandler handler){
+        int index = indexOf(handlers, handler);
+        MarketDataHandler[] result = new MarketDataHandler[handlers.length - 1];
+        System.arraycopy(handlers, 0, result, 0, index);
+        System.arraycopy(handlers, index + 1, result, index, handlers.length - index - 1);
+        return result;
+    }
+
+    /**
+     * Immutable open addressing (linear probing) instId -> handler[] table, instIds without subscription map to
+     * the handlers subscribed to all instruments.
+     */
+    private static final class RoutingTable {
+        private static final RoutingTable EMPTY = new RoutingTable(0, NO_HANDLER);
+
+        private final long[] keys;
+        private final MarketDataHandler[][] values;
+        private final int mask;
+        private final MarketDataHandler[] defaultValue;
+
+        private RoutingTable(int size, MarketDataHandler[] defaultValue){
+            // keep the load factor at or below 0.5
+            int capacity = Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+            this.keys = new long[capacity];
+            this.values = new MarketDataHandler[capacity][];
+            this.mask = capacity - 1;
+            this.defaultValue = defaultValue;
+        }
+
+        private static int index(long instId, int mask){
+            return (int) ((instId * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+
+        private void put(long instId, MarketDataHandler[] handlers){
+            int i = index(instId, mask);
+            while (values[i] != null && keys[i] != instId){
+                i = (i + 1) & mask;
+            }
+            keys[i] = instId;
+            values[i] = handlers;
+        }
+
+        private MarketDataHandler[] get(long instId){
+            int i = index(instId, mask);
+            MarketDataHandler[] handlers;
+            while ((handlers = values[i]) != null){
+                if (keys[i] == instId){
+                    return handlers;
+                }
+                i = (i + 1) & mask;
+            }
+            return defaultValue;
+        }
+    }
+}
@@ -1,198 +1,303 @@
 package com.unisoft.algotrader.trading;
 
-import com.google.common.collect.Lists;
 import com.unisoft.algotrader.model.event.data.MDSide;
 import com.unisoft.algotrader.model.event.data.MarketDepth;
 import com.unisoft.algotrader.model.event.data.Quote;
 
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * Created by alex on 9/17/15.
+ *
+ * Level book fed by {@link MarketDepth} updates. Each side keeps its levels in parallel primitive
+ * arrays (best level first) that are only grown, never reallocated per update, together with running
+ * total volume / notional so that the aggregate queries do not need to walk the book.
  */
 public class OrderBook {
 
-    public static class Entry {
-        public long dateTime;
-        public double price;
-        public int size;
+    private static final int DEFAULT_DEPTH = 32;
 
-        public Entry(long dateTime, double price, int size) {
-            this.dateTime = dateTime;
-            this.price = price;
-            this.size = size;
+    /**
+     * One side of the book. Bids are kept in descending price order, asks in ascending order.
+     */
+    public static class BookSide {
+        private final boolean descending;
+
+        private long[] dateTimes;
+        private double[] prices;
+        private int[] sizes;
+        private int count = 0;
+
+        private long volume = 0;
+        private double notional = 0;
+
+        BookSide(boolean descending, int capacity) {
+            this.descending = descending;
+            this.dateTimes = new long[capacity];
+            this.prices = new double[capacity];
+            this.sizes = new int[capacity];
+        }
+
+        public int count() {
+            return count;
+        }
+
+        public long dateTime(int level) {
+            return dateTimes[level];
+        }
+
+        public double price(int level) {
+            return prices[level];
+        }
+
+        public int size(int level) {
+            return sizes[level];
+        }
+
+        public long volume() {
+            return volume;
+        }
+
+        public double avgPrice() {
+            return volume > 0 ? notional / volume : 0;
+        }
+
+        /**
+         * @return the total size of the levels at or better than the given price
+         */
+        public long volume(double limitPrice) {
+            long result = 0;
+            for (int i = 0; i < count && (descending ? prices[i] >= limitPrice : prices[i] <= limitPrice); i++) {
+                result += sizes[i];
+            }
+            return result;
+        }
+
+        /**
+         * @return the total size of the levels with the given price, 0 if none
+         */
+        public long sizeAt(double price) {
+            long result = 0;
+            for (int i = insertionPoint(price) - 1; i >= 0 && prices[i] == price; i--) {
+                result += sizes[i];
+            }
+            return result;
+        }
+
+        /**
+         * @return the level at which a new entry with the given price is inserted, after all levels with the same price
+         */
+        int insertionPoint(double price) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                boolean before = descending ? prices[mid] >= price : prices[mid] <= price;
+                if (before)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+            return low;
+        }
+
+        void insert(int level, long dateTime, double price, int size) {
+            if (level > count)
+                level = count;
+            if (count == prices.length)
+                grow();
+            int moved = count - level;
+            if (moved > 0) {
+                System.arraycopy(dateTimes, level, dateTimes, level + 1, moved);
+                System.arraycopy(prices, level, prices, level + 1, moved);
+                System.arraycopy(sizes, level, sizes, level + 1, moved);
+            }
+            dateTimes[level] = dateTime;
+            prices[level] = price;
+            sizes[level] = size;
+            count++;
+
+            volume += size;
+            notional += price * size;
+        }
+
+        void update(int level, long dateTime, double price, int size) {
+            if (level < 0 || level >= count)
+                return;
+            volume -= sizes[level];
+            notional -= prices[level] * sizes[level];
+
+            dateTimes[level] = dateTime;
+            sizes[level] = size;
+            if (price > 0)
+                prices[level] = price;
+
+            volume += sizes[level];
+            notional += prices[level] * sizes[level];
+        }
+
+        void delete(int level) {
+            if (level < 0 || level >= count)
+                return;
+            volume -= sizes[level];
+            notional -= prices[level] * sizes[level];
+
+            int moved = count - level - 1;
+            if (moved > 0) {
+                System.arraycopy(dateTimes, level + 1, dateTimes, level, moved);
+                System.arraycopy(prices, level + 1, prices, level, moved);
+                System.arraycopy(sizes, level + 1, sizes, level, moved);
+            }
+            count--;
+
+            if (count == 0)
+                notional = 0;
+        }
+
+        void clear() {
+            count = 0;
+            volume = 0;
+            notional = 0;
+        }
+
+        /**
+         * Average price to fill qty by sweeping the levels from the top of the book. Quantity beyond the
+         * displayed depth is priced at the last level.
+         */
+        double avgPrice(double qty) {
+            if (count == 0 || qty <= 0)
+                return 0;
+
+            double value = 0;
+            double leaveQty = qty;
+            for (int i = 0; i < count && leaveQty > 0; i++) {
+                double fillQty = Math.min(leaveQty, sizes[i]);
+                value += prices[i] * fillQty;
+                leaveQty -= fillQty;
+            }
+
+            if (leaveQty > 0)
+                value += prices[count - 1] * leaveQty;
+
+            return value / qty;
+        }
+
+        private void grow() {
+            int capacity = prices.length << 1;
+            dateTimes = Arrays.copyOf(dateTimes, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
         }
     }
 
     public final long instId;
-    public List<Entry> bidList = Lists.newArrayList();
-    public List<Entry> askList = Lists.newArrayList();
+    public final BookSide bids;
+    public final BookSide asks;
 
     public OrderBook(long instId){
+        this(instId, DEFAULT_DEPTH);
+    }
+
+    public OrderBook(long instId, int depth){
         this.instId = instId;
+        this.bids = new BookSide(true, depth);
+        this.asks = new BookSide(false, depth);
     }
 
     public void add(MarketDepth marketDepth) {
-        List<Entry> list = marketDepth.side == MDSide.Bid ? bidList : marketDepth.side == MDSide.Ask ? askList : null;
-        if (list != null) {
+        BookSide side = marketDepth.side == MDSide.Bid ? bids : marketDepth.side == MDSide.Ask ? asks : null;
+        if (side != null) {
             switch (marketDepth.operation) {
                 case Insert:
-                    if (marketDepth.position == -1) {
-                        int index = -1;
-                        switch (marketDepth.side) {
-                            case Bid:
-                                index = 0;
-                                while (index < list.size()) {
-                                    if (marketDepth.price > list.get(index).price)
-                                        break;
-                                    index++;
-                                }
-                                break;
-                            case Ask:
-                                index = list.size();
-                                while (index > 0) {
-                                    if (marketDepth.price > list.get(index - 1).price)
-                                        break;
-                                    index--;
-                                }
-                                break;
-
-                        }
-                        list.add(index, new Entry(marketDepth.dateTime, marketDepth.price, marketDepth.size));
-                    } else {
-                        list.add(marketDepth.position, new Entry(marketDepth.dateTime, marketDepth.price, marketDepth.size));
+                    int level = marketDepth.position == -1 ? side.insertionPoint(marketDepth.price) : marketDepth.position;
+                    if (level >= 0) {
+                        side.insert(level, marketDepth.dateTime, marketDepth.price, marketDepth.size);
                     }
                     break;
                 case Update:
-                    if (marketDepth.position >= 0) {
-                        if (marketDepth.position < list.size()) {
-                            Entry entry = list.get(marketDepth.position);
-                            entry.dateTime = marketDepth.dateTime;
-                            entry.size = marketDepth.size;
-                            if (marketDepth.price > 0) {
-                                entry.price = marketDepth.price;
-                            }
-                        }
-                    }
+                    side.update(marketDepth.position, marketDepth.dateTime, marketDepth.price, marketDepth.size);
                     break;
                 case Delete:
-                    if (marketDepth.position >= 0) {
-                        list.remove(marketDepth.position);
-                    }
+                    side.delete(marketDepth.position);
                     break;
                 case Reset:
-                    list.clear();
+                    side.clear();
                     break;
             }
         }
     }
 
     public Quote getQuote(int level) {
-        long dateTime = -1;
-        double bid = 0;
-        double ask = 0;
-        int bidSize = 0;
-        int askSize = 0;
-        if (level < bidList.size()) {
-            Entry entry = bidList.get(level);
-            bid = entry.price;
-            bidSize = entry.size;
-            if (entry.dateTime > dateTime) {
-                dateTime = entry.dateTime;
+        return getQuote(level, new Quote());
+    }
+
+    /**
+     * Write the given level of the book into quote, without allocating.
+     */
+    public Quote getQuote(int level, Quote quote) {
+        quote.reset();
+        quote.instId = instId;
+        quote.dateTime = -1;
+        if (level < bids.count) {
+            quote.bid = bids.prices[level];
+            quote.bidSize = bids.sizes[level];
+            if (bids.dateTimes[level] > quote.dateTime) {
+                quote.dateTime = bids.dateTimes[level];
             }
         }
 
-        if (level < askList.size()) {
-            Entry entry = askList.get(level);
-            ask = entry.price;
-            askSize = entry.size;
-            if (entry.dateTime > dateTime) {
-                dateTime = entry.dateTime;
+        if (level < asks.count) {
+            quote.ask = asks.prices[level];
+            quote.askSize = asks.sizes[level];
+            if (asks.dateTimes[level] > quote.dateTime) {
+                quote.dateTime = asks.dateTimes[level];
             }
         }
-        return new Quote(instId, dateTime, bid, ask, bidSize, askSize);
+        return quote;
+    }
+
+    public int bidLevels() {
+        return bids.count;
+    }
+
+    public int askLevels() {
+        return asks.count;
     }
 
     public double getBidVolume() {
-        return bidList.stream().mapToInt(e -> e.size).sum();
+        return bids.volume;
     }
 
     public double getAskVolume() {
-        return askList.stream().mapToInt(e -> e.size).sum();
+        return asks.volume;
     }
 
-    public double getAvgBidPrice() {
-        double price = 0;
-        double size = 0;
-        for (Entry entry : bidList) {
-            price += entry.price * entry.size;
-            size += entry.size;
-        }
-        return (size > 0) ? price / size : 0;
+    public double getBidVolume(double limitPrice) {
+        return bids.volume(limitPrice);
+    }
+
+    public double getAskVolume(double limitPrice) {
+        return asks.volume(limitPrice);
     }
 
+    public double getAvgBidPrice() {
+        return bids.avgPrice();
+    }
 
     public double getAvgAskPrice() {
-        double price = 0;
-        double size = 0;
-        for (Entry entry : askList) {
-            price += entry.price * entry.size;
-            size += entry.size;
-        }
-        return (size > 0) ? price / size : 0;
+        return asks.avgPrice();
     }
 
     public double getAvgBidPrice(double qty) {
-        double avgPrice = 0;
-        double leaveQty = qty;
-
-        for (Entry entry : bidList) {
-            if (leaveQty >= entry.size){
-                avgPrice += entry.price * entry.size;
-                leaveQty -= entry.size;
-            }
-            else{
-                avgPrice += entry.price * leaveQty;
-                leaveQty = 0;
-            }
-            if (leaveQty <=0)
-                break;
-        }
-
-        if (leaveQty >= 0)
-            avgPrice += bidList.get(bidList.size()-1).price * leaveQty;
-
-        avgPrice /= qty;
-        return avgPrice;
+        return bids.avgPrice(qty);
     }
 
-
     public double getAvgAskPrice(double qty) {
-        double avgPrice = 0;
-        double leaveQty = qty;
-
-        for (Entry entry : askList) {
-            if (leaveQty >= entry.size){
-                avgPrice += entry.price * entry.size;
-                leaveQty -= entry.size;
-            }
-            else{
-                avgPrice += entry.price * leaveQty;
-                leaveQty = 0;
-            }
-            if (leaveQty <=0)
-                break;
-        }
-
-        if (leaveQty >= 0)
-            avgPrice += askList.get(askList.size()-1).price * leaveQty;
-
-        avgPrice /= qty;
-        return avgPrice;
+        return asks.avgPrice(qty);
     }
 
     public void clear() {
-        bidList.clear();
-        askList.clear();
+        bids.clear();
+        asks.clear();
     }
 }
@@ -1,10 +1,12 @@
 package com.unisoft.algotrader.trading;
 
+import com.lmax.disruptor.RingBuffer;
 import com.unisoft.algotrader.model.event.Event;
 import com.unisoft.algotrader.model.event.bus.EventBusManager;
 import com.unisoft.algotrader.model.event.execution.*;
 import com.unisoft.algotrader.model.trading.ExecType;
 import com.unisoft.algotrader.model.trading.OrdStatus;
+import com.unisoft.algotrader.trading.journal.TradingStateJournal;
 import com.unisoft.algotrader.utils.threading.disruptor.MultiEventProcessor;
 import com.unisoft.algotrader.utils.threading.disruptor.waitstrategy.NoWaitStrategy;
 import org.apache.logging.log4j.LogManager;
@@ -12,6 +14,7 @@ import org.apache.logging.log4j.Logger;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.io.IOException;
 
 /**
  * Created by alex on 5/18/15.
@@ -25,15 +28,28 @@ public class OrderManager extends MultiEventProcessor implements OrderEventHandl
 
     protected OrderTable orderTable = new OrderTable();
 
+    protected TradingStateJournal stateJournal;
+
+    /**
+     * True while the journal is replayed, the events only rebuild the state and nothing is sent out.
+     */
+    protected boolean recovering = false;
+
+    private boolean recovered = false;
+
     @Inject
     public OrderManager(EventBusManager eventBusManager){
-        super(new NoWaitStrategy(), eventBusManager.getExecutionEventRB(), eventBusManager.getOrderEventRB());
+        this(eventBusManager, eventBusManager.getExecutionEventRB(), eventBusManager.getOrderEventRB());
+    }
+
+    protected OrderManager(EventBusManager eventBusManager, RingBuffer... providers){
+        super(new NoWaitStrategy(), providers);
         this.eventBusManager = eventBusManager;
     }
 
     protected void addOrUpdateOrder(Order order){
         orderTable.addOrUpdateOrder(order);
-        //TODO persist
+        // persisted by the TradingDataJournal, bound and started by the TradingConfigModule
     }
 
     @Override
@@ -63,7 +79,7 @@ public class OrderManager extends MultiEventProcessor implements OrderEventHandl
                 execType == ExecType.PendingReplace ||
                 execType == ExecType.Replace) {
 
-            order = orderTable.getOrder(executionReport.providerId, executionReport.origClOrderId);
+            order = orderTable.getOrder(executionReport.strategyId, executionReport.origClOrderId);
             if (executionReport.execType == ExecType.Replace) {
                 orderTable.removeOrder(order);
                 order.clOrderId = executionReport.clOrderId;
@@ -76,7 +92,7 @@ public class OrderManager extends MultiEventProcessor implements OrderEventHandl
                 orderTable.addOrUpdateOrder(order);
             }
         } else {
-            order = orderTable.getOrder(executionReport.providerId, executionReport.clOrderId);
+            order = orderTable.getOrder(executionReport.strategyId, executionReport.clOrderId);
         }
 
 
@@ -97,7 +113,12 @@ public class OrderManager extends MultiEventProcessor implements OrderEventHandl
             addOrUpdateOrder(order);
 
             if (prevOrdStatus != order.ordStatus) {
-                eventBusManager.getExecutionEventBus().publishOrderStatusUpdate(order);
+                if (recovering) {
+                    stateJournal.replayToPortfolio(order);
+                }
+                else {
+                    eventBusManager.getExecutionEventBus().publishOrderStatusUpdate(order);
+                }
             }
         } else {
             throw new RuntimeException("Cannot found order, executionReport=" + executionReport);
@@ -106,12 +127,12 @@ public class OrderManager extends MultiEventProcessor implements OrderEventHandl
 
     @Override
     public void onOrderCancelReject(OrderCancelReject orderCancelReject) {
-        Order order = orderTable.getOrder(orderCancelReject.providerId, orderCancelReject.clOrderId);
+        Order order = orderTable.getOrder(orderCancelReject.strategyId, orderCancelReject.clOrderId);
         OrdStatus prevOrdStatus = order.ordStatus;
         order.add(orderCancelReject);
 
         addOrUpdateOrder(order);
-        if(prevOrdStatus != order.ordStatus){
+        if(prevOrdStatus != order.ordStatus && !recovering){
             eventBusManager.getExecutionEventBus().publishOrderStatusUpdate(order);
         }
     }
@@ -120,7 +141,7 @@ public class OrderManager extends MultiEventProcessor implements OrderEventHandl
     @Override
     public void onOrderStatusUpdate(Order orderStatusUpdate){
 
-        Order order = orderTable.getOrder(orderStatusUpdate.providerId, orderStatusUpdate.clOrderId);
+        Order order = orderTable.getOrder(orderStatusUpdate.strategyId, orderStatusUpdate.clOrderId);
         OrdStatus prevOrdStatus = order.ordStatus;
         order.ordStatus = orderStatusUpdate.ordStatus;
 
@@ -129,9 +150,62 @@ public class OrderManager extends MultiEventProcessor implements OrderEventHandl
 
 
 
+    /**
+     * Journal every event before handling it, and snapshot the state every snapshotInterval events.
+     */
+    public void setStateJournal(TradingStateJournal stateJournal){
+        this.stateJournal = stateJournal;
+    }
+
+    /**
+     * Rebuild the state from the latest snapshot and the journal events after it, before the processor is started.
+     * The fills replayed are applied to the portfolios they belong to, as the snapshot of the portfolios is as old as
+     * the one of the OrderTable. Done once, a second call replays nothing.
+     */
+    public long recover() throws IOException {
+        if (stateJournal == null || recovered){
+            return 0;
+        }
+        recovered = true;
+        recovering = true;
+        try {
+            return stateJournal.recover(orderTable, this, this);
+        }
+        finally {
+            recovering = false;
+        }
+    }
+
+    /**
+     * Recover the journaled state when the processor starts, after the portfolios are registered and before any new
+     * event is handled. The processor does not start on a journal it cannot read.
+     */
+    @Override
+    public void onStart() {
+        try {
+            recover();
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("fail to recover the trading state", e);
+        }
+    }
+
     @Override
     public void onEvent(Event event) {
+        if (stateJournal != null){
+            stateJournal.append(event);
+        }
+
         event.on(this);
+
+        if (stateJournal != null && stateJournal.isSnapshotDue()){
+            try {
+                stateJournal.snapshot(orderTable);
+            }
+            catch (IOException e) {
+                LOG.error("snapshot failed", e);
+            }
+        }
     }
 
     public void clear(){
@@ -4,6 +4,7 @@ import com.google.common.collect.Maps;
 import com.unisoft.algotrader.model.event.execution.Order;
 import com.unisoft.algotrader.model.id.ClOrderId;
 
+import java.util.Collection;
 import java.util.Map;
 
 /**
@@ -44,6 +45,10 @@ public class OrderTable {
     }
 
 
+    public Collection<Order> getOrders(){
+        return orderMap.values();
+    }
+
     public void clear(){
         this.instOrderMap.clear();
         this.orderMap.clear();
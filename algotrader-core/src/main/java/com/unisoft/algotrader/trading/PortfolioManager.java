@@ -4,6 +4,7 @@ import com.google.common.collect.Maps;
 import com.unisoft.algotrader.model.trading.Portfolio;
 
 import javax.inject.Inject;
+import java.util.Collection;
 import java.util.Map;
 import java.util.function.Supplier;
 
@@ -35,6 +36,10 @@ public class PortfolioManager {
         return portfolioProcessorMap.get(portfolioId);
     }
 
+    public Collection<PortfolioProcessor> getPortfolioProcessors(){
+        return portfolioProcessorMap.values();
+    }
+
     public Portfolio getPortfolio(int portfolioId){
         return portfolioMap.get(portfolioId);
     }
@@ -32,9 +32,14 @@ public class PortfolioProcessor extends MultiEventProcessor implements MarketDat
     private final Account account;
     private final RefDataStore refDataStore;
     private final Clock clock;
+    private MarketDataDispatcher marketDataDispatcher;
 
+    /**
+     * The processor does not consume the market data ring buffers by default, {@link #register} it with the
+     * MarketDataDispatcher to mark its positions to market.
+     */
     public PortfolioProcessor(AppConfig appConfig, Portfolio portfolio, Account account, RingBuffer... providers){
-        this(portfolio, account, appConfig.getRefDataStore(), appConfig.getClock(), providers == null || providers.length ==0 ? new RingBuffer[]{appConfig.getEventBusManager().getMarketDataRB()} : providers);
+        this(portfolio, account, appConfig.getRefDataStore(), appConfig.getClock(), providers);
     }
 
     public PortfolioProcessor(Portfolio portfolio, Account account, RefDataStore refDataStore, Clock clock, RingBuffer... providers) {
@@ -54,6 +59,23 @@ public class PortfolioProcessor extends MultiEventProcessor implements MarketDat
         return portfolio;
     }
 
+    public Account account(){
+        return account;
+    }
+
+    /**
+     * Receive the market data of the open positions from the dispatcher, on the dispatcher thread. The routing
+     * follows the positions as they are opened and closed, under the same lock so that a position opened while
+     * registering is not missed. The processor must not consume the market data ring buffers itself.
+     */
+    public synchronized void register(MarketDataDispatcher marketDataDispatcher){
+        marketDataDispatcher.checkSoleConsumer(this);
+        this.marketDataDispatcher = marketDataDispatcher;
+        for (long instId : portfolio.positions().keySet()){
+            marketDataDispatcher.subscribe(instId, this);
+        }
+    }
+
     @Override
     public void onEvent(Event event) {
         event.on(this);
@@ -61,22 +83,25 @@ public class PortfolioProcessor extends MultiEventProcessor implements MarketDat
 
     @Override
     public void onBar(Bar bar) {
-        if (portfolio.positions().containsKey(bar.instId)){
-            portfolio.positions().get(bar.instId).onBar(bar);
+        Position position = portfolio.getPosition(bar.instId);
+        if (position != null){
+            position.onBar(bar);
         }
     }
 
     @Override
     public void onQuote(Quote quote) {
-        if (portfolio.positions().containsKey(quote.instId)){
-            portfolio.positions().get(quote.instId).onQuote(quote);
+        Position position = portfolio.getPosition(quote.instId);
+        if (position != null){
+            position.onQuote(quote);
         }
     }
 
     @Override
     public void onTrade(Trade trade) {
-        if (portfolio.positions().containsKey(trade.instId)){
-            portfolio.positions().get(trade.instId).onTrade(trade);
+        Position position = portfolio.getPosition(trade.instId);
+        if (position != null){
+            position.onTrade(trade);
         }
     }
 
@@ -101,6 +126,9 @@ public class PortfolioProcessor extends MultiEventProcessor implements MarketDat
 
     public void add(Order order){
 
+        Position position = portfolio.getPosition(order.instId());
+        boolean closing = position != null && isClosing(position, order);
+
         double newDebt = addOrderToPosition(order);
 
         Currency currency = refDataStore.getCurrency(refDataStore.getInstrument(order.instId()).getCcyId());
@@ -108,10 +136,18 @@ public class PortfolioProcessor extends MultiEventProcessor implements MarketDat
                 currency, order.cashFlow() + newDebt, order.text());
         account.add(accountTransaction);
 
+        if (closing){
+            portfolio.performance().addTrade(order.realizedPnl());
+        }
         portfolio.performance().valueChanged(clock.now(), coreEquity(), totalEquity());
 
     }
 
+    private boolean isClosing(Position position, Order order){
+        return (position.getSide() == PositionSide.Long && (order.side == Side.Sell || order.side == Side.SellShort))
+                || (position.getSide() == PositionSide.Short && order.side == Side.Buy);
+    }
+
     public void updatePerformance(long dateTime){
         portfolio.performance().valueChanged(dateTime, coreEquity(), totalEquity());
     }
@@ -163,7 +199,7 @@ public class PortfolioProcessor extends MultiEventProcessor implements MarketDat
             position = new Position(order.instId(), portfolio.portfolioId(), instrument.getFactor());
             position.add(order);
 
-            position = portfolio.addPosition(order.instId(), position);
+            position = openPosition(order.instId(), position);
 
             // TODO handle margin
             if (orderMargin != 0)
@@ -248,7 +284,7 @@ public class PortfolioProcessor extends MultiEventProcessor implements MarketDat
             if (position.getQty() == 0){
 
                 //close position
-                portfolio.removePosition(order.instId());
+                closePosition(order.instId());
 
                 positionClosed = true;
             }
@@ -259,6 +295,21 @@ public class PortfolioProcessor extends MultiEventProcessor implements MarketDat
         return openDebt - closeDebt;
     }
 
+    private synchronized Position openPosition(long instId, Position position){
+        Position existing = portfolio.addPosition(instId, position);
+        if (marketDataDispatcher != null){
+            marketDataDispatcher.subscribe(instId, this);
+        }
+        return existing != null ? existing : position;
+    }
+
+    private synchronized void closePosition(long instId){
+        portfolio.removePosition(instId);
+        if (marketDataDispatcher != null){
+            marketDataDispatcher.unsubscribe(instId, this);
+        }
+    }
+
     public double positionValue(){
 
         return portfolio.positions().values().stream().mapToDouble(position -> position.getValue()).sum();
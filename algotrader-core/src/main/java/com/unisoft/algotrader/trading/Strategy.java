@@ -3,6 +3,8 @@ package com.unisoft.algotrader.trading;
 import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 import com.lmax.disruptor.RingBuffer;
+import com.unisoft.algotrader.model.clock.Reminder;
+import com.unisoft.algotrader.model.clock.ReminderHandler;
 import com.unisoft.algotrader.model.event.Event;
 import com.unisoft.algotrader.model.event.bus.EventBusManager;
 import com.unisoft.algotrader.model.event.data.Bar;
@@ -23,7 +25,9 @@ import com.unisoft.algotrader.provider.data.SubscriptionType;
 import com.unisoft.algotrader.utils.threading.disruptor.MultiEventProcessor;
 import com.unisoft.algotrader.utils.threading.disruptor.waitstrategy.NoWaitStrategy;
 
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -31,7 +35,7 @@ import java.util.concurrent.atomic.AtomicLong;
  * Created by alex on 5/17/15.
  */
 
-public abstract class Strategy extends MultiEventProcessor implements MarketDataHandler, ExecutionEventHandler {
+public abstract class Strategy extends MultiEventProcessor implements MarketDataHandler, ExecutionEventHandler, ReminderHandler {
 
     protected final int strategyId;
     protected final TradingDataStore tradingDataStore;
@@ -44,6 +48,7 @@ public abstract class Strategy extends MultiEventProcessor implements MarketData
     protected ProviderId execProviderId;
     protected ProviderId dataProviderId;
     protected StrategyContext strategyContext;
+    protected MarketDataDispatcher marketDataDispatcher;
 
     protected Set<Long> instIdSet;
 
@@ -54,21 +59,21 @@ public abstract class Strategy extends MultiEventProcessor implements MarketData
     protected Set<SubscriptionKey> subscriptionKeys = Sets.newHashSet();
 
     public Strategy(int strategyId, TradingDataStore tradingDataStore, EventBusManager eventBusManager){
-        super(new NoWaitStrategy(),  eventBusManager.getExecutionEventRB(), eventBusManager.getMarketDataRB());
+        super(new NoWaitStrategy(),  new ConcurrentLinkedQueue<Event>(), eventBusManager.getExecutionEventRB());
         this.strategyId = strategyId;
         this.tradingDataStore = tradingDataStore;
         this.eventBusManager = null;
     }
 
     public Strategy(int strategyId, TradingDataStore tradingDataStore, EventBusManager eventBusManager, RingBuffer... providers){
-        super(new NoWaitStrategy(),  null, providers);
+        super(new NoWaitStrategy(),  new ConcurrentLinkedQueue<Event>(), providers);
         this.strategyId = strategyId;
         this.tradingDataStore = tradingDataStore;
         this.eventBusManager = eventBusManager;
     }
 
     public Strategy(int strategyId, TradingDataStore tradingDataStore, int portfolioId, EventBusManager eventBusManager){
-        super(new NoWaitStrategy(),  eventBusManager.getExecutionEventRB(), eventBusManager.getMarketDataRB());
+        super(new NoWaitStrategy(),  new ConcurrentLinkedQueue<Event>(), eventBusManager.getExecutionEventRB());
         this.strategyId = strategyId;
         this.tradingDataStore = tradingDataStore;
         this.portfolio = tradingDataStore.getPortfolio(portfolioId);
@@ -76,7 +81,7 @@ public abstract class Strategy extends MultiEventProcessor implements MarketData
     }
 
     public Strategy(int strategyId, TradingDataStore tradingDataStore, int portfolioId, RingBuffer... providers){
-        super(new NoWaitStrategy(),  null, providers);
+        super(new NoWaitStrategy(),  new ConcurrentLinkedQueue<Event>(), providers);
         this.strategyId = strategyId;
         this.tradingDataStore = tradingDataStore;
         this.portfolio = tradingDataStore.getPortfolio(portfolioId);
@@ -96,6 +101,22 @@ public abstract class Strategy extends MultiEventProcessor implements MarketData
         this.execProviderId = strategyContext.execProviderId;
         this.dataProviderId = strategyContext.dataProviderId;
         this.instIdSet = strategyContext.instIdSet;
+        if (marketDataDispatcher != null){
+            marketDataDispatcher.subscribe(strategyContext, this);
+        }
+    }
+
+    /**
+     * Receive the market data of the instruments of the StrategyContext from the dispatcher, on the dispatcher
+     * thread. The strategy must then be created without the market data ring buffers, the EventBusManager
+     * constructors only consume the execution events.
+     */
+    public void register(MarketDataDispatcher marketDataDispatcher){
+        marketDataDispatcher.checkSoleConsumer(this);
+        this.marketDataDispatcher = marketDataDispatcher;
+        if (strategyContext != null){
+            marketDataDispatcher.subscribe(strategyContext, this);
+        }
     }
 
 
@@ -131,6 +152,18 @@ public abstract class Strategy extends MultiEventProcessor implements MarketData
     public void onBar(Bar bar) {
     }
 
+    /**
+     * Reminders added on the Clock by the strategy, handled on the strategy thread.
+     */
+    @Override
+    public void onReminder(long dateTime, Object data) {
+    }
+
+    @Override
+    public Queue<? super Reminder> reminderQueue() {
+        return getQueue();
+    }
+
     @Override
     public void onQuote(Quote quote) {
     }
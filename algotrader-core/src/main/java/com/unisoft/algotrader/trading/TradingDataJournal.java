@@ -0,0 +1,376 @@
+package com.unisoft.algotrader.trading;
+
+import com.lmax.disruptor.RingBuffer;
+import com.unisoft.algotrader.model.event.Event;
+import com.unisoft.algotrader.model.event.bus.EventBusManager;
+import com.unisoft.algotrader.model.event.execution.*;
+import com.unisoft.algotrader.model.id.ClOrderId;
+import com.unisoft.algotrader.model.trading.ExecType;
+import com.unisoft.algotrader.persistence.TradingDataStore;
+import com.unisoft.algotrader.utils.threading.NamedThreadFactory;
+import com.unisoft.algotrader.utils.threading.disruptor.MultiEventProcessor;
+import com.unisoft.algotrader.utils.threading.disruptor.waitstrategy.NoWaitStrategy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.inject.Inject;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind persistence of the orders and execution reports, off the trading path.
+ *
+ * The journal consumes the order and execution event ring buffers next to the OrderManager and keeps its own copy
+ * of each order, updated the same way as the OrderTable, so that it never reads an Order the OrderManager is
+ * mutating. Updates are coalesced per ClOrderId, only the latest state of an order is saved, and they are handed
+ * over in batches to a single flusher thread which saves them with {@link TradingDataStore#saveAll}. A batch is
+ * flushed when it reaches batchSize or when its oldest update is older than flushIntervalMs.
+ *
+ * The batches wait in a bounded queue; when the store falls behind the journal blocks, and as the journal gates
+ * the ring buffers, the publishers eventually wait for it instead of events being overwritten. A batch which fails
+ * is saved again until it succeeds (the saves are upserts). Every event consumed gets a journal sequence,
+ * getFlushedSequence() is the sequence up to which all the updates are acknowledged by the store.
+ *
+ * When a checkpointPath is configured, the acknowledged sequence is written to the checkpoint file after each batch,
+ * a batch only counts as saved once its checkpoint is written too, and a new journal resumes its sequence from it.
+ * The file is written to a temporary file and renamed once synced, it is either the previous or the new sequence.
+ */
+public class TradingDataJournal extends MultiEventProcessor implements OrderEventHandler, ExecutionEventHandler {
+
+    private static final Logger LOG = LogManager.getLogger(TradingDataJournal.class);
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private static final Batch STOP = new Batch(Collections.emptyList(), Collections.emptyList(), -1);
+
+    private final TradingDataStore tradingDataStore;
+    private final TradingDataJournalConfig config;
+    private final long flushIntervalNanos;
+    private final File checkpoint;
+
+    private final Map<ClOrderId, Order> orders = new HashMap<>();
+    private final Map<ClOrderId, Order> dirtyOrders = new LinkedHashMap<>();
+    private List<ExecutionReport> pendingExecutionReports = new ArrayList<>();
+    private long firstPendingNanos;
+    private long sequence;
+
+    private final BlockingQueue<Batch> batches;
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(new NamedThreadFactory("TradingDataJournal"));
+    private volatile long flushedSequence;
+
+    @Inject
+    public TradingDataJournal(EventBusManager eventBusManager, TradingDataStore tradingDataStore, TradingDataJournalConfig config){
+        this(tradingDataStore, config, eventBusManager.getOrderEventRB(), eventBusManager.getExecutionEventRB());
+    }
+
+    public TradingDataJournal(TradingDataStore tradingDataStore, TradingDataJournalConfig config, RingBuffer... providers){
+        super(new NoWaitStrategy(), providers);
+        this.tradingDataStore = tradingDataStore;
+        this.config = config;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(config.flushIntervalMs);
+        this.batches = new ArrayBlockingQueue<>(config.queueSize);
+        this.checkpoint = config.checkpointPath == null ? null : new File(config.checkpointPath);
+        this.sequence = readCheckpoint();
+        this.flushedSequence = sequence;
+        LOG.info("resume from flushedSequence={}, checkpoint={}", flushedSequence, checkpoint);
+        for (RingBuffer provider : providers) {
+            provider.addGatingSequences(getSequence(provider));
+        }
+    }
+
+    @Override
+    public void onEvent(Event event) {
+        event.on(this);
+    }
+
+    @Override
+    public void onNewOrderRequest(Order order) {
+        Order copy = copyOf(order);
+        orders.put(new ClOrderId(copy.strategyId, copy.clOrderId), copy);
+        updated(copy);
+    }
+
+    @Override
+    public void onOrderUpdateRequest(Order order) {
+        onNewOrderRequest(order);
+    }
+
+    @Override
+    public void onOrderCancelRequest(Order order) {
+        sequence++;
+    }
+
+    @Override
+    public void onExecutionReport(ExecutionReport executionReport) {
+        Order order;
+        ExecType execType = executionReport.execType;
+        if (execType == ExecType.PendingCancel ||
+                execType == ExecType.Cancelled ||
+                execType == ExecType.PendingReplace ||
+                execType == ExecType.Replace) {
+            order = orders.get(new ClOrderId(executionReport.strategyId, executionReport.origClOrderId));
+            if (order != null && execType == ExecType.Replace) {
+                orders.remove(new ClOrderId(order.strategyId, order.clOrderId));
+                order.clOrderId = executionReport.clOrderId;
+                order.ordType = executionReport.ordType;
+                order.limitPrice = executionReport.limitPrice;
+                order.stopPrice = executionReport.stopPrice;
+                order.ordQty = executionReport.ordQty;
+                order.tif = executionReport.tif;
+                orders.put(new ClOrderId(order.strategyId, order.clOrderId), order);
+            }
+        }
+        else {
+            order = orders.get(new ClOrderId(executionReport.strategyId, executionReport.clOrderId));
+        }
+
+        if (pendingExecutionReports.isEmpty() && dirtyOrders.isEmpty()) {
+            firstPendingNanos = System.nanoTime();
+        }
+        pendingExecutionReports.add(executionReport);
+
+        if (order != null) {
+            order.add(executionReport);
+            // the reports are journaled on their own
+            order.executionReports.clear();
+            updated(order);
+        }
+        else {
+            LOG.warn("execution report of an unknown order, only the report is journaled, executionReport={}", executionReport);
+            sequence++;
+            flushIfNeeded();
+        }
+    }
+
+    @Override
+    public void onOrderCancelReject(OrderCancelReject orderCancelReject) {
+        Order order = orders.get(new ClOrderId(orderCancelReject.strategyId, orderCancelReject.clOrderId));
+        if (order != null) {
+            order.ordStatus = orderCancelReject.ordStatus;
+            updated(order);
+        }
+        else {
+            sequence++;
+        }
+    }
+
+    @Override
+    public void onOrderStatusUpdate(Order orderStatusUpdate) {
+        Order order = orders.get(new ClOrderId(orderStatusUpdate.strategyId, orderStatusUpdate.clOrderId));
+        if (order != null) {
+            order.ordStatus = orderStatusUpdate.ordStatus;
+            updated(order);
+        }
+        else {
+            sequence++;
+        }
+    }
+
+    @Override
+    public void onStart() {
+        flusher.execute(this::runFlusher);
+    }
+
+    @Override
+    protected void onIdle() {
+        if (hasPending() && System.nanoTime() - firstPendingNanos >= flushIntervalNanos) {
+            flush();
+        }
+        // the journal is not on the trading path, no need to spin
+        LockSupport.parkNanos(IDLE_PARK_NANOS);
+    }
+
+    @Override
+    public void onShutdown() {
+        flush();
+        enqueue(STOP);
+        flusher.shutdown();
+    }
+
+    /**
+     * Wait for the flusher to save the batches queued before the journal was halted.
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return flusher.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Journal sequence of the last event consumed, only to be read from the journal thread.
+     */
+    public long getJournalSequence(){
+        return sequence;
+    }
+
+    /**
+     * Journal sequence up to which the updates are saved in the store.
+     */
+    public long getFlushedSequence(){
+        return flushedSequence;
+    }
+
+    private void updated(Order order) {
+        if (!hasPending()) {
+            firstPendingNanos = System.nanoTime();
+        }
+        dirtyOrders.put(new ClOrderId(order.strategyId, order.clOrderId), order);
+        sequence++;
+        flushIfNeeded();
+    }
+
+    private boolean hasPending() {
+        return !dirtyOrders.isEmpty() || !pendingExecutionReports.isEmpty();
+    }
+
+    private void flushIfNeeded() {
+        if (dirtyOrders.size() + pendingExecutionReports.size() >= config.batchSize ||
+                System.nanoTime() - firstPendingNanos >= flushIntervalNanos) {
+            flush();
+        }
+    }
+
+    /**
+     * Snapshot the dirty orders into a batch and queue it for the flusher. Done orders are dropped from the
+     * journal state once their final update is in a batch.
+     */
+    private void flush() {
+        if (!hasPending()) {
+            return;
+        }
+        List<Order> snapshot = new ArrayList<>(dirtyOrders.size());
+        for (Order order : dirtyOrders.values()) {
+            snapshot.add(copyOf(order));
+            if (order.isDone()) {
+                orders.remove(new ClOrderId(order.strategyId, order.clOrderId));
+            }
+        }
+        dirtyOrders.clear();
+        Batch batch = new Batch(snapshot, pendingExecutionReports, sequence);
+        pendingExecutionReports = new ArrayList<>();
+        enqueue(batch);
+    }
+
+    private void enqueue(Batch batch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                batches.put(batch);
+                break;
+            }
+            catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runFlusher() {
+        try {
+            while (true) {
+                Batch batch = batches.take();
+                if (batch == STOP) {
+                    return;
+                }
+                save(batch);
+                flushedSequence = batch.sequence;
+            }
+        }
+        catch (InterruptedException e) {
+            LOG.warn("flusher interrupted, {} batches not saved, flushedSequence={}", batches.size(), flushedSequence);
+        }
+    }
+
+    private void save(Batch batch) throws InterruptedException {
+        while (true) {
+            try {
+                tradingDataStore.saveAll(batch.orders, batch.executionReports);
+                writeCheckpoint(batch.sequence);
+                if (LOG.isDebugEnabled()) LOG.debug("saved {} orders and {} execution reports, sequence={}", batch.orders.size(), batch.executionReports.size(), batch.sequence);
+                return;
+            }
+            catch (Exception e) {
+                LOG.error("failed to save batch, retrying in " + config.retryDelayMs + "ms, sequence=" + batch.sequence, e);
+                Thread.sleep(config.retryDelayMs);
+            }
+        }
+    }
+
+    private long readCheckpoint() {
+        if (checkpoint == null || !checkpoint.exists()) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(checkpoint))) {
+            return in.readLong();
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("cannot read checkpoint " + checkpoint, e);
+        }
+    }
+
+    private void writeCheckpoint(long sequence) throws IOException {
+        if (checkpoint == null) {
+            return;
+        }
+        File tmp = new File(checkpoint.getPath() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp)) {
+            DataOutputStream out = new DataOutputStream(fos);
+            out.writeLong(sequence);
+            out.flush();
+            fos.getFD().sync();
+        }
+        if (!tmp.renameTo(checkpoint)) {
+            throw new IOException("cannot rename checkpoint " + tmp + " to " + checkpoint);
+        }
+    }
+
+    private static Order copyOf(Order order) {
+        Order copy = new Order();
+        copy.strategyId = order.strategyId;
+        copy.clOrderId = order.clOrderId;
+        copy.origClOrderId = order.origClOrderId;
+        copy.providerId = order.providerId;
+        copy.orderId = order.orderId;
+        copy.portfolioId = order.portfolioId;
+        copy.accountId = order.accountId;
+        copy.instId = order.instId;
+        copy.dateTime = order.dateTime;
+        copy.ordType = order.ordType;
+        copy.ordStatus = order.ordStatus;
+        copy.limitPrice = order.limitPrice;
+        copy.stopPrice = order.stopPrice;
+        copy.ordQty = order.ordQty;
+        copy.filledQty = order.filledQty;
+        copy.avgPrice = order.avgPrice;
+        copy.lastQty = order.lastQty;
+        copy.lastPrice = order.lastPrice;
+        copy.stopLimitReady = order.stopLimitReady;
+        copy.trailingStopExecPrice = order.trailingStopExecPrice;
+        copy.tif = order.tif;
+        copy.side = order.side;
+        copy.ocaGroup = order.ocaGroup;
+        copy.text = order.text;
+        copy.commissions = new ArrayList<>(order.commissions);
+        copy.pnl = order.pnl;
+        copy.realizedPnl = order.realizedPnl;
+        return copy;
+    }
+
+    private static class Batch {
+        final Collection<Order> orders;
+        final Collection<ExecutionReport> executionReports;
+        final long sequence;
+
+        Batch(Collection<Order> orders, Collection<ExecutionReport> executionReports, long sequence) {
+            this.orders = orders;
+            this.executionReports = executionReports;
+            this.sequence = sequence;
+        }
+    }
+}
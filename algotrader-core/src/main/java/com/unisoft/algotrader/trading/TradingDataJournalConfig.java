@@ -0,0 +1,58 @@
+package com.unisoft.algotrader.trading;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+/**
+ * Flush policy of the TradingDataJournal, and the file where it checkpoints the sequence acknowledged by the store.
+ */
+public class TradingDataJournalConfig {
+
+    public final int batchSize;
+    public final long flushIntervalMs;
+    public final int queueSize;
+    public final long retryDelayMs;
+    public final String checkpointPath;
+
+    public TradingDataJournalConfig(){
+        this(500, 100, 16, 1000);
+    }
+
+    public TradingDataJournalConfig(int batchSize, long flushIntervalMs, int queueSize, long retryDelayMs){
+        this(batchSize, flushIntervalMs, queueSize, retryDelayMs, null);
+    }
+
+    /**
+     * @param batchSize number of pending orders and execution reports which triggers a flush
+     * @param flushIntervalMs max time an update waits before it is flushed
+     * @param queueSize number of batches waiting for the store before the journal blocks
+     * @param retryDelayMs delay before a batch which failed is saved again
+     * @param checkpointPath file of the acknowledged sequence, null to keep it in memory only
+     */
+    @Inject
+    public TradingDataJournalConfig(@Named("journal.trading.batchSize") int batchSize,
+                                    @Named("journal.trading.flushIntervalMs") long flushIntervalMs,
+                                    @Named("journal.trading.queueSize") int queueSize,
+                                    @Named("journal.trading.retryDelayMs") long retryDelayMs,
+                                    @Named("journal.trading.checkpointPath") String checkpointPath){
+        if (batchSize <= 0 || queueSize <= 0){
+            throw new IllegalArgumentException("batchSize and queueSize must be > 0, batchSize=" + batchSize + ", queueSize=" + queueSize);
+        }
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.queueSize = queueSize;
+        this.retryDelayMs = retryDelayMs;
+        this.checkpointPath = checkpointPath;
+    }
+
+    @Override
+    public String toString() {
+        return "TradingDataJournalConfig{" +
+                "batchSize=" + batchSize +
+                ", flushIntervalMs=" + flushIntervalMs +
+                ", queueSize=" + queueSize +
+                ", retryDelayMs=" + retryDelayMs +
+                ", checkpointPath='" + checkpointPath + '\'' +
+                "} " + super.toString();
+    }
+}
@@ -0,0 +1,393 @@
+package com.unisoft.algotrader.trading.journal;
+
+import com.unisoft.algotrader.model.event.Event;
+import com.unisoft.algotrader.model.event.execution.*;
+import com.unisoft.algotrader.model.serialization.sbe.SBESerializer;
+import com.unisoft.algotrader.model.trading.CxlRejReason;
+import com.unisoft.algotrader.model.trading.CxlRejResponseTo;
+import com.unisoft.algotrader.model.trading.OrdStatus;
+import uk.co.real_logic.agrona.concurrent.UnsafeBuffer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Append-only journal of the order and execution events, in memory-mapped segment files of a directory.
+ *
+ * Every event gets the next sequence, starting from 1. The events of an OrderEventContainer or an
+ * ExecutionEventContainer are journaled one record each, orders and execution reports are SBE encoded with the
+ * {@link SBESerializer}. A segment is named after the sequence of its first record; it starts with a header
+ * (magic, version, first sequence, committed limit and last sequence) followed by the records, each one being
+ * [length][sequence][type][payload]. The limit is written after the record, a record which is not fully written
+ * when the process dies is ignored on the next open.
+ *
+ * Appending is a few puts into the mapped buffer and never a system call, except when a segment is full and a new
+ * one is created. The OS writes the pages back to the file, so the journal survives a crash of the process; call
+ * {@link #flush()} to also survive a crash of the host.
+ *
+ * Not thread safe, the journal is written by the OrderManager thread.
+ */
+public class EventJournal implements OrderEventHandler, ExecutionEventHandler, Closeable {
+
+    public static final int MAGIC = 0x4C4E524A; // "JRNL" little-endian
+    public static final int VERSION = 1;
+
+    public static final int MAGIC_OFFSET = 0;
+    public static final int VERSION_OFFSET = 4;
+    public static final int FIRST_SEQUENCE_OFFSET = 8;
+    public static final int LIMIT_OFFSET = 16;
+    public static final int LAST_SEQUENCE_OFFSET = 24;
+    public static final int HEADER_SIZE = 32;
+
+    public static final int LENGTH_OFFSET = 0;
+    public static final int SEQUENCE_OFFSET = 4;
+    public static final int TYPE_OFFSET = 12;
+    public static final int RECORD_HEADER_SIZE = 16;
+
+    public static final int NEW_ORDER = 1;
+    public static final int REPLACE_ORDER = 2;
+    public static final int CANCEL_ORDER = 3;
+    public static final int EXECUTION_REPORT = 4;
+    public static final int ORDER_CANCEL_REJECT = 5;
+    public static final int ORDER_STATUS_UPDATE = 6;
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final int ORDER_CANCEL_REJECT_LENGTH = 48;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private static final OrdStatus[] ORD_STATUSES = OrdStatus.values();
+    private static final CxlRejReason[] CXL_REJ_REASONS = CxlRejReason.values();
+    private static final CxlRejResponseTo[] CXL_REJ_RESPONSE_TOS = CxlRejResponseTo.values();
+
+    private final File dir;
+    private final int segmentSize;
+    private final SBESerializer serializer = new SBESerializer();
+
+    private RandomAccessFile raf;
+    private MappedByteBuffer mappedBuffer;
+    private UnsafeBuffer buffer;
+    private int limit;
+    private long lastSequence;
+
+    public EventJournal(File dir) throws IOException {
+        this(dir, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Open the journal of the directory, it is created if it does not exist, and appends go to its last segment.
+     */
+    public EventJournal(File dir, int segmentSize) throws IOException {
+        if (segmentSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("segmentSize too small, segmentSize=" + segmentSize);
+        }
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("cannot create journal dir=" + dir);
+        }
+        TreeMap<Long, File> segments = segments();
+        if (segments.isEmpty()) {
+            openSegment(1);
+        }
+        else {
+            openSegment(segments.lastEntry().getValue());
+        }
+    }
+
+    public long append(Event event) {
+        event.on(this);
+        return lastSequence;
+    }
+
+    @Override
+    public void onNewOrderRequest(Order order) {
+        append(NEW_ORDER, order);
+    }
+
+    @Override
+    public void onOrderUpdateRequest(Order order) {
+        append(REPLACE_ORDER, order);
+    }
+
+    @Override
+    public void onOrderCancelRequest(Order order) {
+        append(CANCEL_ORDER, order);
+    }
+
+    @Override
+    public void onOrderStatusUpdate(Order orderStatusUpdate) {
+        append(ORDER_STATUS_UPDATE, orderStatusUpdate);
+    }
+
+    @Override
+    public void onExecutionReport(ExecutionReport executionReport) {
+        int offset = reserve(serializer.encodedLength(executionReport));
+        int length = serializer.encode(executionReport, buffer, offset + RECORD_HEADER_SIZE);
+        commit(offset, EXECUTION_REPORT, length);
+    }
+
+    @Override
+    public void onOrderCancelReject(OrderCancelReject orderCancelReject) {
+        int offset = reserve(ORDER_CANCEL_REJECT_LENGTH);
+        int index = offset + RECORD_HEADER_SIZE;
+        buffer.putLong(index, orderCancelReject.clOrderId, ORDER);
+        buffer.putLong(index + 8, orderCancelReject.origClOrderId, ORDER);
+        buffer.putLong(index + 16, orderCancelReject.orderId, ORDER);
+        buffer.putLong(index + 24, orderCancelReject.dateTime, ORDER);
+        buffer.putInt(index + 32, orderCancelReject.strategyId, ORDER);
+        buffer.putInt(index + 36, orderCancelReject.providerId, ORDER);
+        buffer.putShort(index + 40, ordinal(orderCancelReject.ordStatus), ORDER);
+        buffer.putShort(index + 42, ordinal(orderCancelReject.cxlRejReason), ORDER);
+        buffer.putShort(index + 44, ordinal(orderCancelReject.cxlRejResponseTo), ORDER);
+        commit(offset, ORDER_CANCEL_REJECT, ORDER_CANCEL_REJECT_LENGTH);
+    }
+
+    private void append(int type, Order order) {
+        int offset = reserve(serializer.encodedLength(order));
+        int length = serializer.encode(order, buffer, offset + RECORD_HEADER_SIZE);
+        commit(offset, type, length);
+    }
+
+    /**
+     * Offset of the next record, in a new segment if the current one does not have room for the payload.
+     */
+    private int reserve(int payloadLength) {
+        int recordLength = RECORD_HEADER_SIZE + payloadLength;
+        if (HEADER_SIZE + recordLength > segmentSize) {
+            throw new IllegalArgumentException("record larger than the segment, length=" + recordLength + ", segmentSize=" + segmentSize);
+        }
+        if (limit + recordLength > segmentSize) {
+            try {
+                roll();
+            }
+            catch (IOException e) {
+                throw new IllegalStateException("cannot roll journal segment, dir=" + dir, e);
+            }
+        }
+        return limit;
+    }
+
+    private void commit(int offset, int type, int payloadLength) {
+        long sequence = lastSequence + 1;
+        buffer.putInt(offset + LENGTH_OFFSET, payloadLength, ORDER);
+        buffer.putLong(offset + SEQUENCE_OFFSET, sequence, ORDER);
+        buffer.putInt(offset + TYPE_OFFSET, type, ORDER);
+        limit = offset + RECORD_HEADER_SIZE + payloadLength;
+        lastSequence = sequence;
+        buffer.putLong(LAST_SEQUENCE_OFFSET, sequence, ORDER);
+        buffer.putLong(LIMIT_OFFSET, limit, ORDER);
+    }
+
+    /**
+     * Continue in a new segment, which starts with the next sequence. Called after a snapshot so that the
+     * journal tail to replay starts at a segment boundary.
+     */
+    public void roll() throws IOException {
+        if (lastSequence + 1 == firstSequence()) {
+            return;
+        }
+        closeSegment();
+        openSegment(lastSequence + 1);
+    }
+
+    /**
+     * Replay the events with a sequence greater than afterSequence, in sequence order. Each event is decoded into
+     * a new instance given to the handlers. Returns the number of events replayed.
+     */
+    public long replay(long afterSequence, OrderEventHandler orderEventHandler, ExecutionEventHandler executionEventHandler) throws IOException {
+        long count = 0;
+        TreeMap<Long, File> segments = segments();
+        List<File> files = new ArrayList<>(segments.values());
+        List<Long> firstSequences = new ArrayList<>(segments.keySet());
+        for (int i = 0; i < files.size(); i++) {
+            if (i + 1 < files.size() && firstSequences.get(i + 1) - 1 <= afterSequence) {
+                continue;
+            }
+            count += replay(files.get(i), afterSequence, orderEventHandler, executionEventHandler);
+        }
+        return count;
+    }
+
+    private long replay(File file, long afterSequence, OrderEventHandler orderEventHandler, ExecutionEventHandler executionEventHandler) throws IOException {
+        long count = 0;
+        try (RandomAccessFile segment = new RandomAccessFile(file, "r")) {
+            UnsafeBuffer segmentBuffer = new UnsafeBuffer(segment.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, segment.length()));
+            checkHeader(segmentBuffer, file);
+            int segmentLimit = (int) segmentBuffer.getLong(LIMIT_OFFSET, ORDER);
+            int offset = HEADER_SIZE;
+            while (offset < segmentLimit) {
+                int length = segmentBuffer.getInt(offset + LENGTH_OFFSET, ORDER);
+                long sequence = segmentBuffer.getLong(offset + SEQUENCE_OFFSET, ORDER);
+                if (sequence > afterSequence) {
+                    dispatch(segmentBuffer, offset, orderEventHandler, executionEventHandler);
+                    count++;
+                }
+                offset += RECORD_HEADER_SIZE + length;
+            }
+        }
+        return count;
+    }
+
+    private void dispatch(UnsafeBuffer segmentBuffer, int offset, OrderEventHandler orderEventHandler, ExecutionEventHandler executionEventHandler) {
+        int type = segmentBuffer.getInt(offset + TYPE_OFFSET, ORDER);
+        int index = offset + RECORD_HEADER_SIZE;
+        switch (type) {
+            case NEW_ORDER:
+                orderEventHandler.onNewOrderRequest(decodeOrder(segmentBuffer, index));
+                break;
+            case REPLACE_ORDER:
+                orderEventHandler.onOrderUpdateRequest(decodeOrder(segmentBuffer, index));
+                break;
+            case CANCEL_ORDER:
+                orderEventHandler.onOrderCancelRequest(decodeOrder(segmentBuffer, index));
+                break;
+            case ORDER_STATUS_UPDATE:
+                executionEventHandler.onOrderStatusUpdate(decodeOrder(segmentBuffer, index));
+                break;
+            case EXECUTION_REPORT:
+                ExecutionReport executionReport = new ExecutionReport();
+                serializer.decode(segmentBuffer, index, executionReport);
+                executionEventHandler.onExecutionReport(executionReport);
+                break;
+            case ORDER_CANCEL_REJECT:
+                executionEventHandler.onOrderCancelReject(decodeOrderCancelReject(segmentBuffer, index));
+                break;
+            default:
+                throw new IllegalStateException("unsupported journal record type: " + type);
+        }
+    }
+
+    private Order decodeOrder(UnsafeBuffer segmentBuffer, int index) {
+        Order order = new Order();
+        serializer.decode(segmentBuffer, index, order);
+        return order;
+    }
+
+    private static OrderCancelReject decodeOrderCancelReject(UnsafeBuffer segmentBuffer, int index) {
+        OrderCancelReject orderCancelReject = new OrderCancelReject();
+        orderCancelReject.clOrderId = segmentBuffer.getLong(index, ORDER);
+        orderCancelReject.origClOrderId = segmentBuffer.getLong(index + 8, ORDER);
+        orderCancelReject.orderId = segmentBuffer.getLong(index + 16, ORDER);
+        orderCancelReject.dateTime = segmentBuffer.getLong(index + 24, ORDER);
+        orderCancelReject.strategyId = segmentBuffer.getInt(index + 32, ORDER);
+        orderCancelReject.providerId = segmentBuffer.getInt(index + 36, ORDER);
+        orderCancelReject.ordStatus = valueOf(ORD_STATUSES, segmentBuffer.getShort(index + 40, ORDER));
+        orderCancelReject.cxlRejReason = valueOf(CXL_REJ_REASONS, segmentBuffer.getShort(index + 42, ORDER));
+        orderCancelReject.cxlRejResponseTo = valueOf(CXL_REJ_RESPONSE_TOS, segmentBuffer.getShort(index + 44, ORDER));
+        return orderCancelReject;
+    }
+
+    private static short ordinal(Enum value) {
+        return value == null ? -1 : (short) value.ordinal();
+    }
+
+    private static <E extends Enum<E>> E valueOf(E[] values, short ordinal) {
+        return ordinal < 0 ? null : values[ordinal];
+    }
+
+    /**
+     * Delete the segments whose events all have a sequence up to the given one, i.e. covered by a snapshot.
+     * The current segment is never deleted.
+     */
+    public void deleteSegmentsUpTo(long sequence) throws IOException {
+        TreeMap<Long, File> segments = segments();
+        Long next = null;
+        for (Long firstSequence : segments.descendingKeySet()) {
+            if (next != null && next - 1 <= sequence) {
+                File file = segments.get(firstSequence);
+                if (!file.delete()) {
+                    throw new IOException("cannot delete journal segment=" + file);
+                }
+            }
+            next = firstSequence;
+        }
+    }
+
+    public long lastSequence() {
+        return lastSequence;
+    }
+
+    public long firstSequence() {
+        return buffer.getLong(FIRST_SEQUENCE_OFFSET, ORDER);
+    }
+
+    public File dir() {
+        return dir;
+    }
+
+    public void flush() {
+        mappedBuffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeSegment();
+    }
+
+    private TreeMap<Long, File> segments() {
+        TreeMap<Long, File> segments = new TreeMap<>();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    segments.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())), file);
+                }
+            }
+        }
+        return segments;
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        File file = new File(dir, String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        map(file, segmentSize);
+        buffer.putInt(MAGIC_OFFSET, MAGIC, ORDER);
+        buffer.putInt(VERSION_OFFSET, VERSION, ORDER);
+        buffer.putLong(FIRST_SEQUENCE_OFFSET, firstSequence, ORDER);
+        buffer.putLong(LAST_SEQUENCE_OFFSET, firstSequence - 1, ORDER);
+        buffer.putLong(LIMIT_OFFSET, HEADER_SIZE, ORDER);
+        this.limit = HEADER_SIZE;
+        this.lastSequence = firstSequence - 1;
+    }
+
+    private void openSegment(File file) throws IOException {
+        map(file, Math.max(segmentSize, file.length()));
+        checkHeader(buffer, file);
+        this.limit = (int) buffer.getLong(LIMIT_OFFSET, ORDER);
+        this.lastSequence = buffer.getLong(LAST_SEQUENCE_OFFSET, ORDER);
+    }
+
+    private void map(File file, long size) throws IOException {
+        this.raf = new RandomAccessFile(file, "rw");
+        if (raf.length() < size) {
+            raf.setLength(size);
+        }
+        this.mappedBuffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        this.buffer = new UnsafeBuffer(mappedBuffer);
+    }
+
+    private static void checkHeader(UnsafeBuffer segmentBuffer, File file) throws IOException {
+        if (segmentBuffer.capacity() < HEADER_SIZE || segmentBuffer.getInt(MAGIC_OFFSET, ORDER) != MAGIC) {
+            throw new IOException("Invalid journal segment header, file=" + file);
+        }
+    }
+
+    private void closeSegment() throws IOException {
+        if (raf != null) {
+            mappedBuffer.force();
+            raf.close();
+            raf = null;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.unisoft.algotrader.trading.journal;
+
+import com.unisoft.algotrader.model.event.Event;
+import com.unisoft.algotrader.model.event.execution.ExecutionEventHandler;
+import com.unisoft.algotrader.model.event.execution.Order;
+import com.unisoft.algotrader.model.event.execution.OrderEventHandler;
+import com.unisoft.algotrader.model.trading.Account;
+import com.unisoft.algotrader.model.trading.OrdStatus;
+import com.unisoft.algotrader.model.trading.Portfolio;
+import com.unisoft.algotrader.trading.OrderTable;
+import com.unisoft.algotrader.trading.PortfolioManager;
+import com.unisoft.algotrader.trading.PortfolioProcessor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.inject.Inject;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Journal and snapshots of the OrderManager state, i.e. the OrderTable, and of the positions and accounts of the
+ * registered portfolios, which are updated from the OrderManager thread.
+ *
+ * Every event handled by the OrderManager is first appended to the {@link EventJournal}. Every snapshotInterval
+ * events a {@link TradingStateSnapshot} is written and the journal rolls to a new segment, the segments and
+ * snapshots older than the previous snapshot are deleted. On startup, {@link #recover} loads the latest snapshot
+ * and replays the journal events after it, so the recovery time depends on the events since the last snapshot and
+ * not on the whole trading history. The orders done during the replay are applied to their portfolios, see
+ * {@link #replayToPortfolio}.
+ */
+public class TradingStateJournal implements Closeable {
+
+    private static final Logger LOG = LogManager.getLogger(TradingStateJournal.class);
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".dat";
+
+    private final File dir;
+    private final EventJournal eventJournal;
+    private final PortfolioManager portfolioManager;
+    private final long snapshotInterval;
+    private long snapshotSequence;
+
+    @Inject
+    public TradingStateJournal(TradingStateJournalConfig config, PortfolioManager portfolioManager) throws IOException {
+        this(new File(config.path), config.segmentSize, config.snapshotInterval, portfolioManager);
+    }
+
+    public TradingStateJournal(File dir, int segmentSize, long snapshotInterval, PortfolioManager portfolioManager) throws IOException {
+        this.dir = dir;
+        this.eventJournal = new EventJournal(dir, segmentSize);
+        this.portfolioManager = portfolioManager;
+        this.snapshotInterval = snapshotInterval;
+        this.snapshotSequence = snapshots().isEmpty() ? 0 : snapshots().lastKey();
+    }
+
+    public long append(Event event) {
+        return eventJournal.append(event);
+    }
+
+    public boolean isSnapshotDue() {
+        return eventJournal.lastSequence() - snapshotSequence >= snapshotInterval;
+    }
+
+    /**
+     * Snapshot the state after the last journaled event. To be called from the OrderManager thread.
+     */
+    public void snapshot(OrderTable orderTable) throws IOException {
+        long sequence = eventJournal.lastSequence();
+        List<Portfolio> portfolios = new ArrayList<>();
+        Map<String, Account> accounts = new LinkedHashMap<>();
+        for (PortfolioProcessor processor : portfolioManager.getPortfolioProcessors()) {
+            portfolios.add(processor.portfolio());
+            if (processor.account() != null) {
+                accounts.put(processor.account().accountId(), processor.account());
+            }
+        }
+        new TradingStateSnapshot(sequence, orderTable.getOrders(), portfolios, accounts.values()).write(snapshotFile(sequence));
+        eventJournal.roll();
+
+        long previousSequence = snapshotSequence;
+        snapshotSequence = sequence;
+        for (Map.Entry<Long, File> snapshot : snapshots().headMap(previousSequence).entrySet()) {
+            if (!snapshot.getValue().delete()) {
+                LOG.warn("cannot delete snapshot {}", snapshot.getValue());
+            }
+        }
+        eventJournal.deleteSegmentsUpTo(previousSequence);
+        LOG.info("snapshot of {} orders and {} portfolios, sequence={}", orderTable.getOrders().size(), portfolios.size(), sequence);
+    }
+
+    /**
+     * Restore the latest snapshot into the OrderTable and the registered portfolios and accounts, then replay the
+     * journal events after it to the handlers. Returns the number of events replayed.
+     */
+    public long recover(OrderTable orderTable, OrderEventHandler orderEventHandler, ExecutionEventHandler executionEventHandler) throws IOException {
+        TreeMap<Long, File> snapshots = snapshots();
+        long sequence = 0;
+        if (!snapshots.isEmpty()) {
+            TradingStateSnapshot snapshot = TradingStateSnapshot.read(snapshots.lastEntry().getValue());
+            restore(snapshot, orderTable);
+            sequence = snapshot.sequence;
+        }
+        long count = eventJournal.replay(sequence, orderEventHandler, executionEventHandler);
+        LOG.info("recovered from snapshot sequence={}, replayed {} events, last sequence={}", sequence, count, eventJournal.lastSequence());
+        return count;
+    }
+
+    /**
+     * Apply an order replayed from the journal to its portfolio once it is done, the same way the
+     * {@link com.unisoft.algotrader.trading.BackTestOrderManager} adds a filled order to its PortfolioProcessor.
+     */
+    public void replayToPortfolio(Order order) {
+        if (order.filledQty <= 0 || order.portfolioId <= 0
+                || (order.ordStatus != OrdStatus.Filled && order.ordStatus != OrdStatus.Cancelled && order.ordStatus != OrdStatus.Rejected)) {
+            return;
+        }
+        PortfolioProcessor processor = portfolioManager.getPortfolioProcessor(order.portfolioId);
+        if (processor == null) {
+            LOG.warn("portfolio of the replayed order is not registered, portfolioId={}, {}", order.portfolioId, order);
+            return;
+        }
+        processor.add(order);
+    }
+
+    private void restore(TradingStateSnapshot snapshot, OrderTable orderTable) {
+        orderTable.clear();
+        for (Order order : snapshot.orders) {
+            orderTable.addOrUpdateOrder(order);
+        }
+
+        Map<String, Account> accounts = new HashMap<>();
+        for (Account account : snapshot.accounts) {
+            accounts.put(account.accountId(), account);
+        }
+        for (Portfolio portfolio : snapshot.portfolios) {
+            PortfolioProcessor processor = portfolioManager.getPortfolioProcessor(portfolio.portfolioId());
+            if (processor == null) {
+                LOG.warn("portfolio of the snapshot is not registered, portfolioId={}", portfolio.portfolioId());
+                continue;
+            }
+            processor.portfolio().positions(portfolio.positions());
+            processor.portfolio().orderList(portfolio.orderList());
+            Account account = processor.account() == null ? null : accounts.get(processor.account().accountId());
+            if (account != null) {
+                processor.account().accountPositions(account.accountPositions());
+            }
+        }
+    }
+
+    public long lastSequence() {
+        return eventJournal.lastSequence();
+    }
+
+    public long snapshotSequence() {
+        return snapshotSequence;
+    }
+
+    public void flush() {
+        eventJournal.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        eventJournal.close();
+    }
+
+    private File snapshotFile(long sequence) {
+        return new File(dir, String.format("%s%020d%s", SNAPSHOT_PREFIX, sequence, SNAPSHOT_SUFFIX));
+    }
+
+    private TreeMap<Long, File> snapshots() {
+        TreeMap<Long, File> snapshots = new TreeMap<>();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX)) {
+                    snapshots.put(Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length())), file);
+                }
+            }
+        }
+        return snapshots;
+    }
+}
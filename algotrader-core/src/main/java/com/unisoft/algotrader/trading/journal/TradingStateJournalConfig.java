@@ -0,0 +1,40 @@
+package com.unisoft.algotrader.trading.journal;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+/**
+ * Location of the event journal and snapshots, and how often a snapshot is taken.
+ */
+public class TradingStateJournalConfig {
+
+    public final String path;
+    public final int segmentSize;
+    public final long snapshotInterval;
+
+    /**
+     * @param path directory of the journal segments and snapshots
+     * @param segmentSize size in bytes of a journal segment file
+     * @param snapshotInterval number of journaled events after which a snapshot is taken
+     */
+    @Inject
+    public TradingStateJournalConfig(@Named("journal.state.path") String path,
+                                     @Named("journal.state.segmentSize") int segmentSize,
+                                     @Named("journal.state.snapshotInterval") long snapshotInterval){
+        if (snapshotInterval <= 0){
+            throw new IllegalArgumentException("snapshotInterval must be > 0, snapshotInterval=" + snapshotInterval);
+        }
+        this.path = path;
+        this.segmentSize = segmentSize;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    @Override
+    public String toString() {
+        return "TradingStateJournalConfig{" +
+                "path='" + path + '\'' +
+                ", segmentSize=" + segmentSize +
+                ", snapshotInterval=" + snapshotInterval +
+                "} " + super.toString();
+    }
+}
@@ -0,0 +1,279 @@
+package com.unisoft.algotrader.trading.journal;
+
+import com.unisoft.algotrader.model.event.execution.Order;
+import com.unisoft.algotrader.model.serialization.sbe.SBESerializer;
+import com.unisoft.algotrader.model.trading.*;
+import uk.co.real_logic.agrona.concurrent.UnsafeBuffer;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * State of the orders, portfolios and accounts after the journal event of a given sequence.
+ *
+ * In the file, each distinct Order is written once (SBE encoded, followed by its commissions) and the OrderTable,
+ * the portfolios and their positions refer to it by index, so the orders shared by them are shared again once
+ * read. The performance of the portfolios is not part of the snapshot. The file is written next to its final name
+ * and renamed once synced, a snapshot file is either complete or absent.
+ */
+public class TradingStateSnapshot {
+
+    public static final int MAGIC = 0x50414E53; // "SNAP" little-endian
+    public static final int VERSION = 1;
+
+    public final long sequence;
+    public final List<Order> orders;
+    public final List<Portfolio> portfolios;
+    public final List<Account> accounts;
+
+    public TradingStateSnapshot(long sequence, Collection<Order> orders, Collection<Portfolio> portfolios, Collection<Account> accounts) {
+        this.sequence = sequence;
+        this.orders = new ArrayList<>(orders);
+        this.portfolios = new ArrayList<>(portfolios);
+        this.accounts = new ArrayList<>(accounts);
+    }
+
+    public void write(File file) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+            new Writer(out).write();
+            out.flush();
+            fos.getFD().sync();
+        }
+        if (!tmp.renameTo(file)) {
+            throw new IOException("cannot rename snapshot " + tmp + " to " + file);
+        }
+    }
+
+    public static TradingStateSnapshot read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            return new Reader(in).read(file);
+        }
+    }
+
+    private class Writer {
+        private final DataOutputStream out;
+        private final SBESerializer serializer = new SBESerializer();
+        private final UnsafeBuffer buffer = new UnsafeBuffer(ByteBuffer.allocateDirect(SBESerializer.DEFAULT_BUFFER_SIZE));
+        private final byte[] bytes = new byte[SBESerializer.DEFAULT_BUFFER_SIZE];
+        private final Map<Order, Integer> indexes = new IdentityHashMap<>();
+        private final List<Order> distinctOrders = new ArrayList<>();
+
+        Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void write() throws IOException {
+            index(orders);
+            for (Portfolio portfolio : portfolios) {
+                index(portfolio.orderList());
+                for (Position position : portfolio.positions().values()) {
+                    index(position.orderList());
+                }
+            }
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(sequence);
+
+            out.writeInt(distinctOrders.size());
+            for (Order order : distinctOrders) {
+                writeOrder(order);
+            }
+            writeOrderIndexes(orders);
+
+            out.writeInt(portfolios.size());
+            for (Portfolio portfolio : portfolios) {
+                out.writeInt(portfolio.portfolioId());
+                writeString(portfolio.accountId());
+                writeOrderIndexes(portfolio.orderList());
+                out.writeInt(portfolio.positions().size());
+                for (Position position : portfolio.positions().values()) {
+                    writePosition(position);
+                }
+            }
+
+            out.writeInt(accounts.size());
+            for (Account account : accounts) {
+                writeAccount(account);
+            }
+        }
+
+        private void index(Collection<Order> orders) {
+            for (Order order : orders) {
+                if (!indexes.containsKey(order)) {
+                    indexes.put(order, distinctOrders.size());
+                    distinctOrders.add(order);
+                }
+            }
+        }
+
+        private void writeOrder(Order order) throws IOException {
+            int length = serializer.encode(order, buffer, 0);
+            buffer.getBytes(0, bytes, 0, length);
+            out.writeInt(length);
+            out.write(bytes, 0, length);
+            out.writeInt(order.commissions.size());
+            for (Object commission : order.commissions) {
+                out.writeDouble((Double) commission);
+            }
+        }
+
+        private void writeOrderIndexes(Collection<Order> orders) throws IOException {
+            out.writeInt(orders.size());
+            for (Order order : orders) {
+                out.writeInt(indexes.get(order));
+            }
+        }
+
+        private void writePosition(Position position) throws IOException {
+            out.writeLong(position.instId());
+            out.writeInt(position.portfolioId());
+            out.writeDouble(position.marketPrice());
+            out.writeDouble(position.factor());
+            out.writeDouble(position.qtyBought());
+            out.writeDouble(position.qtySold());
+            out.writeDouble(position.qtySoldShort());
+            out.writeDouble(position.margin());
+            out.writeDouble(position.debt());
+            out.writeInt(position.fPnLTransactionIndex());
+            out.writeDouble(position.qtyLeft());
+            writeOrderIndexes(position.orderList());
+        }
+
+        private void writeAccount(Account account) throws IOException {
+            writeString(account.accountId());
+            writeString(account.name());
+            writeString(account.ccyId());
+            out.writeInt(account.accountPositions().size());
+            for (AccountPosition accountPosition : account.accountPositions().values()) {
+                writeString(accountPosition.ccyId());
+                out.writeDouble(accountPosition.value());
+                out.writeInt(accountPosition.accountTransactions().size());
+                for (AccountTransaction transaction : accountPosition.accountTransactions()) {
+                    out.writeLong(transaction.clOrderId());
+                    out.writeLong(transaction.datetime());
+                    writeString(transaction.ccyId());
+                    out.writeDouble(transaction.value());
+                    writeString(transaction.text());
+                }
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) {
+                out.writeUTF(value);
+            }
+        }
+    }
+
+    private static class Reader {
+        private final DataInputStream in;
+        private final SBESerializer serializer = new SBESerializer();
+        private final UnsafeBuffer buffer = new UnsafeBuffer(new byte[0]);
+        private final List<Order> distinctOrders = new ArrayList<>();
+
+        Reader(DataInputStream in) {
+            this.in = in;
+        }
+
+        TradingStateSnapshot read(File file) throws IOException {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Invalid snapshot header, file=" + file);
+            }
+            long sequence = in.readLong();
+
+            int orderCount = in.readInt();
+            for (int i = 0; i < orderCount; i++) {
+                distinctOrders.add(readOrder());
+            }
+            List<Order> orders = readOrderIndexes();
+
+            int portfolioCount = in.readInt();
+            List<Portfolio> portfolios = new ArrayList<>(portfolioCount);
+            for (int i = 0; i < portfolioCount; i++) {
+                Portfolio portfolio = new Portfolio(in.readInt(), readString());
+                portfolio.orderList(readOrderIndexes());
+                int positionCount = in.readInt();
+                for (int j = 0; j < positionCount; j++) {
+                    Position position = readPosition();
+                    portfolio.addPosition(position.instId(), position);
+                }
+                portfolios.add(portfolio);
+            }
+
+            int accountCount = in.readInt();
+            List<Account> accounts = new ArrayList<>(accountCount);
+            for (int i = 0; i < accountCount; i++) {
+                accounts.add(readAccount());
+            }
+            return new TradingStateSnapshot(sequence, orders, portfolios, accounts);
+        }
+
+        private Order readOrder() throws IOException {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            buffer.wrap(bytes);
+            Order order = new Order();
+            serializer.decode(buffer, 0, order);
+            int commissionCount = in.readInt();
+            for (int i = 0; i < commissionCount; i++) {
+                order.commissions.add(in.readDouble());
+            }
+            return order;
+        }
+
+        private List<Order> readOrderIndexes() throws IOException {
+            int count = in.readInt();
+            List<Order> orders = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                orders.add(distinctOrders.get(in.readInt()));
+            }
+            return orders;
+        }
+
+        private Position readPosition() throws IOException {
+            Position position = new Position(in.readLong(), in.readInt());
+            position.marketPrice(in.readDouble());
+            position.factor(in.readDouble());
+            position.qtyBought(in.readDouble());
+            position.qtySold(in.readDouble());
+            position.qtySoldShort(in.readDouble());
+            position.margin(in.readDouble());
+            position.debt(in.readDouble());
+            position.fPnLTransactionIndex(in.readInt());
+            position.qtyLeft(in.readDouble());
+            position.orderList(readOrderIndexes());
+            return position;
+        }
+
+        private Account readAccount() throws IOException {
+            Account account = new Account();
+            account.accountId(readString());
+            account.name(readString());
+            account.ccyId(readString());
+            int positionCount = in.readInt();
+            Map<String, AccountPosition> accountPositions = new HashMap<>();
+            for (int i = 0; i < positionCount; i++) {
+                AccountPosition accountPosition = new AccountPosition(readString());
+                accountPosition.value(in.readDouble());
+                int transactionCount = in.readInt();
+                List<AccountTransaction> transactions = new ArrayList<>(transactionCount);
+                for (int j = 0; j < transactionCount; j++) {
+                    transactions.add(new AccountTransaction(in.readLong(), in.readLong(), readString(), in.readDouble(), readString()));
+                }
+                accountPosition.accountTransactions(transactions);
+                accountPositions.put(accountPosition.ccyId(), accountPosition);
+            }
+            account.accountPositions(accountPositions);
+            return account;
+        }
+
+        private String readString() throws IOException {
+            return in.readBoolean() ? in.readUTF() : null;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.unisoft.algotrader.event.bus;
+
+import com.lmax.disruptor.RingBuffer;
+import com.unisoft.algotrader.model.event.bus.EventBusManager;
+import com.unisoft.algotrader.model.event.data.MarketDataContainer;
+import com.unisoft.algotrader.model.event.execution.Order;
+import com.unisoft.algotrader.model.serialization.sbe.SBESerializer;
+import org.junit.Before;
+import org.junit.Test;
+import uk.co.real_logic.agrona.concurrent.UnsafeBuffer;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MarketDataFragmentHandlerTest {
+
+    private SBESerializer serializer;
+    private UnsafeBuffer buffer;
+
+    @Before
+    public void setup(){
+        serializer = new SBESerializer();
+        buffer = new UnsafeBuffer(ByteBuffer.allocateDirect(4096));
+    }
+
+    private int encodeTrade(long instId, long dateTime, int offset){
+        MarketDataContainer container = new MarketDataContainer();
+        container.setTrade(instId, dateTime, 88 + instId, 100);
+        return serializer.serialize(container, buffer, offset);
+    }
+
+    @Test
+    public void test_decode_into_ring_buffer(){
+        RingBuffer<MarketDataContainer> rb = RingBuffer.createSingleProducer(MarketDataContainer.FACTORY, 16);
+        MarketDataFragmentHandler handler = new MarketDataFragmentHandler(rb);
+
+        int length1 = encodeTrade(1, 1000, 32);
+        int length2 = encodeTrade(2, 2000, 32 + length1);
+        handler.onFragment(buffer, 32, length1, null);
+        handler.onFragment(buffer, 32 + length1, length2, null);
+
+        assertEquals(1, rb.getCursor());
+        MarketDataContainer container = rb.get(0);
+        assertTrue(container.hasTrade());
+        assertFalse(container.hasBar());
+        assertEquals(1, container.instId);
+        assertEquals(1000, container.trade.dateTime);
+        assertEquals(89, container.trade.price, 0.0);
+        assertEquals(2, rb.get(1).instId);
+        assertEquals(90, rb.get(1).trade.price, 0.0);
+    }
+
+    @Test
+    public void test_route_to_partition_and_ignore_other_messages(){
+        RingBuffer<MarketDataContainer>[] rbs = new RingBuffer[]{
+                RingBuffer.createSingleProducer(MarketDataContainer.FACTORY, 16),
+                RingBuffer.createSingleProducer(MarketDataContainer.FACTORY, 16),
+                RingBuffer.createSingleProducer(MarketDataContainer.FACTORY, 16)};
+        MarketDataFragmentHandler handler = new MarketDataFragmentHandler(rbs);
+
+        for (long instId = 1; instId <= 6; instId++){
+            int length = encodeTrade(instId, instId * 1000, 0);
+            handler.onFragment(buffer, 0, length, null);
+        }
+        Order order = new Order();
+        order.instId = 1;
+        handler.onFragment(buffer, 0, serializer.serialize(order, buffer, 0), null);
+
+        long total = 0;
+        for (int i = 0; i < rbs.length; i++){
+            for (long sequence = 0; sequence <= rbs[i].getCursor(); sequence++){
+                assertEquals(i, EventBusManager.partition(rbs[i].get(sequence).instId, rbs.length));
+                total++;
+            }
+        }
+        assertEquals(6, total);
+        assertEquals(1, handler.getIgnored());
+    }
+}
@@ -0,0 +1,61 @@
+package com.unisoft.algotrader.event.bus;
+
+import com.lmax.disruptor.RingBuffer;
+import com.unisoft.algotrader.model.event.bus.EventBusConfig;
+import com.unisoft.algotrader.model.event.bus.EventBusManager;
+import com.unisoft.algotrader.model.event.data.MarketDataContainer;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PartitionedMarketDataEventBusTest {
+
+    @Test
+    public void test_single_partition_by_default(){
+        EventBusManager eventBusManager = new DefaultEventBusManager();
+
+        assertEquals(1, eventBusManager.getMarketDataPartitions());
+        assertSame(eventBusManager.getMarketDataRB(), eventBusManager.getMarketDataRB(0));
+        assertTrue(eventBusManager.getMarketDataEventBus() instanceof RingBufferMarketDataEventBus);
+    }
+
+    @Test
+    public void test_publish_to_instrument_partition(){
+        int partitions = 4;
+        EventBusManager eventBusManager = new DefaultEventBusManager(new EventBusConfig(1024, true, partitions));
+        assertEquals(partitions, eventBusManager.getMarketDataPartitions());
+
+        int[] counts = new int[partitions];
+        for (long instId = 0; instId < 100; instId++) {
+            eventBusManager.getMarketDataEventBus().publishTrade(instId, instId, 100, 10);
+            counts[eventBusManager.getMarketDataPartition(instId)]++;
+        }
+
+        for (int i = 0; i < partitions; i++) {
+            RingBuffer<MarketDataContainer> rb = eventBusManager.getMarketDataRB(i);
+            assertTrue(counts[i] > 0);
+            assertEquals(counts[i] - 1, rb.getCursor());
+            for (long seq = 0; seq <= rb.getCursor(); seq++) {
+                assertEquals(i, eventBusManager.getMarketDataPartition(rb.get(seq).instId));
+            }
+        }
+    }
+
+    @Test
+    public void test_select_partitions_of_instruments(){
+        EventBusManager eventBusManager = new DefaultEventBusManager(new EventBusConfig(1024, false, 8));
+        long instId1 = 1;
+        long instId2 = 2;
+        int partition1 = eventBusManager.getMarketDataPartition(instId1);
+        int partition2 = eventBusManager.getMarketDataPartition(instId2);
+
+        RingBuffer<MarketDataContainer>[] rbs = eventBusManager.getMarketDataRBs(instId1, instId2, instId1);
+
+        assertEquals(partition1 == partition2 ? 1 : 2, rbs.length);
+        assertSame(eventBusManager.getMarketDataRB(Math.min(partition1, partition2)), rbs[0]);
+        assertSame(eventBusManager.getMarketDataRB(Math.max(partition1, partition2)), rbs[rbs.length - 1]);
+        assertEquals(8, eventBusManager.getMarketDataRBs().length);
+    }
+}
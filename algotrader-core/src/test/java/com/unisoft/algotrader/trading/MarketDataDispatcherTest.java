@@ -0,0 +1,233 @@
+package com.unisoft.algotrader.trading;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.lmax.disruptor.RingBuffer;
+import com.unisoft.algotrader.model.clock.SimulationClock;
+import com.unisoft.algotrader.model.event.data.*;
+import com.unisoft.algotrader.model.event.execution.ExecutionEventContainer;
+import com.unisoft.algotrader.model.event.execution.ExecutionReport;
+import com.unisoft.algotrader.model.event.execution.Order;
+import com.unisoft.algotrader.model.refdata.Currency;
+import com.unisoft.algotrader.model.refdata.Instrument;
+import com.unisoft.algotrader.model.trading.*;
+import com.unisoft.algotrader.persistence.InMemoryTradingDataStore;
+import com.unisoft.algotrader.persistence.InstrumentFactory;
+import com.unisoft.algotrader.persistence.SampleInMemoryRefDataStore;
+import com.unisoft.algotrader.persistence.TradingDataStore;
+import com.unisoft.algotrader.provider.ProviderId;
+import com.unisoft.algotrader.provider.data.SubscriptionType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MarketDataDispatcherTest {
+
+    private MarketDataDispatcher dispatcher;
+
+    @Before
+    public void setup(){
+        dispatcher = new MarketDataDispatcher();
+    }
+
+    private static MarketDataContainer bar(long instId){
+        MarketDataContainer container = new MarketDataContainer();
+        container.setBar(instId, 60, 1000, 1, 2, 0.5, 1.5, 100, 0);
+        return container;
+    }
+
+    @Test
+    public void test_route_by_inst_id(){
+        RecordingHandler handler1 = new RecordingHandler();
+        RecordingHandler handler2 = new RecordingHandler();
+        dispatcher.subscribe(1, handler1);
+        dispatcher.subscribe(2, handler1);
+        dispatcher.subscribe(2, handler2);
+        dispatcher.subscribe(2, handler2);
+
+        for (long instId = 0; instId < 100; instId++){
+            dispatcher.onMarketDataContainer(bar(instId));
+        }
+        dispatcher.onQuote(new Quote(2, 1000, 88, 89, 100, 200));
+
+        assertEquals(Sets.newHashSet(1L, 2L), Sets.newHashSet(handler1.instIds));
+        assertEquals(3, handler1.instIds.size());
+        assertEquals(2, handler2.instIds.size());
+        assertTrue(dispatcher.getHandlers(3).length == 0);
+    }
+
+    @Test
+    public void test_unsubscribe_and_subscribe_all(){
+        RecordingHandler handler1 = new RecordingHandler();
+        RecordingHandler all = new RecordingHandler();
+        dispatcher.subscribe(1, handler1);
+        dispatcher.subscribeAll(all);
+
+        assertArrayEquals(new MarketDataHandler[]{handler1, all}, dispatcher.getHandlers(1));
+        assertArrayEquals(new MarketDataHandler[]{all}, dispatcher.getHandlers(5));
+
+        dispatcher.onBar(new Bar(1, 60, 1000, 1, 2, 0.5, 1.5, 100, 0));
+        dispatcher.onBar(new Bar(5, 60, 1000, 1, 2, 0.5, 1.5, 100, 0));
+        dispatcher.unsubscribe(1, handler1);
+        dispatcher.onBar(new Bar(1, 60, 2000, 1, 2, 0.5, 1.5, 100, 0));
+
+        assertEquals(1, handler1.instIds.size());
+        assertEquals(3, all.instIds.size());
+
+        dispatcher.unsubscribeAll(all);
+        assertEquals(0, dispatcher.getHandlers(1).length);
+    }
+
+    @Test
+    public void test_subscribe_strategy_context(){
+        RecordingHandler handler = new RecordingHandler();
+        StrategyContext context = new StrategyContext(ProviderId.Simulation, ProviderId.Dummy, 1,
+                Sets.newHashSet(new SubscriptionType(DataType.Bar, 60)), Sets.newHashSet(1000L, 2000L, 3000L));
+        dispatcher.subscribe(context, handler);
+
+        for (long instId = 0; instId < 5000; instId += 500){
+            dispatcher.onMarketDataContainer(bar(instId));
+        }
+        assertEquals(3, handler.instIds.size());
+
+        dispatcher.unsubscribe(context, handler);
+        assertEquals(0, dispatcher.getHandlers(1000).length);
+    }
+
+    @Test
+    public void test_dispatcher_feeds_registered_strategy_and_portfolio() throws Exception {
+        RingBuffer<MarketDataContainer> marketDataRB = RingBuffer.createSingleProducer(MarketDataContainer.FACTORY, 64);
+        RingBuffer<ExecutionEventContainer> executionEventRB = RingBuffer.createSingleProducer(ExecutionEventContainer.FACTORY, 16);
+        dispatcher = new MarketDataDispatcher(marketDataRB);
+
+        SampleInMemoryRefDataStore refDataStore = new SampleInMemoryRefDataStore();
+        InstrumentFactory instrumentFactory = new InstrumentFactory(refDataStore);
+        Instrument held = instrumentFactory.createStock("0005.HK", "HSBC", "HKEX", "HKD");
+        Instrument bought = instrumentFactory.createStock("0959.HK", "AMAX", "HKEX", "HKD");
+        refDataStore.saveInstrument(held);
+        refDataStore.saveInstrument(bought);
+
+        Account account = new Account("Test", "Testing Account", Currency.HKD, 1000000);
+        Portfolio portfolio = new Portfolio(1, account.accountId());
+        portfolio.addPosition(held.getInstId(), new Position(held.getInstId(), 1, held.getFactor()));
+        TradingDataStore tradingDataStore = new InMemoryTradingDataStore();
+        tradingDataStore.savePortfolio(portfolio);
+
+        // the strategy and the portfolio only consume the execution events, their market data comes from the dispatcher
+        RecordingStrategy strategy = new RecordingStrategy(tradingDataStore, executionEventRB);
+        strategy.register(dispatcher);
+        strategy.init(new StrategyContext(ProviderId.Simulation, ProviderId.Dummy, 1,
+                Sets.newHashSet(new SubscriptionType(DataType.Trade, 0)), Sets.newHashSet(1000L, 2000L)));
+
+        PortfolioProcessor portfolioProcessor = new PortfolioProcessor(portfolio, account, refDataStore, new SimulationClock());
+        portfolioProcessor.register(dispatcher);
+        portfolioProcessor.add(filledOrder(bought.getInstId(), 50, 100));
+
+        Thread thread = new Thread(dispatcher, "dispatcher");
+        thread.start();
+        for (long instId : new long[]{1000, 2000, 3000, held.getInstId(), bought.getInstId()}){
+            long sequence = marketDataRB.next();
+            MarketDataContainer container = marketDataRB.get(sequence);
+            container.reset();
+            container.setTrade(instId, 1000, 60, 10);
+            marketDataRB.publish(sequence);
+        }
+        while (dispatcher.getSequence(marketDataRB).get() < marketDataRB.getCursor()){
+            Thread.yield();
+        }
+        dispatcher.halt();
+        thread.join();
+
+        assertEquals(Lists.newArrayList(1000L, 2000L), strategy.instIds);
+        assertEquals(Sets.newHashSet("dispatcher"), strategy.threads);
+        assertEquals(60, portfolio.getPosition(held.getInstId()).getPrice(), 0.0);
+        assertEquals(60, portfolio.getPosition(bought.getInstId()).getPrice(), 0.0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void test_register_strategy_consuming_market_data_fails(){
+        RingBuffer<MarketDataContainer> marketDataRB = RingBuffer.createSingleProducer(MarketDataContainer.FACTORY, 16);
+        dispatcher = new MarketDataDispatcher(marketDataRB);
+        TradingDataStore tradingDataStore = new InMemoryTradingDataStore();
+        tradingDataStore.savePortfolio(new Portfolio(1, "Test"));
+        new RecordingStrategy(tradingDataStore, marketDataRB).register(dispatcher);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void test_register_portfolio_consuming_market_data_fails(){
+        RingBuffer<MarketDataContainer> marketDataRB = RingBuffer.createSingleProducer(MarketDataContainer.FACTORY, 16);
+        dispatcher = new MarketDataDispatcher(marketDataRB);
+        Account account = new Account("Test", "Testing Account", Currency.HKD, 1000000);
+        new PortfolioProcessor(new Portfolio(1, account.accountId()), account, new SampleInMemoryRefDataStore(),
+                new SimulationClock(), marketDataRB).register(dispatcher);
+    }
+
+    private static Order filledOrder(long instId, double price, double qty){
+        Order order = new Order();
+        order.clOrderId = 1;
+        order.instId = instId;
+        order.ordType = OrdType.Limit;
+        order.limitPrice = price;
+        order.ordQty = qty;
+        order.side = Side.Buy;
+        order.tif = TimeInForce.Day;
+        order.portfolioId = 1;
+
+        ExecutionReport executionReport = new ExecutionReport();
+        executionReport.clOrderId = order.clOrderId;
+        executionReport.instId = instId;
+        executionReport.execId = 1;
+        executionReport.ordType = order.ordType;
+        executionReport.limitPrice = price;
+        executionReport.ordQty = qty;
+        executionReport.side = order.side;
+        executionReport.tif = order.tif;
+        executionReport.filledQty = qty;
+        executionReport.avgPrice = price;
+        executionReport.lastQty = qty;
+        executionReport.lastPrice = price;
+        executionReport.ordStatus = OrdStatus.Filled;
+        order.add(executionReport);
+        return order;
+    }
+
+    private static class RecordingStrategy extends Strategy {
+        private final List<Long> instIds = Lists.newArrayList();
+        private final Set<String> threads = Sets.newHashSet();
+
+        RecordingStrategy(TradingDataStore tradingDataStore, RingBuffer... providers){
+            super(1, tradingDataStore, 1, providers);
+        }
+
+        @Override
+        public void onTrade(Trade trade) {
+            instIds.add(trade.instId);
+            threads.add(Thread.currentThread().getName());
+        }
+    }
+
+    private static class RecordingHandler implements MarketDataHandler {
+        private final List<Long> instIds = Lists.newArrayList();
+
+        @Override
+        public void onBar(Bar bar) {
+            instIds.add(bar.instId);
+        }
+
+        @Override
+        public void onQuote(Quote quote) {
+            instIds.add(quote.instId);
+        }
+
+        @Override
+        public void onTrade(Trade trade) {
+            instIds.add(trade.instId);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.unisoft.algotrader.trading;
+
+import com.unisoft.algotrader.model.event.data.MDOperation;
+import com.unisoft.algotrader.model.event.data.MDSide;
+import com.unisoft.algotrader.model.event.data.MarketDepth;
+import com.unisoft.algotrader.model.event.data.Quote;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a synthetic IB style depth stream (updateMktDepth with position based insert / update / delete
+ * on a 10 level book) through {@link OrderBook}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OrderBookBenchmark {
+
+    private static final int STREAM_SIZE = 1 << 16;
+    private static final int MAX_DEPTH = 10;
+
+    private final MarketDepth[] stream = new MarketDepth[STREAM_SIZE];
+    private final Quote quote = new Quote();
+    private OrderBook orderBook;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        int[] levels = new int[3];
+        double mid = 100;
+
+        for (int i = 0; i < STREAM_SIZE; i++) {
+            MDSide side = random.nextBoolean() ? MDSide.Bid : MDSide.Ask;
+            int depth = levels[side.ordinal()];
+            int position = depth == 0 ? 0 : random.nextInt(depth);
+            int op = random.nextInt(10);
+            MDOperation operation;
+            if (depth < MAX_DEPTH && (depth == 0 || op < 2)) {
+                operation = MDOperation.Insert;
+                position = depth == 0 ? 0 : random.nextInt(depth + 1);
+                levels[side.ordinal()]++;
+            } else if (op < 4) {
+                operation = MDOperation.Delete;
+                levels[side.ordinal()]--;
+            } else {
+                operation = MDOperation.Update;
+            }
+            double price = side == MDSide.Bid ? mid - 0.01 * (position + 1) : mid + 0.01 * (position + 1);
+            stream[i] = new MarketDepth(1, i, 0, position, operation, side, price, 100 + random.nextInt(900));
+        }
+
+        orderBook = new OrderBook(1);
+        cursor = 0;
+    }
+
+    private MarketDepth next() {
+        MarketDepth marketDepth = stream[cursor];
+        if (++cursor == STREAM_SIZE) {
+            cursor = 0;
+            orderBook.clear();
+        }
+        return marketDepth;
+    }
+
+    @Benchmark
+    public void replay() {
+        orderBook.add(next());
+    }
+
+    @Benchmark
+    public void replayAndQuote(Blackhole blackhole) {
+        orderBook.add(next());
+        blackhole.consume(orderBook.getQuote(0, quote));
+    }
+
+    @Benchmark
+    public void replayAndSweep(Blackhole blackhole) {
+        orderBook.add(next());
+        blackhole.consume(orderBook.getAvgAskPrice(1000));
+        blackhole.consume(orderBook.getBidVolume());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(OrderBookBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
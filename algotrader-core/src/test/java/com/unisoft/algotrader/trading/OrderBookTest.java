@@ -0,0 +1,125 @@
+package com.unisoft.algotrader.trading;
+
+import com.unisoft.algotrader.model.event.data.MDOperation;
+import com.unisoft.algotrader.model.event.data.MDSide;
+import com.unisoft.algotrader.model.event.data.MarketDepth;
+import com.unisoft.algotrader.model.event.data.Quote;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class OrderBookTest {
+
+    private OrderBook orderBook;
+
+    @Before
+    public void setup() {
+        orderBook = new OrderBook(1, 2);
+    }
+
+    private void add(int position, MDOperation operation, MDSide side, double price, int size) {
+        orderBook.add(new MarketDepth(1, 0, 0, position, operation, side, price, size));
+    }
+
+    @Test
+    public void test_insert_by_price_keeps_book_sorted() {
+        add(-1, MDOperation.Insert, MDSide.Bid, 99, 10);
+        add(-1, MDOperation.Insert, MDSide.Bid, 101, 20);
+        add(-1, MDOperation.Insert, MDSide.Bid, 100, 30);
+
+        add(-1, MDOperation.Insert, MDSide.Ask, 104, 10);
+        add(-1, MDOperation.Insert, MDSide.Ask, 102, 20);
+        add(-1, MDOperation.Insert, MDSide.Ask, 103, 30);
+
+        assertEquals(3, orderBook.bidLevels());
+        assertEquals(101, orderBook.bids.price(0), 0.0);
+        assertEquals(100, orderBook.bids.price(1), 0.0);
+        assertEquals(99, orderBook.bids.price(2), 0.0);
+
+        assertEquals(3, orderBook.askLevels());
+        assertEquals(102, orderBook.asks.price(0), 0.0);
+        assertEquals(103, orderBook.asks.price(1), 0.0);
+        assertEquals(104, orderBook.asks.price(2), 0.0);
+    }
+
+    @Test
+    public void test_insert_same_price_after_existing_level() {
+        add(-1, MDOperation.Insert, MDSide.Bid, 100, 10);
+        add(-1, MDOperation.Insert, MDSide.Bid, 100, 20);
+
+        assertEquals(10, orderBook.bids.size(0));
+        assertEquals(20, orderBook.bids.size(1));
+    }
+
+    @Test
+    public void test_insert_update_delete_by_position() {
+        add(0, MDOperation.Insert, MDSide.Ask, 101, 10);
+        add(1, MDOperation.Insert, MDSide.Ask, 102, 20);
+        add(1, MDOperation.Insert, MDSide.Ask, 101.5, 30);
+
+        assertEquals(101.5, orderBook.asks.price(1), 0.0);
+        assertEquals(60, orderBook.getAskVolume(), 0.0);
+
+        add(1, MDOperation.Update, MDSide.Ask, 0, 5);
+        assertEquals(101.5, orderBook.asks.price(1), 0.0);
+        assertEquals(5, orderBook.asks.size(1));
+        assertEquals(35, orderBook.getAskVolume(), 0.0);
+
+        add(0, MDOperation.Delete, MDSide.Ask, 0, 0);
+        assertEquals(2, orderBook.askLevels());
+        assertEquals(101.5, orderBook.asks.price(0), 0.0);
+        assertEquals(25, orderBook.getAskVolume(), 0.0);
+
+        add(0, MDOperation.Reset, MDSide.Ask, 0, 0);
+        assertEquals(0, orderBook.askLevels());
+        assertEquals(0, orderBook.getAskVolume(), 0.0);
+        assertEquals(0, orderBook.getAvgAskPrice(), 0.0);
+    }
+
+    @Test
+    public void test_avg_price() {
+        add(-1, MDOperation.Insert, MDSide.Bid, 100, 10);
+        add(-1, MDOperation.Insert, MDSide.Bid, 99, 30);
+
+        assertEquals((100.0 * 10 + 99.0 * 30) / 40, orderBook.getAvgBidPrice(), 1e-9);
+        assertEquals(100.0, orderBook.getAvgBidPrice(5), 1e-9);
+        assertEquals((100.0 * 10 + 99.0 * 10) / 20, orderBook.getAvgBidPrice(20), 1e-9);
+        assertEquals((100.0 * 10 + 99.0 * 40) / 50, orderBook.getAvgBidPrice(50), 1e-9);
+        assertEquals(0, orderBook.getAvgAskPrice(50), 0.0);
+    }
+
+    @Test
+    public void test_volume_within_limit_and_size_at_price() {
+        add(-1, MDOperation.Insert, MDSide.Bid, 100, 10);
+        add(-1, MDOperation.Insert, MDSide.Bid, 99, 30);
+        add(-1, MDOperation.Insert, MDSide.Bid, 99, 5);
+        add(-1, MDOperation.Insert, MDSide.Ask, 101, 20);
+        add(-1, MDOperation.Insert, MDSide.Ask, 102, 40);
+
+        assertEquals(0, orderBook.getBidVolume(100.5), 0.0);
+        assertEquals(10, orderBook.getBidVolume(100), 0.0);
+        assertEquals(45, orderBook.getBidVolume(98), 0.0);
+        assertEquals(20, orderBook.getAskVolume(101.5), 0.0);
+        assertEquals(60, orderBook.getAskVolume(102), 0.0);
+
+        assertEquals(35, orderBook.bids.sizeAt(99));
+        assertEquals(10, orderBook.bids.sizeAt(100));
+        assertEquals(0, orderBook.bids.sizeAt(98));
+        assertEquals(40, orderBook.asks.sizeAt(102));
+    }
+
+    @Test
+    public void test_get_quote_reuse() {
+        orderBook.add(new MarketDepth(1, 10, 0, -1, MDOperation.Insert, MDSide.Bid, 100, 10));
+        orderBook.add(new MarketDepth(1, 20, 0, -1, MDOperation.Insert, MDSide.Ask, 101, 20));
+
+        Quote quote = new Quote();
+        assertSame(quote, orderBook.getQuote(0, quote));
+        assertEquals(new Quote(1, 20, 100, 101, 10, 20), quote);
+
+        orderBook.getQuote(1, quote);
+        assertEquals(new Quote(1, -1, 0, 0, 0, 0), quote);
+    }
+}
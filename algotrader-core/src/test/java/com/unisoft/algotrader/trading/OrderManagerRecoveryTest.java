@@ -0,0 +1,162 @@
+package com.unisoft.algotrader.trading;
+
+import com.unisoft.algotrader.event.bus.DefaultEventBusManager;
+import com.unisoft.algotrader.model.clock.SimulationClock;
+import com.unisoft.algotrader.model.event.execution.ExecutionEventContainer;
+import com.unisoft.algotrader.model.event.execution.ExecutionReport;
+import com.unisoft.algotrader.model.event.execution.Order;
+import com.unisoft.algotrader.model.event.execution.OrderEventContainer;
+import com.unisoft.algotrader.model.refdata.Currency;
+import com.unisoft.algotrader.model.refdata.Instrument;
+import com.unisoft.algotrader.model.trading.*;
+import com.unisoft.algotrader.persistence.InMemoryRefDataStore;
+import com.unisoft.algotrader.persistence.InstrumentFactory;
+import com.unisoft.algotrader.persistence.SampleInMemoryRefDataStore;
+import com.unisoft.algotrader.trading.journal.TradingStateJournal;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class OrderManagerRecoveryTest {
+
+    private static final InMemoryRefDataStore REF_DATA_STORE = new SampleInMemoryRefDataStore();
+    private static final Instrument INSTRUMENT = new InstrumentFactory(REF_DATA_STORE).createStock("0005.HK", "HSBC", "HKEX", "HKD");
+
+    private File dir;
+
+    @Before
+    public void setup() throws Exception{
+        REF_DATA_STORE.saveInstrument(INSTRUMENT);
+        dir = Files.createTempDirectory("journal").toFile();
+    }
+
+    @After
+    public void teardown(){
+        File [] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private static OrderEventContainer newOrder(long clOrderId){
+        Order order = new Order();
+        order.strategyId = 1;
+        order.portfolioId = 1;
+        order.clOrderId = clOrderId;
+        order.instId = INSTRUMENT.getInstId();
+        order.side = Side.Buy;
+        order.ordType = OrdType.Limit;
+        order.ordQty = 100;
+        order.limitPrice = 10;
+        OrderEventContainer container = new OrderEventContainer();
+        container.setNewOrderRequest(order);
+        return container;
+    }
+
+    private static ExecutionEventContainer fill(long execId, long clOrderId){
+        ExecutionReport executionReport = new ExecutionReport();
+        executionReport.execId = execId;
+        executionReport.strategyId = 1;
+        executionReport.clOrderId = clOrderId;
+        executionReport.execType = ExecType.Trade;
+        executionReport.ordStatus = OrdStatus.Filled;
+        executionReport.filledQty = 100;
+        executionReport.lastQty = 100;
+        executionReport.lastPrice = 10;
+        executionReport.avgPrice = 10;
+        ExecutionEventContainer container = new ExecutionEventContainer();
+        container.setExecutionReport(executionReport);
+        return container;
+    }
+
+    private static PortfolioProcessor portfolioProcessor(){
+        Account account = new Account("Test", "Testing Account", Currency.HKD, 1000000);
+        return new PortfolioProcessor(new Portfolio(1, account.accountId()), account, REF_DATA_STORE, new SimulationClock());
+    }
+
+    @Test
+    public void test_recover_from_snapshot_and_journal_tail() throws Exception{
+        PortfolioManager portfolioManager = new PortfolioManager(() -> 1);
+        PortfolioProcessor processor = portfolioProcessor();
+        portfolioManager.register(processor);
+
+        OrderManager orderManager = new OrderManager(new DefaultEventBusManager());
+        TradingStateJournal journal = new TradingStateJournal(dir, 4096, 3, portfolioManager);
+        orderManager.setStateJournal(journal);
+
+        orderManager.onEvent(newOrder(1));
+        orderManager.onEvent(fill(1, 1));
+        processor.add(orderManager.orderTable.getOrder(1, 1));
+        orderManager.onEvent(newOrder(2));
+        assertEquals(3, journal.snapshotSequence());
+        orderManager.onEvent(fill(2, 2));
+        processor.add(orderManager.orderTable.getOrder(1, 2));
+        journal.close();
+
+        PortfolioManager recoveredPortfolioManager = new PortfolioManager(() -> 1);
+        PortfolioProcessor recoveredProcessor = portfolioProcessor();
+        recoveredPortfolioManager.register(recoveredProcessor);
+
+        OrderManager recoveredOrderManager = new OrderManager(new DefaultEventBusManager());
+        TradingStateJournal recoveredJournal = new TradingStateJournal(dir, 4096, 3, recoveredPortfolioManager);
+        recoveredOrderManager.setStateJournal(recoveredJournal);
+
+        assertEquals(1, recoveredOrderManager.recover());
+        assertEquals(4, recoveredJournal.lastSequence());
+
+        Order order1 = recoveredOrderManager.orderTable.getOrder(1, 1);
+        Order order2 = recoveredOrderManager.orderTable.getOrder(1, 2);
+        assertEquals(OrdStatus.Filled, order1.ordStatus);
+        assertEquals(OrdStatus.Filled, order2.ordStatus);
+        assertEquals(100, order2.filledQty, 0);
+
+        // the fill of order 2 after the snapshot is replayed to the portfolio
+        Position position = recoveredProcessor.portfolio().getPosition(INSTRUMENT.getInstId());
+        assertEquals(200, position.getQty(), 0);
+        assertEquals(2, position.orderList().size());
+        assertSame(order1, position.orderList().get(0));
+        assertSame(order2, position.orderList().get(1));
+        assertEquals(1000000 - 2 * 100 * 10, recoveredProcessor.account().value(Currency.HKD), 0);
+        assertEquals(processor.accountValue(), recoveredProcessor.accountValue(), 0);
+        assertEquals(processor.positionValue(), recoveredProcessor.positionValue(), 0);
+        recoveredJournal.close();
+    }
+
+    @Test
+    public void test_recover_once_when_started() throws Exception{
+        PortfolioManager portfolioManager = new PortfolioManager(() -> 1);
+        portfolioManager.register(portfolioProcessor());
+        OrderManager orderManager = new OrderManager(new DefaultEventBusManager());
+        TradingStateJournal journal = new TradingStateJournal(dir, 4096, 100, portfolioManager);
+        orderManager.setStateJournal(journal);
+        orderManager.onEvent(newOrder(1));
+        orderManager.onEvent(fill(1, 1));
+        journal.close();
+
+        PortfolioManager recoveredPortfolioManager = new PortfolioManager(() -> 1);
+        PortfolioProcessor recoveredProcessor = portfolioProcessor();
+        recoveredPortfolioManager.register(recoveredProcessor);
+        OrderManager recoveredOrderManager = new OrderManager(new DefaultEventBusManager());
+        TradingStateJournal recoveredJournal = new TradingStateJournal(dir, 4096, 100, recoveredPortfolioManager);
+        recoveredOrderManager.setStateJournal(recoveredJournal);
+
+        recoveredOrderManager.onStart();
+        assertEquals(OrdStatus.Filled, recoveredOrderManager.orderTable.getOrder(1, 1).ordStatus);
+        assertEquals(100, recoveredProcessor.portfolio().getPosition(INSTRUMENT.getInstId()).getQty(), 0);
+
+        // started again, the fill is not applied twice
+        recoveredOrderManager.onStart();
+        assertEquals(0, recoveredOrderManager.recover());
+        assertEquals(100, recoveredProcessor.portfolio().getPosition(INSTRUMENT.getInstId()).getQty(), 0);
+        recoveredJournal.close();
+    }
+}
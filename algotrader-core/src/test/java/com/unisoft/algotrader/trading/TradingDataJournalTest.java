@@ -0,0 +1,197 @@
+package com.unisoft.algotrader.trading;
+
+import com.lmax.disruptor.RingBuffer;
+import com.unisoft.algotrader.model.event.execution.ExecutionEventContainer;
+import com.unisoft.algotrader.model.event.execution.ExecutionReport;
+import com.unisoft.algotrader.model.event.execution.Order;
+import com.unisoft.algotrader.model.event.execution.OrderEventContainer;
+import com.unisoft.algotrader.model.trading.ExecType;
+import com.unisoft.algotrader.model.trading.OrdStatus;
+import com.unisoft.algotrader.persistence.InMemoryTradingDataStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TradingDataJournalTest {
+
+    private static class RecordingTradingDataStore extends InMemoryTradingDataStore {
+        final List<Integer> batchSizes = new ArrayList<>();
+        int failures;
+
+        @Override
+        public void saveAll(Collection<Order> orders, Collection<ExecutionReport> executionReports) {
+            if (failures > 0) {
+                failures--;
+                throw new RuntimeException("store unavailable");
+            }
+            batchSizes.add(orders.size() + executionReports.size());
+            super.saveAll(orders, executionReports);
+        }
+    }
+
+    private RecordingTradingDataStore store;
+    private File dir;
+
+    @Before
+    public void setup() throws Exception{
+        store = new RecordingTradingDataStore();
+        dir = Files.createTempDirectory("journal").toFile();
+    }
+
+    @After
+    public void tearDown(){
+        File[] files = dir.listFiles();
+        if (files != null){
+            for (File file : files){
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private TradingDataJournal journal(int batchSize){
+        return journal(batchSize, null);
+    }
+
+    private TradingDataJournal journal(int batchSize, String checkpointPath){
+        return new TradingDataJournal(store, new TradingDataJournalConfig(batchSize, TimeUnit.HOURS.toMillis(1), 4, 1, checkpointPath),
+                RingBuffer.createSingleProducer(OrderEventContainer.FACTORY, 16),
+                RingBuffer.createSingleProducer(ExecutionEventContainer.FACTORY, 16));
+    }
+
+    private static Order order(long clOrderId){
+        Order order = new Order();
+        order.strategyId = 1;
+        order.clOrderId = clOrderId;
+        order.instId = 10;
+        order.ordQty = 100;
+        return order;
+    }
+
+    private static ExecutionReport fill(long execId, long clOrderId, double filledQty, OrdStatus ordStatus){
+        ExecutionReport executionReport = new ExecutionReport();
+        executionReport.execId = execId;
+        executionReport.strategyId = 1;
+        executionReport.clOrderId = clOrderId;
+        executionReport.execType = ExecType.Trade;
+        executionReport.ordStatus = ordStatus;
+        executionReport.filledQty = filledQty;
+        executionReport.lastQty = 50;
+        executionReport.lastPrice = 10;
+        executionReport.avgPrice = 10;
+        return executionReport;
+    }
+
+    private void stop(TradingDataJournal journal) throws InterruptedException {
+        journal.onShutdown();
+        assertTrue(journal.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void test_coalesce_order_updates() throws Exception{
+        TradingDataJournal journal = journal(100);
+        journal.onStart();
+
+        Order order = order(1);
+        journal.onNewOrderRequest(order);
+        journal.onExecutionReport(fill(1, 1, 50, OrdStatus.PartiallyFilled));
+        journal.onExecutionReport(fill(2, 1, 100, OrdStatus.Filled));
+        stop(journal);
+
+        assertEquals(1, store.batchSizes.size());
+        assertEquals(3, (int) store.batchSizes.get(0));
+        assertEquals(OrdStatus.Filled, store.getOrder(1).ordStatus);
+        assertEquals(100, store.getOrder(1).filledQty, 0);
+        assertEquals(2, store.getAllExecutionReports().size());
+        assertEquals(3, journal.getFlushedSequence());
+        // the order of the caller is not modified by the journal
+        assertEquals(OrdStatus.New, order.ordStatus);
+    }
+
+    @Test
+    public void test_flush_on_batch_size() throws Exception{
+        TradingDataJournal journal = journal(2);
+        journal.onStart();
+
+        for (int i = 1; i <= 5; i++){
+            journal.onNewOrderRequest(order(i));
+        }
+        stop(journal);
+
+        assertEquals(3, store.batchSizes.size());
+        assertEquals(5, store.getAllOrders().size());
+        assertEquals(5, journal.getFlushedSequence());
+    }
+
+    @Test
+    public void test_retry_failed_batch() throws Exception{
+        store.failures = 2;
+        TradingDataJournal journal = journal(100);
+        journal.onStart();
+
+        journal.onNewOrderRequest(order(1));
+        stop(journal);
+
+        assertEquals(1, store.batchSizes.size());
+        assertEquals(1, store.getAllOrders().size());
+    }
+
+    @Test
+    public void test_resume_from_checkpoint() throws Exception{
+        String checkpointPath = new File(dir, "trading-data-journal.checkpoint").getPath();
+        TradingDataJournal journal = journal(2, checkpointPath);
+        assertEquals(0, journal.getFlushedSequence());
+        journal.onStart();
+
+        for (int i = 1; i <= 3; i++){
+            journal.onNewOrderRequest(order(i));
+        }
+        stop(journal);
+        assertEquals(3, journal.getFlushedSequence());
+
+        TradingDataJournal resumed = journal(2, checkpointPath);
+        assertEquals(3, resumed.getFlushedSequence());
+        assertEquals(3, resumed.getJournalSequence());
+        resumed.onStart();
+
+        resumed.onNewOrderRequest(order(4));
+        stop(resumed);
+        assertEquals(4, resumed.getFlushedSequence());
+        assertEquals(4, journal(2, checkpointPath).getFlushedSequence());
+        assertEquals(4, store.getAllOrders().size());
+    }
+
+    @Test
+    public void test_checkpoint_failure_retries_batch() throws Exception{
+        File checkpoint = new File(dir, "checkpoint");
+        TradingDataJournal journal = journal(100, checkpoint.getPath());
+        // a directory cannot be replaced by the checkpoint file
+        assertTrue(checkpoint.mkdir());
+        journal.onStart();
+        journal.onNewOrderRequest(order(1));
+        journal.onShutdown();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (store.batchSizes.size() < 2 && System.currentTimeMillis() < deadline){
+            Thread.sleep(1);
+        }
+        // saved again, the sequence is not acknowledged while the checkpoint fails
+        assertTrue(store.batchSizes.size() >= 2);
+        assertEquals(0, journal.getFlushedSequence());
+
+        assertTrue(checkpoint.delete());
+        assertTrue(journal.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(1, journal.getFlushedSequence());
+        assertEquals(1, journal(100, checkpoint.getPath()).getFlushedSequence());
+    }
+}
@@ -0,0 +1,151 @@
+package com.unisoft.algotrader.trading.journal;
+
+import com.unisoft.algotrader.model.event.execution.*;
+import com.unisoft.algotrader.model.trading.CxlRejReason;
+import com.unisoft.algotrader.model.trading.ExecType;
+import com.unisoft.algotrader.model.trading.OrdStatus;
+import com.unisoft.algotrader.model.trading.Side;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EventJournalTest {
+
+    private File dir;
+
+    private static class Recorder implements OrderEventHandler, ExecutionEventHandler {
+        final List<Object> events = new ArrayList<>();
+
+        @Override
+        public void onNewOrderRequest(Order order) {
+            events.add(order);
+        }
+
+        @Override
+        public void onOrderCancelRequest(Order order) {
+            events.add(order);
+        }
+
+        @Override
+        public void onExecutionReport(ExecutionReport executionReport) {
+            events.add(executionReport);
+        }
+
+        @Override
+        public void onOrderCancelReject(OrderCancelReject orderCancelReject) {
+            events.add(orderCancelReject);
+        }
+    }
+
+    @Before
+    public void setup() throws Exception{
+        dir = Files.createTempDirectory("journal").toFile();
+    }
+
+    @After
+    public void teardown(){
+        File [] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private static OrderEventContainer newOrder(long clOrderId){
+        Order order = new Order();
+        order.strategyId = 1;
+        order.clOrderId = clOrderId;
+        order.instId = 10;
+        order.side = Side.Buy;
+        order.ordQty = 100;
+        order.accountId = "Test";
+        OrderEventContainer container = new OrderEventContainer();
+        container.setNewOrderRequest(order);
+        return container;
+    }
+
+    private static ExecutionEventContainer fill(long clOrderId){
+        ExecutionReport executionReport = new ExecutionReport();
+        executionReport.strategyId = 1;
+        executionReport.clOrderId = clOrderId;
+        executionReport.execType = ExecType.Trade;
+        executionReport.ordStatus = OrdStatus.Filled;
+        executionReport.filledQty = 100;
+        executionReport.avgPrice = 10.5;
+        ExecutionEventContainer container = new ExecutionEventContainer();
+        container.setExecutionReport(executionReport);
+        return container;
+    }
+
+    @Test
+    public void test_append_and_replay_after_reopen() throws Exception{
+        try (EventJournal journal = new EventJournal(dir, 4096)){
+            assertEquals(1, journal.append(newOrder(1)));
+            assertEquals(2, journal.append(fill(1)));
+
+            OrderCancelReject orderCancelReject = new OrderCancelReject();
+            orderCancelReject.strategyId = 1;
+            orderCancelReject.clOrderId = 2;
+            orderCancelReject.ordStatus = OrdStatus.Filled;
+            orderCancelReject.cxlRejReason = CxlRejReason.TooLateToCancel;
+            ExecutionEventContainer container = new ExecutionEventContainer();
+            container.setOrderCancelReject(orderCancelReject);
+            assertEquals(3, journal.append(container));
+        }
+
+        try (EventJournal journal = new EventJournal(dir, 4096)){
+            assertEquals(3, journal.lastSequence());
+
+            Recorder recorder = new Recorder();
+            assertEquals(3, journal.replay(0, recorder, recorder));
+            Order order = (Order) recorder.events.get(0);
+            assertEquals(1, order.clOrderId);
+            assertEquals("Test", order.accountId);
+            assertEquals(OrdStatus.Filled, ((ExecutionReport) recorder.events.get(1)).ordStatus);
+            assertEquals(10.5, ((ExecutionReport) recorder.events.get(1)).avgPrice, 0);
+            OrderCancelReject orderCancelReject = (OrderCancelReject) recorder.events.get(2);
+            assertEquals(2, orderCancelReject.clOrderId);
+            assertEquals(CxlRejReason.TooLateToCancel, orderCancelReject.cxlRejReason);
+            assertEquals(null, orderCancelReject.cxlRejResponseTo);
+
+            recorder = new Recorder();
+            assertEquals(1, journal.replay(2, recorder, recorder));
+            assertTrue(recorder.events.get(0) instanceof OrderCancelReject);
+
+            assertEquals(4, journal.append(newOrder(3)));
+        }
+    }
+
+    @Test
+    public void test_roll_segments_and_delete() throws Exception{
+        try (EventJournal journal = new EventJournal(dir, 1024)){
+            for (int i = 1; i <= 50; i++){
+                journal.append(newOrder(i));
+            }
+            assertTrue(dir.listFiles().length > 1);
+
+            Recorder recorder = new Recorder();
+            assertEquals(10, journal.replay(40, recorder, recorder));
+            assertEquals(41, ((Order) recorder.events.get(0)).clOrderId);
+
+            journal.roll();
+            assertEquals(51, journal.firstSequence());
+            journal.deleteSegmentsUpTo(50);
+            assertEquals(1, dir.listFiles().length);
+
+            journal.append(newOrder(51));
+            recorder = new Recorder();
+            assertEquals(1, journal.replay(0, recorder, recorder));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.unisoft.algotrader.indicator;
+
+import com.unisoft.algotrader.model.event.data.Bar;
+
+/**
+ * Average true range with Wilder's smoothing, seeded with the simple average of the first period true ranges.
+ */
+public class ATR extends BarIndicator {
+
+    private final int period;
+    private double previousClose = Double.NaN;
+    private int count;
+    private double atr;
+
+    public ATR(int period) {
+        checkPeriod(period);
+        this.period = period;
+    }
+
+    @Override
+    public void onBar(Bar bar) {
+        double trueRange = bar.high - bar.low;
+        if (!Double.isNaN(previousClose)) {
+            trueRange = Math.max(trueRange, Math.max(Math.abs(bar.high - previousClose), Math.abs(bar.low - previousClose)));
+        }
+        previousClose = bar.close;
+        if (count < period) {
+            atr += trueRange / period;
+            if (++count < period) {
+                return;
+            }
+        }
+        else {
+            atr = (atr * (period - 1) + trueRange) / period;
+        }
+        publish(bar.dateTime, atr);
+    }
+}
@@ -0,0 +1,20 @@
+package com.unisoft.algotrader.indicator;
+
+import com.unisoft.algotrader.model.event.data.MarketDataHandler;
+import com.unisoft.algotrader.model.event.data.Quote;
+import com.unisoft.algotrader.model.event.data.Trade;
+
+/**
+ * An indicator of several fields of the market data, e.g. the high, low and close of a bar, fed as a
+ * MarketDataHandler directly or through a {@link BarSource} or {@link TradeSource}.
+ */
+public abstract class BarIndicator extends Indicator implements MarketDataHandler {
+
+    @Override
+    public void onQuote(Quote quote) {
+    }
+
+    @Override
+    public void onTrade(Trade trade) {
+    }
+}
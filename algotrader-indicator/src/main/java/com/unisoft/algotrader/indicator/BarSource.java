@@ -0,0 +1,79 @@
+package com.unisoft.algotrader.indicator;
+
+import com.unisoft.algotrader.model.event.data.Bar;
+import com.unisoft.algotrader.model.event.data.MarketDataHandler;
+import com.unisoft.algotrader.model.event.data.Quote;
+import com.unisoft.algotrader.model.event.data.Trade;
+
+import java.util.Arrays;
+
+/**
+ * Root of the indicators of the bars of an instrument and bar size: publishes the fields of each bar as series,
+ * then passes the bar to the {@link BarIndicator}s added to it.
+ */
+public class BarSource implements MarketDataHandler {
+
+    private static final MarketDataHandler[] NO_HANDLERS = new MarketDataHandler[0];
+
+    public final long instId;
+    public final int barSize;
+
+    private final Series open = new Series();
+    private final Series high = new Series();
+    private final Series low = new Series();
+    private final Series close = new Series();
+    private final Series volume = new Series();
+    private MarketDataHandler[] handlers = NO_HANDLERS;
+
+    public BarSource(long instId, int barSize) {
+        this.instId = instId;
+        this.barSize = barSize;
+    }
+
+    public <T extends BarIndicator> T add(T indicator) {
+        handlers = Arrays.copyOf(handlers, handlers.length + 1);
+        handlers[handlers.length - 1] = indicator;
+        return indicator;
+    }
+
+    @Override
+    public void onBar(Bar bar) {
+        open.update(bar.dateTime, bar.open);
+        high.update(bar.dateTime, bar.high);
+        low.update(bar.dateTime, bar.low);
+        close.update(bar.dateTime, bar.close);
+        volume.update(bar.dateTime, bar.volume);
+        MarketDataHandler[] handlers = this.handlers;
+        for (int i = 0; i < handlers.length; i++) {
+            handlers[i].onBar(bar);
+        }
+    }
+
+    @Override
+    public void onQuote(Quote quote) {
+    }
+
+    @Override
+    public void onTrade(Trade trade) {
+    }
+
+    public Indicator open() {
+        return open;
+    }
+
+    public Indicator high() {
+        return high;
+    }
+
+    public Indicator low() {
+        return low;
+    }
+
+    public Indicator close() {
+        return close;
+    }
+
+    public Indicator volume() {
+        return volume;
+    }
+}
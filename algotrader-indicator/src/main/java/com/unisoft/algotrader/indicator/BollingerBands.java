@@ -0,0 +1,43 @@
+package com.unisoft.algotrader.indicator;
+
+/**
+ * Bollinger bands, the value is the middle band (simple moving average) and the upper and lower bands are the
+ * middle band plus and minus k standard deviations of the same window.
+ */
+public class BollingerBands extends Indicator implements IndicatorListener {
+
+    private final SMA middle;
+    private final double k;
+    private final Series upper = new Series();
+    private final Series lower = new Series();
+
+    public BollingerBands(Indicator input, int period, double k) {
+        this(new SMA(input, period), new StdDev(input, period), k);
+    }
+
+    /**
+     * Bands of an existing average and standard deviation of the same input, the standard deviation must have
+     * been created after the average.
+     */
+    public BollingerBands(SMA middle, StdDev stdDev, double k) {
+        this.middle = middle;
+        this.k = k;
+        stdDev.addListener(this);
+    }
+
+    @Override
+    public void onValue(long dateTime, double stdDev) {
+        double mean = middle.value();
+        upper.update(dateTime, mean + k * stdDev);
+        lower.update(dateTime, mean - k * stdDev);
+        publish(dateTime, mean);
+    }
+
+    public Indicator upper() {
+        return upper;
+    }
+
+    public Indicator lower() {
+        return lower;
+    }
+}
@@ -0,0 +1,55 @@
+package com.unisoft.algotrader.indicator;
+
+/**
+ * Fixed size window of the last values added, oldest first.
+ */
+public class DoubleRing {
+
+    private final double[] values;
+    private int head;
+    private int size;
+
+    public DoubleRing(int capacity) {
+        Indicator.checkPeriod(capacity);
+        this.values = new double[capacity];
+    }
+
+    /**
+     * Add a value, returns the value evicted to make room for it, or NaN while the window is not full.
+     */
+    public double add(double value) {
+        double evicted = Double.NaN;
+        int slot;
+        if (size == values.length) {
+            evicted = values[head];
+            slot = head;
+            head = head + 1 == values.length ? 0 : head + 1;
+        }
+        else {
+            slot = head + size < values.length ? head + size : head + size - values.length;
+            size++;
+        }
+        values[slot] = value;
+        return evicted;
+    }
+
+    /**
+     * Value at index i, 0 being the oldest.
+     */
+    public double get(int i) {
+        int slot = head + i;
+        return values[slot < values.length ? slot : slot - values.length];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return values.length;
+    }
+
+    public boolean isFull() {
+        return size == values.length;
+    }
+}
@@ -0,0 +1,34 @@
+package com.unisoft.algotrader.indicator;
+
+/**
+ * Exponential moving average with a smoothing factor of 2 / (period + 1), seeded with the simple average of the
+ * first period values.
+ */
+public class EMA extends Indicator implements IndicatorListener {
+
+    private final int period;
+    private final double alpha;
+    private int count;
+    private double ema;
+
+    public EMA(Indicator input, int period) {
+        checkPeriod(period);
+        this.period = period;
+        this.alpha = 2.0 / (period + 1);
+        input.addListener(this);
+    }
+
+    @Override
+    public void onValue(long dateTime, double value) {
+        if (count < period) {
+            ema += value / period;
+            if (++count < period) {
+                return;
+            }
+        }
+        else {
+            ema += alpha * (value - ema);
+        }
+        publish(dateTime, ema);
+    }
+}
@@ -0,0 +1,60 @@
+package com.unisoft.algotrader.indicator;
+
+import java.util.Arrays;
+
+/**
+ * A value updated incrementally from its inputs and pushed to its listeners, which are usually other indicators.
+ *
+ * An indicator publishes only once it is ready, i.e. once it has seen enough inputs for its value to be defined,
+ * so the indicators downstream never see a NaN. The listeners are called in the order they were added: an
+ * indicator combining two indicators of the same input listens to the one created last, the other one is then
+ * already up to date. An indicator used by several others is computed once per input and its value shared.
+ */
+public abstract class Indicator {
+
+    private static final IndicatorListener[] NO_LISTENERS = new IndicatorListener[0];
+
+    private IndicatorListener[] listeners = NO_LISTENERS;
+    private double value = Double.NaN;
+    private long dateTime = -1;
+
+    public void addListener(IndicatorListener listener) {
+        listeners = Arrays.copyOf(listeners, listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+    }
+
+    public double value() {
+        return value;
+    }
+
+    public long dateTime() {
+        return dateTime;
+    }
+
+    public boolean isReady() {
+        return !Double.isNaN(value);
+    }
+
+    protected final void publish(long dateTime, double value) {
+        this.dateTime = dateTime;
+        this.value = value;
+        IndicatorListener[] listeners = this.listeners;
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].onValue(dateTime, value);
+        }
+    }
+
+    /**
+     * Forget the published value, the indicator is not ready until it publishes again.
+     */
+    protected final void clear() {
+        this.dateTime = -1;
+        this.value = Double.NaN;
+    }
+
+    static void checkPeriod(int period) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("period must be positive, period=" + period);
+        }
+    }
+}
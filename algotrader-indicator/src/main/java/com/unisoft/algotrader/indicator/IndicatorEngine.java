@@ -0,0 +1,104 @@
+package com.unisoft.algotrader.indicator;
+
+import com.unisoft.algotrader.model.event.data.Bar;
+import com.unisoft.algotrader.model.event.data.MarketDataHandler;
+import com.unisoft.algotrader.model.event.data.Quote;
+import com.unisoft.algotrader.model.event.data.Trade;
+import gnu.trove.map.hash.TLongObjectHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Dispatches the market data to the indicator sources of its instrument, so that the indicators of any number of
+ * instruments are updated by a single MarketDataHandler, e.g. a strategy or a processor of the market data ring
+ * buffer. The sources are created on first use, the indicators are built on them before the data flows, after
+ * that an event only costs a map lookup and the updates of the indicators of its instrument.
+ *
+ * <pre>
+ * BarSource daily = engine.bars(instId, 60 * 60 * 24);
+ * SMA sma = new SMA(daily.close(), 20);
+ * ATR atr = daily.add(new ATR(14));
+ * </pre>
+ */
+public class IndicatorEngine implements MarketDataHandler {
+
+    private final TLongObjectHashMap<InstrumentSources> instruments = new TLongObjectHashMap<>();
+
+    public BarSource bars(long instId, int barSize) {
+        InstrumentSources sources = sources(instId);
+        BarSource source = sources.bars(barSize);
+        if (source == null) {
+            source = new BarSource(instId, barSize);
+            sources.barSources = Arrays.copyOf(sources.barSources, sources.barSources.length + 1);
+            sources.barSources[sources.barSources.length - 1] = source;
+        }
+        return source;
+    }
+
+    public TradeSource trades(long instId) {
+        InstrumentSources sources = sources(instId);
+        if (sources.tradeSource == null) {
+            sources.tradeSource = new TradeSource(instId);
+        }
+        return sources.tradeSource;
+    }
+
+    public QuoteSource quotes(long instId) {
+        InstrumentSources sources = sources(instId);
+        if (sources.quoteSource == null) {
+            sources.quoteSource = new QuoteSource(instId);
+        }
+        return sources.quoteSource;
+    }
+
+    @Override
+    public void onBar(Bar bar) {
+        InstrumentSources sources = instruments.get(bar.instId);
+        if (sources != null) {
+            BarSource source = sources.bars(bar.size);
+            if (source != null) {
+                source.onBar(bar);
+            }
+        }
+    }
+
+    @Override
+    public void onQuote(Quote quote) {
+        InstrumentSources sources = instruments.get(quote.instId);
+        if (sources != null && sources.quoteSource != null) {
+            sources.quoteSource.onQuote(quote);
+        }
+    }
+
+    @Override
+    public void onTrade(Trade trade) {
+        InstrumentSources sources = instruments.get(trade.instId);
+        if (sources != null && sources.tradeSource != null) {
+            sources.tradeSource.onTrade(trade);
+        }
+    }
+
+    private InstrumentSources sources(long instId) {
+        InstrumentSources sources = instruments.get(instId);
+        if (sources == null) {
+            sources = new InstrumentSources();
+            instruments.put(instId, sources);
+        }
+        return sources;
+    }
+
+    private static class InstrumentSources {
+        private BarSource[] barSources = new BarSource[0];
+        private TradeSource tradeSource;
+        private QuoteSource quoteSource;
+
+        BarSource bars(int barSize) {
+            for (int i = 0; i < barSources.length; i++) {
+                if (barSources[i].barSize == barSize) {
+                    return barSources[i];
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.unisoft.algotrader.indicator;
+
+/**
+ * Receives the values published by an {@link Indicator}.
+ */
+public interface IndicatorListener {
+
+    void onValue(long dateTime, double value);
+}
@@ -0,0 +1,34 @@
+package com.unisoft.algotrader.indicator;
+
+/**
+ * Moving average convergence divergence, the value is the fast EMA minus the slow EMA of the input, the signal
+ * is an EMA of the value and the histogram the value minus the signal.
+ */
+public class MACD extends Indicator implements IndicatorListener {
+
+    private final EMA fast;
+    private final EMA signal;
+    private final Series histogram = new Series();
+
+    public MACD(Indicator input, int fastPeriod, int slowPeriod, int signalPeriod) {
+        this.fast = new EMA(input, fastPeriod);
+        new EMA(input, slowPeriod).addListener(this);
+        this.signal = new EMA(this, signalPeriod);
+        this.signal.addListener((dateTime, value) -> histogram.update(dateTime, value() - value));
+    }
+
+    @Override
+    public void onValue(long dateTime, double slow) {
+        if (fast.isReady()) {
+            publish(dateTime, fast.value() - slow);
+        }
+    }
+
+    public Indicator signal() {
+        return signal;
+    }
+
+    public Indicator histogram() {
+        return histogram;
+    }
+}
@@ -0,0 +1,52 @@
+package com.unisoft.algotrader.indicator;
+
+import com.unisoft.algotrader.model.event.data.Bar;
+import com.unisoft.algotrader.model.event.data.MarketDataHandler;
+import com.unisoft.algotrader.model.event.data.Quote;
+import com.unisoft.algotrader.model.event.data.Trade;
+
+/**
+ * Root of the indicators of the quotes of an instrument: publishes the bid, ask and mid price of each two sided
+ * quote as series.
+ */
+public class QuoteSource implements MarketDataHandler {
+
+    public final long instId;
+
+    private final Series bid = new Series();
+    private final Series ask = new Series();
+    private final Series mid = new Series();
+
+    public QuoteSource(long instId) {
+        this.instId = instId;
+    }
+
+    @Override
+    public void onQuote(Quote quote) {
+        if (quote.bid > 0 && quote.ask > 0) {
+            bid.update(quote.dateTime, quote.bid);
+            ask.update(quote.dateTime, quote.ask);
+            mid.update(quote.dateTime, (quote.bid + quote.ask) / 2);
+        }
+    }
+
+    @Override
+    public void onBar(Bar bar) {
+    }
+
+    @Override
+    public void onTrade(Trade trade) {
+    }
+
+    public Indicator bid() {
+        return bid;
+    }
+
+    public Indicator ask() {
+        return ask;
+    }
+
+    public Indicator mid() {
+        return mid;
+    }
+}
@@ -0,0 +1,49 @@
+package com.unisoft.algotrader.indicator;
+
+/**
+ * Relative strength index with Wilder's smoothing of the average gain and loss, seeded with their simple average
+ * over the first period changes.
+ */
+public class RSI extends Indicator implements IndicatorListener {
+
+    private final int period;
+    private double previous = Double.NaN;
+    private int count;
+    private double avgGain;
+    private double avgLoss;
+
+    public RSI(Indicator input, int period) {
+        checkPeriod(period);
+        this.period = period;
+        input.addListener(this);
+    }
+
+    @Override
+    public void onValue(long dateTime, double value) {
+        if (Double.isNaN(previous)) {
+            previous = value;
+            return;
+        }
+        double change = value - previous;
+        previous = value;
+        double gain = change > 0 ? change : 0;
+        double loss = change < 0 ? -change : 0;
+        if (count < period) {
+            avgGain += gain / period;
+            avgLoss += loss / period;
+            if (++count < period) {
+                return;
+            }
+        }
+        else {
+            avgGain = (avgGain * (period - 1) + gain) / period;
+            avgLoss = (avgLoss * (period - 1) + loss) / period;
+        }
+        if (avgLoss == 0) {
+            publish(dateTime, avgGain == 0 ? 50 : 100);
+        }
+        else {
+            publish(dateTime, 100 - 100 / (1 + avgGain / avgLoss));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.unisoft.algotrader.indicator;
+
+/**
+ * Rolling extremum of a window, kept in a monotonic deque: a value is dropped as soon as a newer value dominates
+ * it, since it can no longer be the extremum of any later window. Each value is pushed and popped once, the
+ * update is constant time amortized.
+ */
+public abstract class RollingExtremum extends Indicator implements IndicatorListener {
+
+    private final int period;
+    private final double[] values;
+    private final long[] indexes;
+    private int head;
+    private int size;
+    private long count;
+
+    protected RollingExtremum(Indicator input, int period) {
+        checkPeriod(period);
+        this.period = period;
+        // one more slot for the value leaving the window
+        this.values = new double[period + 1];
+        this.indexes = new long[period + 1];
+        input.addListener(this);
+    }
+
+    /**
+     * Whether the older value is still a candidate once the newer one is added.
+     */
+    protected abstract boolean dominates(double older, double newer);
+
+    @Override
+    public void onValue(long dateTime, double value) {
+        while (size > 0 && !dominates(values[slot(size - 1)], value)) {
+            size--;
+        }
+        int slot = slot(size++);
+        values[slot] = value;
+        indexes[slot] = count;
+
+        if (indexes[head] <= count - period) {
+            head = slot(1);
+            size--;
+        }
+        if (++count >= period) {
+            publish(dateTime, values[head]);
+        }
+    }
+
+    private int slot(int i) {
+        int slot = head + i;
+        return slot < values.length ? slot : slot - values.length;
+    }
+}
@@ -0,0 +1,16 @@
+package com.unisoft.algotrader.indicator;
+
+/**
+ * Highest value of the last period values.
+ */
+public class RollingMax extends RollingExtremum {
+
+    public RollingMax(Indicator input, int period) {
+        super(input, period);
+    }
+
+    @Override
+    protected boolean dominates(double older, double newer) {
+        return older > newer;
+    }
+}
@@ -0,0 +1,16 @@
+package com.unisoft.algotrader.indicator;
+
+/**
+ * Lowest value of the last period values.
+ */
+public class RollingMin extends RollingExtremum {
+
+    public RollingMin(Indicator input, int period) {
+        super(input, period);
+    }
+
+    @Override
+    protected boolean dominates(double older, double newer) {
+        return older < newer;
+    }
+}
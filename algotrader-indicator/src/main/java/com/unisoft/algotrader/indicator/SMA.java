@@ -0,0 +1,24 @@
+package com.unisoft.algotrader.indicator;
+
+/**
+ * Simple moving average, updated with a running sum of the window.
+ */
+public class SMA extends Indicator implements IndicatorListener {
+
+    private final DoubleRing window;
+    private double sum;
+
+    public SMA(Indicator input, int period) {
+        this.window = new DoubleRing(period);
+        input.addListener(this);
+    }
+
+    @Override
+    public void onValue(long dateTime, double value) {
+        double evicted = window.add(value);
+        sum += Double.isNaN(evicted) ? value : value - evicted;
+        if (window.isFull()) {
+            publish(dateTime, sum / window.capacity());
+        }
+    }
+}
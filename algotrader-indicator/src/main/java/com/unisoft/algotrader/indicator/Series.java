@@ -0,0 +1,12 @@
+package com.unisoft.algotrader.indicator;
+
+/**
+ * An input of an indicator graph, e.g. the close of the bars of an instrument, or the output of a composite
+ * indicator. Every update is published as is.
+ */
+public class Series extends Indicator {
+
+    public void update(long dateTime, double value) {
+        publish(dateTime, value);
+    }
+}
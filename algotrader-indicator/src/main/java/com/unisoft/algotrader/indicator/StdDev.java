@@ -0,0 +1,38 @@
+package com.unisoft.algotrader.indicator;
+
+/**
+ * Rolling population standard deviation. The mean and the sum of squared deviations are updated with Welford's
+ * method, a value replacing the one leaving a full window in a single step, so that the variance does not suffer
+ * the cancellation of the running sums of the values and of their squares on large prices.
+ */
+public class StdDev extends Indicator implements IndicatorListener {
+
+    private final DoubleRing window;
+    private double mean;
+    private double m2;
+
+    public StdDev(Indicator input, int period) {
+        this.window = new DoubleRing(period);
+        input.addListener(this);
+    }
+
+    @Override
+    public void onValue(long dateTime, double value) {
+        double evicted = window.add(value);
+        int n = window.size();
+        if (Double.isNaN(evicted)) {
+            double delta = value - mean;
+            mean += delta / n;
+            m2 += delta * (value - mean);
+        }
+        else {
+            double oldMean = mean;
+            mean += (value - evicted) / n;
+            m2 += (value - evicted) * (value - mean + evicted - oldMean);
+        }
+        if (window.isFull()) {
+            // rounding can leave a flat window slightly negative
+            publish(dateTime, Math.sqrt(Math.max(0, m2 / n)));
+        }
+    }
+}
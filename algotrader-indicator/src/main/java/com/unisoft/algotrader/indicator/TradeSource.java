@@ -0,0 +1,59 @@
+package com.unisoft.algotrader.indicator;
+
+import com.unisoft.algotrader.model.event.data.Bar;
+import com.unisoft.algotrader.model.event.data.MarketDataHandler;
+import com.unisoft.algotrader.model.event.data.Quote;
+import com.unisoft.algotrader.model.event.data.Trade;
+
+import java.util.Arrays;
+
+/**
+ * Root of the indicators of the trades of an instrument: publishes the price and size of each trade as series,
+ * then passes the trade to the {@link BarIndicator}s added to it.
+ */
+public class TradeSource implements MarketDataHandler {
+
+    private static final MarketDataHandler[] NO_HANDLERS = new MarketDataHandler[0];
+
+    public final long instId;
+
+    private final Series price = new Series();
+    private final Series size = new Series();
+    private MarketDataHandler[] handlers = NO_HANDLERS;
+
+    public TradeSource(long instId) {
+        this.instId = instId;
+    }
+
+    public <T extends BarIndicator> T add(T indicator) {
+        handlers = Arrays.copyOf(handlers, handlers.length + 1);
+        handlers[handlers.length - 1] = indicator;
+        return indicator;
+    }
+
+    @Override
+    public void onTrade(Trade trade) {
+        price.update(trade.dateTime, trade.price);
+        size.update(trade.dateTime, trade.size);
+        MarketDataHandler[] handlers = this.handlers;
+        for (int i = 0; i < handlers.length; i++) {
+            handlers[i].onTrade(trade);
+        }
+    }
+
+    @Override
+    public void onBar(Bar bar) {
+    }
+
+    @Override
+    public void onQuote(Quote quote) {
+    }
+
+    public Indicator price() {
+        return price;
+    }
+
+    public Indicator size() {
+        return size;
+    }
+}
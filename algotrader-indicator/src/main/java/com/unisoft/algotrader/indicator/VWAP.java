@@ -0,0 +1,42 @@
+package com.unisoft.algotrader.indicator;
+
+import com.unisoft.algotrader.model.event.data.Bar;
+import com.unisoft.algotrader.model.event.data.Trade;
+
+/**
+ * Volume weighted average price since the last {@link #reset()}, e.g. of the session, of the trades or of the
+ * typical price (high + low + close) / 3 of the bars it is fed with.
+ */
+public class VWAP extends BarIndicator {
+
+    private double priceVolume;
+    private double volume;
+
+    @Override
+    public void onBar(Bar bar) {
+        add(bar.dateTime, (bar.high + bar.low + bar.close) / 3, bar.volume);
+    }
+
+    @Override
+    public void onTrade(Trade trade) {
+        add(trade.dateTime, trade.price, trade.size);
+    }
+
+    /**
+     * Start a new average, the VWAP is not ready until the next trade or bar with a volume.
+     */
+    public void reset() {
+        priceVolume = 0;
+        volume = 0;
+        clear();
+    }
+
+    private void add(long dateTime, double price, double volume) {
+        if (volume <= 0) {
+            return;
+        }
+        this.priceVolume += price * volume;
+        this.volume += volume;
+        publish(dateTime, priceVolume / this.volume);
+    }
+}
@@ -0,0 +1,37 @@
+package com.unisoft.algotrader.indicator;
+
+/**
+ * Linearly weighted moving average, the latest value weighs period and the oldest 1.
+ *
+ * When a value is added the weighted sum loses one unit of weight on every value of the window, i.e. the plain
+ * sum of the window, so both sums are updated in constant time.
+ */
+public class WMA extends Indicator implements IndicatorListener {
+
+    private final DoubleRing window;
+    private final double weights;
+    private double sum;
+    private double weightedSum;
+
+    public WMA(Indicator input, int period) {
+        this.window = new DoubleRing(period);
+        this.weights = period * (period + 1) / 2.0;
+        input.addListener(this);
+    }
+
+    @Override
+    public void onValue(long dateTime, double value) {
+        double evicted = window.add(value);
+        if (Double.isNaN(evicted)) {
+            weightedSum += window.size() * value;
+            sum += value;
+        }
+        else {
+            weightedSum += window.capacity() * value - sum;
+            sum += value - evicted;
+        }
+        if (window.isFull()) {
+            publish(dateTime, weightedSum / weights);
+        }
+    }
+}
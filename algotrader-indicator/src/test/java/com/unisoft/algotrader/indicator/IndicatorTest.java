@@ -0,0 +1,178 @@
+package com.unisoft.algotrader.indicator;
+
+import com.unisoft.algotrader.model.event.data.Bar;
+import com.unisoft.algotrader.model.event.data.Trade;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IndicatorTest {
+
+    private static final double DELTA = 1e-9;
+    private static final int PERIOD = 5;
+
+    private double[] prices;
+    private Series input;
+
+    @Before
+    public void setup(){
+        Random random = new Random(42);
+        prices = new double[100];
+        double price = 100;
+        for (int i = 0; i < prices.length; i++) {
+            price += random.nextGaussian();
+            prices[i] = price;
+        }
+        input = new Series();
+    }
+
+    private static double mean(double[] values, int from, int to){
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += values[i];
+        }
+        return sum / (to - from);
+    }
+
+    @Test
+    public void test_moving_averages_and_window_statistics(){
+        SMA sma = new SMA(input, PERIOD);
+        WMA wma = new WMA(input, PERIOD);
+        StdDev stdDev = new StdDev(input, PERIOD);
+        RollingMax max = new RollingMax(input, PERIOD);
+        RollingMin min = new RollingMin(input, PERIOD);
+
+        for (int i = 0; i < prices.length; i++) {
+            input.update(i, prices[i]);
+            if (i < PERIOD - 1) {
+                assertFalse(sma.isReady());
+                assertFalse(max.isReady());
+                continue;
+            }
+            int from = i - PERIOD + 1;
+            double mean = mean(prices, from, i + 1);
+            double weighted = 0;
+            double variance = 0;
+            double highest = Double.NEGATIVE_INFINITY;
+            double lowest = Double.POSITIVE_INFINITY;
+            for (int j = from; j <= i; j++) {
+                weighted += (j - from + 1) * prices[j];
+                variance += (prices[j] - mean) * (prices[j] - mean);
+                highest = Math.max(highest, prices[j]);
+                lowest = Math.min(lowest, prices[j]);
+            }
+            assertEquals(mean, sma.value(), DELTA);
+            assertEquals(weighted / (PERIOD * (PERIOD + 1) / 2), wma.value(), DELTA);
+            assertEquals(Math.sqrt(variance / PERIOD), stdDev.value(), 1e-6);
+            assertEquals(highest, max.value(), 0);
+            assertEquals(lowest, min.value(), 0);
+            assertEquals(i, sma.dateTime());
+        }
+    }
+
+    @Test
+    public void test_ema_rsi_and_macd(){
+        EMA ema = new EMA(input, PERIOD);
+        RSI rsi = new RSI(input, PERIOD);
+        MACD macd = new MACD(input, 3, 6, 4);
+        EMA fast = new EMA(input, 3);
+        EMA slow = new EMA(input, 6);
+
+        double expectedEma = mean(prices, 0, PERIOD);
+        double alpha = 2.0 / (PERIOD + 1);
+        for (int i = 0; i < prices.length; i++) {
+            input.update(i, prices[i]);
+            if (i >= PERIOD) {
+                expectedEma += alpha * (prices[i] - expectedEma);
+            }
+            if (i >= PERIOD - 1) {
+                assertEquals(expectedEma, ema.value(), DELTA);
+            }
+            if (i >= 5) {
+                assertEquals(fast.value() - slow.value(), macd.value(), DELTA);
+            }
+            if (macd.signal().isReady()) {
+                assertEquals(macd.value() - macd.signal().value(), macd.histogram().value(), DELTA);
+            }
+            assertEquals(i >= PERIOD, rsi.isReady());
+            if (rsi.isReady()) {
+                assertTrue(rsi.value() >= 0 && rsi.value() <= 100);
+            }
+        }
+        assertTrue(macd.signal().isReady());
+    }
+
+    @Test
+    public void test_rsi_of_monotonic_series(){
+        RSI rsi = new RSI(input, PERIOD);
+        for (int i = 0; i <= PERIOD; i++) {
+            input.update(i, i);
+        }
+        assertEquals(100, rsi.value(), 0);
+    }
+
+    @Test
+    public void test_bollinger_bands_share_their_average(){
+        SMA sma = new SMA(input, PERIOD);
+        StdDev stdDev = new StdDev(input, PERIOD);
+        BollingerBands bands = new BollingerBands(sma, stdDev, 2);
+
+        for (int i = 0; i < prices.length; i++) {
+            input.update(i, prices[i]);
+        }
+        assertEquals(sma.value(), bands.value(), 0);
+        assertEquals(sma.value() + 2 * stdDev.value(), bands.upper().value(), DELTA);
+        assertEquals(sma.value() - 2 * stdDev.value(), bands.lower().value(), DELTA);
+    }
+
+    @Test
+    public void test_engine_dispatch_bars_and_trades(){
+        IndicatorEngine engine = new IndicatorEngine();
+        BarSource bars = engine.bars(1, 60);
+        SMA sma = new SMA(bars.close(), 2);
+        ATR atr = bars.add(new ATR(2));
+        VWAP vwap = engine.trades(2).add(new VWAP());
+
+        engine.onBar(new Bar(1, 60, 0, 10, 12, 9, 11));
+        engine.onBar(new Bar(1, 60, 60000, 11, 15, 10, 14));
+        // other instrument and bar size are ignored
+        engine.onBar(new Bar(1, 300, 60000, 11, 100, 1, 50));
+        engine.onBar(new Bar(3, 60, 60000, 11, 100, 1, 50));
+
+        assertEquals(12.5, sma.value(), 0);
+        // true ranges 3 and max(5, |15 - 11|, |10 - 11|) = 5
+        assertEquals(4, atr.value(), 0);
+
+        engine.onTrade(new Trade(2, 0, 10, 100));
+        engine.onTrade(new Trade(2, 1, 13, 200));
+        assertEquals(12, vwap.value(), DELTA);
+        vwap.reset();
+        assertFalse(vwap.isReady());
+        engine.onTrade(new Trade(2, 2, 20, 10));
+        assertTrue(vwap.isReady());
+        assertEquals(20, vwap.value(), DELTA);
+    }
+
+    @Test
+    public void test_std_dev_of_large_prices_over_long_series(){
+        StdDev stdDev = new StdDev(input, PERIOD);
+        Random random = new Random(7);
+        double[] values = new double[10000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1e6 + random.nextGaussian() * 0.01;
+            input.update(i, values[i]);
+        }
+        int from = values.length - PERIOD;
+        double mean = mean(values, from, values.length);
+        double variance = 0;
+        for (int i = from; i < values.length; i++) {
+            variance += (values[i] - mean) * (values[i] - mean);
+        }
+        assertEquals(Math.sqrt(variance / PERIOD), stdDev.value(), 1e-6);
+    }
+}
@@ -24,13 +24,25 @@ public interface Clock {
         throw new UnsupportedOperationException();
     }
 
-    void addReminder(Date date, Object data, ReminderHandler handler);
+    default Reminder addReminder(Date date, Object data, ReminderHandler handler){
+        return addReminder(date.getTime(), data, handler);
+    }
 
-    void addReminder(long date, Object data, ReminderHandler handler);
+    /**
+     * Schedule handler.onReminder(date, data) at the given time, or as soon as possible when it is passed.
+     */
+    Reminder addReminder(long date, Object data, ReminderHandler handler);
 
-    void removeReminder(Date date,ReminderHandler handler);
+    default void removeReminder(Date date,ReminderHandler handler){
+        removeReminder(date.getTime(), handler);
+    }
 
+    /**
+     * Cancel the first reminder of the handler scheduled at the given time.
+     */
     void removeReminder(long date,ReminderHandler handler);
+
+    void removeReminder(Reminder reminder);
 }
 
 
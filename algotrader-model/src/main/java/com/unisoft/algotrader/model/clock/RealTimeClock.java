@@ -1,14 +1,42 @@
 package com.unisoft.algotrader.model.clock;
 
 
+import com.unisoft.algotrader.utils.threading.NamedThreadFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
 import javax.inject.Singleton;
-import java.util.Date;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
 
 /**
  * Created by alex on 5/24/15.
+ *
+ * The reminders are kept in a {@link TimingWheel} owned by a single timer thread, started with the first reminder,
+ * which advances the wheel every millisecond while it holds reminders and parks until the next one is added when it
+ * is empty. A due reminder is handed to the reminder queue of its handler, or handled on the timer thread when the
+ * handler has none. Reminders are added and removed from any thread through queues drained by the timer thread.
+ * {@link #stop()} ends the timer thread, a later reminder starts it again.
  */
 @Singleton
 public class RealTimeClock implements Clock {
+
+    private static final Logger LOG = LogManager.getLogger(RealTimeClock.class);
+
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final TimingWheel wheel = new TimingWheel(System.currentTimeMillis());
+    private final Queue<Reminder> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Reminder> removed = new ConcurrentLinkedQueue<>();
+    private final Queue<Reminder> removedByTime = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final Consumer<Reminder> dispatch = this::dispatch;
+    private volatile Thread thread;
+
     @Override
     public ClockMode getClockMode() {
         return ClockMode.Realtime;
@@ -19,24 +47,116 @@ public class RealTimeClock implements Clock {
         return System.currentTimeMillis();
     }
 
-
     @Override
-    public void addReminder(Date date, Object data, ReminderHandler handler) {
+    public Reminder addReminder(long date, Object data, ReminderHandler handler) {
+        Reminder reminder = new Reminder(date, data, handler);
+        added.offer(reminder);
+        if (!start()) {
+            LockSupport.unpark(thread);
+        }
+        return reminder;
+    }
 
+    @Override
+    public void removeReminder(long date, ReminderHandler handler) {
+        removedByTime.offer(new Reminder(date, null, handler));
+        LockSupport.unpark(thread);
     }
 
     @Override
-    public void addReminder(long date, Object data, ReminderHandler handler) {
+    public void removeReminder(Reminder reminder) {
+        reminder.cancel();
+        removed.offer(reminder);
+        LockSupport.unpark(thread);
+    }
 
+    /**
+     * Stop the timer thread and wait for it to end, the reminders not yet due are kept until the next reminder
+     * starts it again.
+     */
+    public void stop() throws InterruptedException {
+        Thread thread = this.thread;
+        if (thread != null && started.get()) {
+            thread.interrupt();
+            thread.join();
+        }
     }
 
-    @Override
-    public void removeReminder(Date date, ReminderHandler handler) {
+    public boolean isRunning() {
+        Thread thread = this.thread;
+        return thread != null && thread.isAlive();
+    }
 
+    private boolean start() {
+        if (started.compareAndSet(false, true)) {
+            Thread thread = new NamedThreadFactory("RealTimeClock").newThread(this::run);
+            thread.setDaemon(true);
+            this.thread = thread;
+            thread.start();
+            return true;
+        }
+        return false;
     }
 
-    @Override
-    public void removeReminder(long date, ReminderHandler handler) {
+    private void run() {
+        try {
+            tick();
+        }
+        finally {
+            Reminder reminder;
+            while ((reminder = added.poll()) != null) {
+                wheel.add(reminder);
+            }
+            started.set(false);
+            // a reminder added while stopping could not start the thread
+            if (!added.isEmpty()) {
+                start();
+            }
+        }
+    }
+
+    private void tick() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Reminder reminder;
+            while ((reminder = added.poll()) != null) {
+                wheel.add(reminder);
+            }
+            while ((reminder = removed.poll()) != null) {
+                wheel.remove(reminder);
+            }
+            while ((reminder = removedByTime.poll()) != null) {
+                Reminder scheduled = wheel.find(reminder.dateTime(), reminder.handler());
+                if (scheduled != null) {
+                    scheduled.cancel();
+                    wheel.remove(scheduled);
+                }
+            }
+            wheel.advance(System.currentTimeMillis(), dispatch);
+            if (wheel.size() == 0 && added.isEmpty()) {
+                // woken by addReminder
+                LockSupport.park(this);
+            }
+            else {
+                LockSupport.parkNanos(TICK_NANOS);
+            }
+        }
+    }
 
+    private void dispatch(Reminder reminder) {
+        if (reminder.isCancelled()) {
+            return;
+        }
+        Queue<? super Reminder> queue = reminder.handler().reminderQueue();
+        if (queue != null) {
+            queue.offer(reminder);
+        }
+        else {
+            try {
+                reminder.fire();
+            }
+            catch (Exception e) {
+                LOG.error("failed to handle reminder " + reminder, e);
+            }
+        }
     }
-}
\ No newline at end of file
+}
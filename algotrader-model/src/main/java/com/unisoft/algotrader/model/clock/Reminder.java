@@ -0,0 +1,73 @@
+package com.unisoft.algotrader.model.clock;
+
+import com.unisoft.algotrader.model.event.Event;
+import com.unisoft.algotrader.model.event.EventHandler;
+
+/**
+ * A reminder scheduled on a {@link Clock}. It is also the event handed to the reminder queue of its handler, it
+ * calls back its own handler whichever processor it is dispatched to.
+ *
+ * The reminder is the node of the {@link TimingWheel} bucket holding it, so scheduling and cancelling it do not
+ * allocate anything else.
+ */
+public final class Reminder implements Event<EventHandler, Reminder> {
+
+    private final long dateTime;
+    private final Object data;
+    private final ReminderHandler handler;
+    private volatile boolean cancelled;
+
+    // TimingWheel links, the level is -1 when the reminder is not in the wheel
+    Reminder prev;
+    Reminder next;
+    int level = -1;
+    int slot;
+    long expiration;
+
+    public Reminder(long dateTime, Object data, ReminderHandler handler) {
+        this.dateTime = dateTime;
+        this.data = data;
+        this.handler = handler;
+    }
+
+    public long dateTime() {
+        return dateTime;
+    }
+
+    public Object data() {
+        return data;
+    }
+
+    public ReminderHandler handler() {
+        return handler;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    void fire() {
+        if (!cancelled) {
+            handler.onReminder(dateTime, data);
+        }
+    }
+
+    @Override
+    public void on(EventHandler ignored) {
+        fire();
+    }
+
+    @Override
+    public String toString() {
+        return "Reminder{" +
+                "dateTime=" + dateTime +
+                ", data=" + data +
+                ", handler=" + handler +
+                ", cancelled=" + cancelled +
+                '}';
+    }
+}
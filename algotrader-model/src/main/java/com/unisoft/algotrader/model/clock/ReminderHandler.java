@@ -1,7 +1,20 @@
 package com.unisoft.algotrader.model.clock;
 
+import java.util.Queue;
+
 /**
  * Created by alex on 5/24/15.
  */
 public interface ReminderHandler {
+
+    void onReminder(long dateTime, Object data);
+
+    /**
+     * Queue of the thread the reminders of this handler are to be handled on, e.g. the queue of a
+     * MultiEventProcessor. A real time clock hands the due {@link Reminder}s to it, the reminders are handled on the
+     * clock thread when null. A simulation clock always handles them on the thread advancing the clock.
+     */
+    default Queue<? super Reminder> reminderQueue() {
+        return null;
+    }
 }
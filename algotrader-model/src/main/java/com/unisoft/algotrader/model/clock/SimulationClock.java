@@ -1,13 +1,28 @@
 package com.unisoft.algotrader.model.clock;
 
 import javax.inject.Singleton;
-import java.util.Date;
+import java.util.function.Consumer;
 
 /**
  * Created by alex on 5/24/15.
+ *
+ * Clock of the market data being replayed. The reminders are kept in a {@link TimingWheel} and fired by
+ * setDateTime, on the thread replaying the data, in time order, so a simulation is deterministic; now() is the
+ * time of the reminder while it is handled. Setting an earlier time moves the wheel back, the reminders still
+ * scheduled are kept. Not thread safe, the reminders are to be added from that thread.
  */
 @Singleton
 public class SimulationClock implements Clock {
+
+    private long datetime = 0;
+
+    private final TimingWheel wheel = new TimingWheel(0);
+
+    private final Consumer<Reminder> fire = reminder -> {
+        datetime = wheel.time();
+        reminder.fire();
+    };
+
     @Override
     public ClockMode getClockMode() {
         return ClockMode.Simulation;
@@ -18,31 +33,34 @@ public class SimulationClock implements Clock {
         return datetime;
     }
 
-    private long datetime = 0;
-
-
     @Override
     public void setDateTime(long date){
+        if (date < wheel.time()) {
+            // replaying again from an earlier time, the reminders still scheduled fire when the replay reaches them
+            wheel.reset(date);
+        }
+        wheel.advance(date, fire);
         datetime = date;
     }
 
     @Override
-    public void addReminder(Date date, Object data, ReminderHandler handler) {
-
+    public Reminder addReminder(long date, Object data, ReminderHandler handler) {
+        Reminder reminder = new Reminder(date, data, handler);
+        wheel.add(reminder);
+        return reminder;
     }
 
     @Override
-    public void addReminder(long date, Object data, ReminderHandler handler) {
-
-    }
-
-    @Override
-    public void removeReminder(Date date, ReminderHandler handler) {
-
+    public void removeReminder(long date, ReminderHandler handler) {
+        Reminder reminder = wheel.find(date, handler);
+        if (reminder != null) {
+            removeReminder(reminder);
+        }
     }
 
     @Override
-    public void removeReminder(long date, ReminderHandler handler) {
-
+    public void removeReminder(Reminder reminder) {
+        reminder.cancel();
+        wheel.remove(reminder);
     }
 }
@@ -0,0 +1,234 @@
+package com.unisoft.algotrader.model.clock;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel of {@link Reminder}s with a resolution of a millisecond. Not thread safe.
+ *
+ * The wheel has 8 levels of 256 slots, level n covering the bits 8n to 8n+7 of the time: a reminder is in the
+ * level of the highest bit its time differs from the current time, at the slot of its time in that level, so
+ * adding and removing a reminder are constant time. When the current time enters the slot of a higher level,
+ * the reminders of that slot are cascaded down to the lower levels. Each level has an occupancy bitmap of its
+ * slots, advancing the time skips the empty slots instead of ticking through them, which lets a simulation clock
+ * jump over days of market data.
+ *
+ * The reminders are fired in time order, and in the order they were added for the same millisecond.
+ */
+public class TimingWheel {
+
+    private static final int BITS = 8;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 64 / BITS;
+
+    private final Reminder[][] heads = new Reminder[LEVELS][SLOTS];
+    private final Reminder[][] tails = new Reminder[LEVELS][SLOTS];
+    private final long[][] occupied = new long[LEVELS][SLOTS / 64];
+    private long time;
+    private int size;
+
+    public TimingWheel(long time) {
+        this.time = time;
+    }
+
+    public long time() {
+        return time;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Schedule the reminder, it is due on the next advance when its time is already passed.
+     */
+    public void add(Reminder reminder) {
+        if (reminder.level >= 0) {
+            throw new IllegalStateException("reminder already scheduled, reminder=" + reminder);
+        }
+        reminder.expiration = Math.max(reminder.dateTime(), time);
+        link(reminder);
+        size++;
+    }
+
+    public boolean remove(Reminder reminder) {
+        if (reminder.level < 0) {
+            return false;
+        }
+        unlink(reminder);
+        size--;
+        return true;
+    }
+
+    /**
+     * The first reminder scheduled at dateTime for the handler, or null.
+     */
+    public Reminder find(long dateTime, ReminderHandler handler) {
+        long expiration = Math.max(dateTime, time);
+        int level = level(expiration);
+        for (Reminder reminder = heads[level][slot(expiration, level)]; reminder != null; reminder = reminder.next) {
+            if (reminder.dateTime() == dateTime && reminder.handler() == handler) {
+                return reminder;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Set the current time without consuming any reminder, e.g. to move it back. The scheduled reminders are kept
+     * and scheduled again from the new time, in the order they were added for the same millisecond.
+     */
+    public void reset(long time) {
+        Reminder first = null;
+        Reminder last = null;
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = nextSlot(level, 0); slot >= 0; slot = slot == MASK ? -1 : nextSlot(level, slot + 1)) {
+                Reminder reminder;
+                while ((reminder = heads[level][slot]) != null) {
+                    unlink(reminder);
+                    if (last == null) {
+                        first = reminder;
+                    }
+                    else {
+                        last.next = reminder;
+                    }
+                    last = reminder;
+                }
+            }
+        }
+        this.time = time;
+        while (first != null) {
+            Reminder next = first.next;
+            first.expiration = Math.max(first.dateTime(), time);
+            link(first);
+            first = next;
+        }
+    }
+
+    /**
+     * Move the current time forward to target, passing the reminders due up to it to the consumer in time order.
+     * The time of the wheel is the time of the reminder while it is consumed, the consumer may add and remove
+     * reminders, a reminder added for a time up to target is consumed in the same advance.
+     */
+    public int advance(long target, Consumer<Reminder> due) {
+        int count = 0;
+        while (true) {
+            int slot = nextSlot(0, (int) time & MASK);
+            if (slot >= 0) {
+                long expiration = (time & ~MASK) | slot;
+                if (expiration > target) {
+                    break;
+                }
+                time = expiration;
+                Reminder reminder;
+                while ((reminder = heads[0][slot]) != null) {
+                    unlink(reminder);
+                    size--;
+                    count++;
+                    due.accept(reminder);
+                }
+            }
+            else if (!cascade(target)) {
+                break;
+            }
+        }
+        if (target > time) {
+            time = target;
+        }
+        return count;
+    }
+
+    /**
+     * Move the time to the start of the next occupied slot of the lowest level holding reminders and cascade the
+     * reminders of that slot, when the slot starts before target.
+     */
+    private boolean cascade(long target) {
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = level * BITS;
+            int current = (int) (time >>> shift) & MASK;
+            int next = current == MASK ? -1 : nextSlot(level, current + 1);
+            if (next >= 0) {
+                long mask = level == LEVELS - 1 ? -1L : (1L << (shift + BITS)) - 1;
+                long start = (time & ~mask) | ((long) next << shift);
+                if (start > target) {
+                    return false;
+                }
+                time = start;
+                Reminder reminder;
+                while ((reminder = heads[level][next]) != null) {
+                    unlink(reminder);
+                    link(reminder);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int level(long expiration) {
+        long diff = expiration ^ time;
+        return diff == 0 ? 0 : (63 - Long.numberOfLeadingZeros(diff)) / BITS;
+    }
+
+    private static int slot(long expiration, int level) {
+        return (int) (expiration >>> (level * BITS)) & MASK;
+    }
+
+    private void link(Reminder reminder) {
+        int level = level(reminder.expiration);
+        int slot = slot(reminder.expiration, level);
+        reminder.level = level;
+        reminder.slot = slot;
+        reminder.next = null;
+        reminder.prev = tails[level][slot];
+        if (reminder.prev == null) {
+            heads[level][slot] = reminder;
+            occupied[level][slot >>> 6] |= 1L << slot;
+        }
+        else {
+            reminder.prev.next = reminder;
+        }
+        tails[level][slot] = reminder;
+    }
+
+    private void unlink(Reminder reminder) {
+        int level = reminder.level;
+        int slot = reminder.slot;
+        if (reminder.prev == null) {
+            heads[level][slot] = reminder.next;
+        }
+        else {
+            reminder.prev.next = reminder.next;
+        }
+        if (reminder.next == null) {
+            tails[level][slot] = reminder.prev;
+        }
+        else {
+            reminder.next.prev = reminder.prev;
+        }
+        if (heads[level][slot] == null) {
+            occupied[level][slot >>> 6] &= ~(1L << slot);
+        }
+        reminder.prev = null;
+        reminder.next = null;
+        reminder.level = -1;
+    }
+
+    /**
+     * First occupied slot of the level from the given slot, or -1.
+     */
+    private int nextSlot(int level, int from) {
+        long[] bits = occupied[level];
+        int word = from >>> 6;
+        long w = bits[word] & (-1L << from);
+        while (true) {
+            if (w != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(w);
+            }
+            if (++word == bits.length) {
+                return -1;
+            }
+            w = bits[word];
+        }
+    }
+}
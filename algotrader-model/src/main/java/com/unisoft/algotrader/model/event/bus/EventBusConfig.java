@@ -0,0 +1,50 @@
+package com.unisoft.algotrader.model.event.bus;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+/**
+ * Topology of the event buses.
+ *
+ * The market data ring buffer can use a multi-producer sequencer, needed when several threads (e.g. a feed
+ * reader, the bar factory and a data importer) publish market data, and can be split into partitions by instId
+ * so that feed ingestion and consumers do not all go through a single sequence.
+ */
+public class EventBusConfig {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 64;
+
+    public final int bufferSize;
+    public final boolean marketDataMultiProducer;
+    public final int marketDataPartitions;
+
+    public EventBusConfig(){
+        this(DEFAULT_BUFFER_SIZE, false, 1);
+    }
+
+    /**
+     * @param bufferSize size of each ring buffer, must be a power of 2
+     * @param marketDataMultiProducer whether the market data ring buffers accept concurrent publishers
+     * @param marketDataPartitions number of market data ring buffers, instIds are spread across them by hash
+     */
+    @Inject
+    public EventBusConfig(@Named("eventbus.buffer.size") int bufferSize,
+                          @Named("eventbus.marketdata.multiproducer") boolean marketDataMultiProducer,
+                          @Named("eventbus.marketdata.partitions") int marketDataPartitions){
+        if (marketDataPartitions <= 0){
+            throw new IllegalArgumentException("marketDataPartitions must be > 0, marketDataPartitions=" + marketDataPartitions);
+        }
+        this.bufferSize = bufferSize;
+        this.marketDataMultiProducer = marketDataMultiProducer;
+        this.marketDataPartitions = marketDataPartitions;
+    }
+
+    @Override
+    public String toString() {
+        return "EventBusConfig{" +
+                "bufferSize=" + bufferSize +
+                ", marketDataMultiProducer=" + marketDataMultiProducer +
+                ", marketDataPartitions=" + marketDataPartitions +
+                "} " + super.toString();
+    }
+}
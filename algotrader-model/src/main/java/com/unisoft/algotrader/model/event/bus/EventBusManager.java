@@ -15,23 +15,21 @@ import javax.inject.Singleton;
 @Singleton
 public abstract class EventBusManager {
 
-    private static final int DEFAULT_BUFFER_SIZE = 1024 * 64;
+    protected static final int DEFAULT_BUFFER_SIZE = EventBusConfig.DEFAULT_BUFFER_SIZE;
 //
 //    @Deprecated
 //    public final RingBuffer<MarketDataContainer> rawMarketDataRB
 //            = RingBuffer.createSingleProducer(MarketDataContainer.FACTORY, DEFAULT_BUFFER_SIZE, new NoWaitStrategy());
 //
-    protected final RingBuffer<MarketDataContainer> marketDataRB
-            = RingBuffer.createSingleProducer(MarketDataContainer.FACTORY, DEFAULT_BUFFER_SIZE, new NoWaitStrategy());
+    protected final RingBuffer<MarketDataContainer> marketDataRB;
+
+    protected final RingBuffer<MarketDataContainer>[] marketDataRBs;
 //
-    protected final RingBuffer<MarketDepth> marketDepthRB
-            = RingBuffer.createSingleProducer(MarketDepth.FACTORY, DEFAULT_BUFFER_SIZE, new NoWaitStrategy());
+    protected final RingBuffer<MarketDepth> marketDepthRB;
 //
-    protected final RingBuffer<ExecutionEventContainer> executionEventRB
-            = RingBuffer.createSingleProducer(ExecutionEventContainer.FACTORY, DEFAULT_BUFFER_SIZE, new NoWaitStrategy());
+    protected final RingBuffer<ExecutionEventContainer> executionEventRB;
 //
-    protected final RingBuffer<OrderEventContainer> orderEventRB
-            = RingBuffer.createSingleProducer(OrderEventContainer.FACTORY, DEFAULT_BUFFER_SIZE, new NoWaitStrategy());
+    protected final RingBuffer<OrderEventContainer> orderEventRB;
 //
 //
 //
@@ -48,10 +46,89 @@ public abstract class EventBusManager {
 //
 //    }
 
+    protected EventBusManager(){
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize size of each ring buffer, must be a power of 2
+     */
+    protected EventBusManager(int bufferSize){
+        this(new EventBusConfig(bufferSize, false, 1));
+    }
+
+    protected EventBusManager(EventBusConfig config){
+        marketDataRBs = new RingBuffer[config.marketDataPartitions];
+        for (int i = 0; i < marketDataRBs.length; i++) {
+            marketDataRBs[i] = config.marketDataMultiProducer
+                    ? RingBuffer.createMultiProducer(MarketDataContainer.FACTORY, config.bufferSize, new NoWaitStrategy())
+                    : RingBuffer.createSingleProducer(MarketDataContainer.FACTORY, config.bufferSize, new NoWaitStrategy());
+        }
+        marketDataRB = marketDataRBs[0];
+        marketDepthRB = RingBuffer.createSingleProducer(MarketDepth.FACTORY, config.bufferSize, new NoWaitStrategy());
+        executionEventRB = RingBuffer.createSingleProducer(ExecutionEventContainer.FACTORY, config.bufferSize, new NoWaitStrategy());
+        orderEventRB = RingBuffer.createSingleProducer(OrderEventContainer.FACTORY, config.bufferSize, new NoWaitStrategy());
+    }
+
+    /**
+     * Partition of the instrument among the given number of market data partitions.
+     */
+    public static int partition(long instId, int partitions){
+        if (partitions == 1){
+            return 0;
+        }
+        long hash = instId * 0x9E3779B97F4A7C15L;
+        return (int) ((hash >>> 33) % partitions);
+    }
+
+    public int getMarketDataPartitions(){
+        return marketDataRBs.length;
+    }
+
+    public int getMarketDataPartition(long instId){
+        return partition(instId, marketDataRBs.length);
+    }
+
+    /**
+     * The first market data partition, which carries all the market data when the bus is not partitioned.
+     */
     public RingBuffer<MarketDataContainer> getMarketDataRB(){
         return marketDataRB;
     }
 
+    public RingBuffer<MarketDataContainer> getMarketDataRB(int partition){
+        return marketDataRBs[partition];
+    }
+
+    /**
+     * All the market data partitions.
+     */
+    public RingBuffer<MarketDataContainer>[] getMarketDataRBs(){
+        return marketDataRBs.clone();
+    }
+
+    /**
+     * The market data partitions carrying the given instruments, in partition order and without duplicate.
+     */
+    public RingBuffer<MarketDataContainer>[] getMarketDataRBs(long... instIds){
+        boolean[] selected = new boolean[marketDataRBs.length];
+        int count = 0;
+        for (long instId : instIds){
+            int partition = getMarketDataPartition(instId);
+            if (!selected[partition]){
+                selected[partition] = true;
+                count++;
+            }
+        }
+        RingBuffer<MarketDataContainer>[] result = new RingBuffer[count];
+        for (int i = 0, j = 0; i < selected.length; i++){
+            if (selected[i]){
+                result[j++] = marketDataRBs[i];
+            }
+        }
+        return result;
+    }
+
     public RingBuffer<MarketDepth> getMarketDepthRB(){
         return marketDepthRB;
     }
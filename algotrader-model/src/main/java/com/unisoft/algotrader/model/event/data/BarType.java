@@ -0,0 +1,39 @@
+package com.unisoft.algotrader.model.event.data;
+
+/**
+ * Kind of a {@link Bar}, carried in the high byte of Bar.size so that the bars of different kinds of an instrument
+ * can be told apart. Time bars keep their size in seconds as is, e.g. a 1 minute bar has size 60, the other kinds
+ * are encoded with {@link #barSize(int)}: the number of trades of a Tick bar, the traded quantity of a Volume bar
+ * and the price range of a Range bar in units of 1 / {@link #RANGE_SCALE}.
+ */
+public enum BarType {
+    Time,
+    Tick,
+    Volume,
+    Range;
+
+    public static final double RANGE_SCALE = 10000;
+
+    private static final int TYPE_SHIFT = 24;
+    private static final int SIZE_MASK = (1 << TYPE_SHIFT) - 1;
+    private static final BarType[] VALUES = values();
+
+    public int barSize(int size) {
+        if (size <= 0 || size > SIZE_MASK) {
+            throw new IllegalArgumentException("size must be in (0, " + SIZE_MASK + "], size=" + size);
+        }
+        return ordinal() << TYPE_SHIFT | size;
+    }
+
+    public static BarType of(int barSize) {
+        return VALUES[barSize >>> TYPE_SHIFT];
+    }
+
+    public static int size(int barSize) {
+        return barSize & SIZE_MASK;
+    }
+
+    public static int rangeBarSize(double range) {
+        return Range.barSize((int) Math.round(range * RANGE_SCALE));
+    }
+}
@@ -84,8 +84,8 @@ public class MarketDataContainer extends MarketData<MarketDataContainer> {
                        long openInt) {
 
         this.bar.reset();
-        this.instId = bar.instId;
-        this.dateTime = bar.dateTime;
+        this.instId = instId;
+        this.dateTime = dateTime;
         this.bar.instId = instId;
         this.bar.size = size;
         this.bar.dateTime = dateTime;
@@ -113,9 +113,9 @@ public class MarketDataContainer extends MarketData<MarketDataContainer> {
                        double price,
                        int size) {
 
-        this.bar.reset();
-        this.instId = bar.instId;
-        this.dateTime = bar.dateTime;
+        this.trade.reset();
+        this.instId = instId;
+        this.dateTime = dateTime;
         this.trade.instId = instId;
         this.trade.dateTime = dateTime;
         this.trade.price = price;
@@ -141,9 +141,9 @@ public class MarketDataContainer extends MarketData<MarketDataContainer> {
                          int bidSize,
                          int askSize) {
 
-        this.bar.reset();
-        this.instId = bar.instId;
-        this.dateTime = bar.dateTime;
+        this.quote.reset();
+        this.instId = instId;
+        this.dateTime = dateTime;
         this.quote.instId = instId;
         this.quote.dateTime = dateTime;
         this.quote.bid = bid;
@@ -0,0 +1,500 @@
+package com.unisoft.algotrader.model.serialization.sbe;
+
+import com.unisoft.algotrader.model.event.data.MDOperation;
+import com.unisoft.algotrader.model.event.data.MDSide;
+import com.unisoft.algotrader.model.event.data.MarketDataContainer;
+import com.unisoft.algotrader.model.event.data.MarketDepth;
+import com.unisoft.algotrader.model.event.execution.ExecutionReport;
+import com.unisoft.algotrader.model.event.execution.Order;
+import com.unisoft.algotrader.model.trading.*;
+import com.unisoft.algotrader.utils.serialization.DirectBufferSerializer;
+import uk.co.real_logic.agrona.concurrent.UnsafeBuffer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link DirectBufferSerializer} for {@link MarketDataContainer}, {@link MarketDepth}, {@link Order} and
+ * {@link ExecutionReport} based on the SBE flyweight codecs generated from sbe/algotrader-schema.xml.
+ *
+ * Every message is a {@link MessageHeader} followed by the message block. Encoding and decoding do not allocate:
+ * deserialize returns an instance owned by the serializer which is overwritten by the next call, use the decode
+ * methods to decode into an instance of the caller (e.g. a ring buffer slot). The only allocation is a String field
+ * whose value differs from the one already held by the target. Strings are limited to US-ASCII, null and empty
+ * strings are both sent as empty and decoded as null. The execution reports, cancel rejects and commissions of an
+ * order are not carried.
+ *
+ * An instance is not thread safe.
+ */
+public class SBESerializer implements DirectBufferSerializer {
+
+    public static final int DEFAULT_BUFFER_SIZE = 4096;
+
+    private static final int BAR_FLAG = 1;
+    private static final int QUOTE_FLAG = 2;
+    private static final int TRADE_FLAG = 4;
+    private static final short NULL_ORDINAL = 255;
+    private static final int SCHEMA_VERSION = MarketDataMessage.SCHEMA_VERSION;
+
+    private static final OrdType[] ORD_TYPES = OrdType.values();
+    private static final OrdStatus[] ORD_STATUSES = OrdStatus.values();
+    private static final TimeInForce[] TIFS = TimeInForce.values();
+    private static final Side[] SIDES = Side.values();
+    private static final ExecType[] EXEC_TYPES = ExecType.values();
+    private static final MDOperation[] MD_OPERATIONS = MDOperation.values();
+    private static final MDSide[] MD_SIDES = MDSide.values();
+
+    private final MessageHeader messageHeader = new MessageHeader();
+    private final MarketDataMessage marketDataMessage = new MarketDataMessage();
+    private final MarketDepthMessage marketDepthMessage = new MarketDepthMessage();
+    private final OrderMessage orderMessage = new OrderMessage();
+    private final ExecutionReportMessage executionReportMessage = new ExecutionReportMessage();
+
+    private final MarketDataContainer marketDataContainer = new MarketDataContainer();
+    private final MarketDepth marketDepth = new MarketDepth();
+    private final Order order = new Order();
+    private final ExecutionReport executionReport = new ExecutionReport();
+
+    private final UnsafeBuffer wrapBuffer = new UnsafeBuffer(new byte[0]);
+    private final UnsafeBuffer encodeBuffer;
+    private final byte[] stringBytes = new byte[0xFFFF];
+
+    public SBESerializer(){
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize size of the buffer used by serialize(T) to encode before copying to the byte[]
+     */
+    public SBESerializer(int bufferSize){
+        this.encodeBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(bufferSize));
+    }
+
+    @Override
+    public int serialize(Object content, UnsafeBuffer buffer, int offset) {
+        if (content instanceof MarketDataContainer){
+            return encode((MarketDataContainer) content, buffer, offset);
+        }
+        if (content instanceof ExecutionReport){
+            return encode((ExecutionReport) content, buffer, offset);
+        }
+        if (content instanceof Order){
+            return encode((Order) content, buffer, offset);
+        }
+        if (content instanceof MarketDepth){
+            return encode((MarketDepth) content, buffer, offset);
+        }
+        throw new IllegalArgumentException("unsupported class=" + (content == null ? null : content.getClass()));
+    }
+
+    @Override
+    public int encodedLength(Object content) {
+        if (content instanceof MarketDataContainer){
+            return messageHeader.size() + MarketDataMessage.BLOCK_LENGTH;
+        }
+        if (content instanceof ExecutionReport){
+            return messageHeader.size() + ExecutionReportMessage.BLOCK_LENGTH
+                    + ExecutionReportMessage.textHeaderSize() + stringLength(((ExecutionReport) content).text);
+        }
+        if (content instanceof Order){
+            Order order = (Order) content;
+            return messageHeader.size() + OrderMessage.BLOCK_LENGTH
+                    + OrderMessage.accountIdHeaderSize() + stringLength(order.accountId)
+                    + OrderMessage.ocaGroupHeaderSize() + stringLength(order.ocaGroup)
+                    + OrderMessage.textHeaderSize() + stringLength(order.text);
+        }
+        if (content instanceof MarketDepth){
+            return messageHeader.size() + MarketDepthMessage.BLOCK_LENGTH;
+        }
+        throw new IllegalArgumentException("unsupported class=" + (content == null ? null : content.getClass()));
+    }
+
+    private static int stringLength(String value){
+        return value == null ? 0 : value.length();
+    }
+
+    @Override
+    public <T> T deserialize(UnsafeBuffer buffer, int offset) {
+        switch (templateId(buffer, offset)){
+            case MarketDataMessage.TEMPLATE_ID:
+                marketDataContainer.reset();
+                decode(buffer, offset, marketDataContainer);
+                return (T) marketDataContainer;
+            case MarketDepthMessage.TEMPLATE_ID:
+                decode(buffer, offset, marketDepth);
+                return (T) marketDepth;
+            case OrderMessage.TEMPLATE_ID:
+                decode(buffer, offset, order);
+                return (T) order;
+            case ExecutionReportMessage.TEMPLATE_ID:
+                decode(buffer, offset, executionReport);
+                return (T) executionReport;
+            default:
+                throw new IllegalArgumentException("unknown templateId=" + messageHeader.templateId());
+        }
+    }
+
+    @Override
+    public <T> T deserialize(byte[] array) {
+        wrapBuffer.wrap(array);
+        return deserialize(wrapBuffer, 0);
+    }
+
+    @Override
+    public <T> byte[] serialize(T content) {
+        int length = serialize(content, encodeBuffer, 0);
+        byte[] bytes = new byte[length];
+        encodeBuffer.getBytes(0, bytes, 0, length);
+        return bytes;
+    }
+
+    /**
+     * Decode the message at the position of the byteBuffer and move the position past it.
+     */
+    @Override
+    public <T> T deserialize(ByteBuffer byteBuffer) {
+        int offset = byteBuffer.position();
+        wrapBuffer.wrap(byteBuffer);
+        T content = deserialize(wrapBuffer, offset);
+        byteBuffer.position(offset + length(wrapBuffer, offset));
+        return content;
+    }
+
+    /**
+     * Encode at the position of the byteBuffer and move the position past the message.
+     */
+    @Override
+    public <T> void serialize(T content, ByteBuffer byteBuffer) {
+        int offset = byteBuffer.position();
+        wrapBuffer.wrap(byteBuffer);
+        int length = serialize(content, wrapBuffer, offset);
+        byteBuffer.position(offset + length);
+    }
+
+    /**
+     * Template ids are fixed by the schema, only checks the class is supported.
+     */
+    @Override
+    public void register(Class clazz) {
+        if (getId(clazz) < 0){
+            throw new IllegalArgumentException("unsupported class=" + clazz);
+        }
+    }
+
+    @Override
+    public int getId(Class clazz) {
+        if (MarketDataContainer.class.isAssignableFrom(clazz)){
+            return MarketDataMessage.TEMPLATE_ID;
+        }
+        if (MarketDepth.class.isAssignableFrom(clazz)){
+            return MarketDepthMessage.TEMPLATE_ID;
+        }
+        if (ExecutionReport.class.isAssignableFrom(clazz)){
+            return ExecutionReportMessage.TEMPLATE_ID;
+        }
+        if (Order.class.isAssignableFrom(clazz)){
+            return OrderMessage.TEMPLATE_ID;
+        }
+        return -1;
+    }
+
+    public int templateId(UnsafeBuffer buffer, int offset){
+        return messageHeader.wrap(buffer, offset, SCHEMA_VERSION).templateId();
+    }
+
+    /**
+     * instId of the message at the offset, without decoding the rest of the message.
+     */
+    public long instId(UnsafeBuffer buffer, int offset){
+        messageHeader.wrap(buffer, offset, SCHEMA_VERSION);
+        int bodyOffset = offset + messageHeader.size();
+        int blockLength = messageHeader.blockLength();
+        int version = messageHeader.version();
+        switch (messageHeader.templateId()){
+            case MarketDataMessage.TEMPLATE_ID:
+                return marketDataMessage.wrapForDecode(buffer, bodyOffset, blockLength, version).instId();
+            case MarketDepthMessage.TEMPLATE_ID:
+                return marketDepthMessage.wrapForDecode(buffer, bodyOffset, blockLength, version).instId();
+            case OrderMessage.TEMPLATE_ID:
+                return orderMessage.wrapForDecode(buffer, bodyOffset, blockLength, version).instId();
+            case ExecutionReportMessage.TEMPLATE_ID:
+                return executionReportMessage.wrapForDecode(buffer, bodyOffset, blockLength, version).instId();
+            default:
+                throw new IllegalArgumentException("unknown templateId=" + messageHeader.templateId());
+        }
+    }
+
+    /**
+     * Encoded length of the message at the offset, including the header and the variable length fields.
+     */
+    public int length(UnsafeBuffer buffer, int offset){
+        messageHeader.wrap(buffer, offset, SCHEMA_VERSION);
+        int bodyOffset = offset + messageHeader.size();
+        int blockLength = messageHeader.blockLength();
+        int version = messageHeader.version();
+        switch (messageHeader.templateId()){
+            case OrderMessage.TEMPLATE_ID:
+                orderMessage.wrapForDecode(buffer, bodyOffset, blockLength, version);
+                skipVarData(orderMessage.accountIdLength(), orderMessage);
+                skipVarData(orderMessage.ocaGroupLength(), orderMessage);
+                skipVarData(orderMessage.textLength(), orderMessage);
+                return orderMessage.limit() - offset;
+            case ExecutionReportMessage.TEMPLATE_ID:
+                executionReportMessage.wrapForDecode(buffer, bodyOffset, blockLength, version);
+                return executionReportMessage.limit() + ExecutionReportMessage.textHeaderSize()
+                        + executionReportMessage.textLength() - offset;
+            default:
+                return messageHeader.size() + blockLength;
+        }
+    }
+
+    private static void skipVarData(int length, OrderMessage message){
+        message.limit(message.limit() + OrderMessage.textHeaderSize() + length);
+    }
+
+    private int encodeHeader(UnsafeBuffer buffer, int offset, int blockLength, int templateId){
+        messageHeader.wrap(buffer, offset, SCHEMA_VERSION)
+                .blockLength(blockLength)
+                .templateId(templateId)
+                .schemaId(MarketDataMessage.SCHEMA_ID)
+                .version(SCHEMA_VERSION);
+        return offset + messageHeader.size();
+    }
+
+    public int encode(MarketDataContainer container, UnsafeBuffer buffer, int offset){
+        int bodyOffset = encodeHeader(buffer, offset, MarketDataMessage.BLOCK_LENGTH, MarketDataMessage.TEMPLATE_ID);
+        int flags = (container.hasBar() ? BAR_FLAG : 0) | (container.hasQuote() ? QUOTE_FLAG : 0)
+                | (container.hasTrade() ? TRADE_FLAG : 0);
+        marketDataMessage.wrapForEncode(buffer, bodyOffset)
+                .instId(container.instId)
+                .dateTime(container.dateTime)
+                .open(container.bar.open)
+                .high(container.bar.high)
+                .low(container.bar.low)
+                .close(container.bar.close)
+                .volume(container.bar.volume)
+                .openInt(container.bar.openInt)
+                .bid(container.quote.bid)
+                .ask(container.quote.ask)
+                .price(container.trade.price)
+                .dataSize(container.size)
+                .barSize(container.bar.size)
+                .bidSize(container.quote.bidSize)
+                .askSize(container.quote.askSize)
+                .tradeSize(container.trade.size)
+                .flags((short) flags);
+        return marketDataMessage.limit() - offset;
+    }
+
+    /**
+     * Decode into the container, the container is expected to be reset.
+     */
+    public void decode(UnsafeBuffer buffer, int offset, MarketDataContainer container){
+        messageHeader.wrap(buffer, offset, SCHEMA_VERSION);
+        MarketDataMessage message = marketDataMessage.wrapForDecode(buffer, offset + messageHeader.size(),
+                messageHeader.blockLength(), messageHeader.version());
+        long instId = message.instId();
+        long dateTime = message.dateTime();
+        int flags = message.flags();
+        if ((flags & BAR_FLAG) != 0){
+            container.setBar(instId, message.barSize(), dateTime, message.open(), message.high(), message.low(),
+                    message.close(), message.volume(), message.openInt());
+        }
+        if ((flags & QUOTE_FLAG) != 0){
+            container.setQuote(instId, dateTime, message.bid(), message.ask(), message.bidSize(), message.askSize());
+        }
+        if ((flags & TRADE_FLAG) != 0){
+            container.setTrade(instId, dateTime, message.price(), message.tradeSize());
+        }
+        container.instId = instId;
+        container.dateTime = dateTime;
+        container.size = message.dataSize();
+    }
+
+    public int encode(MarketDepth marketDepth, UnsafeBuffer buffer, int offset){
+        int bodyOffset = encodeHeader(buffer, offset, MarketDepthMessage.BLOCK_LENGTH, MarketDepthMessage.TEMPLATE_ID);
+        marketDepthMessage.wrapForEncode(buffer, bodyOffset)
+                .instId(marketDepth.instId)
+                .dateTime(marketDepth.dateTime)
+                .price(marketDepth.price)
+                .providerId(marketDepth.providerId)
+                .position(marketDepth.position)
+                .depthSize(marketDepth.size)
+                .operation(ordinal(marketDepth.operation))
+                .side(ordinal(marketDepth.side));
+        return marketDepthMessage.limit() - offset;
+    }
+
+    public void decode(UnsafeBuffer buffer, int offset, MarketDepth marketDepth){
+        messageHeader.wrap(buffer, offset, SCHEMA_VERSION);
+        MarketDepthMessage message = marketDepthMessage.wrapForDecode(buffer, offset + messageHeader.size(),
+                messageHeader.blockLength(), messageHeader.version());
+        marketDepth.instId = message.instId();
+        marketDepth.dateTime = message.dateTime();
+        marketDepth.price = message.price();
+        marketDepth.providerId = message.providerId();
+        marketDepth.position = message.position();
+        marketDepth.size = message.depthSize();
+        marketDepth.operation = valueOf(MD_OPERATIONS, message.operation());
+        marketDepth.side = valueOf(MD_SIDES, message.side());
+    }
+
+    public int encode(Order order, UnsafeBuffer buffer, int offset){
+        int bodyOffset = encodeHeader(buffer, offset, OrderMessage.BLOCK_LENGTH, OrderMessage.TEMPLATE_ID);
+        OrderMessage message = orderMessage.wrapForEncode(buffer, bodyOffset)
+                .clOrderId(order.clOrderId)
+                .origClOrderId(order.origClOrderId)
+                .orderId(order.orderId)
+                .instId(order.instId)
+                .dateTime(order.dateTime)
+                .limitPrice(order.limitPrice)
+                .stopPrice(order.stopPrice)
+                .ordQty(order.ordQty)
+                .filledQty(order.filledQty)
+                .avgPrice(order.avgPrice)
+                .lastQty(order.lastQty)
+                .lastPrice(order.lastPrice)
+                .trailingStopExecPrice(order.trailingStopExecPrice)
+                .pnl(order.pnl)
+                .realizedPnl(order.realizedPnl)
+                .strategyId(order.strategyId)
+                .providerId(order.providerId)
+                .portfolioId(order.portfolioId)
+                .ordType(ordinal(order.ordType))
+                .ordStatus(ordinal(order.ordStatus))
+                .tif(ordinal(order.tif))
+                .side(ordinal(order.side))
+                .stopLimitReady((short) (order.stopLimitReady ? 1 : 0));
+        message.putAccountId(stringBytes, 0, encodeString(order.accountId));
+        message.putOcaGroup(stringBytes, 0, encodeString(order.ocaGroup));
+        message.putText(stringBytes, 0, encodeString(order.text));
+        return message.limit() - offset;
+    }
+
+    public void decode(UnsafeBuffer buffer, int offset, Order order){
+        messageHeader.wrap(buffer, offset, SCHEMA_VERSION);
+        OrderMessage message = orderMessage.wrapForDecode(buffer, offset + messageHeader.size(),
+                messageHeader.blockLength(), messageHeader.version());
+        order.clOrderId = message.clOrderId();
+        order.origClOrderId = message.origClOrderId();
+        order.orderId = message.orderId();
+        order.instId = message.instId();
+        order.dateTime = message.dateTime();
+        order.limitPrice = message.limitPrice();
+        order.stopPrice = message.stopPrice();
+        order.ordQty = message.ordQty();
+        order.filledQty = message.filledQty();
+        order.avgPrice = message.avgPrice();
+        order.lastQty = message.lastQty();
+        order.lastPrice = message.lastPrice();
+        order.trailingStopExecPrice = message.trailingStopExecPrice();
+        order.pnl = message.pnl();
+        order.realizedPnl = message.realizedPnl();
+        order.strategyId = message.strategyId();
+        order.providerId = message.providerId();
+        order.portfolioId = message.portfolioId();
+        order.ordType = valueOf(ORD_TYPES, message.ordType());
+        order.ordStatus = valueOf(ORD_STATUSES, message.ordStatus());
+        order.tif = valueOf(TIFS, message.tif());
+        order.side = valueOf(SIDES, message.side());
+        order.stopLimitReady = message.stopLimitReady() != 0;
+        order.accountId = decodeString(message.getAccountId(stringBytes, 0, stringBytes.length), order.accountId);
+        order.ocaGroup = decodeString(message.getOcaGroup(stringBytes, 0, stringBytes.length), order.ocaGroup);
+        order.text = decodeString(message.getText(stringBytes, 0, stringBytes.length), order.text);
+    }
+
+    public int encode(ExecutionReport executionReport, UnsafeBuffer buffer, int offset){
+        int bodyOffset = encodeHeader(buffer, offset, ExecutionReportMessage.BLOCK_LENGTH, ExecutionReportMessage.TEMPLATE_ID);
+        ExecutionReportMessage message = executionReportMessage.wrapForEncode(buffer, bodyOffset)
+                .execId(executionReport.execId)
+                .orderId(executionReport.orderId)
+                .clOrderId(executionReport.clOrderId)
+                .origClOrderId(executionReport.origClOrderId)
+                .instId(executionReport.instId)
+                .transactionTime(executionReport.transactionTime)
+                .limitPrice(executionReport.limitPrice)
+                .stopPrice(executionReport.stopPrice)
+                .ordQty(executionReport.ordQty)
+                .lastQty(executionReport.lastQty)
+                .lastPrice(executionReport.lastPrice)
+                .filledQty(executionReport.filledQty)
+                .avgPrice(executionReport.avgPrice)
+                .providerId(executionReport.providerId)
+                .strategyId(executionReport.strategyId)
+                .ordType(ordinal(executionReport.ordType))
+                .ordStatus(ordinal(executionReport.ordStatus))
+                .execType(ordinal(executionReport.execType))
+                .tif(ordinal(executionReport.tif))
+                .side(ordinal(executionReport.side));
+        message.putText(stringBytes, 0, encodeString(executionReport.text));
+        return message.limit() - offset;
+    }
+
+    public void decode(UnsafeBuffer buffer, int offset, ExecutionReport executionReport){
+        messageHeader.wrap(buffer, offset, SCHEMA_VERSION);
+        ExecutionReportMessage message = executionReportMessage.wrapForDecode(buffer, offset + messageHeader.size(),
+                messageHeader.blockLength(), messageHeader.version());
+        executionReport.execId = message.execId();
+        executionReport.orderId = message.orderId();
+        executionReport.clOrderId = message.clOrderId();
+        executionReport.origClOrderId = message.origClOrderId();
+        executionReport.instId = message.instId();
+        executionReport.transactionTime = message.transactionTime();
+        executionReport.limitPrice = message.limitPrice();
+        executionReport.stopPrice = message.stopPrice();
+        executionReport.ordQty = message.ordQty();
+        executionReport.lastQty = message.lastQty();
+        executionReport.lastPrice = message.lastPrice();
+        executionReport.filledQty = message.filledQty();
+        executionReport.avgPrice = message.avgPrice();
+        executionReport.providerId = message.providerId();
+        executionReport.strategyId = message.strategyId();
+        executionReport.ordType = valueOf(ORD_TYPES, message.ordType());
+        executionReport.ordStatus = valueOf(ORD_STATUSES, message.ordStatus());
+        executionReport.execType = valueOf(EXEC_TYPES, message.execType());
+        executionReport.tif = valueOf(TIFS, message.tif());
+        executionReport.side = valueOf(SIDES, message.side());
+        executionReport.text = decodeString(message.getText(stringBytes, 0, stringBytes.length), executionReport.text);
+    }
+
+    private static short ordinal(Enum value){
+        return value == null ? NULL_ORDINAL : (short) value.ordinal();
+    }
+
+    private static <E extends Enum<E>> E valueOf(E[] values, short ordinal){
+        return ordinal == NULL_ORDINAL ? null : values[ordinal];
+    }
+
+    private int encodeString(String value){
+        if (value == null){
+            return 0;
+        }
+        int length = value.length();
+        if (length > stringBytes.length){
+            throw new IllegalArgumentException("string too long, length=" + length);
+        }
+        for (int i = 0; i < length; i++){
+            stringBytes[i] = (byte) value.charAt(i);
+        }
+        return length;
+    }
+
+    /**
+     * Keep the current String of the target when it has the same value, so repeated values are not allocated.
+     */
+    private String decodeString(int length, String current){
+        if (length == 0){
+            return null;
+        }
+        if (current != null && current.length() == length){
+            int i = 0;
+            while (i < length && current.charAt(i) == (char) stringBytes[i]){
+                i++;
+            }
+            if (i == length){
+                return current;
+            }
+        }
+        return new String(stringBytes, 0, length, StandardCharsets.US_ASCII);
+    }
+}
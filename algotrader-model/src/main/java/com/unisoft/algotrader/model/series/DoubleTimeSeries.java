@@ -1,19 +1,23 @@
 package com.unisoft.algotrader.model.series;
 
-import com.datastax.driver.mapping.annotations.Field;
-import com.datastax.driver.mapping.annotations.UDT;
 import com.google.common.base.Objects;
-import org.apache.commons.lang3.ArrayUtils;
 
-import java.util.*;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * Created by alex on 5/25/15.
+ *
+ * Columnar time series backed by growable long[] / double[] arrays. Appends must be in non-decreasing
+ * time order, which lets time lookups use binary search instead of a hash index.
+ *
+ * The Cassandra mapping lives in {@link DoubleTimeSeriesUDT}.
  */
-
-@UDT(name = "double_time_series", keyspace = "trading")
 public class DoubleTimeSeries implements Iterable<DoubleTimeSeries.Tuple>{
 
+    private static final int DEFAULT_CAPACITY = 64;
 
     public static class Tuple{
         public final long dateTime;
@@ -47,26 +51,68 @@ public class DoubleTimeSeries implements Iterable<DoubleTimeSeries.Tuple>{
         }
     }
 
-    public static class DoubleTimeSeriesIterator implements Iterator<DoubleTimeSeries.Tuple>{
-        private final long [] dateTimeSeries;
-        private final double [] dataSeries;
+    /**
+     * Allocation free forward cursor over [from, to) of a series. Reads the live arrays, so values appended
+     * after the cursor was created are visible to it only if they fall inside its range.
+     */
+    public static class Cursor {
+        private DoubleTimeSeries series;
+        private int from;
+        private int to;
+        private int idx;
+
+        Cursor reset(DoubleTimeSeries series, int from, int to){
+            this.series = series;
+            this.from = from;
+            this.to = to;
+            this.idx = from - 1;
+            return this;
+        }
+
+        public Cursor rewind(){
+            idx = from - 1;
+            return this;
+        }
+
+        public boolean next(){
+            if (idx + 1 < to) {
+                idx++;
+                return true;
+            }
+            return false;
+        }
+
+        public int index(){
+            return idx;
+        }
+
+        public long dateTime(){
+            return series.dateTimes[idx];
+        }
+
+        public double value(){
+            return series.data[idx];
+        }
+    }
+
+    public class DoubleTimeSeriesIterator implements Iterator<DoubleTimeSeries.Tuple>{
+        private final int to;
         private int cursor;
 
-        public DoubleTimeSeriesIterator(long [] dateTimeSeries, double [] dataSeries){
-            this.dateTimeSeries = dateTimeSeries;
-            this.dataSeries = dataSeries;
-            cursor = 0;
+        DoubleTimeSeriesIterator(int from, int to){
+            this.cursor = from;
+            this.to = to;
         }
 
         @Override
         public boolean hasNext() {
-            return cursor < dateTimeSeries.length;
+            return cursor < to;
         }
 
         @Override
         public Tuple next() {
             if (hasNext()) {
-                Tuple tuple = new Tuple(dateTimeSeries[cursor], dataSeries[cursor]);
+                Tuple tuple = new Tuple(dateTimes[cursor], data[cursor]);
                 cursor++;
                 return tuple;
             }
@@ -74,47 +120,99 @@ public class DoubleTimeSeries implements Iterable<DoubleTimeSeries.Tuple>{
         }
     }
 
-//
-//    private TLongArrayList datetimeSeries = new TLongArrayList();
-//    private TLongIntHashMap indexMap = new TLongIntHashMap();
-//    private TDoubleArrayList dataSeries = new TDoubleArrayList();
+    /**
+     * Read only view over [from, to) of the parent series, sharing its storage.
+     */
+    public class Slice {
+        private final int from;
+        private final int to;
 
+        Slice(int from, int to){
+            this.from = from;
+            this.to = to;
+        }
 
-    @Field(name = "datetime_series")
-    private List<Long> datetimeSeries = new ArrayList();
+        public int count(){
+            return to - from;
+        }
 
-    @Field(name = "index_map")
-    private Map<Long, Integer> indexMap = new HashMap();
+        public long dateTimeByIdx(int idx){
+            checkIdx(idx);
+            return dateTimes[from + idx];
+        }
+
+        public double getByIdx(int idx){
+            checkIdx(idx);
+            return data[from + idx];
+        }
+
+        public double getByDate(long datetime){
+            int index = lastIndexOf(dateTimes, from, to, datetime);
+            return index >= 0 ? data[index] : 0.0;
+        }
+
+        public double first(){
+            return getByIdx(0);
+        }
+
+        public double last(){
+            return getByIdx(count() - 1);
+        }
+
+        public Cursor cursor(){
+            return cursor(new Cursor());
+        }
 
-    @Field(name = "data_series")
-    private List<Double> dataSeries = new ArrayList();
+        public Cursor cursor(Cursor cursor){
+            return cursor.reset(DoubleTimeSeries.this, from, to);
+        }
 
-    @Field(name = "curr_idx")
-    private int currIdx = 0;
+        private void checkIdx(int idx){
+            if (idx < 0 || idx >= count()){
+                throw new IndexOutOfBoundsException("idx=" + idx + ", count=" + count());
+            }
+        }
+    }
 
-    @Field(name = "curr_time")
-    private long currTime = Long.MIN_VALUE;
+    private long[] dateTimes;
+    private double[] data;
+    private int count = 0;
+
+    public DoubleTimeSeries(){
+        this(DEFAULT_CAPACITY);
+    }
+
+    public DoubleTimeSeries(int capacity){
+        this.dateTimes = new long[Math.max(capacity, 1)];
+        this.data = new double[Math.max(capacity, 1)];
+    }
 
     public void add(Date date, double data){
         add(date.getTime(), data);
     }
 
     public void add(long date, double data){
-        assert date >= currTime;
-        currTime = date;
-        indexMap.put(date, currIdx++);
-        dataSeries.add(data);
-        datetimeSeries.add(date);
-
+        assert count == 0 || date >= dateTimes[count - 1];
+        if (count == dateTimes.length){
+            grow();
+        }
+        this.dateTimes[count] = date;
+        this.data[count] = data;
+        count++;
     }
 
     public int count(){
-        return dataSeries.size();
+        return count;
     }
 
-
     public double getByIdx(int idx){
-        return dataSeries.get(idx);
+        checkIdx(idx);
+        return data[idx];
+    }
+
+    public long dateTimeByIdx(int idx){
+        checkIdx(idx);
+        return dateTimes[idx];
     }
 
     public double getByDate(Date date){
@@ -123,38 +221,47 @@ public class DoubleTimeSeries implements Iterable<DoubleTimeSeries.Tuple>{
 
     public double getByDate(long datetime){
         int index = getIndex(datetime);
-        return index>=0 ? dataSeries.get(index) : 0.0;
+        return index>=0 ? data[index] : 0.0;
     }
 
+    /**
+     * @return the index of the last point at datetime, or -1 if there is none
+     */
     protected int getIndex(long datetime){
-        return indexMap.containsKey(datetime) ? indexMap.get(datetime) : -1;
+        return lastIndexOf(dateTimes, 0, count, datetime);
     }
 
     public double ago(int ago){
         int index = lastIndex() - ago;
-        return index>=0 ? dataSeries.get(index) : 0.0;
+        return index>=0 ? data[index] : 0.0;
     }
 
+    /**
+     * @return the distinct timestamps of the series, in ascending order
+     */
     public long [] index(){
-        List<Long> idxList = new ArrayList<>(indexMap.keySet());
-        long[] idx = ArrayUtils.toPrimitive(idxList.toArray(new Long[idxList.size()]));
-       //long [] idx =indexMap.keySet().toArray();
-        Arrays.sort(idx);
-        return idx;
+        long[] idx = new long[count];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            if (size == 0 || idx[size - 1] != dateTimes[i]) {
+                idx[size++] = dateTimes[i];
+            }
+        }
+        return size == count ? idx : Arrays.copyOf(idx, size);
     }
 
     public long firstDateTime(){
         if (count() <= 0){
             throw new IllegalArgumentException("Time Series has no element");
         }
-        return datetimeSeries.get(0);
+        return dateTimes[0];
     }
 
     public long lastDateTime(){
         if (count() <= 0){
             throw new IllegalArgumentException("Time Series has no element");
         }
-        return datetimeSeries.get(count()-1);
+        return dateTimes[count - 1];
     }
 
     public int firstIndex(){
@@ -162,86 +269,124 @@ public class DoubleTimeSeries implements Iterable<DoubleTimeSeries.Tuple>{
     }
 
     public int lastIndex(){
-        return dataSeries.size()-1;
+        return count - 1;
     }
 
     public double first(){
         if (count() <= 0){
             throw new IllegalArgumentException("Time Series has no element");
         }
-        return dataSeries.get(0);
+        return data[0];
     }
 
     public double last(){
         if (count() <= 0){
             throw new IllegalArgumentException("Time Series has no element");
         }
-        return dataSeries.get(count()-1);
+        return data[count - 1];
     }
 
-
-    public Iterator<Tuple> iterator() {
-        long[] date = ArrayUtils.toPrimitive(datetimeSeries.toArray(new Long[datetimeSeries.size()]));
-        double[] data = ArrayUtils.toPrimitive(dataSeries.toArray(new Double[dataSeries.size()]));
-        return new DoubleTimeSeriesIterator(date, data);
-
-        //return new DoubleTimeSeriesIterator(datetimeSeries.toArray(), dataSeries.toArray());
+    /**
+     * @return a view over the points with from &lt;= dateTime &lt;= to, without copying
+     */
+    public Slice slice(long from, long to){
+        int start = lowerBound(dateTimes, 0, count, from);
+        int end = upperBound(dateTimes, start, count, to);
+        return new Slice(start, end);
     }
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (!(o instanceof DoubleTimeSeries)) return false;
-        DoubleTimeSeries tuples = (DoubleTimeSeries) o;
-        return Objects.equal(currIdx, tuples.currIdx) &&
-                Objects.equal(currTime, tuples.currTime) &&
-                Objects.equal(datetimeSeries, tuples.datetimeSeries) &&
-                Objects.equal(indexMap, tuples.indexMap) &&
-                Objects.equal(dataSeries, tuples.dataSeries);
+    public Cursor cursor(){
+        return cursor(new Cursor());
     }
 
-    @Override
-    public int hashCode() {
-        return Objects.hashCode(datetimeSeries, indexMap, dataSeries, currIdx, currTime);
+    public Cursor cursor(Cursor cursor){
+        return cursor.reset(this, 0, count);
     }
 
-    public List<Long> getDatetimeSeries() {
-        return datetimeSeries;
+    public Iterator<Tuple> iterator() {
+        return new DoubleTimeSeriesIterator(0, count);
     }
 
-    public void setDatetimeSeries(List<Long> datetimeSeries) {
-        this.datetimeSeries = datetimeSeries;
+    public void clear(){
+        count = 0;
     }
 
-    public Map<Long, Integer> getIndexMap() {
-        return indexMap;
+    private void checkIdx(int idx){
+        if (idx < 0 || idx >= count){
+            throw new IndexOutOfBoundsException("idx=" + idx + ", count=" + count);
+        }
     }
 
-    public void setIndexMap(Map<Long, Integer> indexMap) {
-        this.indexMap = indexMap;
+    private void grow(){
+        int capacity = dateTimes.length + (dateTimes.length >> 1) + 1;
+        dateTimes = Arrays.copyOf(dateTimes, capacity);
+        data = Arrays.copyOf(data, capacity);
     }
 
-    public List<Double> getDataSeries() {
-        return dataSeries;
+    /**
+     * @return first index in [from, to) with array[index] &gt;= key, or to
+     */
+    static int lowerBound(long[] array, int from, int to, long key){
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (array[mid] < key)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
     }
 
-    public void setDataSeries(List<Double> dataSeries) {
-        this.dataSeries = dataSeries;
+    /**
+     * @return first index in [from, to) with array[index] &gt; key, or to
+     */
+    static int upperBound(long[] array, int from, int to, long key){
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (array[mid] <= key)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
     }
 
-    public int getCurrIdx() {
-        return currIdx;
+    static int lastIndexOf(long[] array, int from, int to, long key){
+        int index = upperBound(array, from, to, key) - 1;
+        return index >= from && array[index] == key ? index : -1;
     }
 
-    public void setCurrIdx(int currIdx) {
-        this.currIdx = currIdx;
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DoubleTimeSeries)) return false;
+        DoubleTimeSeries that = (DoubleTimeSeries) o;
+        if (count != that.count) return false;
+        for (int i = 0; i < count; i++) {
+            if (dateTimes[i] != that.dateTimes[i] || Double.compare(data[i], that.data[i]) != 0)
+                return false;
+        }
+        return true;
     }
 
-    public long getCurrTime() {
-        return currTime;
+    @Override
+    public int hashCode() {
+        int result = 1;
+        for (int i = 0; i < count; i++) {
+            result = 31 * result + Long.hashCode(dateTimes[i]);
+            result = 31 * result + Double.hashCode(data[i]);
+        }
+        return result;
     }
 
-    public void setCurrTime(long currTime) {
-        this.currTime = currTime;
+    @Override
+    public String toString() {
+        return "DoubleTimeSeries{" +
+                "count=" + count +
+                "} " + super.toString();
     }
 }
@@ -0,0 +1,83 @@
+package com.unisoft.algotrader.model.series;
+
+import com.datastax.driver.mapping.annotations.Field;
+import com.datastax.driver.mapping.annotations.UDT;
+import com.google.common.base.Objects;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cassandra mapping of {@link DoubleTimeSeries}. Only used at the persistence boundary, the boxed lists
+ * are built when saving and dropped once the series is restored.
+ */
+@UDT(name = "double_time_series", keyspace = "trading")
+public class DoubleTimeSeriesUDT {
+
+    @Field(name = "datetime_series")
+    private List<Long> datetimeSeries = new ArrayList();
+
+    @Field(name = "data_series")
+    private List<Double> dataSeries = new ArrayList();
+
+    public DoubleTimeSeriesUDT(){
+    }
+
+    public DoubleTimeSeriesUDT(DoubleTimeSeries series){
+        int count = series.count();
+        this.datetimeSeries = new ArrayList<>(count);
+        this.dataSeries = new ArrayList<>(count);
+        DoubleTimeSeries.Cursor cursor = series.cursor();
+        while (cursor.next()){
+            datetimeSeries.add(cursor.dateTime());
+            dataSeries.add(cursor.value());
+        }
+    }
+
+    public static DoubleTimeSeriesUDT of(DoubleTimeSeries series){
+        return series == null ? null : new DoubleTimeSeriesUDT(series);
+    }
+
+    public static DoubleTimeSeries toSeries(DoubleTimeSeriesUDT udt){
+        return udt == null ? new DoubleTimeSeries() : udt.toSeries();
+    }
+
+    public DoubleTimeSeries toSeries(){
+        int count = Math.min(datetimeSeries.size(), dataSeries.size());
+        DoubleTimeSeries series = new DoubleTimeSeries(count);
+        for (int i = 0; i < count; i++) {
+            series.add(datetimeSeries.get(i), dataSeries.get(i));
+        }
+        return series;
+    }
+
+    public List<Long> getDatetimeSeries() {
+        return datetimeSeries;
+    }
+
+    public void setDatetimeSeries(List<Long> datetimeSeries) {
+        this.datetimeSeries = datetimeSeries;
+    }
+
+    public List<Double> getDataSeries() {
+        return dataSeries;
+    }
+
+    public void setDataSeries(List<Double> dataSeries) {
+        this.dataSeries = dataSeries;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DoubleTimeSeriesUDT)) return false;
+        DoubleTimeSeriesUDT that = (DoubleTimeSeriesUDT) o;
+        return Objects.equal(datetimeSeries, that.datetimeSeries) &&
+                Objects.equal(dataSeries, that.dataSeries);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(datetimeSeries, dataSeries);
+    }
+}
@@ -1,67 +1,121 @@
 package com.unisoft.algotrader.model.series;
 
-import gnu.trove.map.TLongIntMap;
-import gnu.trove.map.hash.TLongIntHashMap;
-
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Date;
-import java.util.List;
 
 /**
  * Created by alex on 5/25/15.
+ *
+ * Time series stored in a power of two ring of (timestamp, value) slots. An unbounded series grows the ring
+ * as needed and keeps every point. A bounded series (rolling window) keeps only the last maxLength points,
+ * evicting the oldest on append, so a long running strategy uses constant memory.
+ *
+ * Indexes are absolute: the first point ever added is index 0, and after eviction the retained points are
+ * {@link #firstIndex()} .. {@link #lastIndex()}.
  */
 public class TimeSeries<T> {
 
+    private static final int DEFAULT_CAPACITY = 64;
 
-    //private TLongList datetimeSeries = new TLongArrayList();
-    private final TLongIntMap index = new TLongIntHashMap();
-    private final List<T> dataSeries;
+    private final int maxLength;
     public final T nullValue;
 
-    private int currIdx = 0;
-    private long currTime = Long.MIN_VALUE;
-
+    private long[] dateTimes;
+    private Object[] dataSeries;
+    private int mask;
 
-    public TimeSeries(List<T> dataSeries, T nullValue){
-        this.dataSeries = dataSeries;
-        this.nullValue = nullValue;
-    }
+    private int head = 0;   // physical slot of the oldest retained point
+    private int size = 0;   // number of retained points
+    private int total = 0;  // number of points ever added
 
     public TimeSeries(T nullValue){
-        this(new ArrayList<>(), nullValue);
+        this(0, nullValue);
     }
 
-    public TimeSeries(List<T> dataSeries){
-        this(dataSeries, null);
+    public TimeSeries(){
+        this(0, null);
     }
 
-    public TimeSeries(){
-        this(new ArrayList<>(), null);
+    /**
+     * @param maxLength number of points to keep, or 0 to keep every point
+     */
+    public TimeSeries(int maxLength, T nullValue){
+        if (maxLength < 0){
+            throw new IllegalArgumentException("maxLength must be >= 0, maxLength=" + maxLength);
+        }
+        this.maxLength = maxLength;
+        this.nullValue = nullValue;
+        int capacity = ceilingPowerOfTwo(maxLength > 0 ? maxLength : DEFAULT_CAPACITY);
+        this.dateTimes = new long[capacity];
+        this.dataSeries = new Object[capacity];
+        this.mask = capacity - 1;
     }
 
+    public static <T> TimeSeries<T> rollingWindow(int maxLength, T nullValue){
+        if (maxLength <= 0){
+            throw new IllegalArgumentException("maxLength must be > 0, maxLength=" + maxLength);
+        }
+        return new TimeSeries<>(maxLength, nullValue);
+    }
 
     public void add(Date date, T data){
         add(date.getTime(), data);
     }
 
     public void add(long date, T data){
-        assert date > currTime;
-        currTime = date;
-        index.put(date, currIdx++);
-        dataSeries.add(data);
+        assert size == 0 || date > dateTimes[(head + size - 1) & mask];
+        if (maxLength > 0 && size == maxLength){
+            // evict the oldest point
+            dataSeries[head] = null;
+            head = (head + 1) & mask;
+            size--;
+        }
+        else if (size == dataSeries.length){
+            grow();
+        }
+        int slot = (head + size) & mask;
+        dateTimes[slot] = date;
+        dataSeries[slot] = data;
+        size++;
+        total++;
+    }
+
+    public boolean isBounded(){
+        return maxLength > 0;
+    }
+
+    public int maxLength(){
+        return maxLength;
     }
 
+    /**
+     * @return number of retained points
+     */
     public int length(){
-        return dataSeries.size();
+        return size;
+    }
+
+    public int firstIndex(){
+        return total - size;
     }
 
     public int lastIndex(){
-        return dataSeries.size()-1;
+        return total - 1;
     }
 
     public T getByIdx(int idx){
-        return dataSeries.get(idx);
+        int offset = idx - firstIndex();
+        if (offset < 0 || offset >= size){
+            throw new IndexOutOfBoundsException("idx=" + idx + ", firstIndex=" + firstIndex() + ", lastIndex=" + lastIndex());
+        }
+        return valueAt(offset);
+    }
+
+    public long dateTimeByIdx(int idx){
+        int offset = idx - firstIndex();
+        if (offset < 0 || offset >= size){
+            throw new IndexOutOfBoundsException("idx=" + idx + ", firstIndex=" + firstIndex() + ", lastIndex=" + lastIndex());
+        }
+        return dateTimes[(head + offset) & mask];
     }
 
     public T getByDate(Date date){
@@ -70,21 +124,76 @@ public class TimeSeries<T> {
 
     public T getByDate(long datetime){
         int index = getIndex(datetime);
-        return index>=0 ? dataSeries.get(index) : nullValue;
+        return index>=0 ? getByIdx(index) : nullValue;
     }
 
+    /**
+     * @return the absolute index of the point at datetime, or -1 if it is not retained
+     */
     protected int getIndex(long datetime){
-        return index.containsKey(datetime) ? index.get(datetime) : -1;
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long time = dateTimes[(head + mid) & mask];
+            if (time < datetime)
+                low = mid + 1;
+            else if (time > datetime)
+                high = mid - 1;
+            else
+                return firstIndex() + mid;
+        }
+        return -1;
     }
 
     public T ago(int ago){
-        int index = lastIndex() - ago;
-        return index>=0 ? dataSeries.get(index) : nullValue;
+        if (ago < 0 || ago >= size){
+            return nullValue;
+        }
+        return valueAt(size - 1 - ago);
     }
 
+    /**
+     * @return timestamps of the retained points, in ascending order
+     */
     public long [] index(){
-        long [] idx =index.keys();
-        Arrays.sort(idx);
+        long[] idx = new long[size];
+        for (int i = 0; i < size; i++) {
+            idx[i] = dateTimes[(head + i) & mask];
+        }
         return idx;
     }
+
+    public void clear(){
+        for (int i = 0; i < size; i++) {
+            dataSeries[(head + i) & mask] = null;
+        }
+        head = 0;
+        size = 0;
+        total = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T valueAt(int offset){
+        return (T) dataSeries[(head + offset) & mask];
+    }
+
+    private void grow(){
+        int capacity = dataSeries.length << 1;
+        long[] newDateTimes = new long[capacity];
+        Object[] newDataSeries = new Object[capacity];
+        for (int i = 0; i < size; i++) {
+            int slot = (head + i) & mask;
+            newDateTimes[i] = dateTimes[slot];
+            newDataSeries[i] = dataSeries[slot];
+        }
+        dateTimes = newDateTimes;
+        dataSeries = newDataSeries;
+        mask = capacity - 1;
+        head = 0;
+    }
+
+    private static int ceilingPowerOfTwo(int value){
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
 }
@@ -15,11 +15,12 @@ public class TimeSeriesHelper {
 
     public static String print(DoubleTimeSeries timeSeries, DateFormat format){
         StringBuilder sb = new StringBuilder();
-        for (DoubleTimeSeries.Tuple tuple : timeSeries){
-            Date date = new Date(tuple.dateTime);
+        DoubleTimeSeries.Cursor cursor = timeSeries.cursor();
+        while (cursor.next()){
+            Date date = new Date(cursor.dateTime());
             sb.append(format.format(date));
             sb.append(" -- ");
-            sb.append(tuple.data);
+            sb.append(cursor.value());
             sb.append("\n");
         }
 
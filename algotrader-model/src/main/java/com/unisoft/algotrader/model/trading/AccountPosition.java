@@ -35,7 +35,7 @@ public class AccountPosition {
     }
 
     public void add(AccountTransaction transaction){
-        if (transaction.ccyId() != ccyId)
+        if (!Objects.equal(transaction.ccyId(), ccyId))
             throw new IllegalArgumentException("Currency not match, transaction.currency="+transaction.ccyId()+", position.currency="+ccyId);
         this.accountTransactions.add(transaction);
         this.value += transaction.value();
@@ -2,9 +2,11 @@ package com.unisoft.algotrader.model.trading;
 
 import com.datastax.driver.mapping.annotations.Field;
 import com.datastax.driver.mapping.annotations.Frozen;
+import com.datastax.driver.mapping.annotations.Transient;
 import com.datastax.driver.mapping.annotations.UDT;
 import com.google.common.base.Objects;
 import com.unisoft.algotrader.model.series.DoubleTimeSeries;
+import com.unisoft.algotrader.model.series.DoubleTimeSeriesUDT;
 
 /**
  * Created by alex on 5/25/15.
@@ -15,6 +17,12 @@ public class Performance {
 
     private boolean enabled = true;
 
+    @Transient
+    private boolean keepSeries = true;
+
+    @Transient
+    private PerformanceStatistics statistics = new PerformanceStatistics();
+
     private double equity            = 0;
 
     @Field(name = "core_equity")
@@ -37,43 +45,80 @@ public class Performance {
     @Field(name = "current_run_up")
     private double currentRunUp     = 0;
 
+    @Transient
+    private DoubleTimeSeries equitySeries = new DoubleTimeSeries();
+
+    @Transient
+    private DoubleTimeSeries coreEquitySeries = new DoubleTimeSeries();
+
+    @Transient
+    private DoubleTimeSeries pnlSeries = new DoubleTimeSeries();
+
+    @Transient
+    private DoubleTimeSeries drawdownSeries = new DoubleTimeSeries();
+
+    @Transient
+    private DoubleTimeSeries drawdownPercentSeries = new DoubleTimeSeries();
+
+    // persisted form of the series above, as loaded. A series is only decoded when it is first used, so a
+    // Performance loaded and saved again without reading its series does not convert them
+
     @Field(name = "equity_series")
     @Frozen
-    private DoubleTimeSeries equitySeries = new DoubleTimeSeries();
+    private DoubleTimeSeriesUDT equitySeriesUDT;
 
     @Field(name = "core_equity_series")
     @Frozen
-    private DoubleTimeSeries coreEquitySeries = new DoubleTimeSeries();
+    private DoubleTimeSeriesUDT coreEquitySeriesUDT;
 
     @Field(name = "pnl_series")
     @Frozen
-    private DoubleTimeSeries pnlSeries = new DoubleTimeSeries();
+    private DoubleTimeSeriesUDT pnlSeriesUDT;
 
     @Field(name = "drawdown_series")
     @Frozen
-    private DoubleTimeSeries drawdownSeries = new DoubleTimeSeries();
+    private DoubleTimeSeriesUDT drawdownSeriesUDT;
 
     @Field(name = "drawdown_percent_series")
     @Frozen
-    private DoubleTimeSeries drawdownPercentSeries = new DoubleTimeSeries();
+    private DoubleTimeSeriesUDT drawdownPercentSeriesUDT;
 
     public Performance(){}
 
+    public Performance(boolean keepSeries, PerformanceStatistics statistics){
+        this.keepSeries = keepSeries;
+        this.statistics = statistics;
+    }
+
 
     public void valueChanged(long dateTime, double coreEquity, double equity){
-        updateEquity(dateTime, coreEquity, equity);
-        updatePnl(dateTime);
-        updateDrawdown(dateTime);
+        boolean first = statistics.count() == 0 && equitySeries().count() == 0;
+        double prevEquity = this.equity;
+
+        updateEquity(dateTime, coreEquity, equity, first);
+        if (!first) {
+            updatePnl(dateTime, prevEquity);
+            updateDrawdown(dateTime);
+        }
+        statistics.update(dateTime, equity);
     }
 
+    /**
+     * Record the realized pnl of a trade closing (part of) a position.
+     */
+    public void addTrade(double pnl){
+        statistics.addTrade(pnl);
+    }
 
-    private void updateEquity(long dateTime, double coreEquity, double equity){
+    private void updateEquity(long dateTime, double coreEquity, double equity, boolean first){
         this.coreEquity = coreEquity;
         this.equity = equity;
-        coreEquitySeries.add(dateTime, coreEquity);
-        equitySeries.add(dateTime, equity);
+        if (keepSeries) {
+            coreEquitySeries().add(dateTime, coreEquity);
+            equitySeries().add(dateTime, equity);
+        }
 
-        if (equitySeries.count() == 1){
+        if (first){
             highEquity = equity;
             lowEquity = equity;
         }
@@ -95,24 +140,23 @@ public class Performance {
         }
     }
 
-    private void updatePnl(long dateTime){
-        if (equitySeries.count() >=2) {
-            int idx1 = equitySeries.lastIndex();
-            int idx2 = idx1 -1;
-            pnl = equitySeries.getByIdx(idx1) - equitySeries.getByIdx(idx2);
-            pnlSeries.add(dateTime, pnl);
+    private void updatePnl(long dateTime, double prevEquity){
+        pnl = equity - prevEquity;
+        if (keepSeries) {
+            pnlSeries().add(dateTime, pnl);
         }
-
     }
 
     private void updateDrawdown(long dateTime){
-        if (equitySeries.count() >= 2){
-            drawdown = equity - highEquity;
-            drawdownSeries.add(dateTime, drawdown);
+        drawdown = equity - highEquity;
+        if (keepSeries) {
+            drawdownSeries().add(dateTime, drawdown);
+        }
 
-            if (highEquity != 0){
-                drawdownPercent = Math.abs(drawdown / highEquity);
-                drawdownPercentSeries.add(dateTime, drawdownPercent);
+        if (highEquity != 0){
+            drawdownPercent = Math.abs(drawdown / highEquity);
+            if (keepSeries) {
+                drawdownPercentSeries().add(dateTime, drawdownPercent);
             }
         }
     }
@@ -133,27 +177,27 @@ public class Performance {
                 Objects.equal(drawdownPercent, that.drawdownPercent) &&
                 Objects.equal(currentDrawdown, that.currentDrawdown) &&
                 Objects.equal(currentRunUp, that.currentRunUp) &&
-                Objects.equal(equitySeries, that.equitySeries) &&
-                Objects.equal(coreEquitySeries, that.coreEquitySeries) &&
-                Objects.equal(pnlSeries, that.pnlSeries) &&
-                Objects.equal(drawdownSeries, that.drawdownSeries) &&
-                Objects.equal(drawdownPercentSeries, that.drawdownPercentSeries);
+                Objects.equal(equitySeries(), that.equitySeries()) &&
+                Objects.equal(coreEquitySeries(), that.coreEquitySeries()) &&
+                Objects.equal(pnlSeries(), that.pnlSeries()) &&
+                Objects.equal(drawdownSeries(), that.drawdownSeries()) &&
+                Objects.equal(drawdownPercentSeries(), that.drawdownPercentSeries());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(enabled, equity, coreEquity, lowEquity, highEquity, pnl, drawdown, drawdownPercent, currentDrawdown, currentRunUp, equitySeries, coreEquitySeries, pnlSeries, drawdownSeries, drawdownPercentSeries);
+        return Objects.hashCode(enabled, equity, coreEquity, lowEquity, highEquity, pnl, drawdown, drawdownPercent, currentDrawdown, currentRunUp, equitySeries(), coreEquitySeries(), pnlSeries(), drawdownSeries(), drawdownPercentSeries());
     }
 
     @Override
     public String toString() {
         return "Performance{" +
                 "enabled=" + enabled +
-                ", equitySeries=" + equitySeries +
-                ", coreEquitySeries=" + coreEquitySeries +
-                ", pnlSeries=" + pnlSeries +
-                ", drawdownSeries=" + drawdownSeries +
-                ", drawdownPercentSeries=" + drawdownPercentSeries +
+                ", equitySeries=" + equitySeries() +
+                ", coreEquitySeries=" + coreEquitySeries() +
+                ", pnlSeries=" + pnlSeries() +
+                ", drawdownSeries=" + drawdownSeries() +
+                ", drawdownPercentSeries=" + drawdownPercentSeries() +
                 ", equity=" + equity +
                 ", coreEquity=" + coreEquity +
                 ", lowEquity=" + lowEquity +
@@ -177,11 +221,16 @@ public class Performance {
     }
 
     public DoubleTimeSeries coreEquitySeries() {
+        if (coreEquitySeries == null) {
+            coreEquitySeries = DoubleTimeSeriesUDT.toSeries(coreEquitySeriesUDT);
+            coreEquitySeriesUDT = null;
+        }
         return coreEquitySeries;
     }
 
     public Performance coreEquitySeries(DoubleTimeSeries coreEquitySeries) {
         this.coreEquitySeries = coreEquitySeries;
+        this.coreEquitySeriesUDT = null;
         return this;
     }
 
@@ -222,20 +271,30 @@ public class Performance {
     }
 
     public DoubleTimeSeries drawdownPercentSeries() {
+        if (drawdownPercentSeries == null) {
+            drawdownPercentSeries = DoubleTimeSeriesUDT.toSeries(drawdownPercentSeriesUDT);
+            drawdownPercentSeriesUDT = null;
+        }
         return drawdownPercentSeries;
     }
 
     public Performance drawdownPercentSeries(DoubleTimeSeries drawdownPercentSeries) {
         this.drawdownPercentSeries = drawdownPercentSeries;
+        this.drawdownPercentSeriesUDT = null;
         return this;
     }
 
     public DoubleTimeSeries drawdownSeries() {
+        if (drawdownSeries == null) {
+            drawdownSeries = DoubleTimeSeriesUDT.toSeries(drawdownSeriesUDT);
+            drawdownSeriesUDT = null;
+        }
         return drawdownSeries;
     }
 
     public Performance drawdownSeries(DoubleTimeSeries drawdownSeries) {
         this.drawdownSeries = drawdownSeries;
+        this.drawdownSeriesUDT = null;
         return this;
     }
 
@@ -248,6 +307,27 @@ public class Performance {
         return this;
     }
 
+    public boolean keepSeries() {
+        return keepSeries;
+    }
+
+    /**
+     * When disabled, valueChanged only maintains the scalar fields and {@link #statistics()}, the series stay empty.
+     */
+    public Performance keepSeries(boolean keepSeries) {
+        this.keepSeries = keepSeries;
+        return this;
+    }
+
+    public PerformanceStatistics statistics() {
+        return statistics;
+    }
+
+    public Performance statistics(PerformanceStatistics statistics) {
+        this.statistics = statistics;
+        return this;
+    }
+
     public double equity() {
         return equity;
     }
@@ -258,11 +338,16 @@ public class Performance {
     }
 
     public DoubleTimeSeries equitySeries() {
+        if (equitySeries == null) {
+            equitySeries = DoubleTimeSeriesUDT.toSeries(equitySeriesUDT);
+            equitySeriesUDT = null;
+        }
         return equitySeries;
     }
 
     public Performance equitySeries(DoubleTimeSeries equitySeries) {
         this.equitySeries = equitySeries;
+        this.equitySeriesUDT = null;
         return this;
     }
 
@@ -294,11 +379,61 @@ public class Performance {
     }
 
     public DoubleTimeSeries pnlSeries() {
+        if (pnlSeries == null) {
+            pnlSeries = DoubleTimeSeriesUDT.toSeries(pnlSeriesUDT);
+            pnlSeriesUDT = null;
+        }
         return pnlSeries;
     }
 
     public Performance pnlSeries(DoubleTimeSeries pnlSeries) {
         this.pnlSeries = pnlSeries;
+        this.pnlSeriesUDT = null;
         return this;
     }
+
+    public DoubleTimeSeriesUDT getEquitySeriesUDT() {
+        return equitySeries != null ? DoubleTimeSeriesUDT.of(equitySeries) : equitySeriesUDT;
+    }
+
+    public void setEquitySeriesUDT(DoubleTimeSeriesUDT equitySeriesUDT) {
+        this.equitySeriesUDT = equitySeriesUDT;
+        this.equitySeries = null;
+    }
+
+    public DoubleTimeSeriesUDT getCoreEquitySeriesUDT() {
+        return coreEquitySeries != null ? DoubleTimeSeriesUDT.of(coreEquitySeries) : coreEquitySeriesUDT;
+    }
+
+    public void setCoreEquitySeriesUDT(DoubleTimeSeriesUDT coreEquitySeriesUDT) {
+        this.coreEquitySeriesUDT = coreEquitySeriesUDT;
+        this.coreEquitySeries = null;
+    }
+
+    public DoubleTimeSeriesUDT getPnlSeriesUDT() {
+        return pnlSeries != null ? DoubleTimeSeriesUDT.of(pnlSeries) : pnlSeriesUDT;
+    }
+
+    public void setPnlSeriesUDT(DoubleTimeSeriesUDT pnlSeriesUDT) {
+        this.pnlSeriesUDT = pnlSeriesUDT;
+        this.pnlSeries = null;
+    }
+
+    public DoubleTimeSeriesUDT getDrawdownSeriesUDT() {
+        return drawdownSeries != null ? DoubleTimeSeriesUDT.of(drawdownSeries) : drawdownSeriesUDT;
+    }
+
+    public void setDrawdownSeriesUDT(DoubleTimeSeriesUDT drawdownSeriesUDT) {
+        this.drawdownSeriesUDT = drawdownSeriesUDT;
+        this.drawdownSeries = null;
+    }
+
+    public DoubleTimeSeriesUDT getDrawdownPercentSeriesUDT() {
+        return drawdownPercentSeries != null ? DoubleTimeSeriesUDT.of(drawdownPercentSeries) : drawdownPercentSeriesUDT;
+    }
+
+    public void setDrawdownPercentSeriesUDT(DoubleTimeSeriesUDT drawdownPercentSeriesUDT) {
+        this.drawdownPercentSeriesUDT = drawdownPercentSeriesUDT;
+        this.drawdownPercentSeries = null;
+    }
 }
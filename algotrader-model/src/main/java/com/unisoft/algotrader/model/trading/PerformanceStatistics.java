@@ -0,0 +1,405 @@
+package com.unisoft.algotrader.model.trading;
+
+/**
+ * Streaming performance statistics, every update is O(1) and nothing is read back from a series.
+ *
+ * Returns are the simple period returns between two consecutive equity updates. Mean and variance are
+ * maintained with Welford's method, both over the whole run and over a rolling window of the last
+ * {@link #window()} returns (using the matching removal step when a return leaves the window).
+ * Sharpe and Sortino are per period unless periodsPerYear is set, in which case they are annualized
+ * by sqrt(periodsPerYear).
+ *
+ * Drawdown and run-up amounts are reported as positive numbers, durations in the same unit as the
+ * dateTime passed to {@link #update(long, double)}.
+ */
+public class PerformanceStatistics {
+
+    public static final int DEFAULT_WINDOW = 252;
+
+    private final int window;
+    private final double periodsPerYear;
+    private final double riskFreeRate;
+    private final double targetReturn;
+
+    // equity
+    private long count = 0;
+    private double lastEquity = 0;
+    private long lastDateTime = 0;
+
+    // returns over the whole run
+    private long returnCount = 0;
+    private double mean = 0;
+    private double m2 = 0;
+    private double downsideSumSq = 0;
+
+    // returns over the rolling window
+    private final double[] windowReturns;
+    private int windowHead = 0;
+    private int windowSize = 0;
+    private double windowMean = 0;
+    private double windowM2 = 0;
+    private double windowDownsideSumSq = 0;
+
+    // drawdown
+    private double peakEquity = 0;
+    private long peakDateTime = 0;
+    private double drawdown = 0;
+    private double drawdownPercent = 0;
+    private double maxDrawdown = 0;
+    private double maxDrawdownPercent = 0;
+    private long drawdownDuration = 0;
+    private long maxDrawdownDuration = 0;
+
+    // run-up
+    private double troughEquity = 0;
+    private double runUp = 0;
+    private double maxRunUp = 0;
+    private double maxRunUpPercent = 0;
+
+    // trades
+    private int tradeCount = 0;
+    private int winCount = 0;
+    private int lossCount = 0;
+    private double grossProfit = 0;
+    private double grossLoss = 0;
+    private double largestWin = 0;
+    private double largestLoss = 0;
+    private int consecutiveWins = 0;
+    private int consecutiveLosses = 0;
+    private int maxConsecutiveWins = 0;
+    private int maxConsecutiveLosses = 0;
+
+    public PerformanceStatistics(){
+        this(DEFAULT_WINDOW, 0, 0, 0);
+    }
+
+    /**
+     * @param window number of returns in the rolling window
+     * @param periodsPerYear annualization factor for Sharpe / Sortino, 0 for per period ratios
+     * @param riskFreeRate risk free return per period
+     * @param targetReturn minimum acceptable return per period used for downside deviation
+     */
+    public PerformanceStatistics(int window, double periodsPerYear, double riskFreeRate, double targetReturn){
+        if (window <= 1){
+            throw new IllegalArgumentException("window must be > 1, window=" + window);
+        }
+        this.window = window;
+        this.periodsPerYear = periodsPerYear;
+        this.riskFreeRate = riskFreeRate;
+        this.targetReturn = targetReturn;
+        this.windowReturns = new double[window];
+    }
+
+    public void update(long dateTime, double equity){
+        if (count == 0){
+            peakEquity = equity;
+            peakDateTime = dateTime;
+            troughEquity = equity;
+        }
+        else if (lastEquity != 0){
+            addReturn((equity - lastEquity) / lastEquity);
+        }
+        count++;
+        lastEquity = equity;
+        lastDateTime = dateTime;
+
+        updateDrawdown(dateTime, equity);
+        updateRunUp(equity);
+    }
+
+    /**
+     * Record the realized pnl of a closed (or partially closed) trade.
+     */
+    public void addTrade(double pnl){
+        tradeCount++;
+        if (pnl > 0){
+            winCount++;
+            grossProfit += pnl;
+            largestWin = Math.max(largestWin, pnl);
+            consecutiveWins++;
+            consecutiveLosses = 0;
+            maxConsecutiveWins = Math.max(maxConsecutiveWins, consecutiveWins);
+        }
+        else if (pnl < 0){
+            lossCount++;
+            grossLoss -= pnl;
+            largestLoss = Math.max(largestLoss, -pnl);
+            consecutiveLosses++;
+            consecutiveWins = 0;
+            maxConsecutiveLosses = Math.max(maxConsecutiveLosses, consecutiveLosses);
+        }
+    }
+
+    private void addReturn(double r){
+        double downside = Math.min(r - targetReturn, 0);
+
+        returnCount++;
+        double delta = r - mean;
+        mean += delta / returnCount;
+        m2 += delta * (r - mean);
+        downsideSumSq += downside * downside;
+
+        if (windowSize == window){
+            double old = windowReturns[windowHead];
+            double oldDownside = Math.min(old - targetReturn, 0);
+            windowSize--;
+            if (windowSize == 0){
+                windowMean = 0;
+                windowM2 = 0;
+            }
+            else {
+                double oldDelta = old - windowMean;
+                windowMean -= oldDelta / windowSize;
+                windowM2 = Math.max(windowM2 - oldDelta * (old - windowMean), 0);
+            }
+            windowDownsideSumSq = Math.max(windowDownsideSumSq - oldDownside * oldDownside, 0);
+            windowReturns[windowHead] = r;
+            windowHead = (windowHead + 1) % window;
+        }
+        else {
+            windowReturns[(windowHead + windowSize) % window] = r;
+        }
+        windowSize++;
+        double windowDelta = r - windowMean;
+        windowMean += windowDelta / windowSize;
+        windowM2 += windowDelta * (r - windowMean);
+        windowDownsideSumSq += downside * downside;
+    }
+
+    private void updateDrawdown(long dateTime, double equity){
+        if (equity >= peakEquity){
+            peakEquity = equity;
+            peakDateTime = dateTime;
+            drawdown = 0;
+            drawdownPercent = 0;
+            drawdownDuration = 0;
+        }
+        else {
+            drawdown = peakEquity - equity;
+            drawdownPercent = peakEquity != 0 ? Math.abs(drawdown / peakEquity) : 0;
+            drawdownDuration = dateTime - peakDateTime;
+
+            maxDrawdown = Math.max(maxDrawdown, drawdown);
+            maxDrawdownPercent = Math.max(maxDrawdownPercent, drawdownPercent);
+            maxDrawdownDuration = Math.max(maxDrawdownDuration, drawdownDuration);
+        }
+    }
+
+    private void updateRunUp(double equity){
+        if (equity <= troughEquity){
+            troughEquity = equity;
+            runUp = 0;
+        }
+        else {
+            runUp = equity - troughEquity;
+            maxRunUp = Math.max(maxRunUp, runUp);
+            if (troughEquity > 0){
+                maxRunUpPercent = Math.max(maxRunUpPercent, runUp / troughEquity);
+            }
+        }
+    }
+
+    private double annualize(double ratio){
+        return periodsPerYear > 0 ? ratio * Math.sqrt(periodsPerYear) : ratio;
+    }
+
+    private static double ratio(double excess, double deviation){
+        return deviation > 0 ? excess / deviation : 0;
+    }
+
+    public int window() {
+        return window;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long lastDateTime() {
+        return lastDateTime;
+    }
+
+    public double lastEquity() {
+        return lastEquity;
+    }
+
+    public long returnCount() {
+        return returnCount;
+    }
+
+    public double meanReturn() {
+        return mean;
+    }
+
+    public double variance() {
+        return returnCount > 1 ? m2 / (returnCount - 1) : 0;
+    }
+
+    public double stdDev() {
+        return Math.sqrt(variance());
+    }
+
+    public double downsideDeviation() {
+        return returnCount > 0 ? Math.sqrt(downsideSumSq / returnCount) : 0;
+    }
+
+    public double sharpeRatio() {
+        return annualize(ratio(mean - riskFreeRate, stdDev()));
+    }
+
+    public double sortinoRatio() {
+        return annualize(ratio(mean - targetReturn, downsideDeviation()));
+    }
+
+    public int windowSize() {
+        return windowSize;
+    }
+
+    public double windowMeanReturn() {
+        return windowMean;
+    }
+
+    public double windowVariance() {
+        return windowSize > 1 ? windowM2 / (windowSize - 1) : 0;
+    }
+
+    public double windowStdDev() {
+        return Math.sqrt(windowVariance());
+    }
+
+    public double windowDownsideDeviation() {
+        return windowSize > 0 ? Math.sqrt(windowDownsideSumSq / windowSize) : 0;
+    }
+
+    public double windowSharpeRatio() {
+        return annualize(ratio(windowMean - riskFreeRate, windowStdDev()));
+    }
+
+    public double windowSortinoRatio() {
+        return annualize(ratio(windowMean - targetReturn, windowDownsideDeviation()));
+    }
+
+    public double peakEquity() {
+        return peakEquity;
+    }
+
+    public double drawdown() {
+        return drawdown;
+    }
+
+    public double drawdownPercent() {
+        return drawdownPercent;
+    }
+
+    public double maxDrawdown() {
+        return maxDrawdown;
+    }
+
+    public double maxDrawdownPercent() {
+        return maxDrawdownPercent;
+    }
+
+    public long drawdownDuration() {
+        return drawdownDuration;
+    }
+
+    public long maxDrawdownDuration() {
+        return maxDrawdownDuration;
+    }
+
+    public double troughEquity() {
+        return troughEquity;
+    }
+
+    public double runUp() {
+        return runUp;
+    }
+
+    public double maxRunUp() {
+        return maxRunUp;
+    }
+
+    public double maxRunUpPercent() {
+        return maxRunUpPercent;
+    }
+
+    public int tradeCount() {
+        return tradeCount;
+    }
+
+    public int winCount() {
+        return winCount;
+    }
+
+    public int lossCount() {
+        return lossCount;
+    }
+
+    public double grossProfit() {
+        return grossProfit;
+    }
+
+    public double grossLoss() {
+        return grossLoss;
+    }
+
+    public double netProfit() {
+        return grossProfit - grossLoss;
+    }
+
+    public double largestWin() {
+        return largestWin;
+    }
+
+    public double largestLoss() {
+        return largestLoss;
+    }
+
+    public int maxConsecutiveWins() {
+        return maxConsecutiveWins;
+    }
+
+    public int maxConsecutiveLosses() {
+        return maxConsecutiveLosses;
+    }
+
+    public double winRate() {
+        return tradeCount > 0 ? (double) winCount / tradeCount : 0;
+    }
+
+    public double profitFactor() {
+        return grossLoss > 0 ? grossProfit / grossLoss : 0;
+    }
+
+    public double avgWin() {
+        return winCount > 0 ? grossProfit / winCount : 0;
+    }
+
+    public double avgLoss() {
+        return lossCount > 0 ? grossLoss / lossCount : 0;
+    }
+
+    public double avgTrade() {
+        return tradeCount > 0 ? netProfit() / tradeCount : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "PerformanceStatistics{" +
+                "count=" + count +
+                ", meanReturn=" + mean +
+                ", stdDev=" + stdDev() +
+                ", sharpeRatio=" + sharpeRatio() +
+                ", sortinoRatio=" + sortinoRatio() +
+                ", windowSharpeRatio=" + windowSharpeRatio() +
+                ", windowSortinoRatio=" + windowSortinoRatio() +
+                ", maxDrawdown=" + maxDrawdown +
+                ", maxDrawdownPercent=" + maxDrawdownPercent +
+                ", maxDrawdownDuration=" + maxDrawdownDuration +
+                ", maxRunUp=" + maxRunUp +
+                ", tradeCount=" + tradeCount +
+                ", winRate=" + winRate() +
+                ", profitFactor=" + profitFactor() +
+                "} " + super.toString();
+    }
+}
@@ -28,7 +28,7 @@ public class Portfolio{
 
     @Ignore
     @Transient
-    private Map<Long, Position> positions = Maps.newHashMap();
+    private Map<Long, Position> positions = Maps.newConcurrentMap();
 
     @Ignore
     @Transient
@@ -0,0 +1,107 @@
+package com.unisoft.algotrader.model.clock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.Assert.*;
+
+public class RealTimeClockTest {
+
+    private RealTimeClock clock;
+    private final Queue<Reminder> queue = new ConcurrentLinkedQueue<>();
+    private final Queue<String> handledOn = new ConcurrentLinkedQueue<>();
+
+    private final ReminderHandler queued = new ReminderHandler() {
+        @Override
+        public void onReminder(long dateTime, Object data) {
+            handledOn.add(Thread.currentThread().getName());
+        }
+
+        @Override
+        public Queue<? super Reminder> reminderQueue() {
+            return queue;
+        }
+    };
+
+    private final ReminderHandler direct = (dateTime, data) -> handledOn.add(Thread.currentThread().getName());
+
+    @Before
+    public void setup(){
+        clock = new RealTimeClock();
+    }
+
+    @After
+    public void teardown() throws Exception {
+        clock.stop();
+    }
+
+    private Reminder poll() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        Reminder reminder;
+        while ((reminder = queue.poll()) == null) {
+            assertTrue("timed out", System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+        return reminder;
+    }
+
+    private String awaitHandled() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        String thread;
+        while ((thread = handledOn.poll()) == null) {
+            assertTrue("timed out", System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+        return thread;
+    }
+
+    @Test
+    public void test_due_reminder_handed_to_handler_queue() throws Exception {
+        long dateTime = clock.now() + 20;
+        clock.addReminder(dateTime, "a", queued);
+
+        Reminder reminder = poll();
+        assertTrue(clock.now() >= dateTime);
+        assertEquals(dateTime, reminder.dateTime());
+        assertEquals("a", reminder.data());
+        // handled by the thread polling the queue, not the timer thread
+        assertTrue(handledOn.isEmpty());
+        reminder.on(null);
+        assertEquals(Thread.currentThread().getName(), handledOn.poll());
+    }
+
+    @Test
+    public void test_reminder_without_queue_handled_on_timer_thread() throws Exception {
+        clock.addReminder(clock.now(), null, direct);
+        assertTrue(awaitHandled().startsWith("RealTimeClock"));
+    }
+
+    @Test
+    public void test_removed_reminder_not_handed() throws Exception {
+        long now = clock.now();
+        Reminder removed = clock.addReminder(now + 30, "removed", queued);
+        clock.addReminder(now + 40, "kept", queued);
+        clock.removeReminder(removed);
+
+        assertEquals("kept", poll().data());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void test_stop_and_restart() throws Exception {
+        assertFalse(clock.isRunning());
+        clock.addReminder(clock.now() + 60_000, null, queued);
+        assertTrue(clock.isRunning());
+
+        clock.stop();
+        assertFalse(clock.isRunning());
+
+        clock.addReminder(clock.now(), "after stop", queued);
+        assertTrue(clock.isRunning());
+        assertEquals("after stop", poll().data());
+    }
+}
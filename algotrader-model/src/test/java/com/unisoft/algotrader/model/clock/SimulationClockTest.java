@@ -0,0 +1,141 @@
+package com.unisoft.algotrader.model.clock;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SimulationClockTest {
+
+    private static final long START = 1_400_000_000_000L;
+
+    private SimulationClock clock;
+    private final List<Long> fired = new ArrayList<>();
+    private final List<Object> data = new ArrayList<>();
+
+    private final ReminderHandler handler = new ReminderHandler() {
+        @Override
+        public void onReminder(long dateTime, Object reminderData) {
+            // a reminder added in the past fires at the current time
+            assertEquals(Math.max(dateTime, START), clock.now());
+            fired.add(dateTime);
+            data.add(reminderData);
+        }
+    };
+
+    @Before
+    public void setup(){
+        clock = new SimulationClock();
+        clock.setDateTime(START);
+    }
+
+    @Test
+    public void test_fire_due_reminders_in_time_order(){
+        clock.addReminder(START + 300, "c", handler);
+        clock.addReminder(START + 100, "a", handler);
+        clock.addReminder(START + 100_000_000L, "d", handler);
+        clock.addReminder(START + 200, "b", handler);
+        clock.addReminder(START + 100, "a2", handler);
+
+        clock.setDateTime(START + 250);
+        assertEquals(3, fired.size());
+        assertEquals(START + 250, clock.now());
+
+        clock.setDateTime(START + 200_000_000L);
+        assertEquals(5, fired.size());
+        assertEquals("[a, a2, b, c, d]", data.toString());
+    }
+
+    @Test
+    public void test_remove_reminder(){
+        Reminder reminder = clock.addReminder(START + 100, "a", handler);
+        clock.addReminder(START + 200, "b", handler);
+        clock.addReminder(START + 5_000_000L, "c", handler);
+        clock.removeReminder(reminder);
+        clock.removeReminder(START + 5_000_000L, handler);
+
+        clock.setDateTime(START + 10_000_000L);
+        assertEquals("[b]", data.toString());
+        assertTrue(reminder.isCancelled());
+    }
+
+    @Test
+    public void test_reminder_in_the_past_fires_on_next_advance(){
+        clock.addReminder(START - 1000, "late", handler);
+        assertTrue(fired.isEmpty());
+        clock.setDateTime(START);
+        assertEquals("[late]", data.toString());
+    }
+
+    @Test
+    public void test_set_earlier_time_moves_wheel_back(){
+        clock.addReminder(START + 100, "a", handler);
+        clock.addReminder(START + 1000, "c", handler);
+        clock.setDateTime(START + 500);
+        assertEquals("[a]", data.toString());
+
+        // replayed again from the start, a reminder added now is due at its own time
+        clock.setDateTime(START);
+        assertEquals(START, clock.now());
+        clock.addReminder(START + 200, "b", handler);
+        clock.setDateTime(START + 300);
+        assertEquals("[a, b]", data.toString());
+
+        clock.setDateTime(START + 2000);
+        assertEquals("[a, b, c]", data.toString());
+    }
+
+    @Test
+    public void test_reminder_added_by_a_reminder(){
+        clock.addReminder(START + 10, "first", new ReminderHandler() {
+            @Override
+            public void onReminder(long dateTime, Object reminderData) {
+                clock.addReminder(dateTime + 10, "second", handler);
+                clock.addReminder(dateTime + 1000, "third", handler);
+            }
+        });
+        clock.setDateTime(START + 100);
+        assertEquals("[second]", data.toString());
+    }
+
+    @Test
+    public void test_random_reminders_match_sorted_times(){
+        Random random = new Random(7);
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            // from a millisecond to about a year ahead
+            long dateTime = START + 1 + (long) (Math.pow(random.nextDouble(), 4) * 31_536_000_000L);
+            expected.add(dateTime);
+            clock.addReminder(dateTime, null, handler);
+        }
+        expected.sort(null);
+
+        long now = START;
+        while (fired.size() < expected.size()) {
+            now += 1 + random.nextInt(86_400_000);
+            clock.setDateTime(now);
+            for (int i = 0; i < fired.size(); i++) {
+                assertTrue(fired.get(i) <= now);
+            }
+        }
+        assertEquals(expected, fired);
+    }
+
+    @Test
+    public void test_timing_wheel_find_after_cascade(){
+        TimingWheel wheel = new TimingWheel(0);
+        Reminder reminder = new Reminder(70_000, null, handler);
+        wheel.add(reminder);
+        wheel.advance(65_600, r -> { throw new AssertionError("not due " + r); });
+        assertEquals(reminder, wheel.find(70_000, handler));
+        assertNull(wheel.find(70_001, handler));
+        assertTrue(wheel.remove(reminder));
+        assertEquals(0, wheel.size());
+    }
+}
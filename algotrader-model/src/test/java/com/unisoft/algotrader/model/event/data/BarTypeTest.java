@@ -0,0 +1,54 @@
+package com.unisoft.algotrader.model.event.data;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+
+public class BarTypeTest {
+
+    @Test
+    public void test_time_bar_size_as_is(){
+        assertEquals(BarType.Time, BarType.of(60));
+        assertEquals(60, BarType.size(60));
+        assertEquals(BarType.Time, BarType.of(86400));
+        assertEquals(86400, BarType.size(86400));
+    }
+
+    @Test
+    public void test_encode_decode(){
+        for (BarType type : BarType.values()){
+            int barSize = type.barSize(1234);
+            assertEquals(type, BarType.of(barSize));
+            assertEquals(1234, BarType.size(barSize));
+        }
+        int max = (1 << 24) - 1;
+        assertEquals(BarType.Range, BarType.of(BarType.Range.barSize(max)));
+        assertEquals(max, BarType.size(BarType.Range.barSize(max)));
+    }
+
+    @Test
+    public void test_kinds_of_same_size_differ(){
+        assertEquals(4, new HashSet<>(Arrays.asList(
+                BarType.Time.barSize(100), BarType.Tick.barSize(100), BarType.Volume.barSize(100), BarType.Range.barSize(100))).size());
+    }
+
+    @Test
+    public void test_range_bar_size(){
+        assertEquals(BarType.Range.barSize(5000), BarType.rangeBarSize(0.5));
+        assertEquals(BarType.Range.barSize(1), BarType.rangeBarSize(0.0001));
+        assertEquals(1, BarType.size(BarType.rangeBarSize(0.00012)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_zero_size_rejected(){
+        BarType.Tick.barSize(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_size_overflow_rejected(){
+        BarType.Volume.barSize(1 << 24);
+    }
+}
@@ -69,4 +69,71 @@ public class DoubleTimeSeriesTest {
         Assert.assertEquals(c2.getTimeInMillis(), index[1]);
         Assert.assertEquals(c3.getTimeInMillis(), index[2]);
     }
+
+    @Test
+    public void should_return_zero_for_missing_date(){
+        Assert.assertEquals(0.0, doubleTimeSeries.getByDate(c1.getTimeInMillis() - 1), 0.0);
+        Assert.assertEquals(0.0, doubleTimeSeries.getByDate(c3.getTimeInMillis() + 1), 0.0);
+    }
+
+    @Test
+    public void should_grow_beyond_initial_capacity(){
+        DoubleTimeSeries series = new DoubleTimeSeries(1);
+        for (int i = 0; i < 100; i++) {
+            series.add(i, i * 2.0);
+        }
+        Assert.assertEquals(100, series.count());
+        Assert.assertEquals(198.0, series.getByDate(99), 0.0);
+        Assert.assertEquals(50.0, series.getByDate(25), 0.0);
+    }
+
+    @Test
+    public void should_return_last_value_for_duplicated_date(){
+        DoubleTimeSeries series = new DoubleTimeSeries();
+        series.add(1, 1.0);
+        series.add(2, 2.0);
+        series.add(2, 3.0);
+        series.add(3, 4.0);
+
+        Assert.assertEquals(3.0, series.getByDate(2), 0.0);
+        Assert.assertArrayEquals(new long[]{1, 2, 3}, series.index());
+    }
+
+    @Test
+    public void should_iterate_with_cursor(){
+        DoubleTimeSeries.Cursor cursor = doubleTimeSeries.cursor();
+        int count = 0;
+        while (cursor.next()){
+            Assert.assertEquals(doubleTimeSeries.dateTimeByIdx(count), cursor.dateTime());
+            Assert.assertEquals(doubleTimeSeries.getByIdx(count), cursor.value(), 0.0);
+            count++;
+        }
+        Assert.assertEquals(3, count);
+    }
+
+    @Test
+    public void should_slice_by_date(){
+        DoubleTimeSeries.Slice slice = doubleTimeSeries.slice(c2.getTimeInMillis(), c3.getTimeInMillis());
+        Assert.assertEquals(2, slice.count());
+        Assert.assertEquals(12, slice.first(), 0.0);
+        Assert.assertEquals(13, slice.last(), 0.0);
+        Assert.assertEquals(12, slice.getByDate(c2.getTimeInMillis()), 0.0);
+        Assert.assertEquals(0.0, slice.getByDate(c1.getTimeInMillis()), 0.0);
+
+        DoubleTimeSeries.Cursor cursor = slice.cursor();
+        Assert.assertTrue(cursor.next());
+        Assert.assertEquals(c2.getTimeInMillis(), cursor.dateTime());
+        Assert.assertTrue(cursor.next());
+        Assert.assertEquals(c3.getTimeInMillis(), cursor.dateTime());
+        Assert.assertFalse(cursor.next());
+
+        Assert.assertEquals(0, doubleTimeSeries.slice(c3.getTimeInMillis() + 1, Long.MAX_VALUE).count());
+    }
+
+    @Test
+    public void should_convert_to_and_from_udt(){
+        DoubleTimeSeriesUDT udt = DoubleTimeSeriesUDT.of(doubleTimeSeries);
+        Assert.assertEquals(3, udt.getDataSeries().size());
+        Assert.assertEquals(doubleTimeSeries, udt.toSeries());
+    }
 }
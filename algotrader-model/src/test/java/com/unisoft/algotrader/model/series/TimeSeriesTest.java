@@ -53,4 +53,53 @@ public class TimeSeriesTest {
         Assert.assertEquals(timeSeries.getByDate(c3.getTimeInMillis()), doubleTimeSeries.getByDate(c3.getTimeInMillis()), 0.0);
     }
 
+    @Test
+    public void should_return_correct_ago_value(){
+        Assert.assertEquals(13.0, timeSeries.ago(0), 0.0);
+        Assert.assertEquals(12.0, timeSeries.ago(1), 0.0);
+        Assert.assertEquals(11.0, timeSeries.ago(2), 0.0);
+        Assert.assertNull(timeSeries.ago(3));
+    }
+
+    @Test
+    public void should_keep_all_points_when_unbounded(){
+        TimeSeries<Integer> series = new TimeSeries<>(-1);
+        for (int i = 0; i < 1000; i++) {
+            series.add(i, i);
+        }
+        Assert.assertEquals(1000, series.length());
+        Assert.assertEquals(0, series.firstIndex());
+        Assert.assertEquals(999, series.lastIndex());
+        Assert.assertEquals(Integer.valueOf(500), series.getByDate(500));
+        Assert.assertEquals(Integer.valueOf(-1), series.getByDate(1000));
+    }
+
+    @Test
+    public void should_evict_oldest_point_in_rolling_window(){
+        TimeSeries<Integer> series = TimeSeries.rollingWindow(3, -1);
+        for (int i = 0; i < 10; i++) {
+            series.add(i * 10, i);
+        }
+        Assert.assertEquals(3, series.length());
+        Assert.assertEquals(7, series.firstIndex());
+        Assert.assertEquals(9, series.lastIndex());
+
+        Assert.assertEquals(Integer.valueOf(9), series.ago(0));
+        Assert.assertEquals(Integer.valueOf(7), series.ago(2));
+        Assert.assertEquals(Integer.valueOf(-1), series.ago(3));
+
+        Assert.assertEquals(Integer.valueOf(8), series.getByIdx(8));
+        Assert.assertEquals(Integer.valueOf(8), series.getByDate(80));
+        Assert.assertEquals(Integer.valueOf(-1), series.getByDate(60));
+        Assert.assertArrayEquals(new long[]{70, 80, 90}, series.index());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void should_fail_on_evicted_index(){
+        TimeSeries<Integer> series = TimeSeries.rollingWindow(2, -1);
+        series.add(1, 1);
+        series.add(2, 2);
+        series.add(3, 3);
+        series.getByIdx(0);
+    }
 }
@@ -0,0 +1,119 @@
+package com.unisoft.algotrader.model.trading;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PerformanceStatisticsTest {
+
+    private static final double[] EQUITY = {1000, 1100, 1050, 950, 1200, 1150, 1300};
+
+    private PerformanceStatistics statistics;
+
+    @Before
+    public void setup(){
+        statistics = new PerformanceStatistics(3, 0, 0, 0);
+        for (int i = 0; i < EQUITY.length; i++) {
+            statistics.update(i, EQUITY[i]);
+        }
+    }
+
+    private static double[] returns(int from, int to){
+        double[] returns = new double[to - from];
+        for (int i = from; i < to; i++) {
+            returns[i - from] = EQUITY[i + 1] / EQUITY[i] - 1;
+        }
+        return returns;
+    }
+
+    private static double mean(double[] values){
+        double sum = 0;
+        for (double value : values) sum += value;
+        return sum / values.length;
+    }
+
+    private static double stdDev(double[] values){
+        double mean = mean(values);
+        double sum = 0;
+        for (double value : values) sum += (value - mean) * (value - mean);
+        return Math.sqrt(sum / (values.length - 1));
+    }
+
+    private static double downsideDeviation(double[] values){
+        double sum = 0;
+        for (double value : values) sum += Math.min(value, 0) * Math.min(value, 0);
+        return Math.sqrt(sum / values.length);
+    }
+
+    @Test
+    public void test_mean_and_std_dev(){
+        double[] returns = returns(0, EQUITY.length - 1);
+        assertEquals(returns.length, statistics.returnCount());
+        assertEquals(mean(returns), statistics.meanReturn(), 1e-12);
+        assertEquals(stdDev(returns), statistics.stdDev(), 1e-12);
+        assertEquals(downsideDeviation(returns), statistics.downsideDeviation(), 1e-12);
+        assertEquals(mean(returns) / stdDev(returns), statistics.sharpeRatio(), 1e-9);
+        assertEquals(mean(returns) / downsideDeviation(returns), statistics.sortinoRatio(), 1e-9);
+    }
+
+    @Test
+    public void test_rolling_window(){
+        double[] returns = returns(EQUITY.length - 4, EQUITY.length - 1);
+        assertEquals(3, statistics.windowSize());
+        assertEquals(mean(returns), statistics.windowMeanReturn(), 1e-12);
+        assertEquals(stdDev(returns), statistics.windowStdDev(), 1e-12);
+        assertEquals(downsideDeviation(returns), statistics.windowDownsideDeviation(), 1e-12);
+        assertEquals(mean(returns) / stdDev(returns), statistics.windowSharpeRatio(), 1e-9);
+    }
+
+    @Test
+    public void test_drawdown_and_run_up(){
+        assertEquals(150, statistics.maxDrawdown(), 0.0);
+        assertEquals(150.0 / 1100.0, statistics.maxDrawdownPercent(), 1e-12);
+        assertEquals(2, statistics.maxDrawdownDuration());
+        assertEquals(0, statistics.drawdown(), 0.0);
+        assertEquals(0, statistics.drawdownDuration());
+
+        assertEquals(950, statistics.troughEquity(), 0.0);
+        assertEquals(350, statistics.maxRunUp(), 0.0);
+        assertEquals(350.0 / 950.0, statistics.maxRunUpPercent(), 1e-12);
+    }
+
+    @Test
+    public void test_trade_statistics(){
+        statistics.addTrade(100);
+        statistics.addTrade(50);
+        statistics.addTrade(-30);
+        statistics.addTrade(-20);
+        statistics.addTrade(-10);
+        statistics.addTrade(60);
+
+        assertEquals(6, statistics.tradeCount());
+        assertEquals(3, statistics.winCount());
+        assertEquals(3, statistics.lossCount());
+        assertEquals(0.5, statistics.winRate(), 0.0);
+        assertEquals(210, statistics.grossProfit(), 0.0);
+        assertEquals(60, statistics.grossLoss(), 0.0);
+        assertEquals(3.5, statistics.profitFactor(), 1e-12);
+        assertEquals(25, statistics.avgTrade(), 1e-12);
+        assertEquals(100, statistics.largestWin(), 0.0);
+        assertEquals(30, statistics.largestLoss(), 0.0);
+        assertEquals(2, statistics.maxConsecutiveWins());
+        assertEquals(3, statistics.maxConsecutiveLosses());
+    }
+
+    @Test
+    public void test_performance_without_series(){
+        Performance performance = new Performance().keepSeries(false);
+        for (int i = 0; i < EQUITY.length; i++) {
+            performance.valueChanged(i, EQUITY[i], EQUITY[i]);
+        }
+        assertEquals(0, performance.equitySeries().count());
+        assertEquals(0, performance.pnlSeries().count());
+        assertEquals(150, performance.equity() - EQUITY[EQUITY.length - 2], 0.0);
+        assertEquals(150, performance.pnl(), 0.0);
+        assertEquals(1300, performance.highEquity(), 0.0);
+        assertEquals(150, performance.statistics().maxDrawdown(), 0.0);
+    }
+}
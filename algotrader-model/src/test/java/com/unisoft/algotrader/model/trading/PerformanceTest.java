@@ -0,0 +1,73 @@
+package com.unisoft.algotrader.model.trading;
+
+import com.unisoft.algotrader.model.series.DoubleTimeSeries;
+import com.unisoft.algotrader.model.series.DoubleTimeSeriesUDT;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class PerformanceTest {
+
+    private static Performance performance(){
+        Performance performance = new Performance();
+        performance.valueChanged(1, 1000, 1000);
+        performance.valueChanged(2, 1000, 1100);
+        performance.valueChanged(3, 1000, 1050);
+        return performance;
+    }
+
+    private static Performance load(Performance saved){
+        Performance loaded = new Performance();
+        loaded.setEquitySeriesUDT(saved.getEquitySeriesUDT());
+        loaded.setCoreEquitySeriesUDT(saved.getCoreEquitySeriesUDT());
+        loaded.setPnlSeriesUDT(saved.getPnlSeriesUDT());
+        loaded.setDrawdownSeriesUDT(saved.getDrawdownSeriesUDT());
+        loaded.setDrawdownPercentSeriesUDT(saved.getDrawdownPercentSeriesUDT());
+        return loaded;
+    }
+
+    @Test
+    public void test_series_round_trip_through_udt(){
+        Performance saved = performance();
+        Performance loaded = load(saved);
+
+        assertEquals(saved.equitySeries(), loaded.equitySeries());
+        assertEquals(saved.coreEquitySeries(), loaded.coreEquitySeries());
+        assertEquals(saved.pnlSeries(), loaded.pnlSeries());
+        assertEquals(saved.drawdownSeries(), loaded.drawdownSeries());
+        assertEquals(saved.drawdownPercentSeries(), loaded.drawdownPercentSeries());
+        assertEquals(3, loaded.equitySeries().count());
+        assertEquals(1100, loaded.equitySeries().getByIdx(1), 0.0);
+    }
+
+    @Test
+    public void test_untouched_series_is_saved_back_without_conversion(){
+        DoubleTimeSeriesUDT udt = performance().getEquitySeriesUDT();
+        Performance loaded = new Performance();
+        loaded.setEquitySeriesUDT(udt);
+
+        assertSame(udt, loaded.getEquitySeriesUDT());
+    }
+
+    @Test
+    public void test_series_decoded_on_first_use_is_saved_with_new_values(){
+        Performance loaded = load(performance());
+        loaded.valueChanged(4, 1000, 1200);
+
+        DoubleTimeSeries equity = DoubleTimeSeriesUDT.toSeries(loaded.getEquitySeriesUDT());
+        assertEquals(4, equity.count());
+        assertEquals(4, equity.lastDateTime());
+        assertEquals(1200, equity.last(), 0.0);
+    }
+
+    @Test
+    public void test_series_set_directly_replaces_the_loaded_udt(){
+        Performance loaded = load(performance());
+        DoubleTimeSeries series = new DoubleTimeSeries();
+        series.add(10, 5);
+        loaded.equitySeries(series);
+
+        assertEquals(series, DoubleTimeSeriesUDT.toSeries(loaded.getEquitySeriesUDT()));
+    }
+}
@@ -1,8 +1,11 @@
 package com.unisoft.algotrader.persistence.cassandra;
 
+import com.datastax.driver.core.BatchStatement;
 import com.datastax.driver.core.Cluster;
 import com.datastax.driver.core.ProtocolVersion;
+import com.datastax.driver.core.ResultSetFuture;
 import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
 import com.datastax.driver.mapping.Mapper;
 import com.datastax.driver.mapping.MappingManager;
 import com.unisoft.algotrader.model.event.execution.ExecutionReport;
@@ -17,6 +20,8 @@ import com.unisoft.algotrader.persistence.cassandra.accessor.PortfolioAccessor;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -24,6 +29,12 @@ import java.util.List;
  */
 @Singleton
 public class CassandraTradingDataStore implements TradingDataStore {
+
+    /**
+     * Statements per unlogged batch, larger batches are split to stay under the batch size warning of the cluster.
+     */
+    private static final int MAX_BATCH_STATEMENTS = 100;
+
     private Cluster cluster;
     private Session session;
     private String keySpace;
@@ -33,6 +44,8 @@ public class CassandraTradingDataStore implements TradingDataStore {
     private ExecutionReportAccessor executionReportAccessor;
     private OrderAccessor orderAccessor;
     private CassandraIdSupplier idSupplier;
+    private Mapper<Order> orderMapper;
+    private Mapper<ExecutionReport> executionReportMapper;
 
     @Inject
     public CassandraTradingDataStore(CassandraTradingDataStoreConfig config) {
@@ -56,6 +69,8 @@ public class CassandraTradingDataStore implements TradingDataStore {
         this.executionReportAccessor = mappingManager.createAccessor(ExecutionReportAccessor.class);
         this.orderAccessor = mappingManager.createAccessor(OrderAccessor.class);
         this.idSupplier = new CassandraIdSupplier(session, keySpace);
+        this.orderMapper = mappingManager.mapper(Order.class);
+        this.executionReportMapper = mappingManager.mapper(ExecutionReport.class);
     }
 
     @Override
@@ -84,26 +99,53 @@ public class CassandraTradingDataStore implements TradingDataStore {
 
     @Override
     public void saveExecutionReport(ExecutionReport er) {
-        Mapper<ExecutionReport> mapper = mappingManager.mapper(ExecutionReport.class);
-        mapper.save(er);
+        executionReportMapper.save(er);
     }
 
     @Override
     public ExecutionReport getExecutionReport(long execId) {
-        Mapper<ExecutionReport> mapper = mappingManager.mapper(ExecutionReport.class);
-        return mapper.get(execId);
+        return executionReportMapper.get(execId);
     }
 
     @Override
     public void saveOrder(Order order) {
-        Mapper<Order> mapper = mappingManager.mapper(Order.class);
-        mapper.save(order);
+        orderMapper.save(order);
     }
 
     @Override
     public Order getOrder(long clOrderId) {
-        Mapper<Order> mapper = mappingManager.mapper(Order.class);
-        return mapper.get(clOrderId);
+        return orderMapper.get(clOrderId);
+    }
+
+    /**
+     * The orders and execution reports are saved with unlogged batches of the mapper save statements, all executed
+     * asynchronously, and the call returns once every batch is acknowledged.
+     */
+    @Override
+    public void saveAll(Collection<Order> orders, Collection<ExecutionReport> executionReports) {
+        List<ResultSetFuture> futures = new ArrayList<>();
+        BatchStatement batch = new BatchStatement(BatchStatement.Type.UNLOGGED);
+        for (Order order : orders) {
+            batch = addToBatch(batch, orderMapper.saveQuery(order), futures);
+        }
+        for (ExecutionReport executionReport : executionReports) {
+            batch = addToBatch(batch, executionReportMapper.saveQuery(executionReport), futures);
+        }
+        if (batch.size() > 0) {
+            futures.add(session.executeAsync(batch));
+        }
+        for (ResultSetFuture future : futures) {
+            future.getUninterruptibly();
+        }
+    }
+
+    private BatchStatement addToBatch(BatchStatement batch, Statement statement, List<ResultSetFuture> futures) {
+        batch.add(statement);
+        if (batch.size() < MAX_BATCH_STATEMENTS) {
+            return batch;
+        }
+        futures.add(session.executeAsync(batch));
+        return new BatchStatement(BatchStatement.Type.UNLOGGED);
     }
 
     @Override
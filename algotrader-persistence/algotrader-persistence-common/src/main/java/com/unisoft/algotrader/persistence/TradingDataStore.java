@@ -6,6 +6,7 @@ import com.unisoft.algotrader.model.refdata.Currency;
 import com.unisoft.algotrader.model.trading.Account;
 import com.unisoft.algotrader.model.trading.Portfolio;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -41,6 +42,19 @@ public interface TradingDataStore {
 
     void saveOrder(Order order);
 
+    /**
+     * Save a batch of orders and execution reports, as written by the TradingDataJournal. The saves are upserts
+     * keyed by id, so a batch may be saved again after a failure.
+     */
+    default void saveAll(Collection<Order> orders, Collection<ExecutionReport> executionReports){
+        for (Order order : orders){
+            saveOrder(order);
+        }
+        for (ExecutionReport executionReport : executionReports){
+            saveExecutionReport(executionReport);
+        }
+    }
+
     Order getOrder(long clOrderId);
 
     List<Order> getAllOrders();
@@ -0,0 +1,125 @@
+package com.unisoft.algotrader.provider.cassandra;
+
+import com.datastax.driver.core.Statement;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Sends the batches of the CassandraHistoricalDataStore asynchronously. At most maxInFlightBatches are in flight,
+ * beyond that {@link #execute} blocks the caller until one completes. A batch which fails is sent again after
+ * retryDelayMs, doubled on each attempt, up to maxRetries times, and keeps its permit meanwhile. A batch which still
+ * fails is reported to the thread feeding the store: the next {@link #execute} or {@link #checkFailure} throws, so
+ * an import stops instead of silently losing data.
+ */
+class AsyncBatchWriter {
+
+    private static final Logger LOG = LogManager.getLogger(AsyncBatchWriter.class);
+
+    private final Function<Statement, ListenableFuture<?>> executor;
+    private final ScheduledExecutorService retryScheduler;
+    private final int maxInFlightBatches;
+    private final int maxRetries;
+    private final long retryDelayMs;
+    private final Semaphore inFlightBatches;
+    private final AtomicLong retriedBatches = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    AsyncBatchWriter(Function<Statement, ListenableFuture<?>> executor, ScheduledExecutorService retryScheduler,
+                     int maxInFlightBatches, int maxRetries, long retryDelayMs) {
+        this.executor = executor;
+        this.retryScheduler = retryScheduler;
+        this.maxInFlightBatches = maxInFlightBatches;
+        this.maxRetries = maxRetries;
+        this.retryDelayMs = retryDelayMs;
+        this.inFlightBatches = new Semaphore(maxInFlightBatches);
+    }
+
+    /**
+     * Send the batch, blocks while maxInFlightBatches are in flight.
+     *
+     * @throws IllegalStateException if an earlier batch failed after all its retries
+     */
+    void execute(Statement statement, int size) {
+        checkFailure();
+        inFlightBatches.acquireUninterruptibly();
+        send(statement, size, 0);
+    }
+
+    /**
+     * @throws IllegalStateException if a batch failed after all its retries
+     */
+    void checkFailure() {
+        Throwable cause = failure.get();
+        if (cause != null) {
+            throw new IllegalStateException(failedBatches.get() + " batches failed after " + maxRetries + " retries", cause);
+        }
+    }
+
+    /**
+     * Wait for the batches in flight, including their retries.
+     */
+    void awaitInFlight() {
+        inFlightBatches.acquireUninterruptibly(maxInFlightBatches);
+        inFlightBatches.release(maxInFlightBatches);
+    }
+
+    int inFlight() {
+        return maxInFlightBatches - inFlightBatches.availablePermits();
+    }
+
+    long retriedBatches() {
+        return retriedBatches.get();
+    }
+
+    long failedBatches() {
+        return failedBatches.get();
+    }
+
+    private void send(Statement statement, int size, int attempt) {
+        ListenableFuture<?> future;
+        try {
+            future = executor.apply(statement);
+        }
+        catch (RuntimeException e) {
+            onFailure(statement, size, attempt, e);
+            return;
+        }
+        future.addListener(() -> {
+            try {
+                Uninterruptibles.getUninterruptibly(future);
+                inFlightBatches.release();
+            }
+            catch (ExecutionException e) {
+                onFailure(statement, size, attempt, e.getCause());
+            }
+            catch (RuntimeException e) {
+                onFailure(statement, size, attempt, e);
+            }
+        }, Runnable::run);
+    }
+
+    private void onFailure(Statement statement, int size, int attempt, Throwable cause) {
+        if (attempt < maxRetries) {
+            long delay = retryDelayMs << attempt;
+            retriedBatches.incrementAndGet();
+            LOG.warn("failed to insert batch of " + size + " statements, retry " + (attempt + 1) + " in " + delay + "ms", cause);
+            retryScheduler.schedule(() -> send(statement, size, attempt + 1), delay, TimeUnit.MILLISECONDS);
+            return;
+        }
+        failedBatches.incrementAndGet();
+        failure.compareAndSet(null, cause);
+        LOG.error("failed to insert batch of " + size + " statements after " + maxRetries + " retries", cause);
+        inFlightBatches.release();
+    }
+}
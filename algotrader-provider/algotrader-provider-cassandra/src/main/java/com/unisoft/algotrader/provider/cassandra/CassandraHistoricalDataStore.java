@@ -1,62 +1,81 @@
 package com.unisoft.algotrader.provider.cassandra;
 
 import com.datastax.driver.core.*;
-import com.datastax.driver.core.querybuilder.QueryBuilder;
-import com.google.common.collect.Lists;
+import com.datastax.driver.core.policies.DCAwareRoundRobinPolicy;
+import com.datastax.driver.core.policies.TokenAwarePolicy;
 import com.unisoft.algotrader.model.event.bus.MarketDataEventBus;
 import com.unisoft.algotrader.model.event.data.Bar;
+import com.unisoft.algotrader.model.event.data.DataType;
 import com.unisoft.algotrader.model.event.data.MarketDataContainer;
 import com.unisoft.algotrader.model.event.data.Quote;
 import com.unisoft.algotrader.model.event.data.Trade;
 import com.unisoft.algotrader.provider.ProviderId;
 import com.unisoft.algotrader.provider.ProviderManager;
 import com.unisoft.algotrader.provider.data.AbstractDataStoreProvider;
+import com.unisoft.algotrader.provider.data.HistoricalCursor;
 import com.unisoft.algotrader.provider.data.HistoricalSubscriptionKey;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
+import com.unisoft.algotrader.utils.threading.NamedThreadFactory;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.util.Date;
-import java.util.List;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-import static com.datastax.driver.core.querybuilder.QueryBuilder.*;
-
 /**
  * Created by alex on 6/18/15.
+ *
+ * Inserts are bound from statements prepared once at connect time and buffered per table into unlogged batches
+ * of a single instrument and day, a batch is sent with executeAsync when it is full or when the instrument or the
+ * day changes. At most maxInFlightBatches batches are in flight, beyond that the caller blocks until one completes,
+ * which holds back the ring buffer consumer feeding the store instead of queueing in the driver. A failed batch is
+ * retried with backoff, one which still fails makes the next insert or flush throw, see {@link AsyncBatchWriter}.
+ *
+ * The cluster routes each statement to a replica of its partition (token aware), reads are prepared range queries
+ * on the partition paged by {@link #FETCH_SIZE} rows.
  */
-//TODO batch insert
 @Singleton
 public class CassandraHistoricalDataStore extends AbstractDataStoreProvider {
 
-    private static final Logger LOG = LogManager.getLogger(CassandraHistoricalDataStore.class);
-
     private static final String BAR_INSERT_STATEMENT = "INSERT INTO bar (instid, barsize, datetime, open, high, low, close, volume, openint) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?);";
     private static final String QUOTE_INSERT_STATEMENT = "INSERT INTO quote (instid, datetime, bid, ask, bidsize, asksize) VALUES (?, ?, ?, ?, ?, ?);";
-    private static final String TRADE_INSERT_STATEMENT = "INSERT INTO bar (instid, datetime, price, size) VALUES (?, ?, ?, ?);";
-
-    private static final String COL_DATETIME = "datetime";
-    private static final String COL_INSTID = "instid";
-    private static final String COL_BARSIZE = "barsize";
+    private static final String TRADE_INSERT_STATEMENT = "INSERT INTO trade (instid, datetime, price, size) VALUES (?, ?, ?, ?);";
 
-    private static final String TABLE_BAR = "bar";
-    private static final String TABLE_TRADE = "trade";
-    private static final String TABLE_QUOTE = "quote";
+    static final String BAR_SELECT_STATEMENT = "SELECT instid, barsize, datetime, open, high, low, close, volume, openint FROM bar WHERE instid = ? AND barsize = ? AND datetime >= ? AND datetime < ?;";
+    static final String QUOTE_SELECT_STATEMENT = "SELECT instid, datetime, bid, ask, bidsize, asksize FROM quote WHERE instid = ? AND datetime >= ? AND datetime < ?;";
+    static final String TRADE_SELECT_STATEMENT = "SELECT instid, datetime, price, size FROM trade WHERE instid = ? AND datetime >= ? AND datetime < ?;";
 
     public static final ProviderId PROVIDER_ID = ProviderId.Cassandra;
 
+    private static final int FETCH_SIZE = 5000;
+
     private final AtomicBoolean connected = new AtomicBoolean(false);
     private final MarketDataEventBus marketDataEventBus;
     private final CassandraHistoricalDataStoreConfig config;
     private Cluster cluster;
     private Session session;
+    private ScheduledExecutorService retryScheduler;
+    private AsyncBatchWriter writer;
+    private PendingBatch pendingBars;
+    private PendingBatch pendingQuotes;
+    private PendingBatch pendingTrades;
+
+    private PreparedStatement barInsert;
+    private PreparedStatement quoteInsert;
+    private PreparedStatement tradeInsert;
+    private PreparedStatement barSelect;
+    private PreparedStatement quoteSelect;
+    private PreparedStatement tradeSelect;
 
     @Inject
     public CassandraHistoricalDataStore(ProviderManager providerManager, CassandraHistoricalDataStoreConfig config, MarketDataEventBus marketDataEventBus){
         super(providerManager);
         this.config = config;
-        this.cluster = Cluster.builder().addContactPoint(config.host).build();
+        this.cluster = Cluster.builder().addContactPoint(config.host)
+                .withLoadBalancingPolicy(new TokenAwarePolicy(new DCAwareRoundRobinPolicy()))
+                .build();
         this.marketDataEventBus = marketDataEventBus;
     }
 
@@ -75,36 +94,76 @@ public class CassandraHistoricalDataStore extends AbstractDataStoreProvider {
     public void connect(){
         if (connected.compareAndSet(false, true)){
             this.session = cluster.connect(config.keyspace);
+            this.barInsert = session.prepare(BAR_INSERT_STATEMENT);
+            this.quoteInsert = session.prepare(QUOTE_INSERT_STATEMENT);
+            this.tradeInsert = session.prepare(TRADE_INSERT_STATEMENT);
+            this.barSelect = session.prepare(BAR_SELECT_STATEMENT);
+            this.quoteSelect = session.prepare(QUOTE_SELECT_STATEMENT);
+            this.tradeSelect = session.prepare(TRADE_SELECT_STATEMENT);
+            this.retryScheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("CassandraBatchRetry"));
+            this.writer = new AsyncBatchWriter(session::executeAsync, retryScheduler,
+                    config.maxInFlightBatches, config.maxRetries, config.retryDelayMs);
+            this.pendingBars = new PendingBatch(config.batchSize, writer);
+            this.pendingQuotes = new PendingBatch(config.batchSize, writer);
+            this.pendingTrades = new PendingBatch(config.batchSize, writer);
         }
     }
 
     @Override
     public void disconnect(){
         if (connected.compareAndSet(true, false)){
-            this.cluster.close();
+            try {
+                flush();
+            }
+            finally {
+                // wait for the batches in flight and their retries
+                writer.awaitInFlight();
+                retryScheduler.shutdownNow();
+                this.cluster.close();
+            }
         }
     }
 
     /// DATASTORE
     @Override
     public void onBar(Bar bar) {
-        PreparedStatement statement = session.prepare(BAR_INSERT_STATEMENT);
-        BoundStatement boundStatement = new BoundStatement(statement);
-        session.execute(boundStatement.bind(bar.instId, bar.size, new Date(bar.dateTime), bar.open, bar.high, bar.low, bar.close, bar.volume, bar.openInt));
+        pendingBars.add(bar.instId, bar.dateTime,
+                barInsert.bind(bar.instId, bar.size, new Date(bar.dateTime), bar.open, bar.high, bar.low, bar.close, bar.volume, bar.openInt));
     }
 
     @Override
     public void onQuote(Quote quote) {
-        PreparedStatement statement = session.prepare(QUOTE_INSERT_STATEMENT);
-        BoundStatement boundStatement = new BoundStatement(statement);
-        session.execute(boundStatement.bind(quote.instId, new Date(quote.dateTime), quote.bid, quote.ask, quote.bidSize, quote.askSize));
+        pendingQuotes.add(quote.instId, quote.dateTime,
+                quoteInsert.bind(quote.instId, new Date(quote.dateTime), quote.bid, quote.ask, quote.bidSize, quote.askSize));
     }
 
     @Override
     public void onTrade(Trade trade) {
-        PreparedStatement statement = session.prepare(TRADE_INSERT_STATEMENT);
-        BoundStatement boundStatement = new BoundStatement(statement);
-        session.execute(boundStatement.bind(trade.instId, new Date(trade.dateTime), trade.price, trade.size));
+        pendingTrades.add(trade.instId, trade.dateTime,
+                tradeInsert.bind(trade.instId, new Date(trade.dateTime), trade.price, trade.size));
+    }
+
+    /**
+     * Send the partially filled batches, to be called from the thread feeding the store.
+     *
+     * @throws IllegalStateException if a batch failed after all its retries
+     */
+    @Override
+    public void flush() {
+        if (writer == null) {
+            return;
+        }
+        pendingBars.flush();
+        pendingQuotes.flush();
+        pendingTrades.flush();
+        writer.checkFailure();
+    }
+
+    /**
+     * Number of batches which failed to be written after all their retries since the store was connected.
+     */
+    public long failedBatches() {
+        return writer != null ? writer.failedBatches() : 0;
     }
 
     /// PROVIDER
@@ -127,100 +186,125 @@ public class CassandraHistoricalDataStore extends AbstractDataStoreProvider {
     }
 
     @Override
-    public List<MarketDataContainer> loadHistoricalData(HistoricalSubscriptionKey subscriptionKey) {
-        List<MarketDataContainer> result = Lists.newArrayList();
+    public HistoricalCursor openHistoricalData(HistoricalSubscriptionKey subscriptionKey) {
         switch (subscriptionKey.subscriptionType.type) {
             case Bar:
-                result = loadBar(subscriptionKey);
-                break;
+                return cursor(DataType.Bar, queryBar(subscriptionKey));
 
             case Trade:
-                result = loadTrade(subscriptionKey);
-                break;
+                return cursor(DataType.Trade, queryTrade(subscriptionKey));
 
             case Quote:
-                result = loadQuote(subscriptionKey);
-                break;
+                return cursor(DataType.Quote, queryQuote(subscriptionKey));
+
+            default:
+                throw new UnsupportedOperationException();
         }
-        return result;
     }
 
+    static HistoricalCursor cursor(DataType type, Iterable<Row> results) {
+        switch (type) {
+            case Bar:
+                return new CassandraCursor(results){
+                    @Override
+                    protected void setRow(Row row, MarketDataContainer container) {
+                        container.setBar(row.getLong(0), row.getInt(1), row.getDate(2).getTime(), row.getDouble(3), row.getDouble(4), row.getDouble(5), row.getDouble(6), row.getLong(7), row.getLong(8));
+                    }
+                };
 
-    private void publishBar(HistoricalSubscriptionKey subscriptionKey){
-        ResultSet results = queryBar(subscriptionKey);
-        for (Row row : results) {
-            marketDataEventBus.publishBar(row.getLong(0), row.getInt(1), row.getDate(2).getTime(), row.getDouble(3), row.getDouble(4), row.getDouble(5), row.getDouble(6), row.getLong(7), row.getLong(8));
+            case Trade:
+                return new CassandraCursor(results){
+                    @Override
+                    protected void setRow(Row row, MarketDataContainer container) {
+                        container.setTrade(row.getLong(0), row.getDate(1).getTime(), row.getDouble(2), row.getInt(3));
+                    }
+                };
+
+            case Quote:
+                return new CassandraCursor(results){
+                    @Override
+                    protected void setRow(Row row, MarketDataContainer container) {
+                        container.setQuote(row.getLong(0), row.getDate(1).getTime(), row.getDouble(2), row.getDouble(3), row.getInt(4), row.getInt(5));
+                    }
+                };
+
+            default:
+                throw new UnsupportedOperationException();
         }
     }
 
-    private void publishQuote(HistoricalSubscriptionKey subscriptionKey){
-        ResultSet results = queryQuote(subscriptionKey);
-        for (Row row : results) {
-            marketDataEventBus.publishQuote(row.getLong(0), row.getDate(1).getTime(), row.getDouble(2), row.getDouble(3), row.getInt(4), row.getInt(5));
+    /**
+     * Iterate the result set into a reused container, the driver fetches the next page of {@link #FETCH_SIZE}
+     * rows only when the current one is consumed. Closing drops the iterator, so no further page is fetched and
+     * the current one can be collected.
+     */
+    private static abstract class CassandraCursor implements HistoricalCursor {
+
+        private Iterator<Row> rows;
+        private final MarketDataContainer container = new MarketDataContainer();
+
+        private CassandraCursor(Iterable<Row> results){
+            this.rows = results.iterator();
         }
-    }
 
-    private void publishTrade(HistoricalSubscriptionKey subscriptionKey){
-        ResultSet results = queryTrade(subscriptionKey);
-        for (Row row : results) {
-            marketDataEventBus.publishTrade(row.getLong(0), row.getDate(1).getTime(), row.getDouble(2), row.getInt(3));
+        @Override
+        public boolean next() {
+            if (rows == null || !rows.hasNext()) {
+                close();
+                return false;
+            }
+            container.reset();
+            setRow(rows.next(), container);
+            return true;
+        }
+
+        protected abstract void setRow(Row row, MarketDataContainer container);
+
+        @Override
+        public MarketDataContainer current() {
+            return container;
+        }
+
+        @Override
+        public void close() {
+            rows = null;
         }
     }
 
-    private List<MarketDataContainer>  loadBar(HistoricalSubscriptionKey subscriptionKey){
+    private void publishBar(HistoricalSubscriptionKey subscriptionKey){
         ResultSet results = queryBar(subscriptionKey);
-        List<MarketDataContainer> list = Lists.newArrayList();
         for (Row row : results) {
-            MarketDataContainer container = new MarketDataContainer();
-            container.setBar(row.getLong(0), row.getInt(1), row.getDate(2).getTime(), row.getDouble(3), row.getDouble(4), row.getDouble(5), row.getDouble(6), row.getLong(7), row.getLong(8));
-            list.add(container);
+            marketDataEventBus.publishBar(row.getLong(0), row.getInt(1), row.getDate(2).getTime(), row.getDouble(3), row.getDouble(4), row.getDouble(5), row.getDouble(6), row.getLong(7), row.getLong(8));
         }
-        return list;
     }
 
-    private List<MarketDataContainer>  loadQuote(HistoricalSubscriptionKey subscriptionKey){
+    private void publishQuote(HistoricalSubscriptionKey subscriptionKey){
         ResultSet results = queryQuote(subscriptionKey);
-        List<MarketDataContainer> list = Lists.newArrayList();
         for (Row row : results) {
-            MarketDataContainer container = new MarketDataContainer();
-            container.setQuote(row.getLong(0), row.getDate(1).getTime(), row.getDouble(2), row.getDouble(3), row.getInt(4), row.getInt(5));
-            list.add(container);
+            marketDataEventBus.publishQuote(row.getLong(0), row.getDate(1).getTime(), row.getDouble(2), row.getDouble(3), row.getInt(4), row.getInt(5));
         }
-        return list;
     }
 
-    private List<MarketDataContainer>  loadTrade(HistoricalSubscriptionKey subscriptionKey){
+    private void publishTrade(HistoricalSubscriptionKey subscriptionKey){
         ResultSet results = queryTrade(subscriptionKey);
-        List<MarketDataContainer> list = Lists.newArrayList();
         for (Row row : results) {
-            MarketDataContainer container = new MarketDataContainer();
-            container.setTrade(row.getLong(0), row.getDate(1).getTime(), row.getDouble(2), row.getInt(3));
-            list.add(container);
+            marketDataEventBus.publishTrade(row.getLong(0), row.getDate(1).getTime(), row.getDouble(2), row.getInt(3));
         }
-        return list;
     }
 
-
     private ResultSet queryBar(HistoricalSubscriptionKey subscriptionKey){
-        Statement select = QueryBuilder.select().all().from(config.keyspace, TABLE_BAR)
-                .where(eq(COL_INSTID, subscriptionKey.instId))
-                .and(eq(COL_BARSIZE, subscriptionKey.subscriptionType.barSize))
-                .and(gte(COL_DATETIME, subscriptionKey.fromDate)).and(lt(COL_DATETIME, subscriptionKey.toDate));
-        return session.execute(select);
+        return session.execute(barSelect.bind(subscriptionKey.instId, subscriptionKey.subscriptionType.barSize,
+                new Date(subscriptionKey.fromDate), new Date(subscriptionKey.toDate)).setFetchSize(FETCH_SIZE));
     }
 
     private ResultSet queryQuote(HistoricalSubscriptionKey subscriptionKey){
-        Statement select = QueryBuilder.select().all().from(config.keyspace, TABLE_QUOTE)
-                .where(eq(COL_INSTID, subscriptionKey.instId))
-                .and(gte(COL_DATETIME, subscriptionKey.fromDate)).and(lt(COL_DATETIME, subscriptionKey.toDate));
-        return session.execute(select);
+        return session.execute(quoteSelect.bind(subscriptionKey.instId,
+                new Date(subscriptionKey.fromDate), new Date(subscriptionKey.toDate)).setFetchSize(FETCH_SIZE));
     }
 
     private ResultSet queryTrade(HistoricalSubscriptionKey subscriptionKey){
-        Statement select = QueryBuilder.select().all().from(config.keyspace, TABLE_TRADE)
-                .where(eq(COL_INSTID, subscriptionKey.instId))
-                .and(gte(COL_DATETIME, subscriptionKey.fromDate)).and(lt(COL_DATETIME, subscriptionKey.toDate));
-        return session.execute(select);
+        return session.execute(tradeSelect.bind(subscriptionKey.instId,
+                new Date(subscriptionKey.fromDate), new Date(subscriptionKey.toDate)).setFetchSize(FETCH_SIZE));
     }
 
 }
@@ -8,22 +8,57 @@ import javax.inject.Named;
  */
 public class CassandraHistoricalDataStoreConfig {
 
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    public static final int DEFAULT_MAX_IN_FLIGHT_BATCHES = 32;
+    public static final int DEFAULT_MAX_RETRIES = 3;
+    public static final long DEFAULT_RETRY_DELAY_MS = 100;
+
     public String host = "127.0.0.1";
     public int port;
     public String keyspace = "marketdata";
     public String user;
     public String password;
+    public int batchSize = DEFAULT_BATCH_SIZE;
+    public int maxInFlightBatches = DEFAULT_MAX_IN_FLIGHT_BATCHES;
+    public int maxRetries = DEFAULT_MAX_RETRIES;
+    public long retryDelayMs = DEFAULT_RETRY_DELAY_MS;
+
+    public CassandraHistoricalDataStoreConfig(String host, int port, String keyspace, String user, String password) {
+        this(host, port, keyspace, user, password, DEFAULT_BATCH_SIZE, DEFAULT_MAX_IN_FLIGHT_BATCHES);
+    }
+
+    public CassandraHistoricalDataStoreConfig(String host, int port, String keyspace, String user, String password,
+                                              int batchSize, int maxInFlightBatches) {
+        this(host, port, keyspace, user, password, batchSize, maxInFlightBatches, DEFAULT_MAX_RETRIES, DEFAULT_RETRY_DELAY_MS);
+    }
 
     @Inject
     public CassandraHistoricalDataStoreConfig(@Named("cassandra.marketdata.host") String host,
                                               @Named("cassandra.marketdata.port") int port,
                                               @Named("cassandra.marketdata.keyspace") String keyspace,
                                               @Named("cassandra.marketdata.user") String user,
-                                              @Named("cassandra.marketdata.password") String password) {
+                                              @Named("cassandra.marketdata.password") String password,
+                                              @Named("cassandra.marketdata.batchSize") int batchSize,
+                                              @Named("cassandra.marketdata.maxInFlightBatches") int maxInFlightBatches,
+                                              @Named("cassandra.marketdata.maxRetries") int maxRetries,
+                                              @Named("cassandra.marketdata.retryDelayMs") long retryDelayMs) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive, batchSize=" + batchSize);
+        }
+        if (maxInFlightBatches <= 0) {
+            throw new IllegalArgumentException("maxInFlightBatches must be positive, maxInFlightBatches=" + maxInFlightBatches);
+        }
+        if (maxRetries < 0 || retryDelayMs < 0) {
+            throw new IllegalArgumentException("maxRetries and retryDelayMs must not be negative, maxRetries=" + maxRetries + ", retryDelayMs=" + retryDelayMs);
+        }
         this.host = host;
         this.port = port;
         this.keyspace = keyspace;
         this.user = user;
         this.password = password;
+        this.batchSize = batchSize;
+        this.maxInFlightBatches = maxInFlightBatches;
+        this.maxRetries = maxRetries;
+        this.retryDelayMs = retryDelayMs;
     }
 }
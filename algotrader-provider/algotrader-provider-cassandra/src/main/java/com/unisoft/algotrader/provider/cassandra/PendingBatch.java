@@ -0,0 +1,54 @@
+package com.unisoft.algotrader.provider.cassandra;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.Statement;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unlogged batch of the inserts of a table for one instrument and day, i.e. for a single partition. The batch is
+ * sent through the {@link AsyncBatchWriter} when it holds batchSize inserts, when an insert of another instrument or
+ * day is added, or when it is flushed.
+ */
+class PendingBatch {
+
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private final int batchSize;
+    private final AsyncBatchWriter writer;
+    private BatchStatement statement = new BatchStatement(BatchStatement.Type.UNLOGGED);
+    private int size;
+    private long instId;
+    private long day;
+
+    PendingBatch(int batchSize, AsyncBatchWriter writer) {
+        this.batchSize = batchSize;
+        this.writer = writer;
+    }
+
+    void add(long instId, long dateTime, Statement insert) {
+        long day = dateTime / DAY_MILLIS;
+        if (size > 0 && (instId != this.instId || day != this.day)) {
+            flush();
+        }
+        this.instId = instId;
+        this.day = day;
+        statement.add(insert);
+        if (++size >= batchSize) {
+            flush();
+        }
+    }
+
+    void flush() {
+        if (size == 0) {
+            return;
+        }
+        writer.execute(statement, size);
+        statement = new BatchStatement(BatchStatement.Type.UNLOGGED);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+}
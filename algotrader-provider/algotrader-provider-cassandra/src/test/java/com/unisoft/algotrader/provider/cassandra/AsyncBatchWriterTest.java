@@ -0,0 +1,116 @@
+package com.unisoft.algotrader.provider.cassandra;
+
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.Statement;
+import com.google.common.util.concurrent.SettableFuture;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+public class AsyncBatchWriterTest {
+
+    private final List<Statement> sent = new CopyOnWriteArrayList<>();
+    private final List<SettableFuture<Object>> futures = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService retryScheduler;
+
+    @Before
+    public void setup(){
+        retryScheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void teardown(){
+        retryScheduler.shutdownNow();
+    }
+
+    private AsyncBatchWriter writer(int maxInFlightBatches, int maxRetries){
+        return new AsyncBatchWriter(statement -> {
+            SettableFuture<Object> future = SettableFuture.create();
+            sent.add(statement);
+            futures.add(future);
+            return future;
+        }, retryScheduler, maxInFlightBatches, maxRetries, 1);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue("timed out", System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void test_block_when_max_in_flight() throws Exception {
+        AsyncBatchWriter writer = writer(2, 0);
+        writer.execute(new SimpleStatement("1"), 1);
+        writer.execute(new SimpleStatement("2"), 1);
+        assertEquals(2, writer.inFlight());
+
+        Thread caller = new Thread(() -> writer.execute(new SimpleStatement("3"), 1));
+        caller.start();
+        caller.join(100);
+        assertTrue(caller.isAlive());
+        assertEquals(2, sent.size());
+
+        futures.get(0).set(null);
+        caller.join(5000);
+        assertFalse(caller.isAlive());
+        assertEquals(3, sent.size());
+        assertEquals(2, writer.inFlight());
+
+        futures.get(1).set(null);
+        futures.get(2).set(null);
+        writer.awaitInFlight();
+        assertEquals(0, writer.inFlight());
+    }
+
+    @Test
+    public void test_retry_failed_batch() throws Exception {
+        AsyncBatchWriter writer = writer(2, 2);
+        Statement statement = new SimpleStatement("1");
+        writer.execute(statement, 1);
+
+        futures.get(0).setException(new RuntimeException("timeout"));
+        await(() -> sent.size() == 2);
+        assertSame(statement, sent.get(1));
+        // the retry keeps the permit of the batch
+        assertEquals(1, writer.inFlight());
+
+        futures.get(1).set(null);
+        assertEquals(0, writer.inFlight());
+        assertEquals(1, writer.retriedBatches());
+        assertEquals(0, writer.failedBatches());
+        writer.checkFailure();
+    }
+
+    @Test
+    public void test_failure_after_retries_is_thrown_to_caller() throws Exception {
+        AsyncBatchWriter writer = writer(2, 1);
+        writer.execute(new SimpleStatement("1"), 1);
+
+        RuntimeException cause = new RuntimeException("unavailable");
+        futures.get(0).setException(cause);
+        await(() -> sent.size() == 2);
+        futures.get(1).setException(cause);
+        await(() -> writer.failedBatches() == 1);
+        assertEquals(0, writer.inFlight());
+
+        try {
+            writer.execute(new SimpleStatement("2"), 1);
+            fail();
+        }
+        catch (IllegalStateException e) {
+            assertSame(cause, e.getCause());
+        }
+        assertEquals(2, sent.size());
+    }
+}
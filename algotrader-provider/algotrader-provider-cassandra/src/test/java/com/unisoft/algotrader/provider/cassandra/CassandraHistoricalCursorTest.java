@@ -0,0 +1,114 @@
+package com.unisoft.algotrader.provider.cassandra;
+
+import com.datastax.driver.core.Row;
+import com.google.common.collect.Lists;
+import com.unisoft.algotrader.model.event.data.DataType;
+import com.unisoft.algotrader.model.event.data.MarketDataContainer;
+import com.unisoft.algotrader.provider.data.HistoricalCursor;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The range and its order are applied by the select statements, the cursor walks the result set the driver pages
+ * through, counted here to check that nothing more is fetched once the cursor is closed.
+ */
+public class CassandraHistoricalCursorTest {
+
+    private static final long INST_ID = 1;
+
+    private static class CountingRows implements Iterable<Row> {
+        private final List<Row> rows;
+        private int fetched;
+
+        private CountingRows(List<Row> rows){
+            this.rows = rows;
+        }
+
+        @Override
+        public Iterator<Row> iterator() {
+            Iterator<Row> iterator = rows.iterator();
+            return new Iterator<Row>() {
+                @Override
+                public boolean hasNext() {
+                    fetched++;
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Row next() {
+                    fetched++;
+                    return iterator.next();
+                }
+            };
+        }
+    }
+
+    private static Row trade(long dateTime, double price, int size){
+        Row row = mock(Row.class);
+        when(row.getLong(0)).thenReturn(INST_ID);
+        when(row.getDate(1)).thenReturn(new Date(dateTime));
+        when(row.getDouble(2)).thenReturn(price);
+        when(row.getInt(3)).thenReturn(size);
+        return row;
+    }
+
+    private static CountingRows trades(int count){
+        List<Row> rows = Lists.newArrayList();
+        for (int i = 1; i <= count; i++) {
+            rows.add(trade(i * 1000, i, i * 10));
+        }
+        return new CountingRows(rows);
+    }
+
+    @Test
+    public void test_rows_in_result_order(){
+        List<MarketDataContainer> result = HistoricalCursor.toList(CassandraHistoricalDataStore.cursor(DataType.Trade, trades(3)));
+
+        assertEquals(3, result.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(INST_ID, result.get(i).instId);
+            assertEquals((i + 1) * 1000, result.get(i).trade.dateTime);
+            assertEquals(i + 1, result.get(i).trade.price, 0.0);
+            assertEquals((i + 1) * 10, result.get(i).trade.size);
+        }
+    }
+
+    @Test
+    public void test_empty_range(){
+        CountingRows rows = trades(0);
+        HistoricalCursor cursor = CassandraHistoricalDataStore.cursor(DataType.Trade, rows);
+
+        assertFalse(cursor.next());
+        assertFalse(cursor.next());
+        assertEquals(1, rows.fetched);
+    }
+
+    @Test
+    public void test_range_end_not_included(){
+        assertTrue(CassandraHistoricalDataStore.BAR_SELECT_STATEMENT.endsWith("AND datetime >= ? AND datetime < ?;"));
+        assertTrue(CassandraHistoricalDataStore.QUOTE_SELECT_STATEMENT.endsWith("AND datetime >= ? AND datetime < ?;"));
+        assertTrue(CassandraHistoricalDataStore.TRADE_SELECT_STATEMENT.endsWith("AND datetime >= ? AND datetime < ?;"));
+    }
+
+    @Test
+    public void test_close_stop_fetching(){
+        CountingRows rows = trades(3);
+        HistoricalCursor cursor = CassandraHistoricalDataStore.cursor(DataType.Trade, rows);
+        assertTrue(cursor.next());
+        int fetched = rows.fetched;
+
+        cursor.close();
+        assertFalse(cursor.next());
+        cursor.close();
+        assertEquals(fetched, rows.fetched);
+    }
+}
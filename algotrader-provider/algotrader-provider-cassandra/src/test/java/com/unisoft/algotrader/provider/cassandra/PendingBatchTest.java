@@ -0,0 +1,88 @@
+package com.unisoft.algotrader.provider.cassandra;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.Statement;
+import com.google.common.util.concurrent.Futures;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class PendingBatchTest {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final long T0 = 16_000 * DAY + 1000;
+
+    private final List<Statement> sent = new ArrayList<>();
+    private PendingBatch batch;
+
+    @Before
+    public void setup(){
+        AsyncBatchWriter writer = new AsyncBatchWriter(statement -> {
+            sent.add(statement);
+            return Futures.immediateFuture(null);
+        }, null, 4, 0, 0);
+        batch = new PendingBatch(3, writer);
+    }
+
+    private void add(long instId, long dateTime){
+        batch.add(instId, dateTime, new SimpleStatement("INSERT " + instId + " " + dateTime));
+    }
+
+    private int sentSize(int i){
+        return ((BatchStatement) sent.get(i)).getStatements().size();
+    }
+
+    @Test
+    public void test_cut_on_batch_size(){
+        add(1, T0);
+        add(1, T0 + 1);
+        assertEquals(0, sent.size());
+
+        add(1, T0 + 2);
+        assertEquals(1, sent.size());
+        assertEquals(3, sentSize(0));
+        assertEquals(0, batch.size());
+    }
+
+    @Test
+    public void test_cut_on_instrument_change(){
+        add(1, T0);
+        add(1, T0 + 1);
+        add(2, T0 + 2);
+
+        assertEquals(1, sent.size());
+        assertEquals(2, sentSize(0));
+        assertEquals(1, batch.size());
+    }
+
+    @Test
+    public void test_cut_on_day_change(){
+        add(1, T0);
+        add(1, T0 + DAY);
+
+        assertEquals(1, sent.size());
+        assertEquals(1, sentSize(0));
+        assertEquals(1, batch.size());
+    }
+
+    @Test
+    public void test_flush_sends_partial_batch_once(){
+        batch.flush();
+        assertEquals(0, sent.size());
+
+        add(1, T0);
+        add(1, T0 + 1);
+        batch.flush();
+        batch.flush();
+
+        assertEquals(1, sent.size());
+        assertEquals(2, sentSize(0));
+        assertEquals(0, batch.size());
+    }
+}
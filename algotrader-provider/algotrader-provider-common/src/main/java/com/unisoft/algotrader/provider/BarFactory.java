@@ -2,30 +2,129 @@ package com.unisoft.algotrader.provider;
 
 
 import com.lmax.disruptor.RingBuffer;
+import com.unisoft.algotrader.model.clock.Clock;
+import com.unisoft.algotrader.model.clock.Reminder;
+import com.unisoft.algotrader.model.clock.ReminderHandler;
 import com.unisoft.algotrader.model.event.Event;
 import com.unisoft.algotrader.model.event.data.*;
 import com.unisoft.algotrader.utils.threading.disruptor.MultiEventProcessor;
 import com.unisoft.algotrader.utils.threading.disruptor.waitstrategy.NoWaitStrategy;
+import gnu.trove.map.hash.TLongObjectHashMap;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
 /**
  * Created by alex on 5/21/15.
+ *
+ * Forwards the market data of the input ring buffer to the output one and builds bars from the trades or the quote
+ * mid prices of the instruments registered with the add*Bar methods: time bars aligned on their size (e.g. the
+ * SubscriptionKey.M1_SIZE to DAILY_SIZE buckets), tick, volume and range bars. The open bars of an instrument are
+ * kept in primitive arrays of its slot and a completed bar is written in place into the output ring buffer, nothing
+ * is allocated per tick. The published Bar.size tells the kind and size of the bar, see {@link BarType}, and the
+ * Bar.dateTime is the time the bar opened.
+ *
+ * A time bar closes on the first tick of a later bucket, or once the Clock passes its end so that the bars of
+ * illiquid instruments close on time: a single Clock reminder is kept at the earliest end of the open time bars. A
+ * real time clock hands it to the queue of the factory so the bars are closed on the factory thread, a simulation
+ * clock fires it on the thread setting its time, which is then to be the thread feeding the factory.
  */
-public class BarFactory extends MultiEventProcessor implements MarketDataHandler {
+public class BarFactory extends MultiEventProcessor implements MarketDataHandler, ReminderHandler {
 
     private static final Logger LOG = LogManager.getLogger(BarFactory.class);
 
+    private final Clock clock;
     private final RingBuffer<MarketDataContainer> outputRB;
+    private final TLongObjectHashMap<InstrumentBars> instruments = new TLongObjectHashMap<>();
+    private final List<InstrumentBars> slots = new ArrayList<>();
+    private long nextCloseTime = Long.MAX_VALUE;
+    private Reminder closeReminder;
 
     public BarFactory(RingBuffer<MarketDataContainer> inputRB, RingBuffer<MarketDataContainer> outputRB){
-        super(new NoWaitStrategy(), inputRB);
+        this(null, inputRB, outputRB);
+    }
+
+    /**
+     * @param clock drives the close of the time bars, bars are only closed by the ticks when null
+     */
+    public BarFactory(Clock clock, RingBuffer<MarketDataContainer> inputRB, RingBuffer<MarketDataContainer> outputRB){
+        super(new NoWaitStrategy(), clock != null ? new ConcurrentLinkedQueue<Event>() : null, inputRB);
+        this.clock = clock;
         this.outputRB = outputRB;
     }
 
+    /// BAR DEFINITIONS, to be added before the factory is started
+
+    public void addTimeBar(long instId, DataType source, int seconds){
+        addBar(instId, source, BarType.Time, seconds, seconds * 1000L, seconds);
+    }
+
+    public void addTickBar(long instId, DataType source, int ticks){
+        addBar(instId, source, BarType.Tick, ticks, 0, BarType.Tick.barSize(ticks));
+    }
+
+    public void addVolumeBar(long instId, DataType source, int volume){
+        addBar(instId, source, BarType.Volume, volume, 0, BarType.Volume.barSize(volume));
+    }
+
+    public void addRangeBar(long instId, DataType source, double range){
+        addBar(instId, source, BarType.Range, range, 0, BarType.rangeBarSize(range));
+    }
+
+    private void addBar(long instId, DataType source, BarType type, double threshold, long period, int barSize){
+        if (source != DataType.Trade && source != DataType.Quote) {
+            throw new IllegalArgumentException("bars are built from Trade or Quote, source=" + source);
+        }
+        if (type == BarType.Volume && source == DataType.Quote) {
+            // the mid prices of the quotes have no traded size, such a bar would never close
+            throw new IllegalArgumentException("volume bars are built from Trade only, instId=" + instId);
+        }
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("bar size must be positive, type=" + type + ", size=" + threshold);
+        }
+        InstrumentBars bars = instruments.get(instId);
+        if (bars == null) {
+            bars = new InstrumentBars(instId);
+            instruments.put(instId, bars);
+            slots.add(bars);
+        }
+        bars.add(source == DataType.Quote, type, threshold, period, barSize);
+    }
+
+    /// EVENTS
+
+    @Override
+    public void onEvent(Event event) {
+        event.on(this);
+    }
+
+    /**
+     * The Clock passed the earliest end of the open time bars.
+     */
+    @Override
+    public void onReminder(long dateTime, Object data) {
+        closeReminder = null;
+        closeTimeBars(Math.max(dateTime, clock.now()));
+    }
+
+    @Override
+    public Queue<? super Reminder> reminderQueue() {
+        return getQueue();
+    }
+
     @Override
     public void onMarketDataContainer(MarketDataContainer data) {
-        LOG.info("onMarketDataContainer");
+        if (data.hasQuote()) {
+            aggregateQuote(data.quote);
+        }
+        if (data.hasTrade()) {
+            aggregateTrade(data.trade);
+        }
         long sequence = outputRB.next();
 
         MarketDataContainer event = outputRB.get(sequence);
@@ -36,7 +135,6 @@ public class BarFactory extends MultiEventProcessor implements MarketDataHandler
 
     @Override
     public void onBar(Bar bar) {
-        LOG.info("onBar");
         long sequence = outputRB.next();
 
         MarketDataContainer event = outputRB.get(sequence);
@@ -47,6 +145,7 @@ public class BarFactory extends MultiEventProcessor implements MarketDataHandler
 
     @Override
     public void onQuote(Quote quote) {
+        aggregateQuote(quote);
         long sequence = outputRB.next();
 
         MarketDataContainer event = outputRB.get(sequence);
@@ -57,6 +156,7 @@ public class BarFactory extends MultiEventProcessor implements MarketDataHandler
 
     @Override
     public void onTrade(Trade trade) {
+        aggregateTrade(trade);
         long sequence = outputRB.next();
 
         MarketDataContainer event = outputRB.get(sequence);
@@ -65,9 +165,202 @@ public class BarFactory extends MultiEventProcessor implements MarketDataHandler
         outputRB.publish(sequence);
     }
 
+    /// AGGREGATION
 
-    @Override
-    public void onEvent(Event event) {
-        event.on(this);
+    private void aggregateTrade(Trade trade) {
+        InstrumentBars bars = instruments.get(trade.instId);
+        if (bars != null) {
+            bars.update(false, trade.dateTime, trade.price, trade.size);
+        }
+    }
+
+    private void aggregateQuote(Quote quote) {
+        InstrumentBars bars = instruments.get(quote.instId);
+        if (bars != null && quote.bid > 0 && quote.ask > 0) {
+            bars.update(true, quote.dateTime, (quote.bid + quote.ask) / 2, 0);
+        }
+    }
+
+    private void closeTimeBars(long now) {
+        nextCloseTime = Long.MAX_VALUE;
+        for (int i = 0; i < slots.size(); i++) {
+            slots.get(i).closeTimeBars(now);
+        }
+    }
+
+    /**
+     * Move the close reminder to the end of a time bar ending before it.
+     */
+    private void scheduleClose(long endTime) {
+        if (clock == null || endTime >= nextCloseTime) {
+            return;
+        }
+        if (closeReminder != null) {
+            clock.removeReminder(closeReminder);
+        }
+        nextCloseTime = endTime;
+        closeReminder = clock.addReminder(endTime, null, this);
+    }
+
+    private void publishBar(long instId, int barSize, long dateTime, double open, double high, double low, double close, long volume) {
+        if (LOG.isDebugEnabled()) LOG.debug("bar instId={}, barSize={}, dateTime={}, open={}, high={}, low={}, close={}, volume={}", instId, barSize, dateTime, open, high, low, close, volume);
+        long sequence = outputRB.next();
+
+        MarketDataContainer event = outputRB.get(sequence);
+        event.reset();
+        event.setBar(instId, barSize, dateTime, open, high, low, close, volume, 0);
+        outputRB.publish(sequence);
+    }
+
+    /**
+     * The bar definitions of an instrument and their open bar, one array element per definition.
+     */
+    private final class InstrumentBars {
+        private final long instId;
+        private int count;
+
+        private boolean[] fromQuotes = new boolean[0];
+        private BarType[] types = new BarType[0];
+        private double[] thresholds = new double[0];
+        private long[] periods = new long[0];
+        private int[] barSizes = new int[0];
+
+        private boolean[] opened = new boolean[0];
+        private long[] startTimes = new long[0];
+        private long[] endTimes = new long[0];
+        private double[] opens = new double[0];
+        private double[] highs = new double[0];
+        private double[] lows = new double[0];
+        private double[] closes = new double[0];
+        private long[] volumes = new long[0];
+        private long[] ticks = new long[0];
+
+        InstrumentBars(long instId) {
+            this.instId = instId;
+        }
+
+        void add(boolean fromQuote, BarType type, double threshold, long period, int barSize) {
+            for (int i = 0; i < count; i++) {
+                if (fromQuotes[i] == fromQuote && barSizes[i] == barSize) {
+                    return;
+                }
+            }
+            int i = count++;
+            fromQuotes = Arrays.copyOf(fromQuotes, count);
+            types = Arrays.copyOf(types, count);
+            thresholds = Arrays.copyOf(thresholds, count);
+            periods = Arrays.copyOf(periods, count);
+            barSizes = Arrays.copyOf(barSizes, count);
+            opened = Arrays.copyOf(opened, count);
+            startTimes = Arrays.copyOf(startTimes, count);
+            endTimes = Arrays.copyOf(endTimes, count);
+            opens = Arrays.copyOf(opens, count);
+            highs = Arrays.copyOf(highs, count);
+            lows = Arrays.copyOf(lows, count);
+            closes = Arrays.copyOf(closes, count);
+            volumes = Arrays.copyOf(volumes, count);
+            ticks = Arrays.copyOf(ticks, count);
+
+            fromQuotes[i] = fromQuote;
+            types[i] = type;
+            thresholds[i] = threshold;
+            periods[i] = period;
+            barSizes[i] = barSize;
+            endTimes[i] = Long.MIN_VALUE;
+        }
+
+        void update(boolean fromQuote, long dateTime, double price, long size) {
+            for (int i = 0; i < count; i++) {
+                if (fromQuotes[i] != fromQuote) {
+                    continue;
+                }
+                switch (types[i]) {
+                    case Time:
+                        if (opened[i] && dateTime >= endTimes[i]) {
+                            close(i);
+                        }
+                        if (!opened[i]) {
+                            // a late tick of a bucket closed by the clock goes to the next bucket
+                            long start = Math.max(dateTime - Math.floorMod(dateTime, periods[i]), endTimes[i]);
+                            open(i, start, price);
+                            endTimes[i] = start + periods[i];
+                            scheduleClose(endTimes[i]);
+                        }
+                        accumulate(i, price, size);
+                        break;
+
+                    case Tick:
+                        if (!opened[i]) {
+                            open(i, dateTime, price);
+                        }
+                        accumulate(i, price, size);
+                        if (ticks[i] >= thresholds[i]) {
+                            close(i);
+                        }
+                        break;
+
+                    case Volume:
+                        if (!opened[i]) {
+                            open(i, dateTime, price);
+                        }
+                        accumulate(i, price, size);
+                        if (volumes[i] >= thresholds[i]) {
+                            close(i);
+                        }
+                        break;
+
+                    case Range:
+                        if (opened[i] && Math.max(highs[i], price) - Math.min(lows[i], price) > thresholds[i]) {
+                            close(i);
+                        }
+                        if (!opened[i]) {
+                            open(i, dateTime, price);
+                        }
+                        accumulate(i, price, size);
+                        break;
+                }
+            }
+        }
+
+        void closeTimeBars(long now) {
+            for (int i = 0; i < count; i++) {
+                if (types[i] == BarType.Time && opened[i]) {
+                    if (endTimes[i] <= now) {
+                        close(i);
+                    }
+                    else {
+                        scheduleClose(endTimes[i]);
+                    }
+                }
+            }
+        }
+
+        private void open(int i, long dateTime, double price) {
+            opened[i] = true;
+            startTimes[i] = dateTime;
+            opens[i] = price;
+            highs[i] = price;
+            lows[i] = price;
+            closes[i] = price;
+            volumes[i] = 0;
+            ticks[i] = 0;
+        }
+
+        private void accumulate(int i, double price, long size) {
+            if (price > highs[i]) {
+                highs[i] = price;
+            }
+            if (price < lows[i]) {
+                lows[i] = price;
+            }
+            closes[i] = price;
+            volumes[i] += size;
+            ticks[i]++;
+        }
+
+        private void close(int i) {
+            opened[i] = false;
+            publishBar(instId, barSizes[i], startTimes[i], opens[i], highs[i], lows[i], closes[i], volumes[i]);
+        }
     }
 }
@@ -16,7 +16,9 @@ public enum ProviderId {
     Cassandra(5),
     InfluxDB(6),
     KDB(7),
-    IB(8);
+    IB(8),
+    MMap(9),
+    MarketDataFeed(10);
 
     public final int id;
 
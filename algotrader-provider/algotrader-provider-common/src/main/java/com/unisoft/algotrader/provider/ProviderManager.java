@@ -29,12 +29,15 @@ public class ProviderManager {
     private Map<ProviderId, HistoricalDataProvider> histDataProviderMap = Maps.newHashMap();
     private Map<ProviderId, RealTimeDataProvider> rtDataProviderMap = Maps.newHashMap();
 
+    // a provider of several kinds, e.g. the IBProvider, is added once per kind
     private void addProvider(Provider provider){
-        if (providerMap.containsKey(provider.providerId())) {
+        Provider registered = providerMap.get(provider.providerId());
+        if (registered != null && registered != provider) {
             throw new IllegalArgumentException("Provider id is registered, id=" + provider.providerId());
         }
         providerMap.put(provider.providerId(), provider);
-        if (providerIdMap.containsKey(provider.providerId().id)) {
+        registered = providerIdMap.get(provider.providerId().id);
+        if (registered != null && registered != provider) {
             throw new IllegalArgumentException("Provider id is registered, id=" + provider.providerId().id);
         }
         providerIdMap.put(provider.providerId().id, provider);
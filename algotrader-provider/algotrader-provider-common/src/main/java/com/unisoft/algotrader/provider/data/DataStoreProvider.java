@@ -7,4 +7,10 @@ import com.unisoft.algotrader.model.event.data.MarketDataHandler;
  */
 public interface DataStoreProvider extends MarketDataHandler, HistoricalDataProvider {
 
+    /**
+     * Write the market data buffered by the store, if any. Called by the thread feeding the store when it is idle.
+     */
+    default void flush(){
+
+    }
 }
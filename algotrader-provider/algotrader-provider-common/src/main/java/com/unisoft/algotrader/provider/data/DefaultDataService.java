@@ -28,6 +28,15 @@ public class DefaultDataService implements DataService {
         this.providerManager = providerManager;
     }
 
+    @Override
+    public HistoricalCursor openHistoricalData(HistoricalSubscriptionKey subscriptionKey) {
+        HistoricalDataProvider historicalDataProvider = providerManager.getHistoricalDataProvider(subscriptionKey.providerId);
+        if (historicalDataProvider != null){
+            return historicalDataProvider.openHistoricalData(subscriptionKey);
+        }
+        return null;
+    }
+
     @Override
     public List<MarketDataContainer> loadHistoricalData(HistoricalSubscriptionKey subscriptionKey) {
         HistoricalDataProvider historicalDataProvider = providerManager.getHistoricalDataProvider(subscriptionKey.providerId);
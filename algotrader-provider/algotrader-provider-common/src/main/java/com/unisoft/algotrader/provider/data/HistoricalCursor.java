@@ -0,0 +1,109 @@
+package com.unisoft.algotrader.provider.data;
+
+import com.google.common.collect.Lists;
+import com.unisoft.algotrader.model.event.bus.MarketDataEventBus;
+import com.unisoft.algotrader.model.event.data.MarketDataContainer;
+
+import java.util.List;
+
+/**
+ * Pull based, forward only iteration over the rows of a historical data request.
+ *
+ * Each {@link #next()} refills the same {@link MarketDataContainer} returned by {@link #current()}, so a row must
+ * be consumed (or copied) before moving to the next one. Rows are only read from the underlying store as the
+ * caller asks for them, and {@link #close()} can be called at any time to stop early and release the store
+ * resources (file, result set, connection).
+ */
+public interface HistoricalCursor extends AutoCloseable {
+
+    /**
+     * Move to the next row, returns false when there is no more row.
+     */
+    boolean next();
+
+    /**
+     * The current row, only valid until the next call to {@link #next()}.
+     */
+    MarketDataContainer current();
+
+    /**
+     * Release the underlying resources, closing more than once has no effect.
+     */
+    @Override
+    void close();
+
+    /**
+     * Cursor over rows which are already in memory.
+     */
+    static HistoricalCursor of(List<MarketDataContainer> list){
+        return new HistoricalCursor() {
+            private int index = -1;
+
+            @Override
+            public boolean next() {
+                if (list == null || index + 1 >= list.size()) {
+                    return false;
+                }
+                index++;
+                return true;
+            }
+
+            @Override
+            public MarketDataContainer current() {
+                return list.get(index);
+            }
+
+            @Override
+            public void close() {
+                index = list == null ? 0 : list.size();
+            }
+        };
+    }
+
+    /**
+     * Copy all the remaining rows into a list and close the cursor.
+     */
+    static List<MarketDataContainer> toList(HistoricalCursor cursor){
+        List<MarketDataContainer> list = Lists.newArrayList();
+        try {
+            while (cursor.next()) {
+                MarketDataContainer container = new MarketDataContainer();
+                container.copy(cursor.current());
+                list.add(container);
+            }
+        }
+        finally {
+            cursor.close();
+        }
+        return list;
+    }
+
+    /**
+     * Publish all the remaining rows to the event bus and close the cursor, returns the number of rows published.
+     */
+    static int publish(HistoricalCursor cursor, MarketDataEventBus marketDataEventBus){
+        int count = 0;
+        try {
+            while (cursor.next()) {
+                MarketDataContainer container = cursor.current();
+                if (container.hasBar()) {
+                    marketDataEventBus.publishBar(container.instId, container.bar.size, container.dateTime,
+                            container.bar.open, container.bar.high, container.bar.low, container.bar.close, container.bar.volume, container.bar.openInt);
+                }
+                if (container.hasQuote()) {
+                    marketDataEventBus.publishQuote(container.instId, container.dateTime,
+                            container.quote.bid, container.quote.ask, container.quote.bidSize, container.quote.askSize);
+                }
+                if (container.hasTrade()) {
+                    marketDataEventBus.publishTrade(container.instId, container.dateTime,
+                            container.trade.price, container.trade.size);
+                }
+                count++;
+            }
+        }
+        finally {
+            cursor.close();
+        }
+        return count;
+    }
+}
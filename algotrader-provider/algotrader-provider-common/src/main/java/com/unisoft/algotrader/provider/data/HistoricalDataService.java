@@ -9,7 +9,18 @@ import java.util.List;
  */
 public interface HistoricalDataService {
 
-    List<MarketDataContainer> loadHistoricalData(HistoricalSubscriptionKey subscriptionKey);
+    /**
+     * Stream the historical data row by row, the caller must close the cursor when it stops before the end.
+     */
+    HistoricalCursor openHistoricalData(HistoricalSubscriptionKey subscriptionKey);
+
+    /**
+     * Load all the historical data in memory, prefer {@link #openHistoricalData(HistoricalSubscriptionKey)} for large ranges.
+     */
+    default List<MarketDataContainer> loadHistoricalData(HistoricalSubscriptionKey subscriptionKey){
+        HistoricalCursor cursor = openHistoricalData(subscriptionKey);
+        return cursor != null ? HistoricalCursor.toList(cursor) : null;
+    }
 
     boolean subscribeHistoricalData(HistoricalSubscriptionKey subscriptionKey);
 
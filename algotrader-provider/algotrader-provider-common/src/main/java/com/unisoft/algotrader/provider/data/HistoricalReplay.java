@@ -0,0 +1,218 @@
+package com.unisoft.algotrader.provider.data;
+
+import com.unisoft.algotrader.model.event.bus.MarketDataEventBus;
+import com.unisoft.algotrader.model.event.data.MarketDataContainer;
+
+import java.util.List;
+
+/**
+ * Replay of many historical series (e.g. one per instrument) as a single chronologically ordered stream.
+ *
+ * One {@link HistoricalCursor} is opened per {@link HistoricalSubscriptionKey}, each source reads ahead a batch of
+ * rows into its own preallocated containers, and the head rows of the sources are merged with a min-heap on
+ * dateTime held in primitive arrays. Only one batch per source is in memory at any time.
+ *
+ * Rows with the same dateTime are emitted in the order of the subscription keys, and rows of one source keep
+ * their order, so the merged stream is deterministic.
+ */
+public class HistoricalReplay implements HistoricalCursor {
+
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final HistoricalDataService dataService;
+    private final HistoricalSubscriptionKey[] subscriptionKeys;
+    private final int batchSize;
+
+    private Source[] sources;
+
+    // min-heap of source indexes ordered by (dateTime, source index)
+    private long[] heapTimes;
+    private int[] heapSources;
+    private int heapSize;
+
+    private int current = -1;
+    private boolean closed = false;
+
+    public HistoricalReplay(HistoricalDataService dataService, List<HistoricalSubscriptionKey> subscriptionKeys){
+        this(dataService, subscriptionKeys, DEFAULT_BATCH_SIZE);
+    }
+
+    public HistoricalReplay(HistoricalDataService dataService, List<HistoricalSubscriptionKey> subscriptionKeys, int batchSize){
+        if (batchSize <= 0){
+            throw new IllegalArgumentException("batchSize must be > 0, batchSize=" + batchSize);
+        }
+        this.dataService = dataService;
+        this.subscriptionKeys = subscriptionKeys.toArray(new HistoricalSubscriptionKey[subscriptionKeys.size()]);
+        this.batchSize = batchSize;
+    }
+
+    private void open(){
+        int count = subscriptionKeys.length;
+        sources = new Source[count];
+        heapTimes = new long[count];
+        heapSources = new int[count];
+        for (int i = 0; i < count; i++){
+            HistoricalCursor cursor = dataService.openHistoricalData(subscriptionKeys[i]);
+            if (cursor == null){
+                continue;
+            }
+            sources[i] = new Source(cursor, batchSize);
+            if (sources[i].fill()){
+                push(sources[i].current().dateTime, i);
+            }
+        }
+    }
+
+    @Override
+    public boolean next() {
+        if (closed){
+            return false;
+        }
+        if (sources == null){
+            open();
+        }
+        else if (current >= 0){
+            Source source = sources[current];
+            if (source.advance()){
+                heapTimes[0] = source.current().dateTime;
+                siftDown(0);
+            }
+            else {
+                pop();
+            }
+        }
+        if (heapSize == 0){
+            close();
+            return false;
+        }
+        current = heapSources[0];
+        return true;
+    }
+
+    @Override
+    public MarketDataContainer current() {
+        return sources[current].current();
+    }
+
+    /**
+     * Publish the whole merged stream to the event bus, returns the number of rows published.
+     */
+    public int replay(MarketDataEventBus marketDataEventBus){
+        return HistoricalCursor.publish(this, marketDataEventBus);
+    }
+
+    @Override
+    public void close() {
+        if (closed){
+            return;
+        }
+        closed = true;
+        current = -1;
+        heapSize = 0;
+        if (sources != null){
+            for (Source source : sources){
+                if (source != null){
+                    source.cursor.close();
+                }
+            }
+        }
+    }
+
+    private boolean less(int i, int j){
+        return heapTimes[i] < heapTimes[j] || (heapTimes[i] == heapTimes[j] && heapSources[i] < heapSources[j]);
+    }
+
+    private void swap(int i, int j){
+        long time = heapTimes[i];
+        heapTimes[i] = heapTimes[j];
+        heapTimes[j] = time;
+        int source = heapSources[i];
+        heapSources[i] = heapSources[j];
+        heapSources[j] = source;
+    }
+
+    private void push(long dateTime, int source){
+        int i = heapSize++;
+        heapTimes[i] = dateTime;
+        heapSources[i] = source;
+        while (i > 0){
+            int parent = (i - 1) >>> 1;
+            if (!less(i, parent)){
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void pop(){
+        heapSize--;
+        if (heapSize > 0){
+            heapTimes[0] = heapTimes[heapSize];
+            heapSources[0] = heapSources[heapSize];
+            siftDown(0);
+        }
+    }
+
+    private void siftDown(int i){
+        while (true){
+            int left = 2 * i + 1;
+            if (left >= heapSize){
+                return;
+            }
+            int smallest = left;
+            int right = left + 1;
+            if (right < heapSize && less(right, left)){
+                smallest = right;
+            }
+            if (!less(smallest, i)){
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    /**
+     * One series of the replay, rows are copied from the cursor a batch at a time.
+     */
+    private static final class Source {
+        private final HistoricalCursor cursor;
+        private final MarketDataContainer[] batch;
+        private int size;
+        private int pos;
+
+        private Source(HistoricalCursor cursor, int batchSize){
+            this.cursor = cursor;
+            this.batch = new MarketDataContainer[batchSize];
+            for (int i = 0; i < batchSize; i++){
+                batch[i] = new MarketDataContainer();
+            }
+        }
+
+        private boolean fill(){
+            size = 0;
+            pos = 0;
+            while (size < batch.length && cursor.next()){
+                MarketDataContainer container = batch[size++];
+                container.reset();
+                container.copy(cursor.current());
+            }
+            if (size < batch.length){
+                cursor.close();
+            }
+            return size > 0;
+        }
+
+        private boolean advance(){
+            if (++pos < size){
+                return true;
+            }
+            return size == batch.length && fill();
+        }
+
+        private MarketDataContainer current(){
+            return batch[pos];
+        }
+    }
+}
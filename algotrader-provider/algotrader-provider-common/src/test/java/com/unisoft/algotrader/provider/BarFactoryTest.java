@@ -0,0 +1,243 @@
+package com.unisoft.algotrader.provider;
+
+import com.lmax.disruptor.RingBuffer;
+import com.unisoft.algotrader.model.clock.SimulationClock;
+import com.unisoft.algotrader.model.event.data.Bar;
+import com.unisoft.algotrader.model.event.data.BarType;
+import com.unisoft.algotrader.model.event.data.DataType;
+import com.unisoft.algotrader.model.event.data.MarketDataContainer;
+import com.unisoft.algotrader.model.event.data.Quote;
+import com.unisoft.algotrader.model.event.data.Trade;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class BarFactoryTest {
+
+    private static final long INST_ID = 1;
+    // aligned on the minute
+    private static final long T0 = 23_333_333L * 60_000;
+
+    private SimulationClock clock;
+    private RingBuffer<MarketDataContainer> outputRB;
+    private BarFactory barFactory;
+    private long read;
+
+    @Before
+    public void setup(){
+        clock = new SimulationClock();
+        clock.setDateTime(T0);
+        outputRB = RingBuffer.createSingleProducer(MarketDataContainer.FACTORY, 256);
+        barFactory = new BarFactory(clock, RingBuffer.createSingleProducer(MarketDataContainer.FACTORY, 16), outputRB);
+    }
+
+    private void trade(long dateTime, double price, int size){
+        MarketDataContainer container = new MarketDataContainer();
+        container.setTrade(new Trade(INST_ID, dateTime, price, size));
+        barFactory.onEvent(container);
+    }
+
+    private void quote(long dateTime, double bid, double ask){
+        MarketDataContainer container = new MarketDataContainer();
+        container.setQuote(new Quote(INST_ID, dateTime, bid, ask, 10, 10));
+        barFactory.onEvent(container);
+    }
+
+    /**
+     * The bars published since the last call.
+     */
+    private List<Bar> bars(){
+        List<Bar> bars = new ArrayList<>();
+        for (long cursor = outputRB.getCursor(); read <= cursor; read++){
+            MarketDataContainer container = outputRB.get(read);
+            if (container.hasBar()){
+                bars.add(new Bar(container.bar));
+            }
+        }
+        return bars;
+    }
+
+    private static void assertBar(Bar bar, int size, long dateTime, double open, double high, double low, double close, long volume){
+        assertEquals(INST_ID, bar.instId);
+        assertEquals(size, bar.size);
+        assertEquals(dateTime, bar.dateTime);
+        assertEquals(open, bar.open, 1e-9);
+        assertEquals(high, bar.high, 1e-9);
+        assertEquals(low, bar.low, 1e-9);
+        assertEquals(close, bar.close, 1e-9);
+        assertEquals(volume, bar.volume);
+    }
+
+    @Test
+    public void test_time_bar_aligned_and_closed_by_later_bucket(){
+        barFactory.addTimeBar(INST_ID, DataType.Trade, 60);
+
+        trade(T0 + 5_000, 10, 100);
+        trade(T0 + 30_000, 12, 200);
+        trade(T0 + 59_999, 9, 300);
+        assertEquals(0, bars().size());
+
+        trade(T0 + 60_000, 11, 400);
+        List<Bar> bars = bars();
+        assertEquals(1, bars.size());
+        assertBar(bars.get(0), 60, T0, 10, 12, 9, 9, 600);
+
+        // an empty bucket is skipped, the next bar opens in the bucket of its first tick
+        trade(T0 + 185_000, 13, 100);
+        bars = bars();
+        assertEquals(1, bars.size());
+        assertBar(bars.get(0), 60, T0 + 60_000, 11, 11, 11, 11, 400);
+        trade(T0 + 240_000, 13, 100);
+        assertBar(bars().get(0), 60, T0 + 180_000, 13, 13, 13, 13, 100);
+    }
+
+    @Test
+    public void test_time_bar_closed_by_clock_and_late_tick(){
+        barFactory.addTimeBar(INST_ID, DataType.Trade, 60);
+
+        trade(T0 + 5_000, 10, 100);
+        clock.setDateTime(T0 + 59_999);
+        assertEquals(0, bars().size());
+
+        clock.setDateTime(T0 + 60_000);
+        List<Bar> bars = bars();
+        assertEquals(1, bars.size());
+        assertBar(bars.get(0), 60, T0, 10, 10, 10, 10, 100);
+
+        // a late tick of the closed bucket goes to the next one
+        trade(T0 + 59_000, 11, 50);
+        trade(T0 + 70_000, 12, 60);
+        assertEquals(0, bars().size());
+
+        clock.setDateTime(T0 + 120_000);
+        bars = bars();
+        assertEquals(1, bars.size());
+        assertBar(bars.get(0), 60, T0 + 60_000, 11, 12, 11, 12, 110);
+    }
+
+    @Test
+    public void test_clock_reminder_after_bar_closed_by_tick(){
+        barFactory.addTimeBar(INST_ID, DataType.Trade, 60);
+
+        trade(T0 + 5_000, 10, 100);
+        trade(T0 + 65_000, 11, 200);
+        assertEquals(1, bars().size());
+
+        // the reminder of the first bar closes nothing and moves to the end of the open one
+        clock.setDateTime(T0 + 60_000);
+        assertEquals(0, bars().size());
+
+        clock.setDateTime(T0 + 119_999);
+        assertEquals(0, bars().size());
+        clock.setDateTime(T0 + 120_000);
+        List<Bar> bars = bars();
+        assertEquals(1, bars.size());
+        assertBar(bars.get(0), 60, T0 + 60_000, 11, 11, 11, 11, 200);
+    }
+
+    @Test
+    public void test_earliest_time_bar_end_closes_first(){
+        barFactory.addTimeBar(INST_ID, DataType.Trade, 300);
+        barFactory.addTimeBar(INST_ID, DataType.Trade, 60);
+
+        trade(T0 + 5_000, 10, 100);
+        clock.setDateTime(T0 + 60_000);
+        List<Bar> bars = bars();
+        assertEquals(1, bars.size());
+        assertBar(bars.get(0), 60, T0, 10, 10, 10, 10, 100);
+
+        // T0 is 3 minutes into its 5 minute bucket
+        clock.setDateTime(T0 + 119_999);
+        assertEquals(0, bars().size());
+        clock.setDateTime(T0 + 120_000);
+        bars = bars();
+        assertEquals(1, bars.size());
+        assertBar(bars.get(0), 300, T0 - 180_000, 10, 10, 10, 10, 100);
+    }
+
+    @Test
+    public void test_tick_bar(){
+        barFactory.addTickBar(INST_ID, DataType.Trade, 3);
+
+        trade(T0 + 1, 10, 1);
+        trade(T0 + 2, 11, 1);
+        assertEquals(0, bars().size());
+        trade(T0 + 3, 9, 1);
+        trade(T0 + 4, 8, 1);
+
+        List<Bar> bars = bars();
+        assertEquals(1, bars.size());
+        assertBar(bars.get(0), BarType.Tick.barSize(3), T0 + 1, 10, 11, 9, 9, 3);
+    }
+
+    @Test
+    public void test_volume_bar(){
+        barFactory.addVolumeBar(INST_ID, DataType.Trade, 100);
+
+        trade(T0 + 1, 10, 40);
+        trade(T0 + 2, 11, 40);
+        assertEquals(0, bars().size());
+        trade(T0 + 3, 12, 30);
+
+        List<Bar> bars = bars();
+        assertEquals(1, bars.size());
+        assertBar(bars.get(0), BarType.Volume.barSize(100), T0 + 1, 10, 12, 10, 12, 110);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_volume_bar_from_quotes_rejected(){
+        barFactory.addVolumeBar(INST_ID, DataType.Quote, 100);
+    }
+
+    @Test
+    public void test_range_bar(){
+        barFactory.addRangeBar(INST_ID, DataType.Trade, 0.5);
+
+        trade(T0 + 1, 10, 1);
+        trade(T0 + 2, 10.3, 1);
+        // a range of exactly 0.5 stays in the bar
+        trade(T0 + 3, 10.5, 1);
+        assertEquals(0, bars().size());
+
+        // the tick which would exceed the range opens the next bar
+        trade(T0 + 4, 10.6, 1);
+        List<Bar> bars = bars();
+        assertEquals(1, bars.size());
+        assertBar(bars.get(0), BarType.rangeBarSize(0.5), T0 + 1, 10, 10.5, 10, 10.5, 3);
+
+        trade(T0 + 5, 10, 1);
+        bars = bars();
+        assertEquals(1, bars.size());
+        assertBar(bars.get(0), BarType.rangeBarSize(0.5), T0 + 4, 10.6, 10.6, 10.6, 10.6, 1);
+    }
+
+    @Test
+    public void test_several_bars_per_instrument(){
+        barFactory.addTimeBar(INST_ID, DataType.Trade, 60);
+        barFactory.addTickBar(INST_ID, DataType.Trade, 2);
+        barFactory.addTickBar(INST_ID, DataType.Quote, 2);
+        // the same definition again is ignored
+        barFactory.addTickBar(INST_ID, DataType.Trade, 2);
+
+        trade(T0 + 1_000, 10, 100);
+        quote(T0 + 2_000, 10, 11);
+        trade(T0 + 3_000, 12, 100);
+        List<Bar> bars = bars();
+        assertEquals(1, bars.size());
+        assertBar(bars.get(0), BarType.Tick.barSize(2), T0 + 1_000, 10, 12, 10, 12, 200);
+
+        quote(T0 + 4_000, 11, 13);
+        bars = bars();
+        assertEquals(1, bars.size());
+        assertBar(bars.get(0), BarType.Tick.barSize(2), T0 + 2_000, 10.5, 12, 10.5, 12, 0);
+
+        trade(T0 + 61_000, 11, 100);
+        bars = bars();
+        assertEquals(1, bars.size());
+        assertBar(bars.get(0), 60, T0, 10, 12, 10, 12, 200);
+    }
+}
@@ -3,7 +3,6 @@ package com.unisoft.algotrader.provider.csv;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
-import com.google.common.collect.Lists;
 import com.unisoft.algotrader.model.event.bus.MarketDataEventBus;
 import com.unisoft.algotrader.model.event.data.Bar;
 import com.unisoft.algotrader.model.event.data.MarketDataContainer;
@@ -14,6 +13,7 @@ import com.unisoft.algotrader.persistence.RefDataStore;
 import com.unisoft.algotrader.provider.ProviderId;
 import com.unisoft.algotrader.provider.ProviderManager;
 import com.unisoft.algotrader.provider.data.AbstractDataStoreProvider;
+import com.unisoft.algotrader.provider.data.HistoricalCursor;
 import com.unisoft.algotrader.provider.data.HistoricalSubscriptionKey;
 import com.unisoft.algotrader.provider.data.SubscriptionKey;
 import com.univocity.parsers.csv.CsvParser;
@@ -24,7 +24,6 @@ import com.univocity.parsers.csv.CsvWriterSettings;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.io.*;
-import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.unisoft.algotrader.provider.csv.CSVUtils.*;
@@ -163,7 +162,7 @@ public class CSVHistoricalDataStore extends AbstractDataStoreProvider{
         }
     }
 
-    private Reader getReader(HistoricalSubscriptionKey subscriptionKey) {
+    protected Reader getReader(HistoricalSubscriptionKey subscriptionKey) {
         try {
 
             Instrument instrument = refDataStore.getInstrument(subscriptionKey.instId);
@@ -201,110 +200,78 @@ public class CSVHistoricalDataStore extends AbstractDataStoreProvider{
     }
 
     @Override
-    public List<MarketDataContainer> loadHistoricalData(HistoricalSubscriptionKey subscriptionKey) {
-        long fromDateTime = subscriptionKey.fromDate;
-        long toDateTime = subscriptionKey.toDate;
-        CsvParser parser = new CsvParser(settings);
-
-        Reader reader = getReader(subscriptionKey);
-
-        List<MarketDataContainer> result = Lists.newArrayList();
-        switch (subscriptionKey.subscriptionType.type) {
-            case Bar:
-                result = loadBar(subscriptionKey, parser, reader, fromDateTime, toDateTime);
-                break;
-
-            case Trade:
-                result = loadTrade(subscriptionKey, parser, reader, fromDateTime, toDateTime);
-                break;
-
-            case Quote:
-                result = loadQuote(subscriptionKey, parser, reader, fromDateTime, toDateTime);
-                break;
-        }
-        return result;
+    public HistoricalCursor openHistoricalData(HistoricalSubscriptionKey subscriptionKey) {
+        return new CSVCursor(subscriptionKey, getReader(subscriptionKey));
     }
 
-    private List<MarketDataContainer> loadBar(HistoricalSubscriptionKey subscriptionKey, CsvParser parser, Reader reader, long fromDateTime, long toDateTime){
+    /**
+     * Parse the file one row at a time into a reused container, from fromDate included to toDate excluded like
+     * the database stores. Closing stops the parser, which closes the reader.
+     */
+    private class CSVCursor implements HistoricalCursor {
+
+        private final HistoricalSubscriptionKey subscriptionKey;
+        private final CsvParser parser;
+        private final MarketDataContainer container = new MarketDataContainer();
+        private boolean closed = false;
+
+        private CSVCursor(HistoricalSubscriptionKey subscriptionKey, Reader reader){
+            this.subscriptionKey = subscriptionKey;
+            this.parser = new CsvParser(settings);
+            this.parser.beginParsing(reader);
+        }
 
-        try {
-            List<MarketDataContainer> list = Lists.newArrayList();
-            List<String[]> allRows = parser.parseAll(reader);
-            for (String[] row : allRows) {
-                //long time = FORMAT.parse(row[0]).getTime();
+        @Override
+        public boolean next() {
+            if (closed) {
+                return false;
+            }
+            String[] row;
+            while ((row = parser.parseNext()) != null) {
                 long time = Long.parseLong(row[0]);
-                if (time < fromDateTime)
-                    continue;
-                if (time > toDateTime)
-                    break;
-
-                MarketDataContainer container = new MarketDataContainer();
-                container.setBar(subscriptionKey.instId, subscriptionKey.subscriptionType.barSize, time,
-                        Double.parseDouble(row[1]), Double.parseDouble(row[2]), Double.parseDouble(row[3]), Double.parseDouble(row[4]), Long.parseLong(row[5]), 0);
-
-                list.add(container);
+                if (lt(time, subscriptionKey.fromDate)) continue;
+                if (ge(time, subscriptionKey.toDate)) break;
+                setRow(time, row);
+                return true;
             }
-            return list;
-        }
-        catch (Exception e){
-            throw new RuntimeException(e);
+            close();
+            return false;
         }
-    }
 
-    private List<MarketDataContainer> loadQuote(HistoricalSubscriptionKey subscriptionKey, CsvParser parser, Reader reader, long fromDateTime, long toDateTime){
-
-        try {
-            List<MarketDataContainer> list = Lists.newArrayList();
-            List<String[]> allRows = parser.parseAll(reader);
-            for (String[] row : allRows) {
-                //long time = FORMAT.parse(row[0]).getTime();
-                long time = Long.parseLong(row[0]);
-                if (time < fromDateTime)
-                    continue;
-                if (time > toDateTime)
+        private void setRow(long time, String[] row){
+            container.reset();
+            switch (subscriptionKey.subscriptionType.type) {
+                case Bar:
+                    container.setBar(subscriptionKey.instId, subscriptionKey.subscriptionType.barSize, time,
+                            Double.parseDouble(row[1]), Double.parseDouble(row[2]), Double.parseDouble(row[3]), Double.parseDouble(row[4]), Long.parseLong(row[5]), 0);
                     break;
-
-                MarketDataContainer container = new MarketDataContainer();
-                container.setQuote(subscriptionKey.instId, time,
-                        Double.parseDouble(row[1]), Double.parseDouble(row[2]), Integer.parseInt(row[3]), Integer.parseInt(row[4]));
-
-                list.add(container);
+                case Trade:
+                    container.setTrade(subscriptionKey.instId, time,
+                            Double.parseDouble(row[1]), Integer.parseInt(row[2]));
+                    break;
+                case Quote:
+                    container.setQuote(subscriptionKey.instId, time,
+                            Double.parseDouble(row[1]), Double.parseDouble(row[2]), Integer.parseInt(row[3]), Integer.parseInt(row[4]));
+                    break;
+                default:
+                    throw new UnsupportedOperationException();
             }
-            return list;
-        }
-        catch (Exception e){
-            throw new RuntimeException(e);
         }
-    }
-
-
-    private List<MarketDataContainer> loadTrade(HistoricalSubscriptionKey subscriptionKey, CsvParser parser, Reader reader, long fromDateTime, long toDateTime){
-
-        try {
-            List<MarketDataContainer> list = Lists.newArrayList();
-            List<String[]> allRows = parser.parseAll(reader);
-            for (String[] row : allRows) {
-                //long time = FORMAT.parse(row[0]).getTime();
-                long time = Long.parseLong(row[0]);
-                if (time < fromDateTime)
-                    continue;
-                if (time > toDateTime)
-                    break;
 
-                MarketDataContainer container = new MarketDataContainer();
-                container.setTrade(subscriptionKey.instId, time,
-                        Double.parseDouble(row[1]), Integer.parseInt(row[2]));
+        @Override
+        public MarketDataContainer current() {
+            return container;
+        }
 
-                list.add(container);
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                parser.stopParsing();
             }
-            return list;
-        }
-        catch (Exception e){
-            throw new RuntimeException(e);
         }
     }
 
-
     protected void publishBar(SubscriptionKey subscriptionKey, CsvParser parser, Reader reader, long fromDateTime, long toDateTime) {
         try {
             parser.beginParsing(reader);
@@ -313,7 +280,7 @@ public class CSVHistoricalDataStore extends AbstractDataStoreProvider{
                 //long time = FORMAT.parse(row[0]).getTime();
                 long time = Long.parseLong(row[0]);
                 if (lt(time, fromDateTime)) continue;
-                if (gt(time, toDateTime)) break;
+                if (ge(time, toDateTime)) break;
                 marketDataEventBus.publishBar(subscriptionKey.instId, subscriptionKey.subscriptionType.barSize, time,
                         Double.parseDouble(row[1]), Double.parseDouble(row[2]), Double.parseDouble(row[3]), Double.parseDouble(row[4]), Long.parseLong(row[5]), 0);
             }
@@ -345,7 +312,7 @@ public class CSVHistoricalDataStore extends AbstractDataStoreProvider{
                 long time = Long.parseLong(row[0]);
 
                 if (lt(time, fromDateTime)) continue;
-                if (gt(time, toDateTime)) break;
+                if (ge(time, toDateTime)) break;
                 marketDataEventBus.publishQuote(subscriptionKey.instId, time,
                         Double.parseDouble(row[1]), Double.parseDouble(row[2]), Integer.parseInt(row[3]), Integer.parseInt(row[4]));
             }
@@ -365,7 +332,7 @@ public class CSVHistoricalDataStore extends AbstractDataStoreProvider{
                 long time = Long.parseLong(row[0]);
 
                 if (lt(time, fromDateTime)) continue;
-                if (gt(time, toDateTime)) break;
+                if (ge(time, toDateTime)) break;
                 marketDataEventBus.publishTrade(subscriptionKey.instId, time,
                         Double.parseDouble(row[1]), Integer.parseInt(row[2]));
             }
@@ -380,7 +347,7 @@ public class CSVHistoricalDataStore extends AbstractDataStoreProvider{
         return (time < fromDateTime);
     }
 
-    boolean gt(long time, long toDateTime){
-        return (time > toDateTime);
+    boolean ge(long time, long toDateTime){
+        return (time >= toDateTime);
     }
 }
@@ -0,0 +1,121 @@
+package com.unisoft.algotrader.provider.csv;
+
+import com.unisoft.algotrader.model.event.bus.MarketDataEventBus;
+import com.unisoft.algotrader.model.event.data.Bar;
+import com.unisoft.algotrader.model.event.data.MarketDataContainer;
+import com.unisoft.algotrader.model.refdata.Instrument;
+import com.unisoft.algotrader.persistence.InMemoryRefDataStore;
+import com.unisoft.algotrader.provider.ProviderManager;
+import com.unisoft.algotrader.provider.data.HistoricalCursor;
+import com.unisoft.algotrader.provider.data.HistoricalSubscriptionKey;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class CSVHistoricalCursorTest {
+
+    private static final long INST_ID = 1;
+    private static final int BAR_SIZE = 60;
+
+    private File dir;
+    private TrackingReader reader;
+    private CSVHistoricalDataStore store;
+
+    private static class TrackingReader extends FilterReader {
+        private boolean closed = false;
+
+        private TrackingReader(Reader in){
+            super(in);
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+
+    @Before
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("csv").toFile();
+        InMemoryRefDataStore refDataStore = new InMemoryRefDataStore();
+        refDataStore.saveInstrument(new Instrument(INST_ID, Instrument.InstType.Stock, "0005.HK", "HSBC", "HKEX", "HKD"));
+        store = new CSVHistoricalDataStore(mock(ProviderManager.class), new CSVConfig(dir.getPath()), refDataStore, mock(MarketDataEventBus.class)){
+            @Override
+            protected Reader getReader(HistoricalSubscriptionKey subscriptionKey) {
+                reader = new TrackingReader(super.getReader(subscriptionKey));
+                return reader;
+            }
+        };
+        store.connect();
+        for (int i = 1; i <= 5; i++) {
+            store.onBar(new Bar(INST_ID, BAR_SIZE, i * 1000, i, i, i, i));
+        }
+        store.disconnect();
+    }
+
+    @After
+    public void teardown(){
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+
+    private HistoricalCursor open(long fromDate, long toDate){
+        return store.openHistoricalData(HistoricalSubscriptionKey.createBarSubscriptionKey(store.providerId().id, INST_ID, BAR_SIZE, fromDate, toDate));
+    }
+
+    @Test
+    public void test_rows_in_time_order(){
+        List<MarketDataContainer> result = HistoricalCursor.toList(open(0, 10000));
+
+        assertEquals(5, result.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals((i + 1) * 1000, result.get(i).bar.dateTime);
+            assertEquals(i + 1, result.get(i).bar.close, 0.0);
+        }
+    }
+
+    @Test
+    public void test_empty_range(){
+        HistoricalCursor cursor = open(2500, 2900);
+        assertFalse(cursor.next());
+        assertTrue(reader.closed);
+
+        assertTrue(HistoricalCursor.toList(open(6000, 7000)).isEmpty());
+    }
+
+    @Test
+    public void test_range_end_not_included(){
+        List<MarketDataContainer> result = HistoricalCursor.toList(open(2000, 4000));
+
+        assertEquals(2, result.size());
+        assertEquals(2000, result.get(0).bar.dateTime);
+        assertEquals(3000, result.get(1).bar.dateTime);
+    }
+
+    @Test
+    public void test_close_release_the_file(){
+        HistoricalCursor cursor = open(0, 10000);
+        assertTrue(cursor.next());
+        assertFalse(reader.closed);
+
+        cursor.close();
+        assertTrue(reader.closed);
+        assertFalse(cursor.next());
+        cursor.close();
+    }
+}
@@ -8,6 +8,7 @@ import com.unisoft.algotrader.persistence.RefDataStore;
 import com.unisoft.algotrader.provider.ProviderId;
 import com.unisoft.algotrader.provider.ProviderManager;
 import com.unisoft.algotrader.provider.data.AbstractHistoricalDataProvider;
+import com.unisoft.algotrader.provider.data.HistoricalCursor;
 import com.unisoft.algotrader.provider.data.HistoricalSubscriptionKey;
 import com.unisoft.algotrader.provider.data.SubscriptionKey;
 import org.apache.logging.log4j.LogManager;
@@ -96,6 +97,11 @@ public class GoogleHistoricalDataProvider extends AbstractHistoricalDataProvider
         return true;
     }
 
+    @Override
+    public HistoricalCursor openHistoricalData(HistoricalSubscriptionKey subscriptionKey) {
+        return HistoricalCursor.of(loadHistoricalData(subscriptionKey));
+    }
+
     @Override
     public List<MarketDataContainer> loadHistoricalData(HistoricalSubscriptionKey subscriptionKey) {
         List<MarketDataContainer> list = Lists.newArrayList();
@@ -1,6 +1,9 @@
 package com.unisoft.algotrader.provider.ib;
 
 import com.google.common.base.Objects;
+import com.unisoft.algotrader.model.event.data.DataType;
+import com.unisoft.algotrader.provider.data.MarketDepthSubscriptionKey;
+import com.unisoft.algotrader.provider.data.SubscriptionKey;
 
 /**
  * Created by alex on 9/14/15.
@@ -8,6 +11,7 @@ import com.google.common.base.Objects;
 public class DataRecord {
 
     protected final long instId;
+    protected final SubscriptionKey subscriptionKey;
     protected double bid = 0.0;
     protected double ask = 0.0;
     protected double last = 0.0;
@@ -28,6 +32,16 @@ public class DataRecord {
 
     public DataRecord(final long instId){
         this.instId = instId;
+        this.subscriptionKey = null;
+    }
+
+    public DataRecord(final SubscriptionKey subscriptionKey){
+        this.instId = subscriptionKey.instId;
+        this.subscriptionKey = subscriptionKey;
+        if (!(subscriptionKey instanceof MarketDepthSubscriptionKey)) {
+            this.quoteRequested = subscriptionKey.subscriptionType.type == DataType.Quote;
+            this.tradeRequested = subscriptionKey.subscriptionType.type == DataType.Trade;
+        }
     }
 
     @Override
@@ -52,10 +52,10 @@ public class EventInputStreamConsumer implements Runnable {
 
     private void consumeMessage() {
         final int messageId = readInt(inputStream);
-        final IncomingMessageId incomingMessageId = IncomingMessageId.fromId(messageId);
-        LOG.info("consumeMessage, incomingMessageId {}", incomingMessageId);
+        if (LOG.isDebugEnabled())
+            LOG.debug("consumeMessage, incomingMessageId {}", IncomingMessageId.fromId(messageId));
         final Deserializer serializer =
-                deserializers.getDeserializer(incomingMessageId);
+                deserializers.getDeserializer(messageId);
         serializer.consume(inputStream, eventHandler);
     }
 
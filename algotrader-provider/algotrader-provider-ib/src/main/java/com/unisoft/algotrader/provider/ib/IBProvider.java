@@ -118,6 +118,10 @@ public class IBProvider extends MultiEventProcessor implements IBEventHandler, R
         return ibSocket;
     }
 
+    public SubscriptionRegistry getSubscriptionRegistry() {
+        return subscriptionRegistry;
+    }
+
     private int nextRequestId(){
         return requestId.getAndIncrement();
     }
@@ -166,6 +170,11 @@ public class IBProvider extends MultiEventProcessor implements IBEventHandler, R
         return false;
     }
 
+    @Override
+    public HistoricalCursor openHistoricalData(HistoricalSubscriptionKey subscriptionKey) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public List<MarketDataContainer> loadHistoricalData(HistoricalSubscriptionKey subscriptionKey) {
         throw new UnsupportedOperationException();
@@ -240,7 +249,7 @@ public class IBProvider extends MultiEventProcessor implements IBEventHandler, R
                         eventBusManager.getMarketDataEventBus().publishQuote(record.instId, System.currentTimeMillis(), record.bid, record.ask, record.bidSize, record.askSize);
                     }
                 }
-
+                break;
             case LAST_PRICE:
             case LAST_SIZE:
                 if (record.tradeRequested) {
@@ -248,7 +257,7 @@ public class IBProvider extends MultiEventProcessor implements IBEventHandler, R
                         eventBusManager.getMarketDataEventBus().publishTrade(record.instId, System.currentTimeMillis(), record.last, record.lastSize);
                     }
                 }
-
+                break;
         }
     }
 
@@ -260,9 +269,8 @@ public class IBProvider extends MultiEventProcessor implements IBEventHandler, R
 
     @Override
     public void onTickSizeEvent(long requestId, TickType tickType, int size) {
-        Optional<DataRecord> optional = subscriptionRegistry.getDataRecord(requestId);
-        if (optional.isPresent()){
-            DataRecord record = optional.get();
+        DataRecord record = subscriptionRegistry.getRecord(requestId);
+        if (record != null){
             int prevSize = size;
             switch (tickType){
                 case BID_SIZE:
@@ -296,9 +304,8 @@ public class IBProvider extends MultiEventProcessor implements IBEventHandler, R
 
     @Override
     public void onTickPriceEvent(long requestId, TickType tickType, double price, boolean autoExecute) {
-        Optional<DataRecord> optional = subscriptionRegistry.getDataRecord(requestId);
-        if (optional.isPresent()){
-            DataRecord record = optional.get();
+        DataRecord record = subscriptionRegistry.getRecord(requestId);
+        if (record != null){
             double prevPrice = price;
             switch (tickType){
                 case BID_PRICE:
@@ -341,10 +348,9 @@ public class IBProvider extends MultiEventProcessor implements IBEventHandler, R
 
     @Override
     public void onRealTimeBarEvent(long requestId, long timestamp, double open, double high, double low, double close, long volume, double weightedAveragePrice, int tradeNumber) {
-        Optional<DataRecord> optional = subscriptionRegistry.getDataRecord(requestId);
-        SubscriptionKey key = subscriptionRegistry.getSubscriptionKey(requestId);
-        if (optional.isPresent()) {
-            DataRecord record = optional.get();
+        DataRecord record = subscriptionRegistry.getRecord(requestId);
+        if (record != null) {
+            SubscriptionKey key = record.subscriptionKey;
             record.open = open;
             record.high = high;
             record.low = low;
@@ -362,10 +368,10 @@ public class IBProvider extends MultiEventProcessor implements IBEventHandler, R
 
     @Override
     public void onMarketDepthLevelTwoUpdateEvent(long requestId, int rowId, String marketMakerName, Operation operation, BookSide bookSide, double price, int size) {
-        SubscriptionKey key = subscriptionRegistry.getSubscriptionKey(requestId);
-        if (key != null) {
+        DataRecord record = subscriptionRegistry.getRecord(requestId);
+        if (record != null) {
             //TODO fix providerID
-            eventBusManager.getMarketDepthEventBus().publishMarketDepth(key.instId, System.currentTimeMillis(), 0, rowId, operation.mdOperation, bookSide.mdSide, price, size);
+            eventBusManager.getMarketDepthEventBus().publishMarketDepth(record.instId, System.currentTimeMillis(), 0, rowId, operation.mdOperation, bookSide.mdSide, price, size);
         }
     }
 
@@ -377,10 +383,10 @@ public class IBProvider extends MultiEventProcessor implements IBEventHandler, R
 
     @Override
     public void onMarketDepthUpdateEvent(long requestId, int rowId, Operation operation, BookSide bookSide, double price, int size) {
-        SubscriptionKey key = subscriptionRegistry.getSubscriptionKey(requestId);
-        if (key != null) {
+        DataRecord record = subscriptionRegistry.getRecord(requestId);
+        if (record != null) {
             //TODO fix providerID
-            eventBusManager.getMarketDepthEventBus().publishMarketDepth(key.instId, System.currentTimeMillis(), 0, rowId, operation.mdOperation, bookSide.mdSide, price, size);
+            eventBusManager.getMarketDepthEventBus().publishMarketDepth(record.instId, System.currentTimeMillis(), 0, rowId, operation.mdOperation, bookSide.mdSide, price, size);
         }
     }
 
@@ -407,10 +413,9 @@ public class IBProvider extends MultiEventProcessor implements IBEventHandler, R
 
     @Override
     public void onHistoricalDataEvent(long requestId, String dateTime, double open, double high, double low, double close, int volume, int tradeNumber, double weightedAveragePrice, boolean hasGap) {
-        Optional<DataRecord> optional = subscriptionRegistry.getDataRecord(requestId);
-        SubscriptionKey key = subscriptionRegistry.getSubscriptionKey(requestId);
-        if (optional.isPresent()) {
-            DataRecord record = optional.get();
+        DataRecord record = subscriptionRegistry.getRecord(requestId);
+        if (record != null) {
+            SubscriptionKey key = record.subscriptionKey;
             record.open = open;
             record.high = high;
             record.low = low;
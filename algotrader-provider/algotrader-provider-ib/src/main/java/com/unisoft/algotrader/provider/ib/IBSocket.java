@@ -23,7 +23,10 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.*;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.locks.Lock;
@@ -42,8 +45,8 @@ public class IBSocket {
     private final ExecutorService executor = Executors.newFixedThreadPool(1, new NamedThreadFactory("IBConnection"));
 
     private int serverCurrentVersion;
+    private SocketChannel channel;
     private Socket socket;
-    private OutputStream outputStream;
     private InputStream inputStream;
     private EventInputStreamConsumer inputStreamConsumer;
     private Serializers serializers;
@@ -71,9 +74,10 @@ public class IBSocket {
 
     public void connect(boolean requestAccountUpdate){
         try {
-            this.socket = new Socket(ibConfig.host, ibConfig.port);
-            this.outputStream = new DataOutputStream(socket.getOutputStream());
-            this.inputStream = new DataInputStream(socket.getInputStream());
+            this.channel = SocketChannel.open(new InetSocketAddress(ibConfig.host, ibConfig.port));
+            this.socket = channel.socket();
+            this.socket.setTcpNoDelay(true);
+            this.inputStream = new IBSocketReader(channel);
 
             handShake();
             startApi(); //set client id
@@ -93,8 +97,7 @@ public class IBSocket {
             //set client version
             LOG.info("writing client version {}", ibConfig.currentVersion);
             builder.append(ibConfig.currentVersion);
-            send(builder.toBytes());
-            builder.clear();
+            send(builder);
 
             //read server version
             serverCurrentVersion = InputStreamUtils.readInt(inputStream);
@@ -411,17 +414,17 @@ public class IBSocket {
     }
 
     public void placeOrder(Order order) {
-        byte[] bytes = serializers.placeOrderSerializer().serialize(order);
+        ByteArrayBuilder builder = serializers.placeOrderSerializer().encode(order);
         if (LOG.isDebugEnabled())
-            LOG.debug("placeOrder, {}", new String(bytes));
-        send(bytes);
+            LOG.debug("placeOrder, {}", new String(builder.toBytes()));
+        send(builder);
     }
 
     public void cancelOrder(long orderId) {
-        byte[] bytes = serializers.cancelOrderSerializer().serialize(orderId);
+        ByteArrayBuilder builder = serializers.cancelOrderSerializer().encode(orderId);
         if (LOG.isDebugEnabled())
-            LOG.debug("cancelOrder, {}", new String(bytes));
-        send(bytes);
+            LOG.debug("cancelOrder, {}", new String(builder.toBytes()));
+        send(builder);
     }
     public void cancelAllOrders() {
         byte[] bytes = serializers.cancelAllOrdersRequestSerializer().serialize();
@@ -468,7 +471,24 @@ public class IBSocket {
     private void send(final byte[] bytes){
         lock.lock();
         try {
-            outputStream.write(bytes);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            LOG.error(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write the content of the builder of the calling thread straight from its direct buffer.
+     */
+    private void send(final ByteArrayBuilder builder){
+        lock.lock();
+        try {
+            builder.writeTo(channel);
         } catch (IOException e) {
             LOG.error(e);
         } finally {
@@ -478,8 +498,7 @@ public class IBSocket {
 
     public void disconnect(){
         inputStreamConsumer.stop();
-        IOUtils.closeQuietly(outputStream);
-        IOUtils.closeQuietly(socket);
+        IOUtils.closeQuietly(channel);
     }
 
     public boolean isConnected(){
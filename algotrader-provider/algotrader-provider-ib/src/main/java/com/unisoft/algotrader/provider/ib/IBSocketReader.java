@@ -0,0 +1,238 @@
+package com.unisoft.algotrader.provider.ib;
+
+import com.unisoft.algotrader.provider.ib.api.exception.IOStreamException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static com.unisoft.algotrader.provider.ib.api.model.system.ClientMessageCode.INPUT_OUTPUT_STREAM_EXCEPTION;
+
+/**
+ * Reader of the NUL delimited fields sent by TWS, one per connection. The channel is read in bulk into a direct
+ * ByteBuffer, and the numeric fields are parsed from the bytes without creating Strings. Fields which cannot be
+ * parsed exactly from the bytes, such as doubles in scientific notation, fall back to the JDK parsers.
+ *
+ * It is also an InputStream, so the deserializers read it through {@link InputStreamUtils}, which delegates to it.
+ * Not thread safe, it is meant to be read by the EventInputStreamConsumer thread only.
+ */
+public class IBSocketReader extends InputStream {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final int MAX_LONG_DIGITS = 18;
+    private static final int MAX_DOUBLE_DIGITS = 15;
+    private static final double[] POW10 = new double[23];
+    private static final byte[] DOUBLE_MAX = Double.toString(Double.MAX_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private byte[] field = new byte[256];
+    private int fieldLength;
+
+    public IBSocketReader(ReadableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    public IBSocketReader(ReadableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.buffer.flip();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            return -1;
+        }
+        return buffer.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] bytes, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!buffer.hasRemaining() && !fill()) {
+            return -1;
+        }
+        int length = Math.min(len, buffer.remaining());
+        buffer.get(bytes, off, length);
+        return length;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public String readString() {
+        readField();
+        return fieldLength == 0 ? null : new String(field, 0, fieldLength, StandardCharsets.ISO_8859_1);
+    }
+
+    public int readInt(int emptyValue) {
+        readField();
+        if (fieldLength == 0) {
+            return emptyValue;
+        }
+        long value = parseLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            return Integer.parseInt(fieldString());
+        }
+        return (int) value;
+    }
+
+    public long readLong(long emptyValue) {
+        readField();
+        return fieldLength == 0 ? emptyValue : parseLong();
+    }
+
+    public boolean readBoolean() {
+        return readInt(0) != 0;
+    }
+
+    public double readDouble(double emptyValue) {
+        readField();
+        if (fieldLength == 0) {
+            return emptyValue;
+        }
+
+        int i = 0;
+        boolean negative = false;
+        if (field[0] == '-' || field[0] == '+') {
+            negative = field[0] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int significantDigits = 0;
+        int fractionDigits = -1;
+        for (; i < fieldLength; i++) {
+            byte c = field[i];
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (significantDigits > 0 || c != '0') {
+                    significantDigits++;
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            }
+            else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            }
+            else {
+                return parseDoubleSlow();
+            }
+        }
+        if (digits == 0 || significantDigits > MAX_DOUBLE_DIGITS || fractionDigits >= POW10.length) {
+            return parseDoubleSlow();
+        }
+        double value = fractionDigits > 0 ? mantissa / POW10[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+
+    private double parseDoubleSlow() {
+        if (isDoubleMax()) {
+            return Double.MAX_VALUE;
+        }
+        return Double.parseDouble(fieldString());
+    }
+
+    /**
+     * TWS sends Double.MAX_VALUE for the unset double fields.
+     */
+    private boolean isDoubleMax() {
+        if (fieldLength != DOUBLE_MAX.length) {
+            return false;
+        }
+        for (int i = 0; i < fieldLength; i++) {
+            if (field[i] != DOUBLE_MAX[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long parseLong() {
+        int i = 0;
+        boolean negative = false;
+        if (field[0] == '-' || field[0] == '+') {
+            negative = field[0] == '-';
+            i++;
+        }
+        if (i == fieldLength || fieldLength - i > MAX_LONG_DIGITS) {
+            return Long.parseLong(fieldString());
+        }
+        long value = 0;
+        for (; i < fieldLength; i++) {
+            byte c = field[i];
+            if (c < '0' || c > '9') {
+                return Long.parseLong(fieldString());
+            }
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    private String fieldString() {
+        return new String(field, 0, fieldLength, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Copy the bytes of the next field, without its NUL terminator, into the field buffer.
+     */
+    private void readField() {
+        fieldLength = 0;
+        try {
+            while (true) {
+                if (!buffer.hasRemaining() && !fill()) {
+                    throw new EOFException("end of stream");
+                }
+                byte c = buffer.get();
+                if (c == 0) {
+                    return;
+                }
+                if (fieldLength == field.length) {
+                    field = Arrays.copyOf(field, field.length * 2);
+                }
+                field[fieldLength++] = c;
+            }
+        }
+        catch (IOException e) {
+            throw new IOStreamException(INPUT_OUTPUT_STREAM_EXCEPTION, "problem reading field", e);
+        }
+    }
+
+    /**
+     * Read from the channel into the buffer, blocking until at least one byte is read.
+     * Return false at the end of the stream.
+     */
+    private boolean fill() throws IOException {
+        buffer.clear();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        buffer.flip();
+        return read > 0;
+    }
+}
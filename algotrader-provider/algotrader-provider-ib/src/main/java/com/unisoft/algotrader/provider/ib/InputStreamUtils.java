@@ -1,7 +1,6 @@
 package com.unisoft.algotrader.provider.ib;
 
 import com.unisoft.algotrader.provider.ib.api.exception.IOStreamException;
-import org.apache.commons.lang3.text.StrBuilder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -11,30 +10,36 @@ import java.io.InputStream;
 import static com.unisoft.algotrader.provider.ib.api.model.system.ClientMessageCode.INPUT_OUTPUT_STREAM_EXCEPTION;
 
 /**
+ * Reads the NUL delimited fields of the TWS messages. Reading an {@link IBSocketReader} delegates to its parsers,
+ * which do not create Strings for the numeric fields; any other InputStream is read one byte at a time.
+ *
  * Created by alex on 8/2/15.
  */
 public class InputStreamUtils {
 
     private static final Logger LOG = LogManager.getLogger(InputStreamUtils.class);
 
-    private static final StrBuilder BUILDER = new StrBuilder();
-
     public static final int readInt(final InputStream inputStream) {
+        if (inputStream instanceof IBSocketReader) {
+            return ((IBSocketReader) inputStream).readInt(0);
+        }
         final String string = readString(inputStream);
         return string == null ? 0 : Integer.parseInt(string);
     }
 
     public static final String readString(final InputStream inputStream) {
-        BUILDER.clear();
+        if (inputStream instanceof IBSocketReader) {
+            return ((IBSocketReader) inputStream).readString();
+        }
+        final StringBuilder builder = new StringBuilder();
         while (true) {
             final byte c = readByte(inputStream);
             if (c == 0) {
                 break;
             }
-            BUILDER.append((char) c);
+            builder.append((char) c);
         }
-        final String s = BUILDER.toString();
-        return s.length() == 0 ? null : s;
+        return builder.length() == 0 ? null : builder.toString();
     }
 
     private static byte readByte(final InputStream inputStream) {
@@ -49,26 +54,41 @@ public class InputStreamUtils {
     }
 
     public static final boolean readBoolean(final InputStream inputStream) {
+        if (inputStream instanceof IBSocketReader) {
+            return ((IBSocketReader) inputStream).readBoolean();
+        }
         final String string = readString(inputStream);
         return string == null ? false : (Integer.parseInt(string) != 0);
     }
 
     public static final long readLong(final InputStream inputStream) {
+        if (inputStream instanceof IBSocketReader) {
+            return ((IBSocketReader) inputStream).readLong(0);
+        }
         final String string = readString(inputStream);
         return string == null ? 0 : Long.parseLong(string);
     }
 
     public static final double readDouble(final InputStream inputStream) {
+        if (inputStream instanceof IBSocketReader) {
+            return ((IBSocketReader) inputStream).readDouble(0);
+        }
         final String string = readString(inputStream);
         return string == null ? 0 : Double.parseDouble(string);
     }
 
     public static final int readIntMax(final InputStream inputStream) {
+        if (inputStream instanceof IBSocketReader) {
+            return ((IBSocketReader) inputStream).readInt(Integer.MAX_VALUE);
+        }
         final String string = readString(inputStream);
         return string == null ? Integer.MAX_VALUE : Integer.parseInt(string);
     }
 
     public static final double readDoubleMax(final InputStream inputStream) {
+        if (inputStream instanceof IBSocketReader) {
+            return ((IBSocketReader) inputStream).readDouble(Double.MAX_VALUE);
+        }
         final String string = readString(inputStream);
         return string == null ? Double.MAX_VALUE : Double.parseDouble(string);
     }
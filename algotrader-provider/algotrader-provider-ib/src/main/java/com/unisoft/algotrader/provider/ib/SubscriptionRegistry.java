@@ -3,45 +3,55 @@ package com.unisoft.algotrader.provider.ib;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import com.google.common.collect.Sets;
-import com.unisoft.algotrader.provider.data.HistoricalSubscriptionKey;
-import com.unisoft.algotrader.provider.data.MarketDepthSubscriptionKey;
 import com.unisoft.algotrader.provider.data.SubscriptionKey;
-import gnu.trove.map.TLongObjectMap;
-import gnu.trove.map.hash.TLongObjectHashMap;
 
+import java.util.Arrays;
 import java.util.Optional;
 import java.util.Set;
 
 /**
+ * Subscriptions of the IBProvider by request id. The DataRecords are kept in an array indexed by the request id,
+ * which are small sequential numbers, so the tick handlers find the record of a request without hashing or boxing,
+ * see {@link #getRecord(long)}.
+ *
  * Created by alex on 9/16/15.
  */
 public class SubscriptionRegistry {
 
+    private static final int INITIAL_CAPACITY = 256;
+
     private Set<SubscriptionKey> subscriptionKeys = Sets.newHashSet();
     private BiMap<Long, SubscriptionKey> idSubscriptionMap = HashBiMap.create();
 
-    private TLongObjectMap<DataRecord> marketDataRecords = new TLongObjectHashMap<>();
-    private TLongObjectMap<DataRecord> marketDepthRecords = new TLongObjectHashMap<>();
-    private TLongObjectMap<DataRecord> historicalDataRecords = new TLongObjectHashMap<>();
+    private volatile DataRecord[] records = new DataRecord[INITIAL_CAPACITY];
 
     public boolean addSubscription(long requestId, SubscriptionKey subscriptionKey){
+        if (requestId < 0 || requestId > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("invalid requestId=" + requestId);
+        }
         if (!hasSubscription(requestId)){
             subscriptionKeys.add(subscriptionKey);
             idSubscriptionMap.put(requestId, subscriptionKey);
 
-            DataRecord dataRecord = new DataRecord(subscriptionKey.instId);
-            if (subscriptionKey instanceof MarketDepthSubscriptionKey) {
-                marketDepthRecords.put(requestId, dataRecord);
-            } else if (subscriptionKey instanceof HistoricalSubscriptionKey) {
-                historicalDataRecords.put(requestId, dataRecord);
-            } else {
-                marketDataRecords.put(requestId, dataRecord);
+            DataRecord[] records = this.records;
+            if (requestId >= records.length){
+                records = Arrays.copyOf(records, Math.max(records.length * 2, (int) requestId + 1));
             }
+            records[(int) requestId] = new DataRecord(subscriptionKey);
+            this.records = records;
             return true;
         }
         return false;
     }
 
+    /**
+     * DataRecord of the request, or null if there is no subscription with this request id.
+     */
+    public DataRecord getRecord(long requestId){
+        DataRecord[] records = this.records;
+        return requestId >= 0 && requestId < records.length ? records[(int) requestId] : null;
+    }
+
     public SubscriptionKey getSubscriptionKey(long requestId){
         return idSubscriptionMap.get(requestId);
     }
@@ -74,14 +84,7 @@ public class SubscriptionRegistry {
     private void removeSubscription(Long requestId, SubscriptionKey subscriptionKey){
         idSubscriptionMap.remove(requestId);
         subscriptionKeys.remove(subscriptionKey);
-
-        if (subscriptionKey instanceof MarketDepthSubscriptionKey) {
-            marketDepthRecords.remove(requestId);
-        } else if (subscriptionKey instanceof HistoricalSubscriptionKey) {
-            historicalDataRecords.remove(requestId);
-        } else {
-            marketDataRecords.remove(requestId);
-        }
+        records[requestId.intValue()] = null;
     }
 
 
@@ -95,24 +98,12 @@ public class SubscriptionRegistry {
     }
 
     public Optional<DataRecord> getDataRecord(long requestId){
-        if (hasSubscription(requestId)){
-            SubscriptionKey subscriptionKey = getSubscriptionKey(requestId);
-            if (subscriptionKey instanceof MarketDepthSubscriptionKey) {
-                return Optional.ofNullable(marketDepthRecords.get(requestId));
-            } else if (subscriptionKey instanceof HistoricalSubscriptionKey) {
-                return Optional.ofNullable(historicalDataRecords.get(requestId));
-            } else {
-                return Optional.ofNullable(marketDataRecords.get(requestId));
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(getRecord(requestId));
     }
 
     public void clear(){
         subscriptionKeys.clear();
         idSubscriptionMap.clear();
-        marketDataRecords.clear();
-        marketDepthRecords.clear();
-        historicalDataRecords.clear();
+        records = new DataRecord[INITIAL_CAPACITY];
     }
 }
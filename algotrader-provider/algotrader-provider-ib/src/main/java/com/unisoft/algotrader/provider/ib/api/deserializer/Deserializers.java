@@ -1,18 +1,19 @@
 package com.unisoft.algotrader.provider.ib.api.deserializer;
 
-import com.google.common.collect.Maps;
 import com.unisoft.algotrader.persistence.RefDataStore;
 import com.unisoft.algotrader.provider.ib.api.event.IBEvent;
 import com.unisoft.algotrader.provider.ib.api.model.system.IncomingMessageId;
 
-import java.util.Map;
+import java.util.Arrays;
 
 /**
+ * Deserializers of the incoming messages, in a table indexed by the message id.
+ *
  * Created by alex on 8/2/15.
  */
 public class Deserializers {
 
-    private final Map<IncomingMessageId, Deserializer<? extends IBEvent>> deserializerMap = Maps.newHashMap();
+    private Deserializer<? extends IBEvent>[] deserializers = new Deserializer[0];
 
     public Deserializers(int serverCurrentVersion, RefDataStore refDataStore){
         init(serverCurrentVersion, refDataStore);
@@ -65,17 +66,28 @@ public class Deserializers {
     }
 
     protected void register(Deserializer<? extends IBEvent> deserializer){
-        if (deserializerMap.containsKey(deserializer.messageId())){
+        final int id = deserializer.messageId().getId();
+        if (id < 0) {
+            throw new IllegalArgumentException("unsupported messageID: "+deserializer.messageId());
+        }
+        if (id >= deserializers.length) {
+            deserializers = Arrays.copyOf(deserializers, id + 1);
+        }
+        if (deserializers[id] != null){
             throw new RuntimeException("Deserializer has already been registered: "+deserializer.messageId());
         }
-        deserializerMap.put(deserializer.messageId(), deserializer);
+        deserializers[id] = deserializer;
     }
 
     public Deserializer getDeserializer(final IncomingMessageId messageId) {
-        if (deserializerMap.containsKey(messageId)) {
-            return deserializerMap.get(messageId);
+        return getDeserializer(messageId.getId());
+    }
+
+    public Deserializer getDeserializer(final int messageId) {
+        if (messageId >= 0 && messageId < deserializers.length && deserializers[messageId] != null) {
+            return deserializers[messageId];
         }
-        throw new IllegalArgumentException("unsupported messageID: "+messageId);
+        throw new IllegalArgumentException("unsupported messageID: "+IncomingMessageId.fromId(messageId)+"("+messageId+")");
     }
 
 }
@@ -34,24 +34,19 @@ public class TickPriceEventDeserializer extends Deserializer<TickPriceEvent> {
         eventHandler.onTickPriceEvent(requestId, tickPriceType, price, autoExecute);
 
         if (version >= VERSION_2) {
-            int sizeTickType = TickType.UNKNOWN.getValue();
             switch (tickPriceType) {
                 case BID_PRICE:
-                    sizeTickType = TickType.BID_SIZE.getValue();
+                    eventHandler.onTickSizeEvent(requestId, TickType.BID_SIZE, size);
                     break;
                 case ASK_PRICE:
-                    sizeTickType = TickType.ASK_SIZE.getValue();
+                    eventHandler.onTickSizeEvent(requestId, TickType.ASK_SIZE, size);
                     break;
                 case LAST_PRICE:
-                    sizeTickType = TickType.LAST_SIZE.getValue();
+                    eventHandler.onTickSizeEvent(requestId, TickType.LAST_SIZE, size);
                     break;
                 default:
-                    sizeTickType = TickType.UNKNOWN.getValue();
                     break;
             }
-            if (sizeTickType != TickType.UNKNOWN.getValue()) {
-                eventHandler.onTickSizeEvent(requestId, TickType.fromValue(sizeTickType), size);
-            }
         }
     }
 }
\ No newline at end of file
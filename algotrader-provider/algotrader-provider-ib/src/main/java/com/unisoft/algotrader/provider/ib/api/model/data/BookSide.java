@@ -1,10 +1,7 @@
 package com.unisoft.algotrader.provider.ib.api.model.data;
 
-import com.google.common.collect.Maps;
 import com.unisoft.algotrader.model.event.data.MDSide;
 
-import java.util.Map;
-
 /**
  * Created by alex on 8/30/15.
  */
@@ -16,12 +13,18 @@ public enum BookSide {
 
     public final MDSide mdSide;
     private final int value;
-    private static final Map<Integer, BookSide> MAP;
+    private static final BookSide[] VALUES;
 
     static {
-        MAP = Maps.newHashMap();
+        int max = 0;
+        for (final BookSide bookSide : values()) {
+            max = Math.max(max, bookSide.value);
+        }
+        VALUES = new BookSide[max + 1];
         for (final BookSide bookSide : values()) {
-            MAP.put(bookSide.getValue(), bookSide);
+            if (bookSide.value >= 0) {
+                VALUES[bookSide.value] = bookSide;
+            }
         }
     }
 
@@ -35,9 +38,7 @@ public enum BookSide {
     }
 
     public static final BookSide fromValue(final int value) {
-        if (MAP.containsKey(value)) {
-            return MAP.get(value);
-        }
-        return UNKNOWN;
+        final BookSide bookSide = value >= 0 && value < VALUES.length ? VALUES[value] : null;
+        return bookSide != null ? bookSide : UNKNOWN;
     }
 }
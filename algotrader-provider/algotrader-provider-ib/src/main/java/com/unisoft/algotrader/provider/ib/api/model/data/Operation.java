@@ -1,10 +1,7 @@
 package com.unisoft.algotrader.provider.ib.api.model.data;
 
-import com.google.common.collect.Maps;
 import com.unisoft.algotrader.model.event.data.MDOperation;
 
-import java.util.Map;
-
 /**
  * Created by alex on 8/30/15.
  */
@@ -17,12 +14,18 @@ public enum Operation {
 
     private final int value;
     public final MDOperation mdOperation;
-    private static final Map<Integer, Operation> MAP;
+    private static final Operation[] VALUES;
 
     static {
-        MAP = Maps.newHashMap();
+        int max = 0;
+        for (final Operation operation : values()) {
+            max = Math.max(max, operation.value);
+        }
+        VALUES = new Operation[max + 1];
         for (final Operation operation : values()) {
-            MAP.put(operation.getValue(), operation);
+            if (operation.value >= 0) {
+                VALUES[operation.value] = operation;
+            }
         }
     }
 
@@ -36,9 +39,7 @@ public enum Operation {
     }
 
     public static final Operation fromValue(final int value) {
-        if (MAP.containsKey(value)) {
-            return MAP.get(value);
-        }
-        return UNKNOWN;
+        final Operation operation = value >= 0 && value < VALUES.length ? VALUES[value] : null;
+        return operation != null ? operation : UNKNOWN;
     }
 }
@@ -1,9 +1,5 @@
 package com.unisoft.algotrader.provider.ib.api.model.data;
 
-import com.google.common.collect.Maps;
-
-import java.util.Map;
-
 /**
  * Created by alex on 8/30/15.
  */
@@ -69,12 +65,18 @@ public enum TickType {
     VOLUME_RATE(56);
 
     private final int value;
-    private static final Map<Integer, TickType> MAP;
+    private static final TickType[] VALUES;
 
     static {
-        MAP = Maps.newHashMap();
+        int max = 0;
         for (final TickType tickType : values()) {
-            MAP.put(tickType.getValue(), tickType);
+            max = Math.max(max, tickType.value);
+        }
+        VALUES = new TickType[max + 1];
+        for (final TickType tickType : values()) {
+            if (tickType.value >= 0) {
+                VALUES[tickType.value] = tickType;
+            }
         }
     }
 
@@ -87,9 +89,7 @@ public enum TickType {
     }
 
     public static final TickType fromValue(final int value) {
-        if (MAP.containsKey(value)) {
-            return MAP.get(value);
-        }
-        return UNKNOWN;
+        final TickType tickType = value >= 0 && value < VALUES.length ? VALUES[value] : null;
+        return tickType != null ? tickType : UNKNOWN;
     }
 }
@@ -1,7 +1,5 @@
 package com.unisoft.algotrader.provider.ib.api.model.system;
 
-import gnu.trove.map.hash.TIntObjectHashMap;
-
 /**
  * Created by alex on 8/2/15.
  */
@@ -57,11 +55,18 @@ public enum IncomingMessageId {
     ;
 
     private final int id;
-    private static final TIntObjectHashMap<IncomingMessageId> MAP = new TIntObjectHashMap();
+    private static final IncomingMessageId[] VALUES;
 
     static {
+        int max = 0;
+        for (final IncomingMessageId incomingMessageId : values()) {
+            max = Math.max(max, incomingMessageId.id);
+        }
+        VALUES = new IncomingMessageId[max + 1];
         for (final IncomingMessageId incomingMessageId : values()) {
-            MAP.put(incomingMessageId.id, incomingMessageId);
+            if (incomingMessageId.id >= 0) {
+                VALUES[incomingMessageId.id] = incomingMessageId;
+            }
         }
     }
 
@@ -74,9 +79,9 @@ public enum IncomingMessageId {
     }
 
     public static final IncomingMessageId fromId(final int id) {
-        if (MAP.containsKey(id)) {
-            return MAP.get(id);
+        if (id >= 0 && id < VALUES.length && VALUES[id] != null) {
+            return VALUES[id];
         }
-        return UNKNOWN;
+        return id == FINISH.id ? FINISH : UNKNOWN;
     }
 }
@@ -2,52 +2,69 @@ package com.unisoft.algotrader.provider.ib.api.serializer;
 
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 
 /**
+ * Encodes the NUL delimited fields of a TWS request into a direct ByteBuffer, which grows when needed.
+ * Numbers are written as ASCII digits straight into the buffer, doubles are written with the fewest decimals
+ * which parse back to the same value, only NaN, infinities and values out of the range of a long fall back to
+ * Double.toString.
+ *
+ * A builder is not thread safe, the serializers use the one of the calling thread, see {@link Serializer}.
+ *
  * Created by alex on 8/3/15.
  */
 public class ByteArrayBuilder {
 
-    private static final byte[] EOL = { 0 };
+    private static final byte EOL = 0;
+    private static final double MAX_EXACT_LONG = 1L << 53;
+    private static final double[] POW10 = new double[23];
+    private static final byte[] LONG_MIN_VALUE = Long.toString(Long.MIN_VALUE).getBytes();
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
     private ByteBuffer buf;
 
     public ByteArrayBuilder(){
-        buf = ByteBuffer.allocate(1024);
+        this(1024);
     }
 
     public ByteArrayBuilder(int size){
-        buf = ByteBuffer.allocate(size);
+        buf = ByteBuffer.allocateDirect(size);
     }
 
     public ByteArrayBuilder append(final int i) {
         if (i != Integer.MAX_VALUE) {
-            buf.put(Integer.toString(i).getBytes());
+            putLong(i);
         }
         appendEol();
         return this;
     }
     public ByteArrayBuilder append(final long i) {
         if (i != Long.MAX_VALUE) {
-            buf.put(Long.toString(i).getBytes());
+            putLong(i);
         }
         appendEol();
         return this;
     }
 
     public ByteArrayBuilder append(final boolean b) {
-        int i = 0;
-        if (b) {
-            i = 1;
-        }
-        buf.put(Integer.toString(i).getBytes());
+        ensureCapacity(1);
+        buf.put((byte) (b ? '1' : '0'));
         appendEol();
         return this;
     }
 
     public ByteArrayBuilder append(final double d) {
         if (d != Double.MAX_VALUE) {
-            buf.put(Double.toString(d).getBytes());
+            putDouble(d);
         }
         appendEol();
         return this;
@@ -55,7 +72,7 @@ public class ByteArrayBuilder {
 
     public ByteArrayBuilder append(final String s) {
         if (StringUtils.isNotEmpty(s)) {
-            buf.put(s.getBytes());
+            putString(s);
         }
         appendEol();
         return this;
@@ -64,6 +81,7 @@ public class ByteArrayBuilder {
 
     public ByteArrayBuilder append(byte [] bytes) {
         if (bytes != null) {
+            ensureCapacity(bytes.length);
             buf.put(bytes);
         }
         appendEol();
@@ -71,18 +89,145 @@ public class ByteArrayBuilder {
     }
 
     public void appendEol() {
+        ensureCapacity(1);
         buf.put(EOL);
     }
 
+    /**
+     * Copy of the encoded bytes, the builder is left as it is.
+     */
     public byte[] toBytes() {
-        buf.flip();
-        byte[] data = new byte[buf.remaining()];
-        buf.get(data);
+        byte[] data = new byte[buf.position()];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = buf.get(i);
+        }
         return data;
+    }
 
+    /**
+     * Write the encoded bytes to the channel, then clear the builder.
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        buf.flip();
+        try {
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+        }
+        finally {
+            buf.clear();
+        }
+    }
+
+    public int length(){
+        return buf.position();
     }
 
     public void clear(){
         buf.clear();
     }
+
+    private void putLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            ensureCapacity(LONG_MIN_VALUE.length);
+            buf.put(LONG_MIN_VALUE);
+            return;
+        }
+        if (value < 0) {
+            ensureCapacity(1);
+            buf.put((byte) '-');
+            value = -value;
+        }
+        putDigits(value, 0);
+    }
+
+    /**
+     * Write the digits of the unsigned value, with a decimal point before the last scale digits.
+     */
+    private void putDigits(long value, int scale) {
+        int digits = 1;
+        for (long v = value / 10; v != 0; v /= 10) {
+            digits++;
+        }
+        if (digits <= scale) {
+            digits = scale + 1;
+        }
+        int length = scale > 0 ? digits + 1 : digits;
+        ensureCapacity(length);
+
+        int position = buf.position();
+        int index = position + length - 1;
+        for (int i = 0; i < scale; i++) {
+            buf.put(index--, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        if (scale > 0) {
+            buf.put(index--, (byte) '.');
+        }
+        while (index >= position) {
+            buf.put(index--, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buf.position(position + length);
+    }
+
+    /**
+     * Write the double with the smallest number of decimals k such that mantissa / 10^k, with the mantissa below
+     * 2^53, gives back the same double. A TWS parsing the decimal gets the same value as both the mantissa and 10^k
+     * are exact doubles.
+     */
+    private void putDouble(double d) {
+        if (!Double.isNaN(d) && !Double.isInfinite(d)) {
+            double abs = Math.abs(d);
+            for (int scale = 0; scale < POW10.length; scale++) {
+                double scaled = abs * POW10[scale];
+                if (scaled >= MAX_EXACT_LONG) {
+                    break;
+                }
+                long mantissa = Math.round(scaled);
+                if (mantissa / POW10[scale] == abs) {
+                    if (d < 0 || (d == 0 && 1 / d < 0)) {
+                        ensureCapacity(1);
+                        buf.put((byte) '-');
+                    }
+                    if (scale == 0) {
+                        putDigits(mantissa, 0);
+                        ensureCapacity(2);
+                        buf.put((byte) '.').put((byte) '0');
+                    }
+                    else {
+                        putDigits(mantissa, scale);
+                    }
+                    return;
+                }
+            }
+        }
+        putString(Double.toString(d));
+    }
+
+    private void putString(String s) {
+        int length = s.length();
+        ensureCapacity(length);
+        int position = buf.position();
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                buf.position(position);
+                byte[] bytes = s.getBytes();
+                ensureCapacity(bytes.length);
+                buf.put(bytes);
+                return;
+            }
+            buf.put((byte) c);
+        }
+    }
+
+    private void ensureCapacity(int length) {
+        if (buf.remaining() < length) {
+            ByteBuffer grown = ByteBuffer.allocateDirect(Math.max(buf.capacity() * 2, buf.position() + length));
+            buf.flip();
+            grown.put(buf);
+            buf = grown;
+        }
+    }
 }
@@ -15,11 +15,15 @@ public class CancelOrderSerializer extends Serializer{
     }
 
     public byte[] serialize(long orderId) {
+        return encode(orderId).toBytes();
+    }
+
+    public ByteArrayBuilder encode(long orderId) {
         ByteArrayBuilder builder = getByteArrayBuilder();
 
         builder.append(messageId.getId());
         builder.append(VERSION);
         builder.append(orderId);
-        return builder.toBytes();
+        return builder;
     }
 }
@@ -26,7 +26,7 @@ public class MarketDepthSubscriptionRequestSerializer extends Serializer{
     public byte [] serialize(long requestId, MarketDepthSubscriptionKey subscriptionKey){
         Instrument instrument = refDataStore.getInstrument(subscriptionKey.instId);
 
-        ByteArrayBuilder builder = new ByteArrayBuilder();
+        ByteArrayBuilder builder = getByteArrayBuilder();
 
         builder.append(messageId.getId());
         builder.append(VERSION);
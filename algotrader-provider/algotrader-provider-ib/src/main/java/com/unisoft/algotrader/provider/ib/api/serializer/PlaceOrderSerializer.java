@@ -26,6 +26,14 @@ public class PlaceOrderSerializer extends Serializer{
     }
 
     public byte[] serialize(Order order) {
+        return encode(order).toBytes();
+    }
+
+    /**
+     * Encode the order into the builder of the calling thread, which is returned to be written to the socket
+     * without copying.
+     */
+    public ByteArrayBuilder encode(Order order) {
         ByteArrayBuilder builder = getByteArrayBuilder();
 
         builder.append(messageId.getId());
@@ -34,7 +42,7 @@ public class PlaceOrderSerializer extends Serializer{
         Instrument instrument = refDataStore.getInstrument(order.instId());
         appendInstrument(builder, instrument);
         appendOrder(builder, instrument, order);
-        return builder.toBytes();
+        return builder;
     }
 
     protected void appendInstrument(ByteArrayBuilder builder, Instrument instrument) {
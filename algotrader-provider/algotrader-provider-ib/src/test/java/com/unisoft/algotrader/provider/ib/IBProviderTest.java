@@ -0,0 +1,110 @@
+package com.unisoft.algotrader.provider.ib;
+
+import com.lmax.disruptor.RingBuffer;
+import com.unisoft.algotrader.event.bus.BackTestEventBusManager;
+import com.unisoft.algotrader.model.event.data.MarketDataContainer;
+import com.unisoft.algotrader.model.event.data.Quote;
+import com.unisoft.algotrader.model.event.data.Trade;
+import com.unisoft.algotrader.provider.ProviderManager;
+import com.unisoft.algotrader.provider.data.SubscriptionKey;
+import com.unisoft.algotrader.provider.ib.api.model.data.TickType;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IBProviderTest {
+
+    private static final long QUOTE_REQUEST = 1;
+    private static final long TRADE_REQUEST = 2;
+
+    private IBProvider provider;
+    private RingBuffer<MarketDataContainer> marketDataRB;
+
+    @Before
+    public void setup(){
+        BackTestEventBusManager eventBusManager = new BackTestEventBusManager(16);
+        marketDataRB = eventBusManager.getMarketDataRB();
+        provider = new IBProvider(new ProviderManager(), new IBConfig("127.0.0.1", 0, 0, null, null, 0, 0), null, eventBusManager);
+        provider.getSubscriptionRegistry().addSubscription(QUOTE_REQUEST, SubscriptionKey.createQuoteSubscriptionKey(IBProvider.PROVIDER_ID.id, 10));
+        provider.getSubscriptionRegistry().addSubscription(TRADE_REQUEST, SubscriptionKey.createTradeSubscriptionKey(IBProvider.PROVIDER_ID.id, 20));
+    }
+
+    private void quoteTicks(long requestId){
+        provider.onTickPriceEvent(requestId, TickType.BID_PRICE, 99.5, false);
+        provider.onTickSizeEvent(requestId, TickType.BID_SIZE, 100);
+        provider.onTickPriceEvent(requestId, TickType.ASK_PRICE, 100.5, false);
+        provider.onTickSizeEvent(requestId, TickType.ASK_SIZE, 200);
+    }
+
+    private void tradeTicks(long requestId){
+        provider.onTickPriceEvent(requestId, TickType.LAST_PRICE, 100, false);
+        provider.onTickSizeEvent(requestId, TickType.LAST_SIZE, 300);
+    }
+
+    @Test
+    public void test_quote_emitted_once_both_sides_are_set(){
+        quoteTicks(QUOTE_REQUEST);
+
+        assertEquals(0, marketDataRB.getCursor());
+        MarketDataContainer container = marketDataRB.get(0);
+        assertTrue(container.bitset.get(MarketDataContainer.QUOTE_BIT));
+        Quote quote = container.quote;
+        assertEquals(10, quote.instId);
+        assertEquals(99.5, quote.bid, 0.0);
+        assertEquals(100.5, quote.ask, 0.0);
+        assertEquals(100, quote.bidSize);
+        assertEquals(200, quote.askSize);
+    }
+
+    @Test
+    public void test_unchanged_tick_not_emitted(){
+        quoteTicks(QUOTE_REQUEST);
+        provider.onTickPriceEvent(QUOTE_REQUEST, TickType.BID_PRICE, 99.5, false);
+        assertEquals(0, marketDataRB.getCursor());
+
+        provider.onTickPriceEvent(QUOTE_REQUEST, TickType.BID_PRICE, 99.6, false);
+        assertEquals(1, marketDataRB.getCursor());
+    }
+
+    @Test
+    public void test_trade_emitted_when_trade_requested(){
+        tradeTicks(TRADE_REQUEST);
+
+        assertEquals(0, marketDataRB.getCursor());
+        MarketDataContainer container = marketDataRB.get(0);
+        assertTrue(container.bitset.get(MarketDataContainer.TRADE_BIT));
+        Trade trade = container.trade;
+        assertEquals(20, trade.instId);
+        assertEquals(100, trade.price, 0.0);
+        assertEquals(300, trade.size);
+    }
+
+    @Test
+    public void test_only_requested_type_emitted(){
+        tradeTicks(QUOTE_REQUEST);
+        quoteTicks(TRADE_REQUEST);
+
+        assertEquals(-1, marketDataRB.getCursor());
+    }
+
+    @Test
+    public void test_quote_tick_does_not_fall_through_to_trade(){
+        tradeTicks(TRADE_REQUEST);
+        assertEquals(0, marketDataRB.getCursor());
+
+        // a quote tick on a trade subscription used to fall through and publish the last trade again
+        provider.onTickPriceEvent(TRADE_REQUEST, TickType.BID_PRICE, 99.5, false);
+        provider.onTickSizeEvent(TRADE_REQUEST, TickType.ASK_SIZE, 200);
+        assertEquals(0, marketDataRB.getCursor());
+    }
+
+    @Test
+    public void test_tick_of_unknown_request_ignored(){
+        quoteTicks(3);
+        provider.getSubscriptionRegistry().removeSubscription(QUOTE_REQUEST);
+        quoteTicks(QUOTE_REQUEST);
+
+        assertEquals(-1, marketDataRB.getCursor());
+    }
+}
@@ -0,0 +1,75 @@
+package com.unisoft.algotrader.provider.ib;
+
+import com.unisoft.algotrader.provider.ib.api.exception.IOStreamException;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class IBSocketReaderTest {
+
+    private static IBSocketReader reader(int bufferSize, String... fields){
+        StringBuilder sb = new StringBuilder();
+        for (String field : fields){
+            sb.append(field).append('\0');
+        }
+        return new IBSocketReader(Channels.newChannel(new ByteArrayInputStream(sb.toString().getBytes(StandardCharsets.ISO_8859_1))), bufferSize);
+    }
+
+    @Test
+    public void test_read_int_and_long(){
+        IBSocketReader reader = reader(4, "1", "-25", "", "2147483647", "", "9223372036854775807", "-12345678901");
+
+        assertEquals(1, InputStreamUtils.readInt(reader));
+        assertEquals(-25, InputStreamUtils.readInt(reader));
+        assertEquals(0, InputStreamUtils.readInt(reader));
+        assertEquals(Integer.MAX_VALUE, InputStreamUtils.readInt(reader));
+        assertEquals(Integer.MAX_VALUE, InputStreamUtils.readIntMax(reader));
+        assertEquals(Long.MAX_VALUE, InputStreamUtils.readLong(reader));
+        assertEquals(-12345678901L, InputStreamUtils.readLong(reader));
+    }
+
+    @Test
+    public void test_read_double(){
+        String[] values = {"0", "-0.0", "1.5", "123.456", "0.1", "-98.7654321", ".25", "3.", "123456789.123456789", "1.0E-5", "1.7976931348623157E308"};
+        IBSocketReader reader = reader(8, values);
+
+        for (String value : values){
+            assertEquals(value, Double.doubleToLongBits(Double.parseDouble(value)), Double.doubleToLongBits(InputStreamUtils.readDouble(reader)));
+        }
+    }
+
+    @Test
+    public void test_read_empty_double(){
+        IBSocketReader reader = reader(8, "", "");
+
+        assertEquals(0, InputStreamUtils.readDouble(reader), 0);
+        assertEquals(Double.MAX_VALUE, InputStreamUtils.readDoubleMax(reader), 0);
+    }
+
+    @Test
+    public void test_read_string_and_boolean(){
+        IBSocketReader reader = reader(3, "AAPL", "", "1", "0", "a long string which spans over several reads");
+
+        assertEquals("AAPL", InputStreamUtils.readString(reader));
+        assertNull(InputStreamUtils.readString(reader));
+        assertTrue(InputStreamUtils.readBoolean(reader));
+        assertFalse(InputStreamUtils.readBoolean(reader));
+        assertEquals("a long string which spans over several reads", InputStreamUtils.readString(reader));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void test_read_invalid_int(){
+        InputStreamUtils.readInt(reader(8, "1.5"));
+    }
+
+    @Test(expected = IOStreamException.class)
+    public void test_read_end_of_stream(){
+        IBSocketReader reader = reader(8, "1");
+        InputStreamUtils.readInt(reader);
+        InputStreamUtils.readInt(reader);
+    }
+}
@@ -0,0 +1,99 @@
+package com.unisoft.algotrader.provider.ib;
+
+import com.unisoft.algotrader.provider.data.SubscriptionKey;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SubscriptionRegistryTest {
+
+    private SubscriptionRegistry registry;
+
+    @Before
+    public void setup(){
+        registry = new SubscriptionRegistry();
+    }
+
+    private static SubscriptionKey key(long instId){
+        return SubscriptionKey.createQuoteSubscriptionKey(IBProvider.PROVIDER_ID.id, instId);
+    }
+
+    @Test
+    public void test_add_and_get_record(){
+        assertTrue(registry.addSubscription(1, key(10)));
+        assertFalse(registry.addSubscription(1, key(11)));
+
+        DataRecord record = registry.getRecord(1);
+        assertEquals(10, record.instId);
+        assertEquals(key(10), record.subscriptionKey);
+        assertTrue(record.quoteRequested);
+        assertFalse(record.tradeRequested);
+        assertEquals(Long.valueOf(1), registry.getSubscriptionId(key(10)));
+        assertNull(registry.getRecord(2));
+    }
+
+    @Test
+    public void test_records_grow_past_initial_capacity(){
+        registry.addSubscription(1, key(10));
+        DataRecord first = registry.getRecord(1);
+
+        registry.addSubscription(300, key(30));
+        registry.addSubscription(5000, key(50));
+
+        assertSame(first, registry.getRecord(1));
+        assertEquals(30, registry.getRecord(300).instId);
+        assertEquals(50, registry.getRecord(5000).instId);
+        assertNull(registry.getRecord(4999));
+        assertNull(registry.getRecord(5001));
+    }
+
+    @Test
+    public void test_get_record_out_of_range(){
+        assertNull(registry.getRecord(-1));
+        assertNull(registry.getRecord(Integer.MAX_VALUE + 1L));
+        assertFalse(registry.getDataRecord(100_000).isPresent());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_reject_negative_request_id(){
+        registry.addSubscription(-1, key(10));
+    }
+
+    @Test
+    public void test_remove_by_request_id(){
+        registry.addSubscription(1, key(10));
+        registry.addSubscription(2, key(20));
+
+        assertTrue(registry.removeSubscription(1));
+        assertFalse(registry.removeSubscription(1));
+
+        assertNull(registry.getRecord(1));
+        assertFalse(registry.hasSubscription(1));
+        assertFalse(registry.hasSubscription(key(10)));
+        assertEquals(20, registry.getRecord(2).instId);
+    }
+
+    @Test
+    public void test_remove_by_key_and_reuse_request_id(){
+        registry.addSubscription(300, key(30));
+
+        assertTrue(registry.removeSubscription(key(30)));
+        assertNull(registry.getRecord(300));
+        assertNull(registry.getSubscriptionId(key(30)));
+
+        assertTrue(registry.addSubscription(300, key(31)));
+        assertEquals(31, registry.getRecord(300).instId);
+    }
+
+    @Test
+    public void test_clear(){
+        registry.addSubscription(1, key(10));
+        registry.addSubscription(300, key(30));
+        registry.clear();
+
+        assertNull(registry.getRecord(1));
+        assertNull(registry.getRecord(300));
+        assertFalse(registry.hasSubscription(key(10)));
+    }
+}
@@ -0,0 +1,58 @@
+package com.unisoft.algotrader.provider.ib.api.deserializer;
+
+import com.unisoft.algotrader.provider.ib.api.model.system.IncomingMessageId;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DeserializersTest {
+
+    private Deserializers deserializers;
+
+    @Before
+    public void setup(){
+        deserializers = new Deserializers(70, null);
+    }
+
+    @Test
+    public void test_deserializer_indexed_by_message_id(){
+        int registered = 0;
+        for (IncomingMessageId messageId : IncomingMessageId.values()) {
+            if (messageId.getId() <= 0) {
+                continue;
+            }
+            Deserializer deserializer = deserializers.getDeserializer(messageId.getId());
+            assertSame(messageId, deserializer.messageId());
+            assertSame(deserializer, deserializers.getDeserializer(messageId));
+            registered++;
+        }
+        assertEquals(IncomingMessageId.values().length - 2, registered);
+    }
+
+    @Test
+    public void test_tick_deserializers(){
+        assertTrue(deserializers.getDeserializer(IncomingMessageId.TICK_PRICE.getId()) instanceof TickPriceEventDeserializer);
+        assertTrue(deserializers.getDeserializer(IncomingMessageId.TICK_SIZE.getId()) instanceof TickSizeEventDeserializer);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_unknown_message_id(){
+        deserializers.getDeserializer(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_message_id_out_of_range(){
+        deserializers.getDeserializer(1000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_negative_message_id(){
+        deserializers.getDeserializer(-1);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void test_register_twice(){
+        deserializers.register(new TickPriceEventDeserializer(70));
+    }
+}
@@ -0,0 +1,54 @@
+package com.unisoft.algotrader.provider.ib.api.serializer;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class ByteArrayBuilderTest {
+
+    private static String fields(ByteArrayBuilder builder){
+        return new String(builder.toBytes(), StandardCharsets.ISO_8859_1).replace('\0', '|');
+    }
+
+    @Test
+    public void test_append_int_long_boolean(){
+        ByteArrayBuilder builder = new ByteArrayBuilder();
+        builder.append(0).append(-15).append(Integer.MAX_VALUE).append(Integer.MIN_VALUE)
+                .append(1234567890123L).append(Long.MAX_VALUE).append(Long.MIN_VALUE)
+                .append(true).append(false);
+
+        assertEquals("0|-15||-2147483648|1234567890123||-9223372036854775808|1|0|", fields(builder));
+    }
+
+    @Test
+    public void test_append_double(){
+        ByteArrayBuilder builder = new ByteArrayBuilder();
+        builder.append(0.0).append(-0.0).append(100.0).append(145.37).append(-0.005).append(0.1 + 0.2)
+                .append(Double.MAX_VALUE).append(Double.NaN).append(1e300);
+
+        assertEquals("0.0|-0.0|100.0|145.37|-0.005|0.30000000000000004||NaN|1.0E300|", fields(builder));
+    }
+
+    @Test
+    public void test_append_double_round_trip(){
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++){
+            double value = i % 2 == 0 ? random.nextDouble() * 1000 : Math.round(random.nextDouble() * 1e6) / 100.0;
+            ByteArrayBuilder builder = new ByteArrayBuilder(32);
+            builder.append(value);
+            String field = new String(builder.toBytes(), 0, builder.length() - 1, StandardCharsets.ISO_8859_1);
+            assertEquals(field, value, Double.parseDouble(field), 0);
+        }
+    }
+
+    @Test
+    public void test_append_grows_buffer(){
+        ByteArrayBuilder builder = new ByteArrayBuilder(4);
+        builder.append("AAPL").append(12345).append("EUR.USD");
+
+        assertEquals("AAPL|12345|EUR.USD|", fields(builder));
+    }
+}
@@ -0,0 +1,90 @@
+package com.unisoft.algotrader.provider.ib.api.serializer;
+
+import com.unisoft.algotrader.model.event.execution.Order;
+import com.unisoft.algotrader.model.refdata.Instrument;
+import com.unisoft.algotrader.model.trading.OrdType;
+import com.unisoft.algotrader.model.trading.Side;
+import com.unisoft.algotrader.model.trading.TimeInForce;
+import com.unisoft.algotrader.persistence.InMemoryRefDataStore;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per order cost of the serialization done by IBSocket.placeOrder, which encodes into the builder of the thread
+ * and writes it to the socket channel, against the byte[] copy returned by serialize. The channel discards the
+ * bytes so only the encoding and the buffer hand-off are measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PlaceOrderSerializerBenchmark {
+
+    private static final int SERVER_VERSION = 76;
+
+    private final WritableByteChannel channel = new WritableByteChannel() {
+        @Override
+        public int write(ByteBuffer src) {
+            int length = src.remaining();
+            src.position(src.limit());
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    private PlaceOrderSerializer serializer;
+    private Order order;
+
+    @Setup
+    public void setup() {
+        InMemoryRefDataStore refDataStore = new InMemoryRefDataStore();
+        refDataStore.saveInstrument(new Instrument(1, Instrument.InstType.Stock, "IBM", "IBM", "NYSE", "USD"));
+        serializer = new PlaceOrderSerializer(refDataStore, SERVER_VERSION);
+
+        order = new Order();
+        order.orderId = 1;
+        order.instId = 1;
+        order.side = Side.Buy;
+        order.ordType = OrdType.Limit;
+        order.tif = TimeInForce.Day;
+        order.ordQty = 1000;
+        order.limitPrice = 145.37;
+    }
+
+    @Benchmark
+    public void encodeAndWrite() throws IOException {
+        order.orderId++;
+        serializer.encode(order).writeTo(channel);
+    }
+
+    @Benchmark
+    public byte[] serializeToBytes() {
+        order.orderId++;
+        return serializer.serialize(order);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PlaceOrderSerializerBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
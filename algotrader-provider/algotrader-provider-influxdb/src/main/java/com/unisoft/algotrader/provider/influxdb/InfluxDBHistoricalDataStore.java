@@ -8,6 +8,7 @@ import com.unisoft.algotrader.model.event.data.Trade;
 import com.unisoft.algotrader.provider.ProviderId;
 import com.unisoft.algotrader.provider.ProviderManager;
 import com.unisoft.algotrader.provider.data.AbstractDataStoreProvider;
+import com.unisoft.algotrader.provider.data.HistoricalCursor;
 import com.unisoft.algotrader.provider.data.HistoricalSubscriptionKey;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -79,6 +80,11 @@ public class InfluxDBHistoricalDataStore extends AbstractDataStoreProvider{
 
     /// PROVIDER
 
+    @Override
+    public HistoricalCursor openHistoricalData(HistoricalSubscriptionKey subscriptionKey) {
+        return null;
+    }
+
     @Override
     public List<MarketDataContainer> loadHistoricalData(HistoricalSubscriptionKey subscriptionKey) {
         return null;
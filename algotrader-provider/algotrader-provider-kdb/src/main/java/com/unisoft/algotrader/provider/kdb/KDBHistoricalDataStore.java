@@ -4,7 +4,6 @@ import com.exxeleron.qjava.QBasicConnection;
 import com.exxeleron.qjava.QConnection;
 import com.exxeleron.qjava.QMessage;
 import com.exxeleron.qjava.QTable;
-import com.google.common.collect.Lists;
 import com.unisoft.algotrader.event.bus.LogMarketDataEventBus;
 import com.unisoft.algotrader.model.event.bus.MarketDataEventBus;
 import com.unisoft.algotrader.model.event.data.Bar;
@@ -14,6 +13,7 @@ import com.unisoft.algotrader.model.event.data.Trade;
 import com.unisoft.algotrader.provider.ProviderId;
 import com.unisoft.algotrader.provider.ProviderManager;
 import com.unisoft.algotrader.provider.data.AbstractDataStoreProvider;
+import com.unisoft.algotrader.provider.data.HistoricalCursor;
 import com.unisoft.algotrader.provider.data.HistoricalSubscriptionKey;
 import com.unisoft.algotrader.provider.data.SubscriptionKey;
 import com.unisoft.algotrader.utils.DateHelper;
@@ -22,7 +22,6 @@ import org.apache.logging.log4j.Logger;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -49,6 +48,13 @@ public class KDBHistoricalDataStore extends AbstractDataStoreProvider{
     private static final String DT_GE = ", datetime >= ";
     private static final String DT_LT = ", datetime < ";
 
+    private static final int CHUNK_SIZE = 10000;
+    private static final String SELECT_PREFIX = "select[";
+    private static final String SELECT_LIMIT_SEP = " ";
+    private static final String BAR_SELECT_CHUNK_SUFFIX = ";<datetime] from bar where sym=`";
+    private static final String QUOTE_SELECT_CHUNK_SUFFIX = ";<datetime] from quote where sym=`";
+    private static final String TRADE_SELECT_CHUNK_SUFFIX = ";<datetime] from trade where sym=`";
+
 
     private final AtomicBoolean connected = new AtomicBoolean(false);
 
@@ -157,71 +163,105 @@ public class KDBHistoricalDataStore extends AbstractDataStoreProvider{
     }
 
     @Override
-    public List<MarketDataContainer> loadHistoricalData(HistoricalSubscriptionKey subscriptionKey) {
-        List<MarketDataContainer> result = Lists.newArrayList();
+    public HistoricalCursor openHistoricalData(HistoricalSubscriptionKey subscriptionKey) {
         switch (subscriptionKey.subscriptionType.type) {
             case Bar:
-                result = loadBar(subscriptionKey);
-                break;
+                return new KDBCursor(){
+                    @Override
+                    protected QTable queryChunk(long offset, int count) {
+                        return select(buildBarSelectQuery(subscriptionKey, subscriptionKey.fromDate, subscriptionKey.toDate, offset, count), "bar");
+                    }
+
+                    @Override
+                    protected void setRow(QTable.Row row, MarketDataContainer container) {
+                        container.setBar((int) row.get(0),
+                                (int) row.get(1), (long) row.get(2), (double) row.get(3), (double) row.get(4),
+                                (double) row.get(5), (double) row.get(6), (int) row.get(7), (int) row.get(8));
+                    }
+                };
 
             case Trade:
-                result = loadTrade(subscriptionKey);
-                break;
+                return new KDBCursor(){
+                    @Override
+                    protected QTable queryChunk(long offset, int count) {
+                        return select(buildTradeSelectQuery(subscriptionKey, subscriptionKey.fromDate, subscriptionKey.toDate, offset, count), "trade");
+                    }
+
+                    @Override
+                    protected void setRow(QTable.Row row, MarketDataContainer container) {
+                        container.setTrade((int) row.get(0),
+                                (long) row.get(1), (double) row.get(2), (int) row.get(3));
+                    }
+                };
 
             case Quote:
-                result = loadQuote(subscriptionKey);
-                break;
+                return new KDBCursor(){
+                    @Override
+                    protected QTable queryChunk(long offset, int count) {
+                        return select(buildQuoteSelectQuery(subscriptionKey, subscriptionKey.fromDate, subscriptionKey.toDate, offset, count), "quote");
+                    }
+
+                    @Override
+                    protected void setRow(QTable.Row row, MarketDataContainer container) {
+                        container.setQuote((int) row.get(0),
+                                (long) row.get(1), (double) row.get(2), (double) row.get(3),
+                                (int) row.get(4), (int) row.get(5));
+                    }
+                };
+
+            default:
+                throw new UnsupportedOperationException();
         }
-        return result;
     }
 
-    private List<MarketDataContainer>  loadBar(HistoricalSubscriptionKey subscriptionKey){
-        List<MarketDataContainer> list = Lists.newArrayList();
-
-        QTable table = queryBar(subscriptionKey);
-        if (table != null) {
-            for (int i = 0; i < table.getRowsCount(); i++) {
-                QTable.Row row = table.get(i);
-                MarketDataContainer container = new MarketDataContainer();
-                container.setBar((int) row.get(0),
-                        (int) row.get(1), (long) row.get(2), (double) row.get(3), (double) row.get(4),
-                        (double) row.get(5), (double) row.get(6), (int) row.get(7), (int) row.get(8));
-                list.add(container);
+    /**
+     * Select {@link #CHUNK_SIZE} rows at a time, so that only one chunk of the range is held in memory.
+     */
+    private abstract class KDBCursor implements HistoricalCursor {
+
+        private final MarketDataContainer container = new MarketDataContainer();
+        private QTable chunk;
+        private int row;
+        private long offset;
+        private boolean closed = false;
+
+        @Override
+        public boolean next() {
+            if (closed) {
+                return false;
             }
-        }
-        return list;
-    }
-    private List<MarketDataContainer>  loadTrade(HistoricalSubscriptionKey subscriptionKey){
-        List<MarketDataContainer> list = Lists.newArrayList();
-
-        QTable table = queryTrade(subscriptionKey);
-        if (table != null) {
-            for (int i = 0; i < table.getRowsCount(); i++) {
-                QTable.Row row = table.get(i);
-                MarketDataContainer container = new MarketDataContainer();
-                container.setTrade((int) row.get(0),
-                        (long) row.get(1), (double) row.get(2), (int) row.get(3));
-                list.add(container);
+            if (chunk == null || row >= chunk.getRowsCount()) {
+                if (chunk != null && chunk.getRowsCount() < CHUNK_SIZE) {
+                    closed = true;
+                    return false;
+                }
+                chunk = queryChunk(offset, CHUNK_SIZE);
+                row = 0;
+                if (chunk == null || chunk.getRowsCount() == 0) {
+                    closed = true;
+                    return false;
+                }
+                offset += chunk.getRowsCount();
             }
+            container.reset();
+            setRow(chunk.get(row++), container);
+            return true;
         }
-        return list;
-    }
 
-    private List<MarketDataContainer>  loadQuote(HistoricalSubscriptionKey subscriptionKey){
-        List<MarketDataContainer> list = Lists.newArrayList();
+        protected abstract QTable queryChunk(long offset, int count);
 
-        QTable table = queryQuote(subscriptionKey);
-        if (table != null) {
-            for (int i = 0; i < table.getRowsCount(); i++) {
-                QTable.Row row = table.get(i);
-                MarketDataContainer container = new MarketDataContainer();
-                container.setQuote((int) row.get(0),
-                        (long) row.get(1), (double) row.get(2), (double) row.get(3),
-                        (int) row.get(4), (int) row.get(5));
-                list.add(container);
-            }
+        protected abstract void setRow(QTable.Row row, MarketDataContainer container);
+
+        @Override
+        public MarketDataContainer current() {
+            return container;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            chunk = null;
         }
-        return list;
     }
 
     private void publishBar(HistoricalSubscriptionKey subscriptionKey) {
@@ -261,59 +301,31 @@ public class KDBHistoricalDataStore extends AbstractDataStoreProvider{
     }
 
     private QTable queryBar(HistoricalSubscriptionKey subscriptionKey){
-        try {
-            String query = buildBarSelectQuery(subscriptionKey, subscriptionKey.fromDate, subscriptionKey.toDate);
-            q.query(QConnection.MessageType.SYNC, query);
-            final QMessage message = (QMessage) q.receive(false, false);
-
-            if (message.getData() !=null && message.getData() instanceof  QTable) {
-                return (QTable) message.getData();
-            }
-            else{
-                LOG.warn("fail to query bar");
-            }
-        }
-        catch (Exception e){
-            LOG.error("Fail to query bar", e);
-        }
-        return null;
+        return select(buildBarSelectQuery(subscriptionKey, subscriptionKey.fromDate, subscriptionKey.toDate), "bar");
     }
 
     private QTable queryQuote(HistoricalSubscriptionKey subscriptionKey){
-        try {
-            String query = buildQuoteSelectQuery(subscriptionKey, subscriptionKey.fromDate, subscriptionKey.toDate);
-            q.query(QConnection.MessageType.SYNC, query);
-            final QMessage message = (QMessage) q.receive(false, false);
-
-            if (message.getData() !=null && message.getData() instanceof  QTable) {
-
-                return (QTable) message.getData();
-            }
-            else{
-                LOG.warn("fail to query quote");
-            }
-        }
-        catch (Exception e){
-            LOG.error("Fail to query quote", e);
-        }
-        return null;
+        return select(buildQuoteSelectQuery(subscriptionKey, subscriptionKey.fromDate, subscriptionKey.toDate), "quote");
     }
 
     private QTable queryTrade(HistoricalSubscriptionKey subscriptionKey){
+        return select(buildTradeSelectQuery(subscriptionKey, subscriptionKey.fromDate, subscriptionKey.toDate), "trade");
+    }
+
+    protected QTable select(String query, String table){
         try {
-            String query = buildTradeSelectQuery(subscriptionKey, subscriptionKey.fromDate, subscriptionKey.toDate);
             q.query(QConnection.MessageType.SYNC, query);
             final QMessage message = (QMessage) q.receive(false, false);
 
             if (message.getData() !=null && message.getData() instanceof  QTable) {
                 return (QTable) message.getData();
             }
-            else {
-                LOG.warn("fail to query trade");
+            else{
+                LOG.warn("fail to query {}", table);
             }
         }
         catch (Exception e){
-            LOG.error("Fail to query trade", e);
+            LOG.error("Fail to query {}", table, e);
         }
         return null;
     }
@@ -366,6 +378,28 @@ public class KDBHistoricalDataStore extends AbstractDataStoreProvider{
                 .append(DT_LT).append(toDate).toString();
     }
 
+    public static String buildBarSelectQuery(SubscriptionKey subscriptionKey, long fromDate, long toDate, long offset, int count){
+        return new StringBuilder(SELECT_PREFIX).append(offset).append(SELECT_LIMIT_SEP).append(count)
+                .append(BAR_SELECT_CHUNK_SUFFIX).append(subscriptionKey.instId)
+                .append(SIZE_EQ).append(subscriptionKey.subscriptionType.barSize)
+                .append(DT_GE).append(fromDate)
+                .append(DT_LT).append(toDate).toString();
+    }
+
+    public static String buildTradeSelectQuery(SubscriptionKey subscriptionKey, long fromDate, long toDate, long offset, int count){
+        return new StringBuilder(SELECT_PREFIX).append(offset).append(SELECT_LIMIT_SEP).append(count)
+                .append(TRADE_SELECT_CHUNK_SUFFIX).append(subscriptionKey.instId)
+                .append(DT_GE).append(fromDate)
+                .append(DT_LT).append(toDate).toString();
+    }
+
+    public static String buildQuoteSelectQuery(SubscriptionKey subscriptionKey, long fromDate, long toDate, long offset, int count){
+        return new StringBuilder(SELECT_PREFIX).append(offset).append(SELECT_LIMIT_SEP).append(count)
+                .append(QUOTE_SELECT_CHUNK_SUFFIX).append(subscriptionKey.instId)
+                .append(DT_GE).append(fromDate)
+                .append(DT_LT).append(toDate).toString();
+    }
+
     public static void main(String [] args) throws Exception{
 
         ProviderManager providerManager = new ProviderManager();
@@ -0,0 +1,142 @@
+package com.unisoft.algotrader.provider.kdb;
+
+import com.exxeleron.qjava.QTable;
+import com.unisoft.algotrader.model.event.bus.MarketDataEventBus;
+import com.unisoft.algotrader.model.event.data.MarketDataContainer;
+import com.unisoft.algotrader.model.event.data.Trade;
+import com.unisoft.algotrader.provider.ProviderManager;
+import com.unisoft.algotrader.provider.data.HistoricalCursor;
+import com.unisoft.algotrader.provider.data.HistoricalSubscriptionKey;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Answers the chunk queries of the cursor from an in memory trade table, the query is evaluated as q would: rows
+ * of the instrument within the datetime bounds, sorted by datetime, then the offset and count of the chunk.
+ */
+public class KDBHistoricalCursorTest {
+
+    private static final long INST_ID = 1;
+    private static final int CHUNK_SIZE = 10000;
+
+    private static final Pattern TRADE_CHUNK_QUERY = Pattern.compile(
+            "select\\[(\\d+) (\\d+);<datetime\\] from trade where sym=`(\\d+), datetime >= (\\d+), datetime (<|<=) (\\d+)");
+
+    private final List<Trade> table = new CopyOnWriteArrayList<>();
+    private final List<String> queries = new CopyOnWriteArrayList<>();
+    private KDBHistoricalDataStore store;
+
+    @Before
+    public void setup(){
+        store = new KDBHistoricalDataStore(mock(ProviderManager.class), new KDBConfig("127.0.0.1", 5000, null, null), mock(MarketDataEventBus.class)){
+            @Override
+            protected QTable select(String query, String tableName) {
+                queries.add(query);
+                return evaluate(query);
+            }
+        };
+    }
+
+    private QTable evaluate(String query){
+        Matcher matcher = TRADE_CHUNK_QUERY.matcher(query);
+        assertTrue(query, matcher.matches());
+        long offset = Long.parseLong(matcher.group(1));
+        int count = Integer.parseInt(matcher.group(2));
+        long instId = Long.parseLong(matcher.group(3));
+        long fromDate = Long.parseLong(matcher.group(4));
+        boolean endIncluded = matcher.group(5).equals("<=");
+        long toDate = Long.parseLong(matcher.group(6));
+
+        List<Trade> rows = table.stream()
+                .filter(trade -> trade.instId == instId && trade.dateTime >= fromDate
+                        && (endIncluded ? trade.dateTime <= toDate : trade.dateTime < toDate))
+                .sorted(Comparator.comparingLong(trade -> trade.dateTime))
+                .skip(offset).limit(count)
+                .collect(Collectors.toList());
+
+        int[] sym = new int[rows.size()];
+        long[] datetime = new long[rows.size()];
+        double[] price = new double[rows.size()];
+        int[] size = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            Trade trade = rows.get(i);
+            sym[i] = (int) trade.instId;
+            datetime[i] = trade.dateTime;
+            price[i] = trade.price;
+            size[i] = trade.size;
+        }
+        return new QTable(new String[]{"sym", "datetime", "price", "size"}, new Object[]{sym, datetime, price, size});
+    }
+
+    private HistoricalCursor open(long fromDate, long toDate){
+        return store.openHistoricalData(HistoricalSubscriptionKey.createTradeSubscriptionKey(store.providerId().id, INST_ID, fromDate, toDate));
+    }
+
+    @Test
+    public void test_rows_in_time_order_across_chunks(){
+        int count = CHUNK_SIZE + 5;
+        for (int i = count; i > 0; i--) {
+            table.add(new Trade(INST_ID, i, i, i));
+        }
+
+        List<MarketDataContainer> result = HistoricalCursor.toList(open(0, count + 1));
+
+        assertEquals(count, result.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i + 1, result.get(i).trade.dateTime);
+            assertEquals(i + 1, result.get(i).trade.price, 0.0);
+        }
+        assertEquals(2, queries.size());
+    }
+
+    @Test
+    public void test_empty_range(){
+        table.add(new Trade(INST_ID, 1000, 1, 1));
+        table.add(new Trade(INST_ID, 3000, 3, 3));
+
+        HistoricalCursor cursor = open(1500, 2500);
+        assertFalse(cursor.next());
+        assertFalse(cursor.next());
+        assertEquals(1, queries.size());
+    }
+
+    @Test
+    public void test_range_end_not_included(){
+        for (int i = 1; i <= 5; i++) {
+            table.add(new Trade(INST_ID, i * 1000, i, i));
+        }
+
+        List<MarketDataContainer> result = HistoricalCursor.toList(open(2000, 4000));
+
+        assertEquals(2, result.size());
+        assertEquals(2000, result.get(0).trade.dateTime);
+        assertEquals(3000, result.get(1).trade.dateTime);
+    }
+
+    @Test
+    public void test_close_stop_querying(){
+        for (int i = 1; i <= CHUNK_SIZE + 5; i++) {
+            table.add(new Trade(INST_ID, i, i, i));
+        }
+
+        HistoricalCursor cursor = open(0, CHUNK_SIZE + 10);
+        assertTrue(cursor.next());
+        cursor.close();
+
+        assertFalse(cursor.next());
+        cursor.close();
+        assertEquals(1, queries.size());
+    }
+}
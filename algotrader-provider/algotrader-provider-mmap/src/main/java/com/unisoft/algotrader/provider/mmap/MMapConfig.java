@@ -0,0 +1,17 @@
+package com.unisoft.algotrader.provider.mmap;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+/**
+ * Root directory of the memory-mapped market data files.
+ */
+public class MMapConfig {
+    public final String path;
+
+    @Inject
+    public MMapConfig(@Named("mmap.path")String path){
+        this.path = path;
+    }
+
+}
@@ -0,0 +1,411 @@
+package com.unisoft.algotrader.provider.mmap;
+
+import com.google.common.collect.Maps;
+import com.unisoft.algotrader.model.event.bus.MarketDataEventBus;
+import com.unisoft.algotrader.model.event.data.Bar;
+import com.unisoft.algotrader.model.event.data.DataType;
+import com.unisoft.algotrader.model.event.data.MarketDataContainer;
+import com.unisoft.algotrader.model.event.data.Quote;
+import com.unisoft.algotrader.model.event.data.Trade;
+import com.unisoft.algotrader.provider.ProviderId;
+import com.unisoft.algotrader.provider.ProviderManager;
+import com.unisoft.algotrader.provider.data.AbstractDataStoreProvider;
+import com.unisoft.algotrader.provider.data.HistoricalCursor;
+import com.unisoft.algotrader.provider.data.HistoricalSubscriptionKey;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.unisoft.algotrader.provider.mmap.MMapUtils.*;
+
+/**
+ * Market data store keeping bars, quotes and trades in fixed width little-endian binary files, one file per
+ * instrument, type (and bar size) and day, see {@link MMapUtils} for the layout.
+ *
+ * Writes append to a memory-mapped {@link MappedFile}. Historical subscriptions binary search the first record
+ * of the range and publish straight from the mapped buffer into the {@link MarketDataEventBus}, no
+ * intermediate {@link MarketDataContainer} is created; cursors walk the same records into one reused container.
+ */
+@Singleton
+public class MMapHistoricalDataStore extends AbstractDataStoreProvider {
+
+    private static final Logger LOG = LogManager.getLogger(MMapHistoricalDataStore.class);
+
+    public static final ProviderId PROVIDER_ID = ProviderId.MMap;
+
+    private AtomicBoolean connected = new AtomicBoolean(false);
+    private final File dir;
+    private final MarketDataEventBus marketDataEventBus;
+
+    private final Map<StreamKey, StreamWriter> writers = Maps.newHashMap();
+    private final StreamKey lookupKey = new StreamKey();
+    private long rejectedRecords;
+
+    @Inject
+    public MMapHistoricalDataStore(ProviderManager providerManager, MMapConfig config, MarketDataEventBus marketDataEventBus){
+        this(providerManager, new File(config.path), marketDataEventBus);
+    }
+
+    protected MMapHistoricalDataStore(ProviderManager providerManager, File dir, MarketDataEventBus marketDataEventBus){
+        super(providerManager);
+        this.dir = dir;
+        this.marketDataEventBus = marketDataEventBus;
+    }
+
+    /// PROVIDER
+    @Override
+    public ProviderId providerId() {
+        return PROVIDER_ID;
+    }
+
+    @Override
+    public boolean connected() {
+        return connected.get();
+    }
+
+    public void connect(){
+        if (connected.compareAndSet(false, true)){
+            dir.mkdirs();
+        }
+    }
+
+    public void disconnect(){
+        connected.compareAndSet(true, false);
+        writers.values().forEach(StreamWriter::close);
+        writers.clear();
+    }
+
+    /// DATASTORE
+    @Override
+    public void onBar(Bar bar) {
+        try {
+            MappedFile file = getOrCreateFile(DataType.Bar, bar.instId, bar.size, bar.dateTime);
+            if (isOutOfOrder(file, bar.dateTime)) {
+                return;
+            }
+            int pos = file.append(bar.dateTime);
+            ByteBuffer buffer = file.buffer();
+            buffer.putDouble(pos + BAR_OPEN, bar.open);
+            buffer.putDouble(pos + BAR_HIGH, bar.high);
+            buffer.putDouble(pos + BAR_LOW, bar.low);
+            buffer.putDouble(pos + BAR_CLOSE, bar.close);
+            buffer.putLong(pos + BAR_VOLUME, bar.volume);
+            buffer.putLong(pos + BAR_OPEN_INT, bar.openInt);
+            file.commit();
+        }
+        catch (IOException e){
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void onQuote(Quote quote) {
+        try {
+            MappedFile file = getOrCreateFile(DataType.Quote, quote.instId, 0, quote.dateTime);
+            if (isOutOfOrder(file, quote.dateTime)) {
+                return;
+            }
+            int pos = file.append(quote.dateTime);
+            ByteBuffer buffer = file.buffer();
+            buffer.putDouble(pos + QUOTE_BID, quote.bid);
+            buffer.putDouble(pos + QUOTE_ASK, quote.ask);
+            buffer.putInt(pos + QUOTE_BID_SIZE, quote.bidSize);
+            buffer.putInt(pos + QUOTE_ASK_SIZE, quote.askSize);
+            file.commit();
+        }
+        catch (IOException e){
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void onTrade(Trade trade) {
+        try {
+            MappedFile file = getOrCreateFile(DataType.Trade, trade.instId, 0, trade.dateTime);
+            if (isOutOfOrder(file, trade.dateTime)) {
+                return;
+            }
+            int pos = file.append(trade.dateTime);
+            ByteBuffer buffer = file.buffer();
+            buffer.putDouble(pos + TRADE_PRICE, trade.price);
+            buffer.putInt(pos + TRADE_SIZE, trade.size);
+            file.commit();
+        }
+        catch (IOException e){
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * An out of order record is logged and skipped, it must not stop the thread importing the market data.
+     */
+    private boolean isOutOfOrder(MappedFile file, long dateTime){
+        if (dateTime < file.lastDateTime()){
+            rejectedRecords++;
+            LOG.warn("skip out of order record, dateTime={}, last={}, file={}", dateTime, file.lastDateTime(), file.file());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of out of order records skipped
+     */
+    public long rejectedRecords(){
+        return rejectedRecords;
+    }
+
+    /**
+     * The file of the current day of each stream stays open, it is closed when the stream moves to the next day.
+     */
+    protected MappedFile getOrCreateFile(DataType type, long instId, int barSize, long dateTime) throws IOException{
+        long day = day(dateTime);
+        StreamWriter writer = writers.get(lookupKey.set(type, instId, barSize));
+        if (writer != null && writer.day == day){
+            return writer.file;
+        }
+        if (writer == null){
+            writer = new StreamWriter();
+            writers.put(new StreamKey().set(type, instId, barSize), writer);
+        }
+        else {
+            writer.close();
+        }
+        writer.day = day;
+        writer.file = MappedFile.openForAppend(getFile(type, instId, barSize, day), recordSize(type));
+        return writer.file;
+    }
+
+    protected File getFile(DataType type, long instId, int barSize, long day){
+        return new File(dir, getFileName(type, instId, barSize, day));
+    }
+
+    @Override
+    public boolean subscribeHistoricalData(HistoricalSubscriptionKey subscriptionKey) {
+        DataType type = subscriptionKey.subscriptionType.type;
+        long fromDateTime = subscriptionKey.fromDate;
+        long toDateTime = subscriptionKey.toDate;
+        for (long day = day(fromDateTime); day <= day(toDateTime); day++) {
+            MappedFile file = openForRead(subscriptionKey, day);
+            if (file == null) {
+                continue;
+            }
+            try {
+                switch (type) {
+                    case Bar:
+                        publishBar(subscriptionKey, file, fromDateTime, toDateTime);
+                        break;
+                    case Trade:
+                        publishTrade(subscriptionKey, file, fromDateTime, toDateTime);
+                        break;
+                    case Quote:
+                        publishQuote(subscriptionKey, file, fromDateTime, toDateTime);
+                        break;
+                }
+            }
+            finally {
+                close(file);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public HistoricalCursor openHistoricalData(HistoricalSubscriptionKey subscriptionKey) {
+        return new MMapCursor(subscriptionKey);
+    }
+
+    /**
+     * Walk the day files of the range one record at a time, only the current day file is mapped.
+     */
+    private class MMapCursor implements HistoricalCursor {
+
+        private final HistoricalSubscriptionKey subscriptionKey;
+        private final MarketDataContainer container = new MarketDataContainer();
+        private final long lastDay;
+        private long day;
+        private MappedFile file;
+        private int index;
+        private boolean closed = false;
+
+        private MMapCursor(HistoricalSubscriptionKey subscriptionKey){
+            this.subscriptionKey = subscriptionKey;
+            this.day = day(subscriptionKey.fromDate);
+            this.lastDay = day(subscriptionKey.toDate);
+        }
+
+        @Override
+        public boolean next() {
+            while (!closed) {
+                if (file == null) {
+                    if (day > lastDay) {
+                        close();
+                        return false;
+                    }
+                    file = openForRead(subscriptionKey, day++);
+                    if (file == null) {
+                        continue;
+                    }
+                    index = file.lowerBound(subscriptionKey.fromDate);
+                }
+                if (index < file.count()) {
+                    int pos = file.position(index++);
+                    long time = file.buffer().getLong(pos);
+                    if (time > subscriptionKey.toDate) {
+                        close();
+                        return false;
+                    }
+                    setRecord(file.buffer(), pos, time);
+                    return true;
+                }
+                MMapHistoricalDataStore.close(file);
+                file = null;
+            }
+            return false;
+        }
+
+        private void setRecord(ByteBuffer buffer, int pos, long time){
+            container.reset();
+            switch (subscriptionKey.subscriptionType.type) {
+                case Bar:
+                    container.setBar(subscriptionKey.instId, subscriptionKey.subscriptionType.barSize, time,
+                            buffer.getDouble(pos + BAR_OPEN), buffer.getDouble(pos + BAR_HIGH), buffer.getDouble(pos + BAR_LOW), buffer.getDouble(pos + BAR_CLOSE),
+                            buffer.getLong(pos + BAR_VOLUME), buffer.getLong(pos + BAR_OPEN_INT));
+                    break;
+                case Trade:
+                    container.setTrade(subscriptionKey.instId, time,
+                            buffer.getDouble(pos + TRADE_PRICE), buffer.getInt(pos + TRADE_SIZE));
+                    break;
+                case Quote:
+                    container.setQuote(subscriptionKey.instId, time,
+                            buffer.getDouble(pos + QUOTE_BID), buffer.getDouble(pos + QUOTE_ASK), buffer.getInt(pos + QUOTE_BID_SIZE), buffer.getInt(pos + QUOTE_ASK_SIZE));
+                    break;
+            }
+        }
+
+        @Override
+        public MarketDataContainer current() {
+            return container;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            if (file != null) {
+                MMapHistoricalDataStore.close(file);
+                file = null;
+            }
+        }
+    }
+
+    protected void publishBar(HistoricalSubscriptionKey subscriptionKey, MappedFile file, long fromDateTime, long toDateTime) {
+        ByteBuffer buffer = file.buffer();
+        int barSize = subscriptionKey.subscriptionType.barSize;
+        for (int i = file.lowerBound(fromDateTime); i < file.count(); i++) {
+            int pos = file.position(i);
+            long time = buffer.getLong(pos);
+            if (time > toDateTime)
+                break;
+            marketDataEventBus.publishBar(subscriptionKey.instId, barSize, time,
+                    buffer.getDouble(pos + BAR_OPEN), buffer.getDouble(pos + BAR_HIGH), buffer.getDouble(pos + BAR_LOW), buffer.getDouble(pos + BAR_CLOSE),
+                    buffer.getLong(pos + BAR_VOLUME), buffer.getLong(pos + BAR_OPEN_INT));
+        }
+    }
+
+    protected void publishQuote(HistoricalSubscriptionKey subscriptionKey, MappedFile file, long fromDateTime, long toDateTime) {
+        ByteBuffer buffer = file.buffer();
+        for (int i = file.lowerBound(fromDateTime); i < file.count(); i++) {
+            int pos = file.position(i);
+            long time = buffer.getLong(pos);
+            if (time > toDateTime)
+                break;
+            marketDataEventBus.publishQuote(subscriptionKey.instId, time,
+                    buffer.getDouble(pos + QUOTE_BID), buffer.getDouble(pos + QUOTE_ASK), buffer.getInt(pos + QUOTE_BID_SIZE), buffer.getInt(pos + QUOTE_ASK_SIZE));
+        }
+    }
+
+    protected void publishTrade(HistoricalSubscriptionKey subscriptionKey, MappedFile file, long fromDateTime, long toDateTime) {
+        ByteBuffer buffer = file.buffer();
+        for (int i = file.lowerBound(fromDateTime); i < file.count(); i++) {
+            int pos = file.position(i);
+            long time = buffer.getLong(pos);
+            if (time > toDateTime)
+                break;
+            marketDataEventBus.publishTrade(subscriptionKey.instId, time,
+                    buffer.getDouble(pos + TRADE_PRICE), buffer.getInt(pos + TRADE_SIZE));
+        }
+    }
+
+    private MappedFile openForRead(HistoricalSubscriptionKey subscriptionKey, long day){
+        DataType type = subscriptionKey.subscriptionType.type;
+        File file = getFile(type, subscriptionKey.instId, subscriptionKey.subscriptionType.barSize, day);
+        if (!file.exists()){
+            return null;
+        }
+        try {
+            return MappedFile.openForRead(file, recordSize(type));
+        }
+        catch (IOException e){
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void close(MappedFile file){
+        try {
+            file.close();
+        }
+        catch (IOException e){
+            LOG.error("fail to close {}", file.file(), e);
+        }
+    }
+
+    private static class StreamKey {
+        private DataType type;
+        private long instId;
+        private int barSize;
+
+        StreamKey set(DataType type, long instId, int barSize){
+            this.type = type;
+            this.instId = instId;
+            this.barSize = barSize;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof StreamKey)) return false;
+            StreamKey that = (StreamKey) o;
+            return instId == that.instId &&
+                    barSize == that.barSize &&
+                    type == that.type;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = type.ordinal();
+            result = 31 * result + (int) (instId ^ (instId >>> 32));
+            result = 31 * result + barSize;
+            return result;
+        }
+    }
+
+    private static class StreamWriter {
+        private long day = Long.MIN_VALUE;
+        private MappedFile file;
+
+        void close(){
+            if (file != null){
+                MMapHistoricalDataStore.close(file);
+                file = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.unisoft.algotrader.provider.mmap;
+
+import com.unisoft.algotrader.model.event.data.DataType;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * File naming and record layout of the memory-mapped store.
+ *
+ * There is one file per instrument, data type (and bar size) and UTC day. Every record has a fixed width and
+ * all fields are little-endian, the first field of every record is the dateTime so that a day file can be
+ * binary searched on time.
+ */
+public interface MMapUtils {
+
+    public final static long DAY_MILLIS = 24L * 60 * 60 * 1000;
+    public final static DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    public final static String BAR_FILENAME_FORMAT = "BAR.%1$d.%2$d.%3$s.bin";
+    public final static String QUOTE_FILENAME_FORMAT = "QUOTE.%1$d.%2$s.bin";
+    public final static String TRADE_FILENAME_FORMAT = "TRADE.%1$d.%2$s.bin";
+
+    // BAR: dateTime(8) open(8) high(8) low(8) close(8) volume(8) openInt(8)
+    public final static int BAR_OPEN = 8;
+    public final static int BAR_HIGH = 16;
+    public final static int BAR_LOW = 24;
+    public final static int BAR_CLOSE = 32;
+    public final static int BAR_VOLUME = 40;
+    public final static int BAR_OPEN_INT = 48;
+    public final static int BAR_RECORD_SIZE = 56;
+
+    // QUOTE: dateTime(8) bid(8) ask(8) bidSize(4) askSize(4)
+    public final static int QUOTE_BID = 8;
+    public final static int QUOTE_ASK = 16;
+    public final static int QUOTE_BID_SIZE = 24;
+    public final static int QUOTE_ASK_SIZE = 28;
+    public final static int QUOTE_RECORD_SIZE = 32;
+
+    // TRADE: dateTime(8) price(8) size(4) padding(4)
+    public final static int TRADE_PRICE = 8;
+    public final static int TRADE_SIZE = 16;
+    public final static int TRADE_RECORD_SIZE = 24;
+
+    static long day(long dateTime){
+        return Math.floorDiv(dateTime, DAY_MILLIS);
+    }
+
+    static int recordSize(DataType type){
+        switch (type){
+            case Bar:
+                return BAR_RECORD_SIZE;
+            case Trade:
+                return TRADE_RECORD_SIZE;
+            case Quote:
+                return QUOTE_RECORD_SIZE;
+            default:
+                throw new UnsupportedOperationException();
+        }
+    }
+
+    static String getFileName(DataType type, long instId, int barSize, long day){
+        String date = LocalDate.ofEpochDay(day).format(DAY_FORMAT);
+        switch (type){
+            case Bar:
+                return String.format(BAR_FILENAME_FORMAT, instId, barSize, date);
+            case Trade:
+                return String.format(TRADE_FILENAME_FORMAT, instId, date);
+            case Quote:
+                return String.format(QUOTE_FILENAME_FORMAT, instId, date);
+            default:
+                throw new UnsupportedOperationException();
+        }
+    }
+}
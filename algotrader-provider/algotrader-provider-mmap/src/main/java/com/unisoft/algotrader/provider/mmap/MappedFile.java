@@ -0,0 +1,191 @@
+package com.unisoft.algotrader.provider.mmap;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A file of fixed width records accessed through a {@link MappedByteBuffer}.
+ *
+ * The file starts with a header (magic, version, record size and the number of committed records), followed
+ * by the records in time order. A writable file is mapped ahead of the committed records and remapped with
+ * twice the capacity when full, so appending a record is a few buffer puts and never a system call. Records
+ * past the committed count are ignored by readers.
+ */
+public class MappedFile implements Closeable {
+
+    public static final int MAGIC = 0x50414D4D; // "MMAP" little-endian
+    public static final int VERSION = 1;
+
+    public static final int MAGIC_OFFSET = 0;
+    public static final int VERSION_OFFSET = 4;
+    public static final int RECORD_SIZE_OFFSET = 8;
+    public static final int COUNT_OFFSET = 16;
+    public static final int HEADER_SIZE = 32;
+
+    public static final int DEFAULT_INITIAL_CAPACITY = 4096;
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    private final int recordSize;
+    private final boolean writable;
+
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int count;
+    private long lastDateTime = Long.MIN_VALUE;
+
+    private MappedFile(File file, int recordSize, boolean writable, int initialCapacity) throws IOException {
+        this.file = file;
+        this.recordSize = recordSize;
+        this.writable = writable;
+        this.raf = new RandomAccessFile(file, writable ? "rw" : "r");
+        this.channel = raf.getChannel();
+
+        long length = raf.length();
+        if (length == 0 && writable){
+            map(Math.max(1, initialCapacity));
+            buffer.putInt(MAGIC_OFFSET, MAGIC);
+            buffer.putInt(VERSION_OFFSET, VERSION);
+            buffer.putInt(RECORD_SIZE_OFFSET, recordSize);
+            buffer.putLong(COUNT_OFFSET, 0);
+        }
+        else {
+            if (length < HEADER_SIZE){
+                close();
+                throw new IOException("Invalid mmap file, too short, file=" + file);
+            }
+            map((int) ((length - HEADER_SIZE) / recordSize));
+            if (buffer.getInt(MAGIC_OFFSET) != MAGIC || buffer.getInt(RECORD_SIZE_OFFSET) != recordSize){
+                close();
+                throw new IOException("Invalid mmap file header, file=" + file);
+            }
+            this.count = (int) buffer.getLong(COUNT_OFFSET);
+            if (count > 0) {
+                this.lastDateTime = dateTime(count - 1);
+            }
+        }
+    }
+
+    /**
+     * Open the file for append, it is created if it does not exist.
+     */
+    public static MappedFile openForAppend(File file, int recordSize) throws IOException{
+        return new MappedFile(file, recordSize, true, DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public static MappedFile openForAppend(File file, int recordSize, int initialCapacity) throws IOException{
+        return new MappedFile(file, recordSize, true, initialCapacity);
+    }
+
+    /**
+     * Open an existing file read only, the mapping covers the records committed when it is opened.
+     */
+    public static MappedFile openForRead(File file, int recordSize) throws IOException{
+        return new MappedFile(file, recordSize, false, 0);
+    }
+
+    private void map(int capacity) throws IOException{
+        long size = HEADER_SIZE + (long) capacity * recordSize;
+        if (size > Integer.MAX_VALUE){
+            throw new IOException("mmap file too large, file=" + file + ", size=" + size);
+        }
+        if (writable && raf.length() < size) {
+            raf.setLength(size);
+        }
+        this.buffer = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, size);
+        this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.capacity = capacity;
+    }
+
+    /**
+     * Reserve the next record and write its dateTime, returns the buffer position of the record. The record
+     * becomes visible to readers on {@link #commit()}.
+     */
+    public int append(long dateTime) throws IOException{
+        if (dateTime < lastDateTime){
+            throw new IllegalArgumentException("Out of order record, dateTime=" + dateTime + ", last=" + lastDateTime + ", file=" + file);
+        }
+        if (count == capacity){
+            map(capacity * 2);
+        }
+        int position = position(count);
+        buffer.putLong(position, dateTime);
+        lastDateTime = dateTime;
+        return position;
+    }
+
+    public void commit(){
+        count++;
+        buffer.putLong(COUNT_OFFSET, count);
+    }
+
+    public MappedByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * @return the dateTime of the last record appended, Long.MIN_VALUE when empty
+     */
+    public long lastDateTime() {
+        return lastDateTime;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int recordSize() {
+        return recordSize;
+    }
+
+    public File file() {
+        return file;
+    }
+
+    public int position(int index){
+        return HEADER_SIZE + index * recordSize;
+    }
+
+    public long dateTime(int index){
+        return buffer.getLong(position(index));
+    }
+
+    /**
+     * Index of the first record with dateTime >= the given dateTime, {@link #count()} if there is none.
+     */
+    public int lowerBound(long dateTime){
+        int low = 0;
+        int high = count;
+        while (low < high){
+            int mid = (low + high) >>> 1;
+            if (dateTime(mid) < dateTime){
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public void flush(){
+        if (writable) {
+            buffer.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (buffer != null) {
+            flush();
+        }
+        channel.close();
+        raf.close();
+    }
+}
@@ -0,0 +1,165 @@
+package com.unisoft.algotrader.provider.mmap;
+
+import com.lmax.disruptor.RingBuffer;
+import com.unisoft.algotrader.event.bus.RingBufferMarketDataEventBus;
+import com.unisoft.algotrader.model.event.data.Bar;
+import com.unisoft.algotrader.model.event.data.MarketDataContainer;
+import com.unisoft.algotrader.model.event.data.Quote;
+import com.unisoft.algotrader.model.event.data.Trade;
+import com.unisoft.algotrader.provider.ProviderManager;
+import com.unisoft.algotrader.provider.data.HistoricalCursor;
+import com.unisoft.algotrader.provider.data.HistoricalSubscriptionKey;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MMapHistoricalDataStoreTest {
+
+    private static final long DAY = MMapUtils.DAY_MILLIS;
+    private static final long INST_ID = 1;
+
+    private File dir;
+    private RingBuffer<MarketDataContainer> rb;
+    private MMapHistoricalDataStore store;
+
+    @Before
+    public void setup() throws Exception{
+        dir = Files.createTempDirectory("mmap").toFile();
+        rb = RingBuffer.createSingleProducer(MarketDataContainer.FACTORY, 1024);
+        store = new MMapHistoricalDataStore(new ProviderManager(), dir, new RingBufferMarketDataEventBus(rb));
+        store.connect();
+    }
+
+    @After
+    public void teardown(){
+        store.disconnect();
+        File [] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void test_load_bar_across_days(){
+        Bar bar1 = new Bar(INST_ID, 60, DAY - 60000, 500, 9999, 100, 600, 10, 1);
+        Bar bar2 = new Bar(INST_ID, 60, DAY, 600, 20000, 120, 700, 20, 2);
+        Bar bar3 = new Bar(INST_ID, 60, DAY + 60000, 700, 800, 650, 750, 30, 3);
+        store.onBar(bar1);
+        store.onBar(bar2);
+        store.onBar(bar3);
+
+        assertEquals(2, dir.listFiles().length);
+
+        List<MarketDataContainer> result = store.loadHistoricalData(HistoricalSubscriptionKey.createBarSubscriptionKey(store.providerId().id, INST_ID, 60, 0, 2 * DAY));
+        assertEquals(3, result.size());
+        assertEquals(bar1, result.get(0).bar);
+        assertEquals(bar2, result.get(1).bar);
+        assertEquals(bar3, result.get(2).bar);
+
+        result = store.loadHistoricalData(HistoricalSubscriptionKey.createBarSubscriptionKey(store.providerId().id, INST_ID, 60, DAY, DAY));
+        assertEquals(1, result.size());
+        assertEquals(bar2, result.get(0).bar);
+    }
+
+    @Test
+    public void test_subscribe_publish_to_ring_buffer(){
+        Quote quote1 = new Quote(INST_ID, 1000, 88, 89, 100, 200);
+        Quote quote2 = new Quote(INST_ID, 2000, 88.5, 89.5, 300, 400);
+        Quote quote3 = new Quote(INST_ID, 3000, 89, 90, 500, 600);
+        store.onQuote(quote1);
+        store.onQuote(quote2);
+        store.onQuote(quote3);
+
+        assertTrue(store.subscribeHistoricalData(HistoricalSubscriptionKey.createQuoteSubscriptionKey(store.providerId().id, INST_ID, 1500, 3000)));
+
+        assertEquals(1, rb.getCursor());
+        assertEquals(quote2, rb.get(0).quote);
+        assertEquals(2000, rb.get(0).dateTime);
+        assertEquals(quote3, rb.get(1).quote);
+    }
+
+    @Test
+    public void test_reopen_and_append_trade(){
+        Trade trade1 = new Trade(INST_ID, 1000, 88, 100);
+        Trade trade2 = new Trade(INST_ID, 2000, 89, 200);
+        store.onTrade(trade1);
+        store.disconnect();
+
+        store.connect();
+        store.onTrade(trade2);
+
+        List<MarketDataContainer> result = store.loadHistoricalData(HistoricalSubscriptionKey.createTradeSubscriptionKey(store.providerId().id, INST_ID, 0, DAY));
+        assertEquals(2, result.size());
+        assertEquals(trade1, result.get(0).trade);
+        assertEquals(trade2, result.get(1).trade);
+    }
+
+    @Test
+    public void test_grow_mapping(){
+        int count = MappedFile.DEFAULT_INITIAL_CAPACITY * 3;
+        for (int i = 0; i < count; i++){
+            store.onTrade(new Trade(INST_ID, i, i, i));
+        }
+
+        List<MarketDataContainer> result = store.loadHistoricalData(HistoricalSubscriptionKey.createTradeSubscriptionKey(store.providerId().id, INST_ID, 0, DAY));
+        assertEquals(count, result.size());
+        for (int i = 0; i < count; i++){
+            assertEquals(i, result.get(i).trade.dateTime);
+            assertEquals(i, result.get(i).trade.price, 0.0);
+        }
+    }
+
+    @Test
+    public void test_cursor_reuse_container_and_early_close(){
+        for (int i = 0; i < 10; i++){
+            store.onTrade(new Trade(INST_ID, i * DAY / 4, i, i));
+        }
+
+        HistoricalCursor cursor = store.openHistoricalData(HistoricalSubscriptionKey.createTradeSubscriptionKey(store.providerId().id, INST_ID, DAY / 2, 2 * DAY));
+        assertTrue(cursor.next());
+        MarketDataContainer container = cursor.current();
+        assertEquals(DAY / 2, container.trade.dateTime);
+
+        int count = 1;
+        while (cursor.next()){
+            assertSame(container, cursor.current());
+            assertEquals(2 + count, container.trade.price, 0.0);
+            count++;
+        }
+        assertEquals(7, count);
+        assertFalse(cursor.next());
+
+        cursor = store.openHistoricalData(HistoricalSubscriptionKey.createTradeSubscriptionKey(store.providerId().id, INST_ID, 0, 3 * DAY));
+        assertTrue(cursor.next());
+        cursor.close();
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    public void test_skip_out_of_order(){
+        store.onTrade(new Trade(INST_ID, 2000, 88, 100));
+        store.onTrade(new Trade(INST_ID, 1000, 89, 100));
+        store.onTrade(new Trade(INST_ID, 3000, 90, 100));
+        assertEquals(1, store.rejectedRecords());
+
+        HistoricalCursor cursor = store.openHistoricalData(HistoricalSubscriptionKey.createTradeSubscriptionKey(store.providerId().id, INST_ID, 0, DAY));
+        assertTrue(cursor.next());
+        assertEquals(2000, cursor.current().trade.dateTime);
+        assertTrue(cursor.next());
+        assertEquals(3000, cursor.current().trade.dateTime);
+        assertFalse(cursor.next());
+        cursor.close();
+    }
+}
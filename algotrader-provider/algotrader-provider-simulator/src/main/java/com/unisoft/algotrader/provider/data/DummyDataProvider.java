@@ -1,13 +1,11 @@
 package com.unisoft.algotrader.provider.data;
 
-import com.google.common.collect.Lists;
 import com.unisoft.algotrader.model.event.bus.MarketDataEventBus;
 import com.unisoft.algotrader.model.event.data.MarketDataContainer;
 import com.unisoft.algotrader.provider.ProviderId;
 import com.unisoft.algotrader.provider.ProviderManager;
 
 import java.text.SimpleDateFormat;
-import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -57,27 +55,40 @@ public class DummyDataProvider extends AbstractHistoricalDataProvider {
     }
 
     @Override
-    public List<MarketDataContainer> loadHistoricalData(HistoricalSubscriptionKey subscriptionKey) {
-        List<MarketDataContainer> list = Lists.newArrayList();
-        long dateTime = subscriptionKey.fromDate;
-        long toDateTime = subscriptionKey.toDate;
-
-        int count = 0;
-        while (dateTime < toDateTime) {
-            MarketDataContainer container = new MarketDataContainer();
-
-            container.setBar(subscriptionKey.instId, subscriptionKey.subscriptionType.barSize, dateTime,
-                    900 + count,
-                    1000 + count,
-                    800 + count,
-                    950 + count,
-                    0, 0);
-            list.add(container);
-
-            dateTime += DAY_TO_MS;
-            count++;
-        }
-        return list;
+    public HistoricalCursor openHistoricalData(HistoricalSubscriptionKey subscriptionKey) {
+        return new HistoricalCursor() {
+            private final MarketDataContainer container = new MarketDataContainer();
+            private long dateTime = subscriptionKey.fromDate;
+            private int count = 0;
+
+            @Override
+            public boolean next() {
+                if (dateTime >= subscriptionKey.toDate) {
+                    return false;
+                }
+                container.reset();
+                container.setBar(subscriptionKey.instId, subscriptionKey.subscriptionType.barSize, dateTime,
+                        900 + count,
+                        1000 + count,
+                        800 + count,
+                        950 + count,
+                        0, 0);
+
+                dateTime += DAY_TO_MS;
+                count++;
+                return true;
+            }
+
+            @Override
+            public MarketDataContainer current() {
+                return container;
+            }
+
+            @Override
+            public void close() {
+                dateTime = subscriptionKey.toDate;
+            }
+        };
     }
 
     @Override
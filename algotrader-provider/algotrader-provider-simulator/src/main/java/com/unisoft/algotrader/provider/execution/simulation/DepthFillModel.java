@@ -0,0 +1,294 @@
+package com.unisoft.algotrader.provider.execution.simulation;
+
+import com.unisoft.algotrader.model.event.data.MDOperation;
+import com.unisoft.algotrader.model.event.data.MDSide;
+import com.unisoft.algotrader.model.event.data.MarketDepth;
+import com.unisoft.algotrader.model.event.data.Trade;
+import com.unisoft.algotrader.model.event.execution.Order;
+import com.unisoft.algotrader.model.trading.OrdType;
+import com.unisoft.algotrader.model.trading.Side;
+import com.unisoft.algotrader.trading.OrderBook;
+import gnu.trove.map.hash.TDoubleDoubleHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fills the market and limit orders of the SimulationExecutor against the {@link OrderBook} built from the
+ * MarketDepth, when {@link SimulatorConfig#fillOnDepth} is set:
+ *
+ * - a market order, or a limit order crossing the other side of the book, sweeps the levels from the top of the
+ *   book (up to its limit) and fills at their average price, see {@link OrderBook#getAvgAskPrice(double)},
+ * - a resting limit order joins the queue of its price level behind the displayed size. The trades at its price
+ *   take the size ahead of it first and fill it with the rest, the size which leaves the level without a trade is
+ *   taken as cancelled evenly over the level and moves it forward in proportion.
+ *
+ * The simulated fills do not change the replayed book, the size they take from a level is kept aside until the level
+ * shrinks by as much, so that a later MarketDepth only sweeps what is left of the level or what it added to it. The
+ * stop, stop limit and trailing stop orders still trigger
+ * on the quotes and trades. Single threaded, a MarketDepth only visits the orders of its price level and the orders
+ * crossed by its side of the book.
+ */
+public class DepthFillModel {
+
+    private final SimulatorConfig config;
+    private final SimulationExecutor simulationExecutor;
+    private final Map<Order, QueuePosition> queuePositions = new IdentityHashMap<>();
+    private final TLongObjectHashMap<ConsumedDepth> consumedDepths = new TLongObjectHashMap<>();
+    private final List<Order> candidates = new ArrayList<>();
+
+    /**
+     * Size displayed ahead of a resting limit order at its price level, and the traded size at that price not yet
+     * seen as a decrease of the level.
+     */
+    private static final class QueuePosition {
+        double ahead;
+        double traded;
+
+        QueuePosition(double ahead) {
+            this.ahead = ahead;
+        }
+    }
+
+    /**
+     * Size of the displayed levels of a book already taken by the simulated fills, by side and price.
+     */
+    private static final class ConsumedDepth {
+        final TDoubleDoubleHashMap bids = new TDoubleDoubleHashMap();
+        final TDoubleDoubleHashMap asks = new TDoubleDoubleHashMap();
+    }
+
+    public DepthFillModel(SimulatorConfig config, SimulationExecutor simulationExecutor) {
+        this.config = config;
+        this.simulationExecutor = simulationExecutor;
+    }
+
+    /**
+     * Fill a new market or limit order against the book, a limit order which is not filled joins the queue of its
+     * price level.
+     *
+     * @return true when the order is fully filled
+     */
+    public boolean onNewOrder(Order order, OrderBook orderBook) {
+        boolean buy = order.side == Side.Buy;
+        if (order.ordType == OrdType.Market) {
+            return sweep(order, orderBook, buy);
+        }
+        if (crossed(order, orderBook, buy) && sweep(order, orderBook, buy)) {
+            return true;
+        }
+        queuePositions.put(order, new QueuePosition((buy ? orderBook.bids : orderBook.asks).sizeAt(order.limitPrice)));
+        return false;
+    }
+
+    public void remove(Order order) {
+        queuePositions.remove(order);
+    }
+
+    /**
+     * Apply the MarketDepth to the book, move the resting limit orders of a level which shrinks forward in their
+     * queue and fill the orders crossed by the updated side.
+     */
+    public void onMarketDepth(MarketDepth marketDepth, OrderBook orderBook, RestingOrders orders) {
+        OrderBook.BookSide side = marketDepth.side == MDSide.Bid ? orderBook.bids : marketDepth.side == MDSide.Ask ? orderBook.asks : null;
+        if (side == null) {
+            orderBook.add(marketDepth);
+            return;
+        }
+        boolean buy = marketDepth.side == MDSide.Bid;
+        int position = marketDepth.position;
+        boolean changed = (marketDepth.operation == MDOperation.Update || marketDepth.operation == MDOperation.Delete)
+                && position >= 0 && position < side.count();
+        double price = changed ? side.price(position) : 0;
+        int before = changed ? side.size(position) : 0;
+
+        orderBook.add(marketDepth);
+
+        TDoubleDoubleHashMap consumed = consumed(orderBook.instId, buy);
+        if (marketDepth.operation == MDOperation.Reset) {
+            consumed.clear();
+        }
+        int decrease = 0;
+        if (before > 0) {
+            boolean samePrice = marketDepth.operation == MDOperation.Update && (marketDepth.price <= 0 || marketDepth.price == price);
+            decrease = before - (samePrice ? side.size(position) : 0);
+            if (decrease > 0) {
+                release(consumed, side, price, decrease);
+            }
+        }
+        if (orders == null || orders.isEmpty()) {
+            return;
+        }
+        if (decrease > 0 && orders.hasLimits(buy)) {
+            onLevelDecrease(orders.limits(buy, price), before, decrease);
+        }
+        fillCrossed(orderBook, orders, !buy);
+    }
+
+    /**
+     * Take the traded size from the queues of the resting limit orders of the side it traded against, the orders
+     * with a better limit than the trade price are filled first.
+     */
+    public void onTrade(Trade trade, OrderBook orderBook, RestingOrders orders) {
+        if (orders == null || orders.isEmpty() || trade.price <= 0 || trade.size <= 0) {
+            return;
+        }
+        // below the best ask it sold to the bids, above the best bid it bought from the asks
+        if (orders.hasLimits(true) && (orderBook.askLevels() == 0 || trade.price < orderBook.asks.price(0))) {
+            tradeAgainst(trade, orders, true);
+        }
+        if (orders.hasLimits(false) && (orderBook.bidLevels() == 0 || trade.price > orderBook.bids.price(0))) {
+            tradeAgainst(trade, orders, false);
+        }
+    }
+
+    private void tradeAgainst(Trade trade, RestingOrders orders, boolean buy) {
+        orders.collectLimits(buy, trade.price, candidates);
+        double volume = trade.size;
+        for (int i = 0; i < candidates.size() && volume > 0; i++) {
+            Order order = candidates.get(i);
+            QueuePosition queuePosition = queuePositions.get(order);
+            if (order.ordType != OrdType.Limit || queuePosition == null) {
+                continue;
+            }
+            if (order.limitPrice == trade.price) {
+                queuePosition.traded += trade.size;
+                double taken = Math.min(volume, queuePosition.ahead);
+                queuePosition.ahead -= taken;
+                volume -= taken;
+            }
+            double qty = Math.min(volume, order.leaveQty());
+            if (qty > 0 && (config.partialFills || qty >= order.leaveQty())) {
+                volume -= qty;
+                simulationExecutor.execute(order, order.limitPrice, qty);
+            }
+        }
+        candidates.clear();
+    }
+
+    private void onLevelDecrease(List<Order> level, int before, int decrease) {
+        if (level == null) {
+            return;
+        }
+        for (int i = 0; i < level.size(); i++) {
+            QueuePosition queuePosition = queuePositions.get(level.get(i));
+            if (queuePosition != null) {
+                double traded = Math.min(queuePosition.traded, decrease);
+                queuePosition.traded -= traded;
+                double cancelled = decrease - traded;
+                queuePosition.ahead = Math.max(0, queuePosition.ahead - cancelled * queuePosition.ahead / before);
+            }
+        }
+    }
+
+    /**
+     * A level which shrinks first gives back the size taken from it by the simulated fills, what is left is capped by
+     * the size still displayed at the price.
+     */
+    private static void release(TDoubleDoubleHashMap consumed, OrderBook.BookSide side, double price, int decrease) {
+        double taken = consumed.get(price);
+        if (taken <= 0) {
+            return;
+        }
+        taken = Math.min(taken - decrease, side.sizeAt(price));
+        if (taken > 0) {
+            consumed.put(price, taken);
+        }
+        else {
+            consumed.remove(price);
+        }
+    }
+
+    private TDoubleDoubleHashMap consumed(long instId, boolean bids) {
+        ConsumedDepth consumedDepth = consumedDepths.get(instId);
+        if (consumedDepth == null) {
+            consumedDepth = new ConsumedDepth();
+            consumedDepths.put(instId, consumedDepth);
+        }
+        return bids ? consumedDepth.bids : consumedDepth.asks;
+    }
+
+    private void fillCrossed(OrderBook orderBook, RestingOrders orders, boolean buy) {
+        OrderBook.BookSide opposite = buy ? orderBook.asks : orderBook.bids;
+        if (opposite.count() == 0) {
+            return;
+        }
+        orders.collectLimits(buy, opposite.price(0), candidates);
+        orders.collectMarketOrders(buy, candidates);
+        for (int i = 0; i < candidates.size(); i++) {
+            Order order = candidates.get(i);
+            if (order.ordType == OrdType.Limit || order.ordType == OrdType.Market) {
+                sweep(order, orderBook, buy);
+            }
+        }
+        candidates.clear();
+    }
+
+    private static boolean crossed(Order order, OrderBook orderBook, boolean buy) {
+        OrderBook.BookSide opposite = buy ? orderBook.asks : orderBook.bids;
+        return opposite.count() > 0 && (buy ? opposite.price(0) <= order.limitPrice : opposite.price(0) >= order.limitPrice);
+    }
+
+    /**
+     * Fill the order by sweeping what is left of the levels of the other side of the book, up to the limit price of a
+     * limit order. A market order without partial fills is filled in full, the size beyond the displayed depth priced
+     * at the last level.
+     */
+    private boolean sweep(Order order, OrderBook orderBook, boolean buy) {
+        double leaveQty = order.leaveQty();
+        if (leaveQty <= 0) {
+            return false;
+        }
+        boolean market = order.ordType == OrdType.Market;
+        OrderBook.BookSide opposite = buy ? orderBook.asks : orderBook.bids;
+        TDoubleDoubleHashMap consumed = consumed(orderBook.instId, !buy);
+        double qty = 0;
+        double value = 0;
+        double lastPrice = 0;
+        for (int i = 0; i < opposite.count() && qty < leaveQty; i++) {
+            double price = opposite.price(i);
+            if (!market && (buy ? price > order.limitPrice : price < order.limitPrice)) {
+                break;
+            }
+            // the levels of a price are taken at once
+            if (i > 0 && opposite.price(i - 1) == price) {
+                continue;
+            }
+            double taken = Math.min(opposite.sizeAt(price) - consumed.get(price), leaveQty - qty);
+            if (taken > 0) {
+                qty += taken;
+                value += taken * price;
+                lastPrice = price;
+            }
+        }
+        if (qty <= 0) {
+            return false;
+        }
+        if (qty < leaveQty && !config.partialFills && !market) {
+            return false;
+        }
+        consume(opposite, consumed, qty);
+        if (qty < leaveQty && !config.partialFills) {
+            value += (leaveQty - qty) * lastPrice;
+            qty = leaveQty;
+        }
+        return simulationExecutor.execute(order, value / qty, qty);
+    }
+
+    private static void consume(OrderBook.BookSide side, TDoubleDoubleHashMap consumed, double qty) {
+        for (int i = 0; i < side.count() && qty > 0; i++) {
+            double price = side.price(i);
+            if (i > 0 && side.price(i - 1) == price) {
+                continue;
+            }
+            double taken = Math.min(side.sizeAt(price) - consumed.get(price), qty);
+            if (taken > 0) {
+                consumed.adjustOrPutValue(price, taken, taken);
+                qty -= taken;
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.unisoft.algotrader.provider.execution.simulation;
+
+import com.unisoft.algotrader.model.event.execution.Order;
+import com.unisoft.algotrader.model.trading.OrdType;
+import com.unisoft.algotrader.model.trading.Side;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The resting orders of an instrument in the SimulationExecutor, indexed by side and price so that a price only
+ * visits the orders it can fill or trigger:
+ *
+ * - the limit orders (and the stop limit orders once their stop is hit) by limit price, a buy fills at or below
+ *   its limit and a sell at or above it,
+ * - the stop orders and the stop limit orders waiting for their stop by stop price, a buy triggers at or above its
+ *   stop and a sell at or below it,
+ * - the market orders waiting for a price and the trailing stops, whose trigger follows the price, in a plain list
+ *   visited on every price.
+ *
+ * The orders of a price level are kept in arrival order. The levels of an index are a sorted array of primitive
+ * prices, a price is found by binary search and the lists of the emptied levels are reused, so collecting the orders
+ * of a price allocates nothing. Not thread safe, it is only used from the thread of the SimulationExecutor.
+ */
+public class RestingOrders {
+
+    private final PriceLevels buyLimits = new PriceLevels();
+    private final PriceLevels sellLimits = new PriceLevels();
+    private final PriceLevels buyStops = new PriceLevels();
+    private final PriceLevels sellStops = new PriceLevels();
+    private final List<Order> others = new ArrayList<>();
+    private int size;
+
+    public void add(Order order) {
+        PriceLevels index = index(order);
+        if (index == null) {
+            others.add(order);
+        }
+        else {
+            index.add(price(order), order);
+        }
+        size++;
+    }
+
+    public boolean remove(Order order) {
+        PriceLevels index = index(order);
+        boolean removed = index == null ? removeIdentity(others, order) : index.remove(price(order), order);
+        if (!removed && order.ordType == OrdType.StopLimit && order.stopLimitReady) {
+            // filled by the same price which hit its stop, before it was moved to the limit index
+            removed = stops(order).remove(order.stopPrice, order);
+        }
+        if (removed) {
+            size--;
+        }
+        return removed;
+    }
+
+    /**
+     * Move a stop limit order whose stop has just been hit from the stop index to the limit index.
+     */
+    public void onStopLimitReady(Order order) {
+        if (stops(order).remove(order.stopPrice, order)) {
+            size--;
+            add(order);
+        }
+    }
+
+    /**
+     * Collect the orders of the given side which may fill or trigger at a price within [low, high]: the limits
+     * crossed by the low (buy) or the high (sell), the stops crossed by the high (buy) or the low (sell) and the
+     * orders of the plain list.
+     */
+    public void collect(boolean buy, double low, double high, List<Order> result) {
+        if (buy) {
+            buyLimits.collectDescending(low, result);
+            buyStops.collectAscending(high, result);
+        }
+        else {
+            sellLimits.collectAscending(high, result);
+            sellStops.collectDescending(low, result);
+        }
+        for (int i = 0; i < others.size(); i++) {
+            Order order = others.get(i);
+            if ((order.side == Side.Buy) == buy) {
+                result.add(order);
+            }
+        }
+    }
+
+    /**
+     * Collect the limit orders of the given side crossed by the price, best limit first.
+     */
+    public void collectLimits(boolean buy, double price, List<Order> result) {
+        if (buy) {
+            buyLimits.collectDescending(price, result);
+        }
+        else {
+            sellLimits.collectAscending(price, result);
+        }
+    }
+
+    /**
+     * Collect the market orders of the given side waiting for a price.
+     */
+    public void collectMarketOrders(boolean buy, List<Order> result) {
+        for (int i = 0; i < others.size(); i++) {
+            Order order = others.get(i);
+            if (order.ordType == OrdType.Market && (order.side == Side.Buy) == buy) {
+                result.add(order);
+            }
+        }
+    }
+
+    /**
+     * @return the limit orders of the given side at the price in arrival order, null if none
+     */
+    public List<Order> limits(boolean buy, double price) {
+        return (buy ? buyLimits : sellLimits).get(price);
+    }
+
+    public boolean hasLimits(boolean buy) {
+        return !(buy ? buyLimits : sellLimits).isEmpty();
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private PriceLevels index(Order order) {
+        boolean buy = order.side == Side.Buy;
+        if (order.ordType == OrdType.Limit || (order.ordType == OrdType.StopLimit && order.stopLimitReady)) {
+            return buy ? buyLimits : sellLimits;
+        }
+        else if (order.ordType == OrdType.Stop || order.ordType == OrdType.StopLimit) {
+            return buy ? buyStops : sellStops;
+        }
+        return null;
+    }
+
+    private PriceLevels stops(Order order) {
+        return order.side == Side.Buy ? buyStops : sellStops;
+    }
+
+    private static double price(Order order) {
+        return order.ordType == OrdType.Limit || order.stopLimitReady ? order.limitPrice : order.stopPrice;
+    }
+
+    private static boolean removeIdentity(List<Order> orders, Order order) {
+        for (int i = 0; i < orders.size(); i++) {
+            if (orders.get(i) == order) {
+                orders.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The price levels of an index in ascending price order. The lists of the emptied levels are kept after the
+     * last level and reused by the next new level.
+     */
+    private static final class PriceLevels {
+        private double[] prices = new double[8];
+        @SuppressWarnings("unchecked")
+        private List<Order>[] levels = new List[8];
+        private int count;
+
+        List<Order> get(double price) {
+            int i = Arrays.binarySearch(prices, 0, count, price);
+            return i >= 0 ? levels[i] : null;
+        }
+
+        boolean isEmpty() {
+            return count == 0;
+        }
+
+        void add(double price, Order order) {
+            int i = Arrays.binarySearch(prices, 0, count, price);
+            if (i < 0) {
+                i = -i - 1;
+                if (count == prices.length) {
+                    prices = Arrays.copyOf(prices, count * 2);
+                    levels = Arrays.copyOf(levels, count * 2);
+                }
+                List<Order> level = levels[count];
+                if (level == null) {
+                    level = new ArrayList<>(2);
+                }
+                System.arraycopy(prices, i, prices, i + 1, count - i);
+                System.arraycopy(levels, i, levels, i + 1, count - i);
+                prices[i] = price;
+                levels[i] = level;
+                count++;
+            }
+            levels[i].add(order);
+        }
+
+        boolean remove(double price, Order order) {
+            int i = Arrays.binarySearch(prices, 0, count, price);
+            if (i < 0 || !removeIdentity(levels[i], order)) {
+                return false;
+            }
+            if (levels[i].isEmpty()) {
+                List<Order> level = levels[i];
+                count--;
+                System.arraycopy(prices, i + 1, prices, i, count - i);
+                System.arraycopy(levels, i + 1, levels, i, count - i);
+                levels[count] = level;
+            }
+            return true;
+        }
+
+        /**
+         * Collect the orders of the levels at or below the price, lowest price first.
+         */
+        void collectAscending(double price, List<Order> result) {
+            for (int i = 0; i < count && prices[i] <= price; i++) {
+                addAll(levels[i], result);
+            }
+        }
+
+        /**
+         * Collect the orders of the levels at or above the price, highest price first.
+         */
+        void collectDescending(double price, List<Order> result) {
+            for (int i = count - 1; i >= 0 && prices[i] >= price; i--) {
+                addAll(levels[i], result);
+            }
+        }
+
+        // ArrayList.addAll copies the level into a new array
+        private static void addAll(List<Order> level, List<Order> result) {
+            for (int i = 0; i < level.size(); i++) {
+                result.add(level.get(i));
+            }
+        }
+    }
+}
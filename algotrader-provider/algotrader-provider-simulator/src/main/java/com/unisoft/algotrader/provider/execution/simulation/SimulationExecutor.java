@@ -4,6 +4,7 @@ import com.google.common.collect.Maps;
 import com.lmax.disruptor.RingBuffer;
 import com.unisoft.algotrader.config.AppConfig;
 import com.unisoft.algotrader.model.clock.Clock;
+import com.unisoft.algotrader.model.clock.ReminderHandler;
 import com.unisoft.algotrader.model.event.Event;
 import com.unisoft.algotrader.model.event.data.*;
 import com.unisoft.algotrader.model.event.execution.ExecutionReport;
@@ -18,20 +19,32 @@ import com.unisoft.algotrader.trading.InstrumentDataManager;
 import com.unisoft.algotrader.trading.OrderManager;
 import com.unisoft.algotrader.utils.threading.disruptor.MultiEventProcessor;
 import com.unisoft.algotrader.utils.threading.disruptor.waitstrategy.NoWaitStrategy;
+import gnu.trove.map.hash.TLongObjectHashMap;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created by alex on 5/18/15.
+ *
+ * The resting orders are kept per instrument in {@link RestingOrders}, indexed by side and limit or stop price, so a
+ * bar, quote or trade only visits the orders its prices can fill or trigger. The executor is single threaded: the
+ * order requests are expected on the thread that processes the market data, as in the backtests.
+ *
+ * With {@link SimulatorConfig#fillOnDepth}, the market and limit orders are filled against the OrderBook of the
+ * MarketDepth by the {@link DepthFillModel} instead of the last bar, quote or trade. With a
+ * {@link SimulatorConfig#latency}, an order request only reaches the simulated market once the clock has moved by
+ * the latency.
  */
 @Singleton
-public class SimulationExecutor extends MultiEventProcessor implements ExecutionProvider, MarketDataHandler {
+public class SimulationExecutor extends MultiEventProcessor implements ExecutionProvider, MarketDataHandler, MarketDepthHandler, ReminderHandler {
 
     private static final Logger LOG = LogManager.getLogger(SimulationExecutor.class);
 
@@ -49,8 +62,12 @@ public class SimulationExecutor extends MultiEventProcessor implements Execution
     private StopLimitOrderHandler stopLimitOrderHandler;
     private StopOrderHandler stopOrderHandler;
     private TrailingStopOrderHandler trailingStopOrderHandler;
+    private DepthFillModel depthFillModel;
 
-    private Map<Long, Map<Long, Order>> orderMap = Maps.newConcurrentMap();
+    private final OrderHandler[] handlers = new OrderHandler[OrdType.values().length];
+
+    private final TLongObjectHashMap<RestingOrders> orderMap = new TLongObjectHashMap<>();
+    private final List<Order> candidates = new ArrayList<>();
     private Map<Long, Quote> quoteMap = Maps.newHashMap();
 
     public SimulatorConfig config = new SimulatorConfig();
@@ -58,7 +75,7 @@ public class SimulationExecutor extends MultiEventProcessor implements Execution
 
     @Inject
     public SimulationExecutor(AppConfig config, @Nullable RingBuffer ... rbs){
-        this(config.getProviderManager(), config.getOrderManager(), config.getInstrumentDataManager(), config.getClock(), (rbs == null || rbs.length ==0) ? new RingBuffer[]{config.getEventBusManager().getMarketDataRB()} : rbs);
+        this(config.getProviderManager(), config.getOrderManager(), config.getInstrumentDataManager(), config.getClock(), (rbs == null || rbs.length ==0) ? config.getEventBusManager().getMarketDataRBs() : rbs);
     }
 
     public SimulationExecutor(ProviderManager providerManager, OrderManager orderManager, InstrumentDataManager instrumentDataManager, Clock clock, @Nullable RingBuffer... rbs) {
@@ -75,6 +92,13 @@ public class SimulationExecutor extends MultiEventProcessor implements Execution
         this.stopLimitOrderHandler = new StopLimitOrderHandler(config, this);
         this.stopOrderHandler = new StopOrderHandler(config, this);
         this.trailingStopOrderHandler = new TrailingStopOrderHandler(config, this);
+        this.depthFillModel = new DepthFillModel(config, this);
+
+        handlers[OrdType.Market.ordinal()] = marketOrderHandler;
+        handlers[OrdType.Limit.ordinal()] = limitOrderHandler;
+        handlers[OrdType.StopLimit.ordinal()] = stopLimitOrderHandler;
+        handlers[OrdType.Stop.ordinal()] = stopOrderHandler;
+        handlers[OrdType.TrailingStop.ordinal()] = trailingStopOrderHandler;
 
         providerManager.addExecutionProvider(this);
     }
@@ -88,6 +112,8 @@ public class SimulationExecutor extends MultiEventProcessor implements Execution
 
         ExecutionReport report = new ExecutionReport();
         report.execId = execId.getAndIncrement();
+        report.providerId = order.providerId;
+        report.strategyId = order.strategyId;
         report.clOrderId = order.clOrderId;
         report.instId = order.instId;
         report.ordType = order.ordType;
@@ -115,29 +141,46 @@ public class SimulationExecutor extends MultiEventProcessor implements Execution
     public void onNewOrderRequest(Order order) {
         LOG.info("onNewOrderRequest = {}", order);
 
-        addOrder(order);
+        if (config.latency > 0) {
+            clock.addReminder(clock.now() + config.latency, order, this);
+        }
+        else {
+            acceptOrder(order);
+        }
+    }
 
+    /**
+     * An order request delayed by the latency reached the simulated market.
+     */
+    @Override
+    public void onReminder(long dateTime, Object data) {
+        acceptOrder((Order) data);
+    }
+
+    private void acceptOrder(Order order){
         sendExecutionReport(order, 0, 0, order.ordStatus);
 
-        if (processNewOrder(order)){
-            removeOrder(order);
+        // indexed once processed, a stop limit order may be ready by then
+        if (!processNewOrder(order)){
+            addOrder(order);
         }
     }
 
     private void addOrder(Order order){
-        Map<Long, Order> orders = orderMap.get(order.instId);
+        RestingOrders orders = orderMap.get(order.instId);
         if (orders == null){
-            orders = Maps.newConcurrentMap();
+            orders = new RestingOrders();
             orderMap.put(order.instId, orders);
         }
-        orders.put(order.clOrderId, order);
+        orders.add(order);
     }
 
     private void removeOrder(Order order){
-        Map<Long, Order> orders = orderMap.get(order.instId);
+        RestingOrders orders = orderMap.get(order.instId);
         if (orders != null){
-            orders.remove(order.clOrderId);
+            orders.remove(order);
         }
+        depthFillModel.remove(order);
 //        else
 //        {
 //            throw new RuntimeException("order not found!");
@@ -165,8 +208,12 @@ public class SimulationExecutor extends MultiEventProcessor implements Execution
         InstrumentDataManager.InstrumentData instrumentData = instrumentDataManager.getInstrumentData(order.instId);
 
         boolean executed = false;
+        if (isFilledOnDepth(order))
+        {
+            executed = depthFillModel.onNewOrder(order, instrumentData.orderBook);
+        }
         // market order
-        if (order.ordType == OrdType.Market)
+        else if (order.ordType == OrdType.Market)
         {
             if (!executed && config.fillOnQuote && config.fillOnQuoteMode == SimulatorConfig.FillOnQuoteMode.LastQuote){
                 executed = marketOrderHandler.process(order, instrumentData.quote);
@@ -202,42 +249,18 @@ public class SimulationExecutor extends MultiEventProcessor implements Execution
         return executed;
     }
 
+    private boolean isFilledOnDepth(Order order){
+        return config.fillOnDepth && (order.ordType == OrdType.Market || order.ordType == OrdType.Limit);
+    }
+
     public boolean process(Order order, MarketData data){
-        if (order.ordType == OrdType.Market){
-            return marketOrderHandler.process(order, data);
-        }
-        else if (order.ordType == OrdType.Limit){
-            return limitOrderHandler.process(order, data);
-        }
-        else if (order.ordType == OrdType.StopLimit){
-            return stopLimitOrderHandler.process(order, data);
-        }
-        else if (order.ordType == OrdType.Stop){
-            return stopOrderHandler.process(order, data);
-        }
-        else if (order.ordType == OrdType.TrailingStop){
-            return trailingStopOrderHandler.process(order, data);
-        }
-        return false;
+        OrderHandler handler = handlers[order.ordType.ordinal()];
+        return handler != null && handler.process(order, data);
     }
 
     public boolean process(Order order, double price, double qty){
-        if (order.ordType == OrdType.Market){
-            return marketOrderHandler.process(order, price, qty);
-        }
-        else if (order.ordType == OrdType.Limit){
-            return limitOrderHandler.process(order, price, qty);
-        }
-        else if (order.ordType == OrdType.StopLimit){
-            return stopLimitOrderHandler.process(order, price, qty);
-        }
-        else if (order.ordType == OrdType.Stop){
-            return stopOrderHandler.process(order, price, qty);
-        }
-        else if (order.ordType == OrdType.TrailingStop){
-            return trailingStopOrderHandler.process(order, price, qty);
-        }
-        return false;
+        OrderHandler handler = handlers[order.ordType.ordinal()];
+        return handler != null && handler.process(order, price, qty);
     }
 
 
@@ -268,8 +291,17 @@ public class SimulationExecutor extends MultiEventProcessor implements Execution
 
         clock.setDateTime(bar.dateTime);
 
-        if (config.fillOnBar && orderMap.containsKey(bar.instId)){
-            for (Order order :orderMap.get(bar.instId).values()){
+        RestingOrders orders = orderMap.get(bar.instId);
+        if (config.fillOnBar && orders != null && !orders.isEmpty()){
+            double low = Math.min(bar.low, bar.open);
+            double high = Math.max(bar.high, bar.open);
+            orders.collect(true, low, high, candidates);
+            orders.collect(false, low, high, candidates);
+            for (int i = 0; i < candidates.size(); i++) {
+                Order order = candidates.get(i);
+                if (isFilledOnDepth(order))
+                    continue;
+                boolean ready = order.stopLimitReady;
 
                 boolean executed = false;
 
@@ -282,7 +314,9 @@ public class SimulationExecutor extends MultiEventProcessor implements Execution
                     executed = process(order, bar);
                 }
 
+                onProcessed(orders, order, ready, executed);
             }
+            candidates.clear();
         }
     }
 
@@ -304,23 +338,34 @@ public class SimulationExecutor extends MultiEventProcessor implements Execution
 
         quoteMap.put(quote.instId, quote);
 
-        if (config.fillOnQuote && orderMap.containsKey(quote.instId)){
-            for (Order order :orderMap.get(quote.instId).values()) {
+        RestingOrders orders = orderMap.get(quote.instId);
+        if (config.fillOnQuote && orders != null && !orders.isEmpty()){
+            // the buy orders fill on the ask and the sell orders on the bid, see QuoteProcessor
+            if (diffAsk) {
+                double ask = quote.ask > 0 ? quote.ask : 0.0;
+                orders.collect(true, ask, ask, candidates);
+            }
+            if (diffBid) {
+                double bid = quote.bid > 0 ? quote.bid : 0.0;
+                orders.collect(false, bid, bid, candidates);
+            }
+            for (int i = 0; i < candidates.size(); i++) {
+                Order order = candidates.get(i);
+                if (isFilledOnDepth(order))
+                    continue;
                 switch (order.side){
                     case Buy:
                     //case BuyMinus:
-                        if (diffAsk)
-                            process(order, quote);
-                        break;
                     case Sell:
                     case SellShort:
-                        if (diffBid)
-                            process(order, quote);
+                        boolean ready = order.stopLimitReady;
+                        onProcessed(orders, order, ready, process(order, quote));
                         break;
                     default:
                         break;
                 }
             }
+            candidates.clear();
         }
     }
 
@@ -329,10 +374,42 @@ public class SimulationExecutor extends MultiEventProcessor implements Execution
         instrumentDataManager.onTrade(trade);
 
         clock.setDateTime(trade.dateTime);
-        if (config.fillOnTrade && orderMap.containsKey(trade.instId)){
-            for (Order order :orderMap.get(trade.instId).values()) {
-                process(order, trade);
+        RestingOrders orders = orderMap.get(trade.instId);
+        if (config.fillOnDepth){
+            depthFillModel.onTrade(trade, instrumentDataManager.getInstrumentData(trade.instId).orderBook, orders);
+        }
+        if (config.fillOnTrade && orders != null && !orders.isEmpty()){
+            double price = trade.price > 0 ? trade.price : 0.0;
+            orders.collect(true, price, price, candidates);
+            orders.collect(false, price, price, candidates);
+            for (int i = 0; i < candidates.size(); i++) {
+                Order order = candidates.get(i);
+                if (isFilledOnDepth(order))
+                    continue;
+                boolean ready = order.stopLimitReady;
+                onProcessed(orders, order, ready, process(order, trade));
             }
+            candidates.clear();
+        }
+    }
+
+    @Override
+    public void onMarketDepth(MarketDepth marketDepth) {
+        clock.setDateTime(marketDepth.dateTime);
+        if (config.fillOnDepth){
+            depthFillModel.onMarketDepth(marketDepth, instrumentDataManager.getInstrumentData(marketDepth.instId).orderBook, orderMap.get(marketDepth.instId));
+        }
+        else {
+            instrumentDataManager.onMarketDepth(marketDepth);
+        }
+    }
+
+    /**
+     * Move a stop limit order to the limit index once its stop was hit by the price it was just processed with.
+     */
+    private void onProcessed(RestingOrders orders, Order order, boolean wasReady, boolean executed){
+        if (!executed && !wasReady && order.stopLimitReady && order.ordType == OrdType.StopLimit){
+            orders.onStopLimitReady(order);
         }
     }
 
@@ -2,6 +2,7 @@ package com.unisoft.algotrader.provider.execution.simulation;
 
 import com.lmax.disruptor.RingBuffer;
 import com.unisoft.algotrader.model.event.Event;
+import com.unisoft.algotrader.model.event.bus.EventBusManager;
 import com.unisoft.algotrader.model.event.data.*;
 import com.unisoft.algotrader.trading.Strategy;
 import com.unisoft.algotrader.utils.threading.disruptor.MultiEventProcessor;
@@ -11,8 +12,12 @@ import com.unisoft.algotrader.utils.threading.disruptor.waitstrategy.NoWaitStrat
 
 /**
  * Created by alex on 6/2/15.
+ *
+ * The MarketDepth of a back test is published on its own ring buffer, see {@link EventBusManager#getMarketDepthRB()},
+ * and handed to the SimulationExecutor (see {@link SimulatorConfig#fillOnDepth}) then to the strategies like the
+ * other market data.
  */
-public class Simulator extends MultiEventProcessor implements MarketDataHandler {
+public class Simulator extends MultiEventProcessor implements MarketDataHandler, MarketDepthHandler {
 
     private final Strategy[] strategies;
 
@@ -24,6 +29,12 @@ public class Simulator extends MultiEventProcessor implements MarketDataHandler
         this.strategies = strategies;
     }
 
+    public Simulator(SimulationExecutor simulationExecutor, RingBuffer<MarketDataContainer> marketDataRB, RingBuffer<MarketDepth> marketDepthRB, Strategy ... strategies){
+        super(new NoWaitStrategy(), marketDataRB, marketDepthRB);
+        this.simulationExecutor = simulationExecutor;
+        this.strategies = strategies;
+    }
+
 
     @Override
     public void onEvent(Event event) {
@@ -54,4 +65,12 @@ public class Simulator extends MultiEventProcessor implements MarketDataHandler
             strategies[i].onEvent(trade);
         }
     }
+
+    @Override
+    public void onMarketDepth(MarketDepth marketDepth) {
+        simulationExecutor.onMarketDepth(marketDepth);
+        for (int i = 0; i < strategies.length; i++) {
+            strategies[i].onMarketDepth(marketDepth);
+        }
+    }
 }
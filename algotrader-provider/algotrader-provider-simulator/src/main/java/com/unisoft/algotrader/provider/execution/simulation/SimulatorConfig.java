@@ -33,5 +33,26 @@ public class SimulatorConfig {
     public FillOnQuoteMode fillOnQuoteMode = FillOnQuoteMode.LastQuote;
     public FillOnBarMode fillOnBarMode = FillOnBarMode.LastBarClose;
     public FillOnTradeMode fillOnTradeMode = FillOnTradeMode.LastTrade;
+    /**
+     * Fill the market and limit orders against the OrderBook of the MarketDepth, see {@link DepthFillModel}.
+     */
+    public boolean fillOnDepth = false;
+    /**
+     * Delay in ms between an order request and its arrival in the simulated market, 0 for none.
+     */
+    public long latency = 0;
+
+    public SimulatorConfig copy(SimulatorConfig config){
+        this.partialFills = config.partialFills;
+        this.fillOnQuote = config.fillOnQuote;
+        this.fillOnTrade = config.fillOnTrade;
+        this.fillOnBar = config.fillOnBar;
+        this.fillOnQuoteMode = config.fillOnQuoteMode;
+        this.fillOnBarMode = config.fillOnBarMode;
+        this.fillOnTradeMode = config.fillOnTradeMode;
+        this.fillOnDepth = config.fillOnDepth;
+        this.latency = config.latency;
+        return this;
+    }
 
 }
@@ -0,0 +1,92 @@
+package com.unisoft.algotrader.provider.data;
+
+import com.google.common.collect.Lists;
+import com.lmax.disruptor.RingBuffer;
+import com.unisoft.algotrader.event.bus.RingBufferMarketDataEventBus;
+import com.unisoft.algotrader.model.event.data.MarketDataContainer;
+import com.unisoft.algotrader.provider.ProviderManager;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HistoricalReplayTest {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    private DummyDataProvider provider;
+
+    @Before
+    public void setup(){
+        provider = new DummyDataProvider(new ProviderManager(), null);
+    }
+
+    private HistoricalSubscriptionKey key(long instId, long fromDay, long toDay){
+        return HistoricalSubscriptionKey.createDailySubscriptionKey(provider.providerId().id, instId, fromDay * DAY, toDay * DAY);
+    }
+
+    @Test
+    public void test_merge_in_time_order_with_deterministic_ties(){
+        List<HistoricalSubscriptionKey> keys = Lists.newArrayList(key(3, 0, 5), key(1, 2, 4), key(2, 1, 6));
+
+        // small batch to exercise the read ahead refill
+        List<MarketDataContainer> result = HistoricalCursor.toList(new HistoricalReplay(provider, keys, 2));
+
+        assertEquals(5 + 2 + 5, result.size());
+        long[] expectedInstIds = {3, 3, 2, 3, 1, 2, 3, 1, 2, 3, 2, 2};
+        long lastTime = Long.MIN_VALUE;
+        for (int i = 0; i < result.size(); i++){
+            MarketDataContainer container = result.get(i);
+            assertTrue(container.dateTime >= lastTime);
+            assertEquals(expectedInstIds[i], container.instId);
+            lastTime = container.dateTime;
+        }
+    }
+
+    @Test
+    public void test_keep_order_within_source(){
+        List<HistoricalSubscriptionKey> keys = Lists.newArrayList(key(1, 0, 10), key(2, 0, 10));
+
+        List<MarketDataContainer> result = HistoricalCursor.toList(new HistoricalReplay(provider, keys, 3));
+
+        assertEquals(20, result.size());
+        for (int i = 0; i < 10; i++){
+            assertEquals(1, result.get(2 * i).instId);
+            assertEquals(900 + i, result.get(2 * i).bar.open, 0.0);
+            assertEquals(2, result.get(2 * i + 1).instId);
+            assertEquals(900 + i, result.get(2 * i + 1).bar.open, 0.0);
+        }
+    }
+
+    @Test
+    public void test_replay_to_ring_buffer(){
+        RingBuffer<MarketDataContainer> rb = RingBuffer.createSingleProducer(MarketDataContainer.FACTORY, 64);
+        List<HistoricalSubscriptionKey> keys = Lists.newArrayList(key(1, 1, 3), key(2, 0, 2));
+
+        int count = new HistoricalReplay(provider, keys).replay(new RingBufferMarketDataEventBus(rb));
+
+        assertEquals(4, count);
+        assertEquals(3, rb.getCursor());
+        assertEquals(2, rb.get(0).instId);
+        assertEquals(1, rb.get(1).instId);
+        assertEquals(2, rb.get(2).instId);
+        assertEquals(1, rb.get(3).instId);
+        assertTrue(rb.get(0).hasBar());
+    }
+
+    @Test
+    public void test_empty_and_early_close(){
+        HistoricalReplay replay = new HistoricalReplay(provider, Lists.newArrayList(key(1, 5, 5)));
+        assertFalse(replay.next());
+
+        replay = new HistoricalReplay(provider, Lists.newArrayList(key(1, 0, 5), key(2, 0, 5)));
+        assertTrue(replay.next());
+        replay.close();
+        assertFalse(replay.next());
+    }
+}
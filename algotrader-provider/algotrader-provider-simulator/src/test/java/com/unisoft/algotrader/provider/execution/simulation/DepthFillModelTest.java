@@ -0,0 +1,203 @@
+package com.unisoft.algotrader.provider.execution.simulation;
+
+import com.lmax.disruptor.RingBuffer;
+import com.unisoft.algotrader.event.SampleEventFactory;
+import com.unisoft.algotrader.event.bus.BackTestEventBusManager;
+import com.unisoft.algotrader.model.clock.SimulationClock;
+import com.unisoft.algotrader.model.event.data.*;
+import com.unisoft.algotrader.model.event.execution.ExecutionReport;
+import com.unisoft.algotrader.model.event.execution.Order;
+import com.unisoft.algotrader.model.trading.OrdStatus;
+import com.unisoft.algotrader.model.trading.OrdType;
+import com.unisoft.algotrader.model.trading.Side;
+import com.unisoft.algotrader.provider.ProviderManager;
+import com.unisoft.algotrader.trading.InstrumentDataManager;
+import com.unisoft.algotrader.trading.OrderManager;
+import com.unisoft.algotrader.utils.threading.disruptor.waitstrategy.NoWaitStrategy;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Fills of the SimulationExecutor against the MarketDepth, see {@link DepthFillModel}.
+ */
+public class DepthFillModelTest {
+
+    private static final long INST_ID = SampleEventFactory.TEST_HKD_INSTRUMENT.getInstId();
+
+    private final List<ExecutionReport> reports = new ArrayList<>();
+    private final SimulationClock clock = new SimulationClock();
+    private SimulationExecutor executor;
+    private OrderManager orderManager;
+    private long time = 1000;
+
+    @Before
+    public void setup(){
+        BackTestEventBusManager eventBusManager = new BackTestEventBusManager();
+        orderManager = new OrderManager(eventBusManager){
+            @Override
+            public void onExecutionReport(ExecutionReport report){
+                reports.add(report);
+                super.onExecutionReport(report);
+            }
+        };
+        InstrumentDataManager instrumentDataManager = new InstrumentDataManager(eventBusManager.getMarketDataRB());
+        instrumentDataManager.clear();
+        RingBuffer rb = RingBuffer.createSingleProducer(MarketDataContainer.FACTORY, 16, new NoWaitStrategy());
+        executor = new SimulationExecutor(new ProviderManager(), orderManager, instrumentDataManager, clock, rb);
+        executor.config.fillOnDepth = true;
+        clock.setDateTime(time);
+    }
+
+    private Order send(Side side, OrdType type, double qty, double limit){
+        Order order = SampleEventFactory.createOrder(INST_ID, side, type, qty, limit, 0);
+        orderManager.onNewOrderRequest(order);
+        executor.onNewOrderRequest(order);
+        return order;
+    }
+
+    private void depth(int position, MDOperation operation, MDSide side, double price, int size){
+        executor.onMarketDepth(new MarketDepth(INST_ID, ++time, 0, position, operation, side, price, size));
+    }
+
+    private void book(){
+        depth(-1, MDOperation.Insert, MDSide.Bid, 100, 50);
+        depth(-1, MDOperation.Insert, MDSide.Bid, 99, 100);
+        depth(-1, MDOperation.Insert, MDSide.Ask, 101, 30);
+        depth(-1, MDOperation.Insert, MDSide.Ask, 102, 70);
+    }
+
+    @Test
+    public void test_market_order_sweeps_book(){
+        book();
+        Order buy = send(Side.Buy, OrdType.Market, 50, 0);
+        assertEquals(OrdStatus.Filled, buy.ordStatus);
+        assertEquals((101.0 * 30 + 102.0 * 20) / 50, buy.avgPrice, 1e-9);
+        Order sell = send(Side.Sell, OrdType.Market, 200, 0);
+        assertEquals(OrdStatus.PartiallyFilled, sell.ordStatus);
+        assertEquals(150, sell.filledQty, 0);
+    }
+
+    @Test
+    public void test_market_order_waits_for_book(){
+        Order buy = send(Side.Buy, OrdType.Market, 10, 0);
+        assertEquals(OrdStatus.New, buy.ordStatus);
+        depth(-1, MDOperation.Insert, MDSide.Ask, 101, 30);
+        assertEquals(OrdStatus.Filled, buy.ordStatus);
+        assertEquals(101, buy.avgPrice, 0);
+    }
+
+    @Test
+    public void test_marketable_limit_sweeps_to_limit(){
+        book();
+        Order order = send(Side.Buy, OrdType.Limit, 50, 101);
+        assertEquals(OrdStatus.PartiallyFilled, order.ordStatus);
+        assertEquals(30, order.filledQty, 0);
+        assertEquals(101, order.avgPrice, 0);
+    }
+
+    @Test
+    public void test_limit_does_not_sweep_consumed_levels_again(){
+        book();
+        Order order = send(Side.Buy, OrdType.Limit, 50, 101);
+        assertEquals(30, order.filledQty, 0);
+        // an unrelated change of the asks does not refill the 30 already taken at 101
+        depth(1, MDOperation.Update, MDSide.Ask, 102, 60);
+        assertEquals(30, order.filledQty, 0);
+        // only the size added to the level is swept
+        depth(0, MDOperation.Update, MDSide.Ask, 101, 40);
+        assertEquals(40, order.filledQty, 0);
+        // the level shrinks by the size taken by the fills, nothing is left for the order
+        depth(0, MDOperation.Update, MDSide.Ask, 101, 25);
+        assertEquals(40, order.filledQty, 0);
+        assertEquals(OrdStatus.PartiallyFilled, order.ordStatus);
+    }
+
+    @Test
+    public void test_market_order_does_not_sweep_consumed_levels_again(){
+        book();
+        Order order = send(Side.Buy, OrdType.Market, 150, 0);
+        assertEquals(OrdStatus.PartiallyFilled, order.ordStatus);
+        assertEquals(100, order.filledQty, 0);
+        depth(1, MDOperation.Update, MDSide.Ask, 102, 60);
+        depth(-1, MDOperation.Insert, MDSide.Bid, 98, 10);
+        assertEquals(100, order.filledQty, 0);
+        depth(-1, MDOperation.Insert, MDSide.Ask, 103, 20);
+        assertEquals(120, order.filledQty, 0);
+        assertEquals(103, order.lastPrice, 0);
+    }
+
+    @Test
+    public void test_queue_position(){
+        book();
+        Order order = send(Side.Buy, OrdType.Limit, 20, 100);
+        assertEquals(OrdStatus.New, order.ordStatus);
+        // 30 traded at 100: still 20 ahead
+        executor.onTrade(new Trade(INST_ID, ++time, 100, 30));
+        assertEquals(OrdStatus.New, order.ordStatus);
+        depth(0, MDOperation.Update, MDSide.Bid, 100, 20);
+        // 10 cancelled of 20 displayed: half the queue ahead left, 10
+        depth(0, MDOperation.Update, MDSide.Bid, 100, 10);
+        executor.onTrade(new Trade(INST_ID, ++time, 100, 15));
+        assertEquals(OrdStatus.PartiallyFilled, order.ordStatus);
+        assertEquals(5, order.filledQty, 0);
+        executor.onTrade(new Trade(INST_ID, ++time, 100, 40));
+        assertEquals(OrdStatus.Filled, order.ordStatus);
+        assertEquals(100, order.avgPrice, 0);
+    }
+
+    @Test
+    public void test_limit_fills_when_crossed(){
+        book();
+        Order order = send(Side.Sell, OrdType.Limit, 10, 101);
+        assertEquals(OrdStatus.New, order.ordStatus);
+        depth(-1, MDOperation.Insert, MDSide.Bid, 101.5, 5);
+        assertEquals(OrdStatus.PartiallyFilled, order.ordStatus);
+        assertEquals(101.5, order.avgPrice, 0);
+    }
+
+    @Test
+    public void test_simulator_forwards_market_depth() throws Exception {
+        RingBuffer<MarketDataContainer> marketDataRB = RingBuffer.createSingleProducer(MarketDataContainer.FACTORY, 16, new NoWaitStrategy());
+        RingBuffer<MarketDepth> marketDepthRB = RingBuffer.createSingleProducer(MarketDepth.FACTORY, 16, new NoWaitStrategy());
+        Simulator simulator = new Simulator(executor, marketDataRB, marketDepthRB);
+        Thread thread = new Thread(simulator);
+        thread.start();
+
+        for (MarketDepth marketDepth : new MarketDepth[]{
+                new MarketDepth(INST_ID, ++time, 0, -1, MDOperation.Insert, MDSide.Ask, 101, 30),
+                new MarketDepth(INST_ID, ++time, 0, -1, MDOperation.Insert, MDSide.Ask, 102, 70)}){
+            long sequence = marketDepthRB.next();
+            marketDepthRB.get(sequence).copy(marketDepth);
+            marketDepthRB.publish(sequence);
+        }
+        while (simulator.getSequence(marketDepthRB).get() < marketDepthRB.getCursor()){
+            Thread.yield();
+        }
+        simulator.halt();
+        thread.join();
+
+        assertEquals(time, clock.now());
+        Order buy = send(Side.Buy, OrdType.Market, 50, 0);
+        assertEquals(OrdStatus.Filled, buy.ordStatus);
+        assertEquals((101.0 * 30 + 102.0 * 20) / 50, buy.avgPrice, 1e-9);
+    }
+
+    @Test
+    public void test_latency(){
+        book();
+        executor.config.latency = 5;
+        Order buy = send(Side.Buy, OrdType.Market, 10, 0);
+        assertEquals(0, reports.size());
+        depth(1, MDOperation.Update, MDSide.Bid, 0, 90);
+        assertEquals(0, reports.size());
+        time += 10;
+        depth(0, MDOperation.Update, MDSide.Ask, 0, 40);
+        assertEquals(OrdStatus.Filled, buy.ordStatus);
+        assertEquals(2, reports.size());
+    }
+}
@@ -0,0 +1,214 @@
+package com.unisoft.algotrader.provider.execution.simulation;
+
+import com.lmax.disruptor.RingBuffer;
+import com.unisoft.algotrader.event.SampleEventFactory;
+import com.unisoft.algotrader.event.bus.BackTestEventBusManager;
+import com.unisoft.algotrader.model.clock.SimulationClock;
+import com.unisoft.algotrader.model.event.data.MarketDataContainer;
+import com.unisoft.algotrader.model.event.data.Trade;
+import com.unisoft.algotrader.model.event.execution.Order;
+import com.unisoft.algotrader.model.trading.OrdStatus;
+import com.unisoft.algotrader.model.trading.OrdType;
+import com.unisoft.algotrader.model.trading.Side;
+import com.unisoft.algotrader.provider.ProviderManager;
+import com.unisoft.algotrader.trading.InstrumentDataManager;
+import com.unisoft.algotrader.trading.OrderManager;
+import com.unisoft.algotrader.utils.threading.disruptor.waitstrategy.NoWaitStrategy;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RestingOrdersTest {
+
+    private static final long INST_ID = SampleEventFactory.TEST_HKD_INSTRUMENT.getInstId();
+
+    private RestingOrders orders;
+    private final List<Order> result = new ArrayList<>();
+
+    @Before
+    public void setup(){
+        orders = new RestingOrders();
+    }
+
+    private Order add(Side side, OrdType type, double limit, double stop){
+        Order order = SampleEventFactory.createOrder(INST_ID, side, type, 100, limit, stop);
+        orders.add(order);
+        return order;
+    }
+
+    private List<Order> collect(boolean buy, double low, double high){
+        result.clear();
+        orders.collect(buy, low, high, result);
+        return result;
+    }
+
+    @Test
+    public void test_collect_buy_limits_inclusive_best_first(){
+        Order buy99 = add(Side.Buy, OrdType.Limit, 99, 0);
+        Order buy100 = add(Side.Buy, OrdType.Limit, 100, 0);
+        Order buy101 = add(Side.Buy, OrdType.Limit, 101, 0);
+        Order buy100b = add(Side.Buy, OrdType.Limit, 100, 0);
+
+        // a buy limit fills at or below its limit, the low of the price range crosses it
+        assertEquals(Arrays.asList(buy101, buy100, buy100b), collect(true, 100, 100));
+        assertEquals(Arrays.asList(buy101), collect(true, 100.5, 102));
+        assertEquals(Arrays.asList(buy101, buy100, buy100b, buy99), collect(true, 99, 99));
+        assertTrue(collect(true, 101.01, 101.01).isEmpty());
+        // the sell side does not see them
+        assertTrue(collect(false, 90, 110).isEmpty());
+    }
+
+    @Test
+    public void test_collect_sell_limits_inclusive_best_first(){
+        Order sell101 = add(Side.Sell, OrdType.Limit, 101, 0);
+        Order sell100 = add(Side.Sell, OrdType.Limit, 100, 0);
+        Order sell102 = add(Side.Sell, OrdType.Limit, 102, 0);
+
+        // a sell limit fills at or above its limit, the high of the price range crosses it
+        assertEquals(Arrays.asList(sell100, sell101), collect(false, 101, 101));
+        assertEquals(Arrays.asList(sell100), collect(false, 95, 100));
+        assertTrue(collect(false, 99.99, 99.99).isEmpty());
+        assertTrue(collect(true, 90, 110).isEmpty());
+        assertSame(sell102, collect(false, 102, 102).get(2));
+    }
+
+    @Test
+    public void test_collect_stops_inclusive(){
+        Order buyStop105 = add(Side.Buy, OrdType.Stop, 0, 105);
+        Order buyStop103 = add(Side.Buy, OrdType.Stop, 0, 103);
+        Order sellStop95 = add(Side.Sell, OrdType.Stop, 0, 95);
+        Order sellStop97 = add(Side.Sell, OrdType.Stop, 0, 97);
+
+        // a buy stop triggers at or above its stop, on the high
+        assertEquals(Arrays.asList(buyStop103), collect(true, 100, 103));
+        assertEquals(Arrays.asList(buyStop103, buyStop105), collect(true, 100, 105));
+        assertTrue(collect(true, 100, 102.99).isEmpty());
+
+        // a sell stop triggers at or below its stop, on the low
+        assertEquals(Arrays.asList(sellStop97), collect(false, 97, 100));
+        assertEquals(Arrays.asList(sellStop97, sellStop95), collect(false, 95, 100));
+        assertTrue(collect(false, 97.01, 100).isEmpty());
+    }
+
+    @Test
+    public void test_collect_bar_range(){
+        Order buyLimit = add(Side.Buy, OrdType.Limit, 98, 0);
+        Order buyStop = add(Side.Buy, OrdType.Stop, 0, 104);
+        Order sellLimit = add(Side.Sell, OrdType.Limit, 104, 0);
+        Order sellStop = add(Side.Sell, OrdType.Stop, 0, 98);
+
+        // bar open 100, high 104, low 98: the executor collects on [min(low, open), max(high, open)]
+        assertEquals(Arrays.asList(buyLimit, buyStop), collect(true, 98, 104));
+        assertEquals(Arrays.asList(sellLimit, sellStop), collect(false, 98, 104));
+        // a bar opening above its high, the open is the top of the range
+        assertEquals(Arrays.asList(buyStop), collect(true, 99, 104));
+        assertTrue(collect(true, 99, 103.5).isEmpty());
+        assertTrue(collect(false, 98.5, 103.5).isEmpty());
+    }
+
+    @Test
+    public void test_others_visited_on_every_price(){
+        Order buyMarket = add(Side.Buy, OrdType.Market, 0, 0);
+        Order sellTrailing = add(Side.Sell, OrdType.TrailingStop, 0, 5);
+        Order buyLimit = add(Side.Buy, OrdType.Limit, 90, 0);
+
+        assertEquals(Arrays.asList(buyMarket), collect(true, 1000, 1000));
+        assertEquals(Arrays.asList(sellTrailing), collect(false, 1, 1));
+        assertEquals(Arrays.asList(buyLimit, buyMarket), collect(true, 90, 90));
+
+        result.clear();
+        orders.collectMarketOrders(true, result);
+        assertEquals(Arrays.asList(buyMarket), result);
+        result.clear();
+        orders.collectMarketOrders(false, result);
+        assertTrue(result.isEmpty());
+
+        assertTrue(orders.remove(sellTrailing));
+        assertTrue(collect(false, 1, 1).isEmpty());
+        assertEquals(2, orders.size());
+    }
+
+    @Test
+    public void test_stop_limit_ready_moves_to_limit_index(){
+        Order stopLimit = add(Side.Buy, OrdType.StopLimit, 106, 105);
+        assertEquals(Arrays.asList(stopLimit), collect(true, 105, 105));
+        assertFalse(orders.hasLimits(true));
+
+        stopLimit.stopLimitReady = true;
+        orders.onStopLimitReady(stopLimit);
+        assertEquals(1, orders.size());
+        assertTrue(orders.hasLimits(true));
+        assertEquals(Arrays.asList(stopLimit), orders.limits(true, 106));
+        // now indexed by its limit, it is not seen above it
+        assertTrue(collect(true, 106.5, 200).isEmpty());
+        assertEquals(Arrays.asList(stopLimit), collect(true, 106, 106));
+
+        // a second notification does nothing
+        orders.onStopLimitReady(stopLimit);
+        assertEquals(1, orders.size());
+
+        assertTrue(orders.remove(stopLimit));
+        assertTrue(orders.isEmpty());
+        assertFalse(orders.hasLimits(true));
+    }
+
+    @Test
+    public void test_remove_stop_limit_filled_while_in_stop_index(){
+        Order stopLimit = add(Side.Sell, OrdType.StopLimit, 94, 95);
+        Order other = add(Side.Sell, OrdType.StopLimit, 94, 95);
+
+        // ready and filled by the same price, before onStopLimitReady
+        stopLimit.stopLimitReady = true;
+        assertTrue(orders.remove(stopLimit));
+        assertEquals(1, orders.size());
+        assertEquals(Arrays.asList(other), collect(false, 95, 95));
+        assertFalse(orders.remove(stopLimit));
+    }
+
+    @Test
+    public void test_remove_levels_and_reuse(){
+        Order[] added = new Order[20];
+        for (int i = 0; i < added.length; i++){
+            added[i] = add(Side.Buy, OrdType.Limit, 100 + i, 0);
+        }
+        assertEquals(20, collect(true, 0, 0).size());
+        for (int i = 0; i < added.length; i += 2){
+            assertTrue(orders.remove(added[i]));
+        }
+        assertNull(orders.limits(true, 100));
+        assertEquals(Arrays.asList(added[19], added[17]), collect(true, 117, 117));
+
+        Order again = add(Side.Buy, OrdType.Limit, 100, 0);
+        assertEquals(Arrays.asList(again), orders.limits(true, 100));
+        assertEquals(11, orders.size());
+        assertFalse(orders.remove(SampleEventFactory.createOrder(INST_ID, Side.Buy, OrdType.Limit, 100, 100)));
+    }
+
+    @Test
+    public void test_partial_fill_stays_indexed(){
+        BackTestEventBusManager eventBusManager = new BackTestEventBusManager();
+        OrderManager orderManager = new OrderManager(eventBusManager);
+        InstrumentDataManager instrumentDataManager = new InstrumentDataManager(eventBusManager.getMarketDataRB());
+        instrumentDataManager.clear();
+        RingBuffer rb = RingBuffer.createSingleProducer(MarketDataContainer.FACTORY, 16, new NoWaitStrategy());
+        SimulationExecutor executor = new SimulationExecutor(new ProviderManager(), orderManager, instrumentDataManager, new SimulationClock(), rb);
+
+        Order order = SampleEventFactory.createOrder(INST_ID, Side.Buy, OrdType.Limit, 100, 100);
+        orderManager.onNewOrderRequest(order);
+        executor.onNewOrderRequest(order);
+        assertEquals(OrdStatus.New, order.ordStatus);
+
+        assertFalse(executor.execute(order, 100, 40));
+        assertEquals(OrdStatus.PartiallyFilled, order.ordStatus);
+
+        // still resting, the next trade at its limit fills the rest
+        executor.onTrade(new Trade(INST_ID, 1000, 100, 60));
+        assertEquals(OrdStatus.Filled, order.ordStatus);
+        assertEquals(100, order.filledQty, 0);
+    }
+}
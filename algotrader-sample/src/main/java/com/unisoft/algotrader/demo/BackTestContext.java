@@ -0,0 +1,165 @@
+package com.unisoft.algotrader.demo;
+
+import com.unisoft.algotrader.event.bus.BackTestEventBusManager;
+import com.unisoft.algotrader.model.clock.SimulationClock;
+import com.unisoft.algotrader.model.event.bus.EventBusManager;
+import com.unisoft.algotrader.model.event.data.MarketDataContainer;
+import com.unisoft.algotrader.model.trading.Account;
+import com.unisoft.algotrader.model.trading.Performance;
+import com.unisoft.algotrader.model.trading.PerformanceStatistics;
+import com.unisoft.algotrader.model.trading.Portfolio;
+import com.unisoft.algotrader.persistence.InMemoryTradingDataStore;
+import com.unisoft.algotrader.persistence.RefDataStore;
+import com.unisoft.algotrader.persistence.TradingDataStore;
+import com.unisoft.algotrader.provider.ProviderManager;
+import com.unisoft.algotrader.provider.execution.simulation.SimulationExecutor;
+import com.unisoft.algotrader.provider.execution.simulation.Simulator;
+import com.unisoft.algotrader.provider.execution.simulation.SimulatorConfig;
+import com.unisoft.algotrader.trading.*;
+import com.unisoft.algotrader.utils.id.AtomicIntIdSupplier;
+
+/**
+ * One isolated back test run: its own event bus, clock, order manager, simulation executor, data store and
+ * portfolio, so that many runs can execute on different threads without sharing mutable state. Only the
+ * {@link RefDataStore} and the replayed {@link BackTestData} are shared, and both are only read.
+ *
+ * The run is driven on the calling thread: each event is handed to the portfolio processor (mark to market),
+ * then to the {@link Simulator} (fills, then strategy), and the performance is updated once per event.
+ * Orders and execution reports flow synchronously through the {@link BackTestOrderManager}, so the ring
+ * buffers of the event bus are never consumed and can be kept small.
+ */
+public class BackTestContext {
+
+    public static final int PORTFOLIO_ID = 1;
+
+    private final int runId;
+    private final RefDataStore refDataStore;
+    private final TradingDataStore tradingDataStore;
+    private final EventBusManager eventBusManager;
+    private final ProviderManager providerManager;
+    private final StrategyManager strategyManager;
+    private final PortfolioManager portfolioManager;
+    private final OrderManager orderManager;
+    private final InstrumentDataManager instrumentDataManager;
+    private final SimulationClock clock;
+    private final SimulationExecutor simulationExecutor;
+    private final Account account;
+    private final Portfolio portfolio;
+    private final PortfolioProcessor portfolioProcessor;
+
+    private Strategy strategy;
+    private Simulator simulator;
+
+    public BackTestContext(int runId, RefDataStore refDataStore, Account account, SimulatorConfig simulatorConfig, int bufferSize, boolean keepSeries){
+        this.runId = runId;
+        this.refDataStore = refDataStore;
+        this.account = account;
+
+        this.eventBusManager = new BackTestEventBusManager(bufferSize);
+        this.providerManager = new ProviderManager();
+        this.strategyManager = new StrategyManager(new AtomicIntIdSupplier());
+        this.portfolioManager = new PortfolioManager(new AtomicIntIdSupplier());
+        this.orderManager = new BackTestOrderManager(eventBusManager, portfolioManager, providerManager, strategyManager);
+        this.instrumentDataManager = new InstrumentDataManager(eventBusManager.getMarketDataRB());
+        this.clock = new SimulationClock();
+
+        this.simulationExecutor = new SimulationExecutor(providerManager, orderManager, instrumentDataManager, clock, eventBusManager.getMarketDataRB());
+        if (simulatorConfig != null) {
+            this.simulationExecutor.config.copy(simulatorConfig);
+        }
+
+        this.tradingDataStore = new InMemoryTradingDataStore();
+        this.tradingDataStore.saveAccount(account);
+
+        this.portfolio = new Portfolio(PORTFOLIO_ID, account.accountId());
+        this.portfolio.performance(new Performance(keepSeries, new PerformanceStatistics()));
+        this.tradingDataStore.savePortfolio(portfolio);
+
+        this.portfolioProcessor = new PortfolioProcessor(portfolio, account, refDataStore, clock);
+        this.portfolioManager.register(portfolioProcessor);
+    }
+
+    /**
+     * Attach the strategy of this run, it must be created against this context (order manager, data store, portfolio).
+     */
+    public BackTestContext init(Strategy strategy){
+        if (this.strategy != null){
+            throw new IllegalStateException("Strategy already attached, runId=" + runId);
+        }
+        this.strategy = strategy;
+        this.strategy.setPortfolio(portfolio);
+        this.strategyManager.register(strategy);
+        this.simulator = new Simulator(simulationExecutor, eventBusManager.getMarketDataRB(), strategy);
+        return this;
+    }
+
+    public Performance run(BackTestData data){
+        if (simulator == null){
+            throw new IllegalStateException("No strategy attached, runId=" + runId);
+        }
+        for (int i = 0; i < data.size(); i++) {
+            MarketDataContainer event = data.get(i);
+            clock.setDateTime(event.dateTime);
+            portfolioProcessor.onEvent(event);
+            simulator.onEvent(event);
+            portfolioProcessor.updatePerformance(event.dateTime);
+        }
+        return portfolio.performance();
+    }
+
+    public int getRunId() {
+        return runId;
+    }
+
+    public RefDataStore getRefDataStore() {
+        return refDataStore;
+    }
+
+    public TradingDataStore getTradingDataStore() {
+        return tradingDataStore;
+    }
+
+    public EventBusManager getEventBusManager() {
+        return eventBusManager;
+    }
+
+    public ProviderManager getProviderManager() {
+        return providerManager;
+    }
+
+    public StrategyManager getStrategyManager() {
+        return strategyManager;
+    }
+
+    public OrderManager getOrderManager() {
+        return orderManager;
+    }
+
+    public InstrumentDataManager getInstrumentDataManager() {
+        return instrumentDataManager;
+    }
+
+    public SimulationClock getClock() {
+        return clock;
+    }
+
+    public SimulationExecutor getSimulationExecutor() {
+        return simulationExecutor;
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public Portfolio getPortfolio() {
+        return portfolio;
+    }
+
+    public PortfolioProcessor getPortfolioProcessor() {
+        return portfolioProcessor;
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+}
@@ -0,0 +1,60 @@
+package com.unisoft.algotrader.demo;
+
+import com.unisoft.algotrader.model.event.data.MarketDataContainer;
+import com.unisoft.algotrader.provider.data.HistoricalCursor;
+import com.unisoft.algotrader.provider.data.HistoricalDataService;
+import com.unisoft.algotrader.provider.data.HistoricalReplay;
+import com.unisoft.algotrader.provider.data.HistoricalSubscriptionKey;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Historical market data of a back test, loaded and decoded once, then replayed by every run of a
+ * {@link BackTestFarm}. The events are shared across threads and must be treated as read only by the
+ * simulator, strategies and portfolio processors.
+ *
+ * Events are kept in time order, events with the same timestamp keep their load order.
+ */
+public class BackTestData {
+
+    private final MarketDataContainer[] events;
+
+    public BackTestData(List<MarketDataContainer> events){
+        this.events = events.toArray(new MarketDataContainer[events.size()]);
+        Arrays.sort(this.events, (e1, e2) -> Long.compare(e1.dateTime, e2.dateTime));
+    }
+
+    public static BackTestData load(HistoricalDataService dataService, HistoricalSubscriptionKey... subscriptionKeys){
+        return new BackTestData(HistoricalCursor.toList(new HistoricalReplay(dataService, Arrays.asList(subscriptionKeys))));
+    }
+
+    public int size(){
+        return events.length;
+    }
+
+    public MarketDataContainer get(int idx){
+        return events[idx];
+    }
+
+    public long fromDateTime(){
+        if (events.length == 0){
+            throw new IllegalStateException("Back test data has no event");
+        }
+        return events[0].dateTime;
+    }
+
+    public long toDateTime(){
+        if (events.length == 0){
+            throw new IllegalStateException("Back test data has no event");
+        }
+        return events[events.length - 1].dateTime;
+    }
+
+    @Override
+    public String toString() {
+        return "BackTestData{" +
+                "size=" + events.length +
+                "} " + super.toString();
+    }
+}
@@ -0,0 +1,152 @@
+package com.unisoft.algotrader.demo;
+
+import com.google.common.collect.Lists;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+import com.unisoft.algotrader.model.refdata.Currency;
+import com.unisoft.algotrader.model.trading.Account;
+import com.unisoft.algotrader.model.trading.Performance;
+import com.unisoft.algotrader.persistence.RefDataStore;
+import com.unisoft.algotrader.provider.execution.simulation.SimulatorConfig;
+import com.unisoft.algotrader.trading.Strategy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the same back test over many parameter sets in parallel, e.g. a parameter grid search.
+ *
+ * Every run gets its own {@link BackTestContext} (event bus, clock, order manager, portfolio) and is driven
+ * start to end by one worker of a fixed thread pool, while the {@link BackTestData} is decoded once and
+ * shared read only by all runs. Contexts are created when a run starts, so at most one context per worker
+ * is alive at any time.
+ */
+public class BackTestFarm {
+
+    private static final Logger LOG = LogManager.getLogger(BackTestFarm.class);
+
+    public static final String ACCOUNT_ID = "BackTest";
+    public static final int DEFAULT_BUFFER_SIZE = 1024;
+
+    @FunctionalInterface
+    public interface StrategyFactory<P> {
+        /**
+         * Create the strategy of one run, wired to the order manager, data store and portfolio of the given context.
+         */
+        Strategy create(BackTestContext context, P parameters);
+    }
+
+    private final RefDataStore refDataStore;
+    private final Currency currency;
+    private final double initialCash;
+    private final int threads;
+
+    private SimulatorConfig simulatorConfig = new SimulatorConfig();
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    private boolean keepSeries = false;
+
+    public BackTestFarm(RefDataStore refDataStore, Currency currency, double initialCash){
+        this(refDataStore, currency, initialCash, Runtime.getRuntime().availableProcessors());
+    }
+
+    public BackTestFarm(RefDataStore refDataStore, Currency currency, double initialCash, int threads){
+        if (threads <= 0){
+            throw new IllegalArgumentException("threads must be > 0, threads=" + threads);
+        }
+        this.refDataStore = refDataStore;
+        this.currency = currency;
+        this.initialCash = initialCash;
+        this.threads = threads;
+    }
+
+    /**
+     * Run one back test per parameter set, results are returned in the order of the parameters.
+     * A failing run is reported in its result and does not stop the others.
+     */
+    public <P> List<BackTestResult<P>> run(BackTestData data, List<P> parameters, StrategyFactory<P> strategyFactory) throws InterruptedException{
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, parameters.size())), DaemonThreadFactory.INSTANCE);
+        try {
+            List<Future<BackTestResult<P>>> futures = Lists.newArrayListWithCapacity(parameters.size());
+            for (int i = 0; i < parameters.size(); i++) {
+                final int runId = i + 1;
+                final P runParameters = parameters.get(i);
+                futures.add(executor.submit(() -> run(runId, data, runParameters, strategyFactory)));
+            }
+
+            List<BackTestResult<P>> results = Lists.newArrayListWithCapacity(parameters.size());
+            for (Future<BackTestResult<P>> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        }
+        catch (ExecutionException e){
+            throw new IllegalStateException("Back test farm failed", e.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Run a single back test on the calling thread.
+     */
+    public <P> BackTestResult<P> run(int runId, BackTestData data, P parameters, StrategyFactory<P> strategyFactory){
+        long start = System.nanoTime();
+        try {
+            BackTestContext context = new BackTestContext(runId, refDataStore, newAccount(), simulatorConfig, bufferSize, keepSeries);
+            context.init(strategyFactory.create(context, parameters));
+            Performance performance = context.run(data);
+            return new BackTestResult<>(runId, parameters, performance, null, System.nanoTime() - start);
+        }
+        catch (Exception e){
+            LOG.error("Back test failed, runId={}, parameters={}", runId, parameters, e);
+            return new BackTestResult<>(runId, parameters, null, e, System.nanoTime() - start);
+        }
+    }
+
+    private Account newAccount(){
+        return new Account(ACCOUNT_ID, "Back Test Account", currency, initialCash);
+    }
+
+    public SimulatorConfig simulatorConfig() {
+        return simulatorConfig;
+    }
+
+    /**
+     * Fill settings copied into the simulation executor of every run.
+     */
+    public BackTestFarm simulatorConfig(SimulatorConfig simulatorConfig) {
+        this.simulatorConfig = simulatorConfig;
+        return this;
+    }
+
+    public int bufferSize() {
+        return bufferSize;
+    }
+
+    public BackTestFarm bufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    public boolean keepSeries() {
+        return keepSeries;
+    }
+
+    /**
+     * Whether each run keeps its full equity / pnl / drawdown series, off by default since a large sweep
+     * usually only needs the streaming statistics.
+     */
+    public BackTestFarm keepSeries(boolean keepSeries) {
+        this.keepSeries = keepSeries;
+        return this;
+    }
+
+    public int threads() {
+        return threads;
+    }
+}
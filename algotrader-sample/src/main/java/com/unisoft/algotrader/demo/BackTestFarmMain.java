@@ -0,0 +1,57 @@
+package com.unisoft.algotrader.demo;
+
+import com.google.common.collect.Lists;
+import com.unisoft.algotrader.event.SampleEventFactory;
+import com.unisoft.algotrader.model.refdata.Currency;
+import com.unisoft.algotrader.model.refdata.Instrument;
+import com.unisoft.algotrader.persistence.RefDataStore;
+import com.unisoft.algotrader.persistence.SampleInMemoryRefDataStore;
+import com.unisoft.algotrader.provider.ProviderManager;
+import com.unisoft.algotrader.provider.data.DummyDataProvider;
+import com.unisoft.algotrader.provider.data.HistoricalSubscriptionKey;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Moving average cross parameter sweep over 10 years of daily bars.
+ */
+public class BackTestFarmMain {
+
+    private static final Logger LOG = LogManager.getLogger(BackTestFarmMain.class);
+
+    public static void main(String [] args) throws Exception{
+
+        RefDataStore refDataStore = new SampleInMemoryRefDataStore();
+        Instrument instrument = SampleEventFactory.TEST_HKD_INSTRUMENT;
+        refDataStore.saveInstrument(instrument);
+
+        DummyDataProvider provider = new DummyDataProvider(new ProviderManager(), null);
+        BackTestData data = BackTestData.load(provider, HistoricalSubscriptionKey.createDailySubscriptionKey(provider.providerId().id, instrument.getInstId(),
+                DummyDataProvider.FORMAT2.parse("20010101"), DummyDataProvider.FORMAT2.parse("20110101")));
+
+        List<int[]> grid = Lists.newArrayList();
+        for (int fast = 2; fast <= 50; fast++){
+            for (int slow = fast + 5; slow <= 250; slow += 5){
+                grid.add(new int[]{fast, slow});
+            }
+        }
+
+        BackTestFarm farm = new BackTestFarm(refDataStore, Currency.HKD, 1000000);
+
+        long start = System.currentTimeMillis();
+        List<BackTestResult<int[]>> results = farm.run(data, grid, (context, params) ->
+                new MovingAverageCrossStrategy(context.getStrategyManager(), context.getOrderManager(), context.getTradingDataStore(),
+                        context.getPortfolio().portfolioId(), context.getEventBusManager().getMarketDataRB(), params[0], params[1], 1000));
+
+        LOG.info("{} back tests over {} events in {} ms", results.size(), data.size(), System.currentTimeMillis() - start);
+
+        results.stream()
+                .filter(result -> !result.failed())
+                .sorted(Comparator.comparingDouble((BackTestResult<int[]> result) -> result.statistics().sharpeRatio()).reversed())
+                .limit(10)
+                .forEach(result -> LOG.info("fast={}, slow={}, {}", result.parameters[0], result.parameters[1], result.statistics()));
+    }
+}
@@ -0,0 +1,43 @@
+package com.unisoft.algotrader.demo;
+
+import com.unisoft.algotrader.model.trading.Performance;
+import com.unisoft.algotrader.model.trading.PerformanceStatistics;
+
+/**
+ * Outcome of one {@link BackTestFarm} run, either the performance of the run or the error that stopped it.
+ */
+public class BackTestResult<P> {
+
+    public final int runId;
+    public final P parameters;
+    public final Performance performance;
+    public final Exception error;
+    public final long elapsedNanos;
+
+    public BackTestResult(int runId, P parameters, Performance performance, Exception error, long elapsedNanos){
+        this.runId = runId;
+        this.parameters = parameters;
+        this.performance = performance;
+        this.error = error;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public boolean failed(){
+        return error != null;
+    }
+
+    public PerformanceStatistics statistics(){
+        return performance != null ? performance.statistics() : null;
+    }
+
+    @Override
+    public String toString() {
+        return "BackTestResult{" +
+                "runId=" + runId +
+                ", parameters=" + parameters +
+                ", statistics=" + statistics() +
+                ", error=" + error +
+                ", elapsedNanos=" + elapsedNanos +
+                "} " + super.toString();
+    }
+}
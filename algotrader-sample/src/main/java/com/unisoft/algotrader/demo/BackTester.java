@@ -91,7 +91,7 @@ public class BackTester {
             = RingBuffer.createSingleProducer(MarketDataContainer.FACTORY, 1024, new NoWaitStrategy());
 
         this.barFactory = new BarFactory(rawMarketDataRB, eventBusManager.getMarketDataRB());
-        this.simulator = new Simulator(simulationExecutor, eventBusManager.getMarketDataRB(), strategy);
+        this.simulator = new Simulator(simulationExecutor, eventBusManager.getMarketDataRB(), eventBusManager.getMarketDepthRB(), strategy);
 
         this.dataProvider = provider;
 
@@ -5,7 +5,6 @@ import com.lmax.disruptor.RingBuffer;
 import com.unisoft.algotrader.config.AppConfig;
 import com.unisoft.algotrader.event.SampleEventFactory;
 import com.unisoft.algotrader.model.event.data.Bar;
-import com.unisoft.algotrader.model.event.data.MarketDataContainer;
 import com.unisoft.algotrader.model.event.data.Quote;
 import com.unisoft.algotrader.model.event.data.Trade;
 import com.unisoft.algotrader.model.event.execution.ExecutionReport;
@@ -36,11 +35,11 @@ public class BuyAndHoldStrategy extends Strategy {
     public Order longOrder;
 
     public BuyAndHoldStrategy(AppConfig config, Portfolio portfolio){
-        this(config.getStrategyManager(), config.getOrderManager(), config.getTradingDataStore(), portfolio.portfolioId(), config.getEventBusManager().getMarketDataRB());
+        this(config.getStrategyManager(), config.getOrderManager(), config.getTradingDataStore(), portfolio.portfolioId(), config.getEventBusManager().getExecutionEventRB());
     }
 
-    public BuyAndHoldStrategy(StrategyManager strategyManager, OrderManager orderManager, TradingDataStore tradingDataStore, int portfolioId, RingBuffer<MarketDataContainer> rb){
-        super(strategyManager.nextStrategyId(), tradingDataStore, portfolioId, rb);
+    public BuyAndHoldStrategy(StrategyManager strategyManager, OrderManager orderManager, TradingDataStore tradingDataStore, int portfolioId, RingBuffer... providers){
+        super(strategyManager.nextStrategyId(), tradingDataStore, portfolioId, providers);
         this.orderManager = orderManager;
     }
 
@@ -0,0 +1,94 @@
+package com.unisoft.algotrader.demo;
+
+import com.lmax.disruptor.RingBuffer;
+import com.unisoft.algotrader.model.event.data.Bar;
+import com.unisoft.algotrader.model.event.data.MarketDataContainer;
+import com.unisoft.algotrader.model.event.execution.Order;
+import com.unisoft.algotrader.model.trading.OrdStatus;
+import com.unisoft.algotrader.model.trading.OrdType;
+import com.unisoft.algotrader.model.trading.Side;
+import com.unisoft.algotrader.model.trading.TimeInForce;
+import com.unisoft.algotrader.persistence.TradingDataStore;
+import com.unisoft.algotrader.provider.ProviderId;
+import com.unisoft.algotrader.trading.OrderManager;
+import com.unisoft.algotrader.trading.Strategy;
+import com.unisoft.algotrader.trading.StrategyManager;
+
+/**
+ * Goes long when the fast moving average of the bar close crosses above the slow one, and flat when it
+ * crosses back below. Used as the sample strategy of parameter sweeps.
+ */
+public class MovingAverageCrossStrategy extends Strategy {
+
+    private final OrderManager orderManager;
+    private final int fast;
+    private final int slow;
+    private final double qty;
+
+    private final double[] closes;
+    private long count = 0;
+    private double fastSum = 0;
+    private double slowSum = 0;
+    private long ordId = 0;
+    private boolean isLong = false;
+
+    public MovingAverageCrossStrategy(StrategyManager strategyManager, OrderManager orderManager, TradingDataStore tradingDataStore, int portfolioId, RingBuffer<MarketDataContainer> rb,
+                                      int fast, int slow, double qty){
+        super(strategyManager.nextStrategyId(), tradingDataStore, portfolioId, rb);
+        if (fast <= 0 || slow <= fast){
+            throw new IllegalArgumentException("require 0 < fast < slow, fast=" + fast + ", slow=" + slow);
+        }
+        this.orderManager = orderManager;
+        this.fast = fast;
+        this.slow = slow;
+        this.qty = qty;
+        this.closes = new double[slow];
+    }
+
+    @Override
+    public void onBar(Bar bar) {
+        double close = bar.close;
+        int slot = (int) (count % slow);
+        if (count >= fast){
+            fastSum -= closes[(int) ((count - fast) % slow)];
+        }
+        if (count >= slow){
+            slowSum -= closes[slot];
+        }
+        closes[slot] = close;
+        fastSum += close;
+        slowSum += close;
+        count++;
+
+        if (count < slow){
+            return;
+        }
+
+        double fastAvg = fastSum / fast;
+        double slowAvg = slowSum / slow;
+        if (!isLong && fastAvg > slowAvg){
+            isLong = true;
+            sendOrder(bar, Side.Buy);
+        }
+        else if (isLong && fastAvg < slowAvg){
+            isLong = false;
+            sendOrder(bar, Side.Sell);
+        }
+    }
+
+    private void sendOrder(Bar bar, Side side){
+        Order order = new Order();
+        order.clOrderId = ++ordId;
+        order.instId = bar.instId;
+        order.strategyId = strategyId;
+        order.providerId = ProviderId.Simulation.id;
+        order.portfolioId = portfolio.portfolioId();
+        order.dateTime = bar.dateTime;
+        order.side = side;
+        order.ordType = OrdType.Market;
+        order.ordQty = qty;
+        order.tif = TimeInForce.Day;
+        order.ordStatus = OrdStatus.New;
+        orderManager.onNewOrderRequest(order);
+    }
+}
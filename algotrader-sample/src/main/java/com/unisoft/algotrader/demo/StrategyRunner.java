@@ -1,17 +1,23 @@
 package com.unisoft.algotrader.demo;
 
+import com.google.common.collect.Sets;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.unisoft.algotrader.config.AppConfig;
 import com.unisoft.algotrader.config.SampleConfigModule;
 import com.unisoft.algotrader.event.SampleEventFactory;
+import com.unisoft.algotrader.model.event.data.DataType;
 import com.unisoft.algotrader.model.refdata.Instrument;
 import com.unisoft.algotrader.model.trading.Account;
 import com.unisoft.algotrader.model.trading.Portfolio;
 import com.unisoft.algotrader.persistence.TradingDataStore;
+import com.unisoft.algotrader.provider.ProviderId;
+import com.unisoft.algotrader.provider.data.SubscriptionType;
 import com.unisoft.algotrader.provider.execution.simulation.SimulationExecutor;
+import com.unisoft.algotrader.trading.MarketDataDispatcher;
 import com.unisoft.algotrader.trading.PortfolioProcessor;
 import com.unisoft.algotrader.trading.Strategy;
+import com.unisoft.algotrader.trading.StrategyContext;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -46,8 +52,15 @@ public class StrategyRunner {
         appConfig.getProviderManager().addExecutionProvider(simulationExecutor);
         DataPublisher dataPublisher = new DataPublisher(appConfig.getEventBusManager().getMarketDataRB());
 
+        // the dispatcher is the only consumer of the market data for the strategy and the portfolio
+        MarketDataDispatcher marketDataDispatcher = new MarketDataDispatcher(appConfig.getEventBusManager());
+        strategy.register(marketDataDispatcher);
+        strategy.init(new StrategyContext(ProviderId.Simulation, ProviderId.Dummy, portfolioProcessor.portfolioId(),
+                Sets.newHashSet(new SubscriptionType(DataType.Trade, 0)), Sets.newHashSet(instrument.getInstId())));
+        portfolioProcessor.register(marketDataDispatcher);
+
+        executor.submit(marketDataDispatcher);
         executor.submit(strategy);
-        executor.submit(portfolioProcessor);
         executor.submit(simulationExecutor);
         executor.submit(appConfig.getInstrumentDataManager());
 
@@ -0,0 +1,181 @@
+package com.unisoft.algotrader.demo;
+
+import com.google.common.collect.Lists;
+import com.unisoft.algotrader.event.SampleEventFactory;
+import com.unisoft.algotrader.model.event.data.Bar;
+import com.unisoft.algotrader.model.event.data.MarketDataContainer;
+import com.unisoft.algotrader.model.event.data.Quote;
+import com.unisoft.algotrader.model.event.data.Trade;
+import com.unisoft.algotrader.model.event.execution.Order;
+import com.unisoft.algotrader.model.refdata.Currency;
+import com.unisoft.algotrader.model.trading.OrdType;
+import com.unisoft.algotrader.model.trading.Side;
+import com.unisoft.algotrader.persistence.RefDataStore;
+import com.unisoft.algotrader.persistence.SampleInMemoryRefDataStore;
+import com.unisoft.algotrader.trading.OrderManager;
+import com.unisoft.algotrader.trading.Strategy;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+
+public class BackTestFarmTest {
+
+    private static final double INITIAL_CASH = 1000000;
+    private static final long INST_ID = SampleEventFactory.TEST_HKD_INSTRUMENT.getInstId();
+    private static final int EVENTS = 50;
+
+    private RefDataStore refDataStore;
+    private BackTestData data;
+    private final Map<Integer, BackTestContext> contexts = new ConcurrentHashMap<>();
+
+    /**
+     * Buys the given quantity at market on the first trade and holds it.
+     */
+    private static class BuyStrategy extends Strategy {
+        private final OrderManager orderManager;
+        private final double qty;
+        private Order order;
+
+        BuyStrategy(BackTestContext context, double qty){
+            super(context.getStrategyManager().nextStrategyId(), context.getTradingDataStore(), context.getPortfolio().portfolioId(),
+                    context.getEventBusManager().getMarketDataRB());
+            this.orderManager = context.getOrderManager();
+            this.qty = qty;
+        }
+
+        @Override
+        public void onTrade(Trade trade) {
+            if (order == null){
+                order = SampleEventFactory.createOrder(trade.instId, Side.Buy, OrdType.Market, qty, 0.0);
+                order.portfolioId = portfolio.portfolioId();
+                order.strategyId = strategyId;
+                orderManager.onNewOrderRequest(order);
+            }
+        }
+
+        @Override
+        public void onBar(Bar bar) {
+        }
+
+        @Override
+        public void onQuote(Quote quote) {
+        }
+    }
+
+    @Before
+    public void setup(){
+        refDataStore = new SampleInMemoryRefDataStore();
+        refDataStore.saveInstrument(SampleEventFactory.TEST_HKD_INSTRUMENT);
+
+        List<MarketDataContainer> events = Lists.newArrayList();
+        for (int i = 0; i < EVENTS; i++){
+            MarketDataContainer container = new MarketDataContainer();
+            container.setTrade(INST_ID, 1000 * (i + 1), 100 + i % 7 + i * 0.5, 1000);
+            events.add(container);
+        }
+        data = new BackTestData(events);
+    }
+
+    private BackTestFarm.StrategyFactory<Double> buy(){
+        return (context, qty) -> {
+            contexts.put(context.getRunId(), context);
+            return new BuyStrategy(context, qty);
+        };
+    }
+
+    private static double pnl(BackTestResult<Double> result){
+        return result.performance.equity() - INITIAL_CASH;
+    }
+
+    @Test
+    public void test_runs_on_shared_data_are_isolated() throws Exception{
+        BackTestFarm farm = new BackTestFarm(refDataStore, Currency.HKD, INITIAL_CASH, 4);
+        List<Double> quantities = Arrays.asList(100.0, 200.0, 100.0, 300.0, 200.0, 100.0);
+        List<BackTestResult<Double>> results = farm.run(data, quantities, buy());
+
+        assertEquals(quantities.size(), results.size());
+        double unitPnl = pnl(results.get(0)) / 100;
+        assertTrue(unitPnl != 0);
+        for (int i = 0; i < results.size(); i++){
+            BackTestResult<Double> result = results.get(i);
+            assertFalse(result.failed());
+            assertEquals(i + 1, result.runId);
+            assertEquals(quantities.get(i), result.parameters);
+            // each run only holds its own position
+            assertEquals(unitPnl * quantities.get(i), pnl(result), 1e-6);
+
+            BackTestContext context = contexts.get(result.runId);
+            assertSame(result.performance, context.getPortfolio().performance());
+            assertEquals(quantities.get(i), context.getPortfolio().getPosition(INST_ID).getQty(), 0);
+            assertEquals(EVENTS, context.getClock().now() / 1000);
+        }
+        assertEquals(quantities.size(), contexts.size());
+
+        // the same run alone gives the same result
+        BackTestResult<Double> alone = farm.run(1, data, 300.0, buy());
+        assertEquals(pnl(results.get(3)), pnl(alone), 1e-6);
+    }
+
+    @Test
+    public void test_shared_data_is_not_modified() throws Exception{
+        BackTestFarm farm = new BackTestFarm(refDataStore, Currency.HKD, INITIAL_CASH, 2);
+        farm.run(data, Arrays.asList(100.0, 200.0), buy());
+
+        assertEquals(EVENTS, data.size());
+        for (int i = 0; i < EVENTS; i++){
+            MarketDataContainer container = data.get(i);
+            assertEquals(1000 * (i + 1), container.dateTime);
+            assertEquals(INST_ID, container.instId);
+            assertEquals(100 + i % 7 + i * 0.5, container.trade.price, 0);
+        }
+    }
+
+    @Test
+    public void test_failed_run_does_not_stop_the_others() throws Exception{
+        BackTestFarm farm = new BackTestFarm(refDataStore, Currency.HKD, INITIAL_CASH, 2);
+        List<BackTestResult<Double>> results = farm.run(data, Arrays.asList(100.0, -1.0, 200.0), (context, qty) -> {
+            if (qty < 0){
+                throw new IllegalArgumentException("qty must be positive, qty=" + qty);
+            }
+            return new BuyStrategy(context, qty);
+        });
+
+        assertEquals(3, results.size());
+        assertFalse(results.get(0).failed());
+        assertTrue(results.get(1).failed());
+        assertTrue(results.get(1).error instanceof IllegalArgumentException);
+        assertNull(results.get(1).performance);
+        assertNull(results.get(1).statistics());
+        assertEquals(-1.0, results.get(1).parameters, 0);
+        assertFalse(results.get(2).failed());
+        assertEquals(2 * pnl(results.get(0)), pnl(results.get(2)), 1e-6);
+    }
+
+    @Test
+    public void test_data_is_sorted_by_time(){
+        MarketDataContainer late = new MarketDataContainer();
+        late.setTrade(INST_ID, 3000, 10, 100);
+        MarketDataContainer first = new MarketDataContainer();
+        first.setTrade(INST_ID, 1000, 11, 100);
+        MarketDataContainer second = new MarketDataContainer();
+        second.setTrade(INST_ID, 1000, 12, 100);
+
+        BackTestData data = new BackTestData(Arrays.asList(late, first, second));
+        assertSame(first, data.get(0));
+        assertSame(second, data.get(1));
+        assertSame(late, data.get(2));
+        assertEquals(1000, data.fromDateTime());
+        assertEquals(3000, data.toDateTime());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void test_empty_data_has_no_range(){
+        new BackTestData(Lists.newArrayList()).fromDateTime();
+    }
+}
@@ -0,0 +1,16 @@
+package com.unisoft.algotrader.config;
+
+import com.unisoft.algotrader.provider.feed.MarketDataFeedProvider;
+import com.unisoft.algotrader.utils.config.BaseConfigModule;
+
+/**
+ * Module of a strategy JVM which joins the feed of the MarketDataServer, instead of connecting to the broker with
+ * the providers of the ServiceConfigModule.
+ */
+public class MarketDataFeedConfigModule extends BaseConfigModule {
+
+    protected void configure() {
+        super.configure();
+        bind(MarketDataFeedProvider.class).asEagerSingleton();
+    }
+}
@@ -11,6 +11,7 @@ import com.unisoft.algotrader.provider.google.GoogleHistoricalDataProvider;
 import com.unisoft.algotrader.provider.ib.IBProvider;
 import com.unisoft.algotrader.provider.influxdb.InfluxDBHistoricalDataStore;
 import com.unisoft.algotrader.provider.kdb.KDBHistoricalDataStore;
+import com.unisoft.algotrader.provider.mmap.MMapHistoricalDataStore;
 import com.unisoft.algotrader.provider.yahoo.YahooHistoricalDataProvider;
 import com.unisoft.algotrader.utils.config.BaseConfigModule;
 
@@ -28,6 +29,7 @@ public class ServiceConfigModule extends BaseConfigModule {
         bind(CSVHistoricalDataStore.class).asEagerSingleton();
         bind(KDBHistoricalDataStore.class).asEagerSingleton();
         bind(InfluxDBHistoricalDataStore.class).asEagerSingleton();
+        bind(MMapHistoricalDataStore.class).asEagerSingleton();
 
         //ExecutionProvider
         bind(IBProvider.class).asEagerSingleton();
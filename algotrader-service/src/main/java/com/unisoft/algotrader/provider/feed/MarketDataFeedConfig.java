@@ -0,0 +1,36 @@
+package com.unisoft.algotrader.provider.feed;
+
+import com.unisoft.algotrader.utils.networking.aeron.AeronConfig;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+/**
+ * Aeron channel of the market data feed. The feed is split into partitions by instId, partition i is published on
+ * stream streamId + i. The media driver is not embedded, it is run standalone and shared by the JVMs of the box.
+ */
+public class MarketDataFeedConfig {
+    public final String channel;
+    public final int streamId;
+    public final int partitions;
+
+    @Inject
+    public MarketDataFeedConfig(@Named("feed.marketdata.channel") String channel,
+                                @Named("feed.marketdata.streamId") int streamId,
+                                @Named("feed.marketdata.partitions") int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("feed.marketdata.partitions must be positive, partitions=" + partitions);
+        }
+        this.channel = channel;
+        this.streamId = streamId;
+        this.partitions = partitions;
+    }
+
+    public AeronConfig aeronConfig(int partition){
+        return new AeronConfig.AeronConfigBuilder()
+                .channel(channel)
+                .streamId(streamId + partition)
+                .embeddedMediaDriver(false)
+                .build();
+    }
+}
@@ -0,0 +1,241 @@
+package com.unisoft.algotrader.provider.feed;
+
+import com.google.common.collect.Sets;
+import com.lmax.disruptor.RingBuffer;
+import com.unisoft.algotrader.event.bus.MarketDataFragmentHandler;
+import com.unisoft.algotrader.model.event.bus.EventBusManager;
+import com.unisoft.algotrader.model.event.data.MarketDataContainer;
+import com.unisoft.algotrader.model.serialization.sbe.MarketDataMessage;
+import com.unisoft.algotrader.model.serialization.sbe.SBESerializer;
+import com.unisoft.algotrader.provider.ProviderId;
+import com.unisoft.algotrader.provider.ProviderManager;
+import com.unisoft.algotrader.provider.data.RealTimeDataProvider;
+import com.unisoft.algotrader.provider.data.SubscriptionKey;
+import com.unisoft.algotrader.utils.networking.aeron.AeronSubscriber;
+import com.unisoft.algotrader.utils.serialization.SequencedSerializer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.co.real_logic.aeron.logbuffer.FragmentHandler;
+import uk.co.real_logic.aeron.logbuffer.Header;
+import uk.co.real_logic.agrona.DirectBuffer;
+import uk.co.real_logic.agrona.concurrent.UnsafeBuffer;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+/**
+ * RealTimeDataProvider of a strategy JVM which joins the feed of the {@link com.unisoft.algotrader.service.MarketDataServer}
+ * instead of connecting to the broker itself. Subscribing an instrument joins the stream of its partition (once)
+ * and lets its market data through to the market data ring buffers, decoded in place from the term buffer.
+ *
+ * The instrument has to be subscribed at the MarketDataServer, this provider only filters the feed. The stream of a
+ * partition is left once none of its instruments is subscribed anymore.
+ *
+ * Each partition tracks the sequence numbers of its stream. A late joiner starts from the first sequence it receives;
+ * any later jump is counted as a gap and logged.
+ */
+@Singleton
+public class MarketDataFeedProvider implements RealTimeDataProvider {
+
+    private static final Logger LOG = LogManager.getLogger(MarketDataFeedProvider.class);
+
+    public static final ProviderId PROVIDER_ID = ProviderId.MarketDataFeed;
+
+    private final IntFunction<AeronSubscriber> subscriberFactory;
+    private final FeedPartition[] partitions;
+    private final Set<SubscriptionKey> subscriptionKeys = Sets.newHashSet();
+
+    private volatile long[] instIds = new long[0];
+    private volatile boolean connected;
+
+    @Inject
+    public MarketDataFeedProvider(ProviderManager providerManager, MarketDataFeedConfig config, EventBusManager eventBusManager){
+        this(providerManager, config, eventBusManager.getMarketDataRBs());
+    }
+
+    public MarketDataFeedProvider(ProviderManager providerManager, MarketDataFeedConfig config, RingBuffer<MarketDataContainer>... marketDataRBs){
+        this(providerManager, config.partitions, partition -> new AeronSubscriber(config.aeronConfig(partition)), marketDataRBs);
+    }
+
+    /**
+     * @param subscriberFactory creates the subscriber of the stream of a partition
+     */
+    public MarketDataFeedProvider(ProviderManager providerManager, int partitions, IntFunction<AeronSubscriber> subscriberFactory,
+                                  RingBuffer<MarketDataContainer>... marketDataRBs){
+        this.subscriberFactory = subscriberFactory;
+        this.partitions = new FeedPartition[partitions];
+        for (int i = 0; i < partitions; i++){
+            this.partitions[i] = new FeedPartition(i, marketDataRBs);
+        }
+        providerManager.addRealTimeDataProvider(this);
+    }
+
+    @Override
+    public synchronized void connect() {
+        connected = true;
+        for (SubscriptionKey subscriptionKey : subscriptionKeys){
+            partitions[partition(subscriptionKey.instId)].open();
+        }
+    }
+
+    @Override
+    public synchronized void disconnect() {
+        connected = false;
+        for (FeedPartition partition : partitions){
+            partition.close();
+        }
+    }
+
+    @Override
+    public boolean connected() {
+        return connected;
+    }
+
+    @Override
+    public ProviderId providerId() {
+        return PROVIDER_ID;
+    }
+
+    @Override
+    public synchronized boolean subscribeMarketData(SubscriptionKey subscriptionKey) {
+        if (subscriptionKeys.add(subscriptionKey)){
+            rebuildInstIds();
+        }
+        if (!connected){
+            connect();
+        }
+        partitions[partition(subscriptionKey.instId)].open();
+        return true;
+    }
+
+    @Override
+    public synchronized boolean unSubscribeMarketData(SubscriptionKey subscriptionKey) {
+        if (!subscriptionKeys.remove(subscriptionKey)){
+            return false;
+        }
+        rebuildInstIds();
+        int partition = partition(subscriptionKey.instId);
+        for (SubscriptionKey remaining : subscriptionKeys){
+            if (partition(remaining.instId) == partition){
+                return true;
+            }
+        }
+        partitions[partition].close();
+        return true;
+    }
+
+    /**
+     * True while the stream of the partition is joined.
+     */
+    public synchronized boolean isJoined(int partition){
+        return partitions[partition].subscriber != null;
+    }
+
+    /**
+     * Number of gaps detected on all the partitions.
+     */
+    public long getGaps(){
+        long gaps = 0;
+        for (FeedPartition partition : partitions){
+            gaps += partition.gaps;
+        }
+        return gaps;
+    }
+
+    /**
+     * Number of messages missed in the gaps on all the partitions.
+     */
+    public long getLost(){
+        long lost = 0;
+        for (FeedPartition partition : partitions){
+            lost += partition.lost;
+        }
+        return lost;
+    }
+
+    /**
+     * Last sequence number received on the partition, 0 if it has not received any message yet.
+     */
+    public long getSequence(int partition){
+        return partitions[partition].expectedSequence - 1;
+    }
+
+    private int partition(long instId){
+        return EventBusManager.partition(instId, partitions.length);
+    }
+
+    private void rebuildInstIds(){
+        instIds = subscriptionKeys.stream().mapToLong(subscriptionKey -> subscriptionKey.instId).distinct().sorted().toArray();
+    }
+
+    /**
+     * Stream of one partition, fragments are delivered on the thread of its AeronSubscriber.
+     */
+    private class FeedPartition implements FragmentHandler {
+
+        private final int partition;
+        private final MarketDataFragmentHandler marketDataHandler;
+        private final SBESerializer serializer = new SBESerializer();
+        private final UnsafeBuffer unsafeBuffer = new UnsafeBuffer(new byte[0]);
+
+        private AeronSubscriber subscriber;
+        private volatile long expectedSequence = 1;
+        private volatile long gaps;
+        private volatile long lost;
+        private boolean joined;
+
+        FeedPartition(int partition, RingBuffer<MarketDataContainer>[] marketDataRBs){
+            this.partition = partition;
+            this.marketDataHandler = new MarketDataFragmentHandler(serializer, marketDataRBs);
+        }
+
+        void open(){
+            if (subscriber == null){
+                // a stream joined again starts over from the first sequence received
+                joined = false;
+                subscriber = subscriberFactory.apply(partition);
+                subscriber.subscribe(this);
+                subscriber.connect();
+                LOG.info("joined market data feed partition {}", partition);
+            }
+        }
+
+        void close(){
+            if (subscriber != null){
+                subscriber.disconnect();
+                subscriber = null;
+                LOG.info("left market data feed partition {}", partition);
+            }
+        }
+
+        @Override
+        public void onFragment(DirectBuffer buffer, int offset, int length, Header header) {
+            unsafeBuffer.wrap(buffer);
+            long sequence = SequencedSerializer.sequence(unsafeBuffer, offset);
+            if (!joined){
+                joined = true;
+                if (sequence != 1){
+                    LOG.info("late join of market data feed partition {}, first sequence={}", partition, sequence);
+                }
+            }
+            else if (sequence > expectedSequence){
+                gaps++;
+                lost += sequence - expectedSequence;
+                LOG.warn("gap on market data feed partition {}, expected sequence={}, received={}", partition, expectedSequence, sequence);
+            }
+            else if (sequence < expectedSequence){
+                LOG.warn("market data feed partition {} restarted, expected sequence={}, received={}", partition, expectedSequence, sequence);
+            }
+            expectedSequence = sequence + 1;
+
+            int messageOffset = offset + SequencedSerializer.SEQUENCE_LENGTH;
+            if (serializer.templateId(unsafeBuffer, messageOffset) == MarketDataMessage.TEMPLATE_ID
+                    && Arrays.binarySearch(instIds, serializer.instId(unsafeBuffer, messageOffset)) >= 0){
+                marketDataHandler.onFragment(buffer, messageOffset, length - SequencedSerializer.SEQUENCE_LENGTH, header);
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.unisoft.algotrader.provider.gateway;
+
+import com.google.common.collect.Maps;
+import com.lmax.disruptor.RingBuffer;
+import com.unisoft.algotrader.model.event.Event;
+import com.unisoft.algotrader.model.event.bus.EventBusManager;
+import com.unisoft.algotrader.model.event.bus.ExecutionEventBus;
+import com.unisoft.algotrader.model.event.execution.ExecutionReport;
+import com.unisoft.algotrader.model.event.execution.OrderEventContainer;
+import com.unisoft.algotrader.model.event.execution.OrderEventHandler;
+import com.unisoft.algotrader.model.serialization.sbe.ExecutionReportMessage;
+import com.unisoft.algotrader.model.serialization.sbe.SBESerializer;
+import com.unisoft.algotrader.utils.networking.Publisher;
+import com.unisoft.algotrader.utils.networking.aeron.AeronPublisher;
+import com.unisoft.algotrader.utils.networking.aeron.AeronSubscriber;
+import com.unisoft.algotrader.utils.threading.disruptor.MultiEventProcessor;
+import com.unisoft.algotrader.utils.threading.disruptor.waitstrategy.NoWaitStrategy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.co.real_logic.aeron.logbuffer.FragmentHandler;
+import uk.co.real_logic.aeron.logbuffer.Header;
+import uk.co.real_logic.agrona.DirectBuffer;
+import uk.co.real_logic.agrona.concurrent.UnsafeBuffer;
+
+import javax.inject.Inject;
+import java.util.Map;
+
+/**
+ * Strategy process side of the {@link com.unisoft.algotrader.service.OrderServer}. Consumes the order ring buffer in
+ * place of the execution providers and forwards every request to the server, and publishes the ExecutionReports
+ * received on the channels of the subscribed strategies into the local ExecutionEventBus.
+ */
+public class OrderGatewayClient extends MultiEventProcessor implements OrderEventHandler {
+
+    private static final Logger LOG = LogManager.getLogger(OrderGatewayClient.class);
+
+    private final OrderGatewayConfig config;
+    private final Publisher requestPublisher;
+    private final ExecutionEventBus executionEventBus;
+    private final OrderRequestSerializer requestSerializer = new OrderRequestSerializer();
+    private final Map<Integer, AeronSubscriber> reportSubscribers = Maps.newHashMap();
+
+    @Inject
+    public OrderGatewayClient(EventBusManager eventBusManager, OrderGatewayConfig config){
+        this(config, new AeronPublisher(config.requestAeronConfig()), eventBusManager.getExecutionEventBus(), eventBusManager.getOrderEventRB());
+    }
+
+    public OrderGatewayClient(OrderGatewayConfig config, Publisher requestPublisher, ExecutionEventBus executionEventBus, RingBuffer<OrderEventContainer> orderEventRB){
+        super(new NoWaitStrategy(), orderEventRB);
+        this.config = config;
+        this.requestPublisher = requestPublisher;
+        this.executionEventBus = executionEventBus;
+    }
+
+    public void connect(){
+        requestPublisher.connect();
+    }
+
+    public synchronized void disconnect(){
+        requestPublisher.disconnect();
+        for (AeronSubscriber subscriber : reportSubscribers.values()){
+            subscriber.disconnect();
+        }
+        reportSubscribers.clear();
+    }
+
+    /**
+     * Join the execution report channel of the strategy.
+     */
+    public synchronized void subscribe(int strategyId){
+        if (!reportSubscribers.containsKey(strategyId)){
+            AeronSubscriber subscriber = new AeronSubscriber(config.reportAeronConfig(strategyId));
+            subscriber.subscribe(new ExecutionReportHandler());
+            subscriber.connect();
+            reportSubscribers.put(strategyId, subscriber);
+        }
+    }
+
+    public synchronized void unsubscribe(int strategyId){
+        AeronSubscriber subscriber = reportSubscribers.remove(strategyId);
+        if (subscriber != null){
+            subscriber.disconnect();
+        }
+    }
+
+    @Override
+    public void onEvent(Event event) {
+        event.on(this);
+    }
+
+    @Override
+    public void onOrderEventContainer(OrderEventContainer orderEventContainer) {
+        requestPublisher.publish(orderEventContainer, requestSerializer);
+    }
+
+    /**
+     * Decodes the reports of one channel into new ExecutionReports, as they are kept by the orders.
+     */
+    private class ExecutionReportHandler implements FragmentHandler {
+
+        private final SBESerializer serializer = new SBESerializer();
+        private final UnsafeBuffer unsafeBuffer = new UnsafeBuffer(new byte[0]);
+
+        @Override
+        public void onFragment(DirectBuffer buffer, int offset, int length, Header header) {
+            unsafeBuffer.wrap(buffer);
+            if (serializer.templateId(unsafeBuffer, offset) != ExecutionReportMessage.TEMPLATE_ID){
+                LOG.warn("ignore non execution report message, templateId={}", serializer.templateId(unsafeBuffer, offset));
+                return;
+            }
+            ExecutionReport executionReport = new ExecutionReport();
+            serializer.decode(unsafeBuffer, offset, executionReport);
+            executionEventBus.publishExecutionReport(executionReport);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.unisoft.algotrader.provider.gateway;
+
+import com.unisoft.algotrader.utils.networking.aeron.AeronConfig;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+/**
+ * Aeron channel of the order gateway. The order requests of all the strategies are sent on requestStreamId, the
+ * execution reports of strategy i are sent back on reportStreamId + i. The media driver is not embedded.
+ */
+public class OrderGatewayConfig {
+    public final String channel;
+    public final int requestStreamId;
+    public final int reportStreamId;
+
+    @Inject
+    public OrderGatewayConfig(@Named("gateway.order.channel") String channel,
+                              @Named("gateway.order.requestStreamId") int requestStreamId,
+                              @Named("gateway.order.reportStreamId") int reportStreamId) {
+        this.channel = channel;
+        this.requestStreamId = requestStreamId;
+        this.reportStreamId = reportStreamId;
+    }
+
+    public AeronConfig requestAeronConfig(){
+        return aeronConfig(requestStreamId);
+    }
+
+    public AeronConfig reportAeronConfig(int strategyId){
+        return aeronConfig(reportStreamId + strategyId);
+    }
+
+    private AeronConfig aeronConfig(int streamId){
+        return new AeronConfig.AeronConfigBuilder()
+                .channel(channel)
+                .streamId(streamId)
+                .embeddedMediaDriver(false)
+                .build();
+    }
+}
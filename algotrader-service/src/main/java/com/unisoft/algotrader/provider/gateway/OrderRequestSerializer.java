@@ -0,0 +1,144 @@
+package com.unisoft.algotrader.provider.gateway;
+
+import com.unisoft.algotrader.model.event.execution.Order;
+import com.unisoft.algotrader.model.event.execution.OrderEventContainer;
+import com.unisoft.algotrader.model.serialization.sbe.SBESerializer;
+import com.unisoft.algotrader.utils.serialization.DirectBufferSerializer;
+import uk.co.real_logic.agrona.concurrent.UnsafeBuffer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Wire format of the order requests sent to the {@link com.unisoft.algotrader.service.OrderServer}: one byte of
+ * request type (the {@link OrderEventContainer} bit of the request) followed by the SBE encoded Order.
+ *
+ * deserialize returns an internal OrderEventContainer and Order which are reused by the next call.
+ */
+public class OrderRequestSerializer implements DirectBufferSerializer {
+
+    public static final int REQUEST_TYPE_LENGTH = 1;
+
+    private final SBESerializer serializer = new SBESerializer();
+    private final OrderEventContainer container = new OrderEventContainer();
+    private final Order order = new Order();
+    private final UnsafeBuffer wrapBuffer = new UnsafeBuffer(new byte[0]);
+
+    /**
+     * Request type of the request at the offset of the buffer, one of the OrderEventContainer request bits.
+     */
+    public static int requestType(UnsafeBuffer buffer, int offset){
+        return buffer.getByte(offset);
+    }
+
+    /**
+     * Decode the Order of the request at the offset of the buffer into the given order.
+     */
+    public void decode(UnsafeBuffer buffer, int offset, Order order){
+        serializer.decode(buffer, offset + REQUEST_TYPE_LENGTH, order);
+    }
+
+    @Override
+    public int serialize(Object content, UnsafeBuffer buffer, int offset) {
+        OrderEventContainer container = (OrderEventContainer) content;
+        buffer.putByte(offset, (byte) requestType(container));
+        return REQUEST_TYPE_LENGTH + serializer.encode(request(container), buffer, offset + REQUEST_TYPE_LENGTH);
+    }
+
+    @Override
+    public int encodedLength(Object content) {
+        return REQUEST_TYPE_LENGTH + serializer.encodedLength(request((OrderEventContainer) content));
+    }
+
+    @Override
+    public <T> T deserialize(UnsafeBuffer buffer, int offset) {
+        container.reset();
+        decode(buffer, offset, order);
+        int requestType = requestType(buffer, offset);
+        switch (requestType){
+            case OrderEventContainer.NEW_ORDER_BIT:
+                container.setNewOrderRequest(order);
+                break;
+            case OrderEventContainer.REPLACE_ORDER_BIT:
+                container.setReplaceOrderRequest(order);
+                break;
+            case OrderEventContainer.CANCEL_ORDER_BIT:
+                container.setCancelOrderRequest(order);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown order request type=" + requestType);
+        }
+        return (T) container;
+    }
+
+    private static int requestType(OrderEventContainer container){
+        if (container.hasNewOrderRequest()){
+            return OrderEventContainer.NEW_ORDER_BIT;
+        }
+        if (container.hasReplaceOrderRequest()){
+            return OrderEventContainer.REPLACE_ORDER_BIT;
+        }
+        if (container.hasCancelOrderRequest()){
+            return OrderEventContainer.CANCEL_ORDER_BIT;
+        }
+        throw new IllegalArgumentException("no order request in " + container);
+    }
+
+    private static Order request(OrderEventContainer container){
+        switch (requestType(container)){
+            case OrderEventContainer.NEW_ORDER_BIT:
+                return container.newOrderRequest;
+            case OrderEventContainer.REPLACE_ORDER_BIT:
+                return container.replaceOrderRequest;
+            default:
+                return container.cancelOrderRequest;
+        }
+    }
+
+    @Override
+    public <T> T deserialize(byte[] array) {
+        wrapBuffer.wrap(array);
+        return deserialize(wrapBuffer, 0);
+    }
+
+    @Override
+    public <T> byte[] serialize(T content) {
+        byte[] bytes = new byte[encodedLength(content)];
+        wrapBuffer.wrap(bytes);
+        serialize(content, wrapBuffer, 0);
+        return bytes;
+    }
+
+    /**
+     * Decode the request at the position of the byteBuffer and move the position past it.
+     */
+    @Override
+    public <T> T deserialize(ByteBuffer byteBuffer) {
+        int offset = byteBuffer.position();
+        wrapBuffer.wrap(byteBuffer);
+        T content = deserialize(wrapBuffer, offset);
+        byteBuffer.position(offset + REQUEST_TYPE_LENGTH + serializer.length(wrapBuffer, offset + REQUEST_TYPE_LENGTH));
+        return content;
+    }
+
+    /**
+     * Encode at the position of the byteBuffer and move the position past the request.
+     */
+    @Override
+    public <T> void serialize(T content, ByteBuffer byteBuffer) {
+        int offset = byteBuffer.position();
+        wrapBuffer.wrap(byteBuffer);
+        byteBuffer.position(offset + serialize(content, wrapBuffer, offset));
+    }
+
+    @Override
+    public void register(Class clazz) {
+        if (clazz != OrderEventContainer.class){
+            throw new IllegalArgumentException("unsupported class=" + clazz);
+        }
+    }
+
+    @Override
+    public int getId(Class clazz) {
+        return clazz == OrderEventContainer.class ? OrderEventContainer.NEW_ORDER_BIT : -1;
+    }
+}
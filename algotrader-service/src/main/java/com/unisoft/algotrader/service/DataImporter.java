@@ -29,24 +29,30 @@ import java.util.Date;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 import static com.unisoft.algotrader.model.refdata.Exchange.HKEX;
 /**
  * Created by alex on 7/19/15.
  */
 public class DataImporter extends MultiEventProcessor implements MarketDataHandler {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
     private final ProviderManager providerManager;
     private final DataService dataService;
     private final RingBufferMarketDataEventBus rb;
 
-    private DataStoreProvider provider;
+    // set by importData from the caller thread
+    private volatile DataStoreProvider provider;
 
     public DataImporter(ProviderManager providerManager, DataService dataService, RingBuffer<MarketDataContainer> marketDataRB){
         super(new NoWaitStrategy(),  marketDataRB);
         this.providerManager = providerManager;
         this.dataService = dataService;
         this.rb = new RingBufferMarketDataEventBus(marketDataRB);
-
+        // a store falling behind holds back the publishers rather than losing events
+        marketDataRB.addGatingSequences(getSequence(marketDataRB));
     }
     @Override
     public void onEvent(Event event) {
@@ -74,6 +80,14 @@ public class DataImporter extends MultiEventProcessor implements MarketDataHandl
         }
     }
 
+    @Override
+    protected void onIdle() {
+        if(provider != null){
+            provider.flush();
+        }
+        LockSupport.parkNanos(IDLE_PARK_NANOS);
+    }
+
     public boolean importData(HistoricalSubscriptionKey subscriptionKey){
         provider = providerManager.getDataStoreProvider(CSVHistoricalDataStore.PROVIDER_ID);
         return dataService.subscribeHistoricalData(subscriptionKey);
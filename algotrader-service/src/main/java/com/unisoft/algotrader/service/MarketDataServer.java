@@ -1,7 +1,181 @@
 package com.unisoft.algotrader.service;
 
+import com.google.common.collect.Sets;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.lmax.disruptor.RingBuffer;
+import com.unisoft.algotrader.config.DefaultEventBusConfigModule;
+import com.unisoft.algotrader.config.SampleAppConfigModule;
+import com.unisoft.algotrader.config.ServiceConfigModule;
+import com.unisoft.algotrader.model.event.Event;
+import com.unisoft.algotrader.model.event.bus.EventBusManager;
+import com.unisoft.algotrader.model.event.data.*;
+import com.unisoft.algotrader.model.refdata.Instrument;
+import com.unisoft.algotrader.model.serialization.sbe.SBESerializer;
+import com.unisoft.algotrader.persistence.RefDataStore;
+import com.unisoft.algotrader.provider.ProviderManager;
+import com.unisoft.algotrader.provider.config.DataServiceConfigModule;
+import com.unisoft.algotrader.provider.data.RealTimeDataProvider;
+import com.unisoft.algotrader.provider.data.SubscriptionKey;
+import com.unisoft.algotrader.provider.feed.MarketDataFeedConfig;
+import com.unisoft.algotrader.provider.ib.IBProvider;
+import com.unisoft.algotrader.utils.networking.Publisher;
+import com.unisoft.algotrader.utils.networking.aeron.AeronPublisher;
+import com.unisoft.algotrader.utils.serialization.SequencedSerializer;
+import com.unisoft.algotrader.utils.threading.disruptor.MultiEventProcessor;
+import com.unisoft.algotrader.utils.threading.disruptor.waitstrategy.NoWaitStrategy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.inject.Inject;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.unisoft.algotrader.model.refdata.Exchange.HKEX;
+
 /**
+ * Feed handler shared by the strategy JVMs of a box. It owns the RealTimeDataProviders, so each tick is received
+ * and parsed once, consumes the normalised MarketDataContainers from the market data ring buffers and fans them out
+ * over Aeron, SBE encoded straight into the publication.
+ *
+ * The feed is partitioned by instId, one stream per partition (see {@link MarketDataFeedConfig}), so a consumer only
+ * joins the streams of its instruments. Every stream carries its own sequence numbers for gap detection, see
+ * {@link SequencedSerializer}. A partition without subscriber, or one which stays back pressured, drops its messages
+ * instead of stalling the other partitions (see {@link AeronPublisher}), the dropped messages still take a sequence
+ * number so a connected consumer sees the gap. Consumers join with the {@link com.unisoft.algotrader.provider.feed.MarketDataFeedProvider}.
+ *
  * Created by alex on 7/19/15.
  */
-public class MarketDataServer {
+public class MarketDataServer extends MultiEventProcessor implements MarketDataHandler {
+
+    private static final Logger LOG = LogManager.getLogger(MarketDataServer.class);
+
+    private final ProviderManager providerManager;
+    private final Publisher[] publishers;
+    private final SequencedSerializer[] serializers;
+    private final long[] dropped;
+    private final Set<SubscriptionKey> subscriptionKeys = Sets.newHashSet();
+
+    @Inject
+    public MarketDataServer(ProviderManager providerManager, EventBusManager eventBusManager, MarketDataFeedConfig config){
+        this(providerManager, createPublishers(config), eventBusManager.getMarketDataRBs());
+    }
+
+    public MarketDataServer(ProviderManager providerManager, Publisher[] publishers, RingBuffer<MarketDataContainer>... marketDataRBs){
+        super(new NoWaitStrategy(), marketDataRBs);
+        this.providerManager = providerManager;
+        this.publishers = publishers;
+        this.serializers = new SequencedSerializer[publishers.length];
+        this.dropped = new long[publishers.length];
+        for (int i = 0; i < publishers.length; i++){
+            serializers[i] = new SequencedSerializer(new SBESerializer());
+        }
+    }
+
+    private static Publisher[] createPublishers(MarketDataFeedConfig config){
+        Publisher[] publishers = new Publisher[config.partitions];
+        for (int i = 0; i < publishers.length; i++){
+            publishers[i] = new AeronPublisher(config.aeronConfig(i));
+        }
+        return publishers;
+    }
+
+    public void connect(){
+        for (Publisher publisher : publishers){
+            if (!publisher.connected()){
+                publisher.connect();
+            }
+        }
+    }
+
+    public void disconnect(){
+        for (Publisher publisher : publishers){
+            publisher.disconnect();
+        }
+    }
+
+    /**
+     * Subscribe the market data at the provider of the subscription key, connecting the provider if needed.
+     */
+    public synchronized boolean subscribeMarketData(SubscriptionKey subscriptionKey){
+        RealTimeDataProvider provider = providerManager.getRealTimeDataProvider(subscriptionKey.providerId);
+        if (provider == null){
+            LOG.warn("no RealTimeDataProvider for {}", subscriptionKey);
+            return false;
+        }
+        if (!provider.connected()){
+            provider.connect();
+        }
+        if (provider.subscribeMarketData(subscriptionKey)){
+            subscriptionKeys.add(subscriptionKey);
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized boolean unSubscribeMarketData(SubscriptionKey subscriptionKey){
+        RealTimeDataProvider provider = providerManager.getRealTimeDataProvider(subscriptionKey.providerId);
+        if (provider == null || !subscriptionKeys.remove(subscriptionKey)){
+            return false;
+        }
+        return provider.unSubscribeMarketData(subscriptionKey);
+    }
+
+    /**
+     * Sequence number of the last message published on the partition.
+     */
+    public long getSequence(int partition){
+        return serializers[partition].getSequence();
+    }
+
+    /**
+     * Number of messages dropped on the partition because it had no subscriber or stayed back pressured.
+     */
+    public long getDropped(int partition){
+        return dropped[partition];
+    }
+
+    @Override
+    public void onEvent(Event event) {
+        event.on(this);
+    }
+
+    @Override
+    public void onMarketDataContainer(MarketDataContainer container) {
+        int partition = EventBusManager.partition(container.instId, publishers.length);
+        if (!publishers[partition].publish(container, serializers[partition])){
+            serializers[partition].skip();
+            dropped[partition]++;
+        }
+    }
+
+    // the whole container is published by onMarketDataContainer
+    @Override
+    public void onBar(Bar bar) {
+    }
+
+    @Override
+    public void onQuote(Quote quote) {
+    }
+
+    @Override
+    public void onTrade(Trade trade) {
+    }
+
+    public static void main(String [] args){
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        Injector injector = Guice.createInjector(new SampleAppConfigModule(), new ServiceConfigModule(), new DefaultEventBusConfigModule(), new DataServiceConfigModule());
+        RefDataStore refDataStore = injector.getInstance(RefDataStore.class);
+        MarketDataServer server = injector.getInstance(MarketDataServer.class);
+
+        server.connect();
+        executor.submit(server);
+
+        Instrument instrument = refDataStore.getInstrumentBySymbolAndExchange("0005.HK", HKEX.getExchId());
+        server.subscribeMarketData(SubscriptionKey.createTradeSubscriptionKey(IBProvider.PROVIDER_ID.id, instrument.getInstId()));
+        server.subscribeMarketData(SubscriptionKey.createQuoteSubscriptionKey(IBProvider.PROVIDER_ID.id, instrument.getInstId()));
+    }
 }
@@ -0,0 +1,91 @@
+package com.unisoft.algotrader.service;
+
+import com.unisoft.algotrader.model.event.execution.Order;
+import com.unisoft.algotrader.trading.OrderTable;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+/**
+ * Pre-trade risk checks of the {@link OrderServer}. Each check returns the reason of the rejection, or null when the
+ * request passes. A limit which is not positive is disabled.
+ *
+ * The order value is checked against the limit price, or the stop price when there is no limit price; market orders
+ * are only checked on quantity.
+ */
+public class OrderRiskCheck {
+
+    public final double maxOrderQty;
+    public final double maxOrderValue;
+    public final int maxOpenOrders;
+
+    @Inject
+    public OrderRiskCheck(@Named("gateway.risk.maxOrderQty") double maxOrderQty,
+                          @Named("gateway.risk.maxOrderValue") double maxOrderValue,
+                          @Named("gateway.risk.maxOpenOrders") int maxOpenOrders) {
+        this.maxOrderQty = maxOrderQty;
+        this.maxOrderValue = maxOrderValue;
+        this.maxOpenOrders = maxOpenOrders;
+    }
+
+    public String checkNewOrder(Order order, OrderTable orderTable){
+        if (orderTable.getOrder(order.strategyId, order.clOrderId) != null){
+            return "duplicate clOrderId=" + order.clOrderId;
+        }
+        String reason = checkLimits(order);
+        if (reason != null){
+            return reason;
+        }
+        if (maxOpenOrders > 0 && openOrders(order.instId, orderTable) >= maxOpenOrders){
+            return "open orders of instId=" + order.instId + " reached maxOpenOrders=" + maxOpenOrders;
+        }
+        return null;
+    }
+
+    public String checkReplaceOrder(Order order, OrderTable orderTable){
+        String reason = checkActive(order, orderTable);
+        if (reason != null){
+            return reason;
+        }
+        return checkLimits(order);
+    }
+
+    public String checkCancelOrder(Order order, OrderTable orderTable){
+        return checkActive(order, orderTable);
+    }
+
+    private String checkActive(Order order, OrderTable orderTable){
+        Order existing = orderTable.getOrder(order.strategyId, order.clOrderId);
+        if (existing == null){
+            return "unknown clOrderId=" + order.clOrderId;
+        }
+        if (existing.isDone()){
+            return "order is " + existing.ordStatus + ", clOrderId=" + order.clOrderId;
+        }
+        return null;
+    }
+
+    private String checkLimits(Order order){
+        if (order.ordQty <= 0){
+            return "invalid ordQty=" + order.ordQty;
+        }
+        if (maxOrderQty > 0 && order.ordQty > maxOrderQty){
+            return "ordQty=" + order.ordQty + " exceeds maxOrderQty=" + maxOrderQty;
+        }
+        double price = order.limitPrice > 0 ? order.limitPrice : order.stopPrice;
+        if (maxOrderValue > 0 && price > 0 && order.ordQty * price > maxOrderValue){
+            return "order value=" + order.ordQty * price + " exceeds maxOrderValue=" + maxOrderValue;
+        }
+        return null;
+    }
+
+    private static int openOrders(long instId, OrderTable orderTable){
+        int count = 0;
+        for (Order order : orderTable.getOrdersByInstId(instId).values()){
+            if (order.isActive()){
+                count++;
+            }
+        }
+        return count;
+    }
+}
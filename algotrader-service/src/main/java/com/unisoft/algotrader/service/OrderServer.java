@@ -1,7 +1,324 @@
 package com.unisoft.algotrader.service;
 
+import com.google.common.collect.Maps;
+import com.lmax.disruptor.RingBuffer;
+import com.unisoft.algotrader.model.event.bus.EventBusManager;
+import com.unisoft.algotrader.model.event.execution.ExecutionReport;
+import com.unisoft.algotrader.model.event.execution.Order;
+import com.unisoft.algotrader.model.event.execution.OrderEventContainer;
+import com.unisoft.algotrader.model.serialization.sbe.SBESerializer;
+import com.unisoft.algotrader.model.trading.ExecType;
+import com.unisoft.algotrader.model.trading.OrdStatus;
+import com.unisoft.algotrader.provider.ProviderManager;
+import com.unisoft.algotrader.provider.execution.ExecutionProvider;
+import com.unisoft.algotrader.provider.gateway.OrderGatewayConfig;
+import com.unisoft.algotrader.provider.gateway.OrderRequestSerializer;
+import com.unisoft.algotrader.trading.OrderManager;
+import com.unisoft.algotrader.utils.networking.DataHandler;
+import com.unisoft.algotrader.utils.networking.Publisher;
+import com.unisoft.algotrader.utils.networking.Subscriber;
+import com.unisoft.algotrader.utils.networking.aeron.AeronPublisher;
+import com.unisoft.algotrader.utils.networking.aeron.AeronSubscriber;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.co.real_logic.aeron.logbuffer.FragmentHandler;
+import uk.co.real_logic.aeron.logbuffer.Header;
+import uk.co.real_logic.agrona.DirectBuffer;
+import uk.co.real_logic.agrona.concurrent.UnsafeBuffer;
+
+import javax.inject.Inject;
+import java.util.Map;
+import java.util.function.IntFunction;
+
 /**
+ * Order gateway shared by the strategy processes, which send their order requests with the
+ * {@link com.unisoft.algotrader.provider.gateway.OrderGatewayClient} instead of holding their own broker sessions.
+ *
+ * Requests received from the transport (an AeronSubscriber, zero copy, or any other Subscriber such as JeroMQ) are
+ * decoded into the request ring buffer of the server. The server thread then keeps the single OrderTable, applies
+ * the {@link OrderRiskCheck}, routes the accepted requests to {@link ProviderManager#getExecutionProvider} and streams
+ * the ExecutionReports back on the channel of the strategy. A strategy which is not listening, or whose channel stays
+ * back pressured, does not hold up the others: its reports are dropped and logged, see {@link AeronPublisher} and
+ * {@link #getDroppedReports()}. A rejected request is answered with a Rejected
+ * ExecutionReport. OrderCancelRejects are kept in the OrderTable but not streamed back, they have no wire format yet.
+ *
+ * The execution providers must not consume the order ring buffer themselves in the server process, the server
+ * routes to them. The time spent from the start of the handling of a request to its hand-off to the provider is
+ * measured, see {@link #getMaxLatencyNanos()}.
+ *
  * Created by alex on 7/19/15.
  */
-public class OrderServer {
+public class OrderServer extends OrderManager implements FragmentHandler, DataHandler {
+
+    private static final Logger LOG = LogManager.getLogger(OrderServer.class);
+
+    public static final int REQUEST_BUFFER_SIZE = 1024;
+
+    private final ProviderManager providerManager;
+    private final OrderRiskCheck riskCheck;
+    private final Subscriber requestSubscriber;
+    private final IntFunction<Publisher> reportPublisherFactory;
+    private final RingBuffer<OrderEventContainer> requestRB;
+
+    private final OrderRequestSerializer requestSerializer = new OrderRequestSerializer();
+    private final UnsafeBuffer requestBuffer = new UnsafeBuffer(new byte[0]);
+    private final SBESerializer reportSerializer = new SBESerializer();
+    private final Map<Integer, Publisher> reportPublishers = Maps.newHashMap();
+
+    private long rejectExecId;
+
+    private long requests;
+    private long rejects;
+    private long droppedReports;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+
+    @Inject
+    public OrderServer(EventBusManager eventBusManager, ProviderManager providerManager, OrderGatewayConfig config, OrderRiskCheck riskCheck){
+        this(eventBusManager, providerManager, riskCheck, new AeronSubscriber(config.requestAeronConfig()),
+                strategyId -> new AeronPublisher(config.reportAeronConfig(strategyId)));
+    }
+
+    public OrderServer(EventBusManager eventBusManager, ProviderManager providerManager, OrderRiskCheck riskCheck,
+                       Subscriber requestSubscriber, IntFunction<Publisher> reportPublisherFactory){
+        this(eventBusManager, providerManager, riskCheck, requestSubscriber, reportPublisherFactory,
+                RingBuffer.createMultiProducer(OrderEventContainer.FACTORY, REQUEST_BUFFER_SIZE));
+    }
+
+    private OrderServer(EventBusManager eventBusManager, ProviderManager providerManager, OrderRiskCheck riskCheck,
+                        Subscriber requestSubscriber, IntFunction<Publisher> reportPublisherFactory,
+                        RingBuffer<OrderEventContainer> requestRB){
+        super(eventBusManager, eventBusManager.getExecutionEventRB(), requestRB);
+        this.providerManager = providerManager;
+        this.riskCheck = riskCheck;
+        this.requestSubscriber = requestSubscriber;
+        this.reportPublisherFactory = reportPublisherFactory;
+        this.requestRB = requestRB;
+        this.requestRB.addGatingSequences(getSequence(requestRB));
+    }
+
+    public void connect(){
+        if (requestSubscriber instanceof AeronSubscriber){
+            ((AeronSubscriber) requestSubscriber).subscribe((FragmentHandler) this);
+        }
+        else {
+            requestSubscriber.subscribe(this);
+        }
+        requestSubscriber.connect();
+    }
+
+    public void disconnect(){
+        requestSubscriber.disconnect();
+        for (Publisher publisher : reportPublishers.values()){
+            publisher.disconnect();
+        }
+    }
+
+    @Override
+    public void onFragment(DirectBuffer buffer, int offset, int length, Header header) {
+        requestBuffer.wrap(buffer);
+        onRequest(requestBuffer, offset);
+    }
+
+    @Override
+    public void onData(byte[] bytes) {
+        onRequest(new UnsafeBuffer(bytes), 0);
+    }
+
+    /**
+     * Decode the request on the transport thread into the request ring buffer, the Order is a new instance as it is
+     * kept by the OrderTable.
+     */
+    private void onRequest(UnsafeBuffer buffer, int offset){
+        Order order = new Order();
+        requestSerializer.decode(buffer, offset, order);
+        int requestType = OrderRequestSerializer.requestType(buffer, offset);
+
+        long sequence = requestRB.next();
+        try {
+            OrderEventContainer container = requestRB.get(sequence);
+            container.reset();
+            switch (requestType){
+                case OrderEventContainer.NEW_ORDER_BIT:
+                    container.setNewOrderRequest(order);
+                    break;
+                case OrderEventContainer.REPLACE_ORDER_BIT:
+                    container.setReplaceOrderRequest(order);
+                    break;
+                case OrderEventContainer.CANCEL_ORDER_BIT:
+                    container.setCancelOrderRequest(order);
+                    break;
+                default:
+                    LOG.warn("ignore unknown order request type={}, {}", requestType, order);
+            }
+        }
+        finally {
+            requestRB.publish(sequence);
+        }
+    }
+
+    @Override
+    public void onNewOrderRequest(Order order) {
+        long start = System.nanoTime();
+        String reason = riskCheck.checkNewOrder(order, orderTable);
+        if (reason != null){
+            reject(order, null, reason);
+            return;
+        }
+        ExecutionProvider provider = executionProvider(order, null);
+        if (provider != null) {
+            super.onNewOrderRequest(order);
+            provider.onNewOrderRequest(order);
+            recordLatency(start);
+        }
+    }
+
+    @Override
+    public void onOrderUpdateRequest(Order order) {
+        long start = System.nanoTime();
+        Order existing = orderTable.getOrder(order.strategyId, order.clOrderId);
+        String reason = riskCheck.checkReplaceOrder(order, orderTable);
+        if (reason != null){
+            reject(order, existing, reason);
+            return;
+        }
+        ExecutionProvider provider = executionProvider(order, existing);
+        if (provider != null) {
+            super.onOrderUpdateRequest(order);
+            provider.onOrderUpdateRequest(order);
+            recordLatency(start);
+        }
+    }
+
+    @Override
+    public void onOrderCancelRequest(Order order) {
+        long start = System.nanoTime();
+        Order existing = orderTable.getOrder(order.strategyId, order.clOrderId);
+        String reason = riskCheck.checkCancelOrder(order, orderTable);
+        if (reason != null){
+            reject(order, existing, reason);
+            return;
+        }
+        ExecutionProvider provider = executionProvider(order, existing);
+        if (provider != null) {
+            super.onOrderCancelRequest(order);
+            provider.onOrderCancelRequest(order);
+            recordLatency(start);
+        }
+    }
+
+    @Override
+    public void onExecutionReport(ExecutionReport executionReport) {
+        super.onExecutionReport(executionReport);
+        // the strategies already got the reports replayed from the journal
+        if (!recovering){
+            publish(executionReport);
+        }
+    }
+
+    private ExecutionProvider executionProvider(Order order, Order existing){
+        ExecutionProvider provider = providerManager.getExecutionProvider(order.providerId);
+        if (provider == null){
+            reject(order, existing, "no ExecutionProvider for providerId=" + order.providerId);
+        }
+        return provider;
+    }
+
+    /**
+     * Answer the request with a Rejected ExecutionReport, which keeps the state of the existing order, if any, so a
+     * rejected cancel or replace leaves the order as it is.
+     */
+    private void reject(Order request, Order existing, String reason){
+        LOG.warn("reject order request, reason={}, {}", reason, request);
+        Order order = existing != null ? existing : request;
+
+        ExecutionReport report = new ExecutionReport();
+        report.execId = ++rejectExecId;
+        report.providerId = request.providerId;
+        report.strategyId = request.strategyId;
+        report.orderId = order.orderId;
+        report.clOrderId = request.clOrderId;
+        report.instId = request.instId;
+        report.transactionTime = System.currentTimeMillis();
+        report.ordType = order.ordType;
+        report.side = order.side;
+        report.tif = order.tif;
+        report.limitPrice = order.limitPrice;
+        report.stopPrice = order.stopPrice;
+        report.ordQty = order.ordQty;
+        report.filledQty = order.filledQty;
+        report.avgPrice = order.avgPrice;
+        report.execType = ExecType.Rejected;
+        report.ordStatus = existing != null ? existing.ordStatus : OrdStatus.Rejected;
+        report.text = reason;
+
+        rejects++;
+        publish(report);
+    }
+
+    private void publish(ExecutionReport executionReport){
+        Publisher publisher = reportPublisher(executionReport.strategyId);
+        if (publisher == null || !publisher.publish(executionReport, reportSerializer)){
+            droppedReports++;
+            LOG.warn("drop execution report of strategy {}, not connected or back pressured, {}", executionReport.strategyId, executionReport);
+        }
+    }
+
+    /**
+     * Report publisher of the strategy, connected on its first report. A publisher which fails to connect is tried
+     * again on the next report.
+     */
+    private Publisher reportPublisher(int strategyId){
+        Publisher publisher = reportPublishers.get(strategyId);
+        if (publisher == null){
+            publisher = reportPublisherFactory.apply(strategyId);
+            try {
+                publisher.connect();
+            }
+            catch (RuntimeException e){
+                LOG.error("fail to connect the report publisher of strategy {}", strategyId, e);
+                return null;
+            }
+            reportPublishers.put(strategyId, publisher);
+        }
+        return publisher;
+    }
+
+    private void recordLatency(long start){
+        long latency = System.nanoTime() - start;
+        requests++;
+        totalLatencyNanos += latency;
+        if (latency > maxLatencyNanos){
+            maxLatencyNanos = latency;
+        }
+    }
+
+    /**
+     * Number of requests routed to the execution providers.
+     */
+    public long getRequests(){
+        return requests;
+    }
+
+    public long getRejects(){
+        return rejects;
+    }
+
+    /**
+     * Number of ExecutionReports dropped as their strategy was not connected or stayed back pressured.
+     */
+    public long getDroppedReports(){
+        return droppedReports;
+    }
+
+    /**
+     * Max time from the start of the handling of a request to its hand-off to the execution provider.
+     */
+    public long getMaxLatencyNanos(){
+        return maxLatencyNanos;
+    }
+
+    public long getAvgLatencyNanos(){
+        return requests == 0 ? 0 : totalLatencyNanos / requests;
+    }
 }
@@ -0,0 +1,219 @@
+package com.unisoft.algotrader.provider.feed;
+
+import com.lmax.disruptor.RingBuffer;
+import com.unisoft.algotrader.model.event.bus.EventBusManager;
+import com.unisoft.algotrader.model.event.data.MarketDataContainer;
+import com.unisoft.algotrader.model.serialization.sbe.SBESerializer;
+import com.unisoft.algotrader.provider.ProviderManager;
+import com.unisoft.algotrader.provider.data.SubscriptionKey;
+import com.unisoft.algotrader.utils.networking.aeron.AeronConfig;
+import com.unisoft.algotrader.utils.networking.aeron.AeronSubscriber;
+import com.unisoft.algotrader.utils.serialization.SequencedSerializer;
+import org.junit.Before;
+import org.junit.Test;
+import uk.co.real_logic.aeron.logbuffer.FragmentHandler;
+import uk.co.real_logic.agrona.concurrent.UnsafeBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MarketDataFeedProviderTest {
+
+    private static final int PARTITIONS = 4;
+
+    private final List<RecordingSubscriber> subscribers = new ArrayList<>();
+    private final SequencedSerializer[] serializers = new SequencedSerializer[PARTITIONS];
+    private final UnsafeBuffer buffer = new UnsafeBuffer(new byte[512]);
+    private final MarketDataContainer container = new MarketDataContainer();
+    private RingBuffer<MarketDataContainer> marketDataRB;
+    private MarketDataFeedProvider provider;
+
+    /**
+     * Subscriber of a partition, the test delivers the fragments itself.
+     */
+    private static class RecordingSubscriber extends AeronSubscriber {
+        final int partition;
+        FragmentHandler handler;
+        boolean connected;
+
+        RecordingSubscriber(int partition){
+            super(new AeronConfig.AeronConfigBuilder().streamId(partition).embeddedMediaDriver(false).build());
+            this.partition = partition;
+        }
+
+        @Override
+        public void connect() {
+            connected = true;
+        }
+
+        @Override
+        public void disconnect() {
+            connected = false;
+        }
+
+        @Override
+        public boolean connected() {
+            return connected;
+        }
+
+        @Override
+        public void subscribe(FragmentHandler handler) {
+            this.handler = handler;
+        }
+    }
+
+    @Before
+    public void setup(){
+        for (int i = 0; i < PARTITIONS; i++){
+            serializers[i] = new SequencedSerializer(new SBESerializer());
+        }
+        marketDataRB = RingBuffer.createSingleProducer(MarketDataContainer.FACTORY, 64);
+        provider = new MarketDataFeedProvider(new ProviderManager(), PARTITIONS, partition -> {
+            RecordingSubscriber subscriber = new RecordingSubscriber(partition);
+            subscribers.add(subscriber);
+            return subscriber;
+        }, marketDataRB);
+    }
+
+    private static int partition(long instId){
+        return EventBusManager.partition(instId, PARTITIONS);
+    }
+
+    /**
+     * instIds from the given one which fall in the partition.
+     */
+    private static long[] instIds(int partition, int count){
+        long[] instIds = new long[count];
+        for (long instId = 1, i = 0; i < count; instId++){
+            if (partition(instId) == partition){
+                instIds[(int) i++] = instId;
+            }
+        }
+        return instIds;
+    }
+
+    private static SubscriptionKey key(long instId){
+        return SubscriptionKey.createTradeSubscriptionKey(MarketDataFeedProvider.PROVIDER_ID.id, instId);
+    }
+
+    private RecordingSubscriber subscriber(int partition){
+        RecordingSubscriber found = null;
+        for (RecordingSubscriber subscriber : subscribers){
+            if (subscriber.partition == partition){
+                found = subscriber;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Frame a trade with the next sequence of its partition, delivered to the subscriber of the partition or lost.
+     */
+    private void publish(long instId, boolean delivered){
+        int partition = partition(instId);
+        container.reset();
+        container.setTrade(instId, 1000, 10, 100);
+        int length = serializers[partition].serialize(container, buffer, 0);
+        if (delivered){
+            subscriber(partition).handler.onFragment(buffer, 0, length, null);
+        }
+    }
+
+    private List<Long> received(){
+        List<Long> instIds = new ArrayList<>();
+        for (long sequence = 0; sequence <= marketDataRB.getCursor(); sequence++){
+            instIds.add(marketDataRB.get(sequence).instId);
+        }
+        return instIds;
+    }
+
+    @Test
+    public void test_join_partition_once_and_filter_instruments(){
+        long[] instIds = instIds(1, 3);
+        provider.subscribeMarketData(key(instIds[0]));
+        provider.subscribeMarketData(key(instIds[1]));
+        assertEquals(1, subscribers.size());
+        assertTrue(subscriber(1).connected);
+        assertTrue(provider.isJoined(1));
+        assertFalse(provider.isJoined(0));
+
+        publish(instIds[0], true);
+        publish(instIds[2], true);
+        publish(instIds[1], true);
+
+        assertEquals(2, received().size());
+        assertEquals(instIds[0], (long) received().get(0));
+        assertEquals(instIds[1], (long) received().get(1));
+        assertEquals(3, provider.getSequence(1));
+        assertEquals(0, provider.getGaps());
+    }
+
+    @Test
+    public void test_late_join_is_not_a_gap(){
+        long instId = instIds(2, 1)[0];
+        // the feed ran before the provider joined
+        for (int i = 0; i < 5; i++){
+            serializers[2].serialize(container, buffer, 0);
+        }
+        provider.subscribeMarketData(key(instId));
+
+        publish(instId, true);
+        publish(instId, true);
+
+        assertEquals(7, provider.getSequence(2));
+        assertEquals(0, provider.getGaps());
+        assertEquals(0, provider.getLost());
+        assertEquals(2, received().size());
+    }
+
+    @Test
+    public void test_gap_detected(){
+        long instId = instIds(3, 1)[0];
+        provider.subscribeMarketData(key(instId));
+
+        publish(instId, true);
+        publish(instId, false);
+        publish(instId, false);
+        publish(instId, true);
+        publish(instId, true);
+        publish(instId, false);
+        publish(instId, true);
+
+        assertEquals(2, provider.getGaps());
+        assertEquals(3, provider.getLost());
+        assertEquals(7, provider.getSequence(3));
+        assertEquals(4, received().size());
+    }
+
+    @Test
+    public void test_unsubscribe_leaves_unused_partition(){
+        long[] instIds = instIds(0, 2);
+        long other = instIds(1, 1)[0];
+        provider.subscribeMarketData(key(instIds[0]));
+        provider.subscribeMarketData(key(instIds[1]));
+        provider.subscribeMarketData(key(other));
+        RecordingSubscriber subscriber = subscriber(0);
+
+        assertTrue(provider.unSubscribeMarketData(key(instIds[0])));
+        assertTrue(provider.isJoined(0));
+        assertTrue(subscriber.connected);
+
+        assertTrue(provider.unSubscribeMarketData(key(instIds[1])));
+        assertFalse(provider.isJoined(0));
+        assertFalse(subscriber.connected);
+        assertTrue(provider.isJoined(1));
+        assertFalse(provider.unSubscribeMarketData(key(instIds[1])));
+
+        // joined again on a new subscriber, the messages missed meanwhile are not a gap
+        publish(instIds[0], false);
+        provider.subscribeMarketData(key(instIds[0]));
+        assertNotSame(subscriber, subscriber(0));
+        assertTrue(subscriber(0).connected);
+        publish(instIds[0], false);
+        publish(instIds[0], true);
+        assertEquals(0, provider.getGaps());
+        assertEquals(3, provider.getSequence(0));
+    }
+}
@@ -0,0 +1,116 @@
+package com.unisoft.algotrader.provider.gateway;
+
+import com.unisoft.algotrader.model.event.execution.Order;
+import com.unisoft.algotrader.model.event.execution.OrderEventContainer;
+import com.unisoft.algotrader.model.trading.OrdType;
+import com.unisoft.algotrader.model.trading.Side;
+import com.unisoft.algotrader.model.trading.TimeInForce;
+import org.junit.Test;
+import uk.co.real_logic.agrona.concurrent.UnsafeBuffer;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OrderRequestSerializerTest {
+
+    private final OrderRequestSerializer serializer = new OrderRequestSerializer();
+
+    private static Order order(long clOrderId){
+        Order order = new Order();
+        order.clOrderId = clOrderId;
+        order.origClOrderId = clOrderId - 1;
+        order.instId = 1000;
+        order.strategyId = 3;
+        order.providerId = 1;
+        order.portfolioId = 2;
+        order.dateTime = 123456789L;
+        order.side = Side.Sell;
+        order.ordType = OrdType.Limit;
+        order.tif = TimeInForce.Day;
+        order.ordQty = 500;
+        order.limitPrice = 88.5;
+        order.accountId = "account";
+        order.text = "text";
+        return order;
+    }
+
+    private static void assertOrder(Order expected, Order actual){
+        assertEquals(expected.clOrderId, actual.clOrderId);
+        assertEquals(expected.origClOrderId, actual.origClOrderId);
+        assertEquals(expected.instId, actual.instId);
+        assertEquals(expected.strategyId, actual.strategyId);
+        assertEquals(expected.providerId, actual.providerId);
+        assertEquals(expected.portfolioId, actual.portfolioId);
+        assertEquals(expected.dateTime, actual.dateTime);
+        assertEquals(expected.side, actual.side);
+        assertEquals(expected.ordType, actual.ordType);
+        assertEquals(expected.tif, actual.tif);
+        assertEquals(expected.ordQty, actual.ordQty, 0.0);
+        assertEquals(expected.limitPrice, actual.limitPrice, 0.0);
+        assertEquals(expected.accountId, actual.accountId);
+        assertEquals(expected.text, actual.text);
+    }
+
+    @Test
+    public void test_round_trip_each_request_type(){
+        Order order = order(10);
+
+        OrderEventContainer container = new OrderEventContainer();
+        container.setNewOrderRequest(order);
+        OrderEventContainer decoded = serializer.deserialize(serializer.serialize(container));
+        assertTrue(decoded.hasNewOrderRequest());
+        assertOrder(order, decoded.newOrderRequest);
+
+        container.reset();
+        container.setReplaceOrderRequest(order);
+        decoded = serializer.deserialize(serializer.serialize(container));
+        assertTrue(decoded.hasReplaceOrderRequest());
+        assertFalse(decoded.hasNewOrderRequest());
+        assertOrder(order, decoded.replaceOrderRequest);
+
+        container.reset();
+        container.setCancelOrderRequest(order);
+        byte[] bytes = serializer.serialize(container);
+        assertEquals(serializer.encodedLength(container), bytes.length);
+        assertEquals(OrderEventContainer.CANCEL_ORDER_BIT, OrderRequestSerializer.requestType(new UnsafeBuffer(bytes), 0));
+        decoded = serializer.deserialize(bytes);
+        assertTrue(decoded.hasCancelOrderRequest());
+        assertOrder(order, decoded.cancelOrderRequest);
+    }
+
+    @Test
+    public void test_byte_buffer_moves_position_past_each_request(){
+        ByteBuffer byteBuffer = ByteBuffer.allocate(1024);
+        OrderEventContainer container = new OrderEventContainer();
+        container.setNewOrderRequest(order(1));
+        serializer.serialize(container, byteBuffer);
+        int first = byteBuffer.position();
+        assertEquals(serializer.encodedLength(container), first);
+
+        container.reset();
+        container.setCancelOrderRequest(order(2));
+        serializer.serialize(container, byteBuffer);
+
+        byteBuffer.flip();
+        OrderEventContainer decoded = serializer.deserialize(byteBuffer);
+        assertEquals(first, byteBuffer.position());
+        assertEquals(1, decoded.newOrderRequest.clOrderId);
+
+        decoded = serializer.deserialize(byteBuffer);
+        assertEquals(byteBuffer.limit(), byteBuffer.position());
+        assertTrue(decoded.hasCancelOrderRequest());
+        assertEquals(2, decoded.cancelOrderRequest.clOrderId);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_unknown_request_type(){
+        OrderEventContainer container = new OrderEventContainer();
+        container.setNewOrderRequest(order(1));
+        byte[] bytes = serializer.serialize(container);
+        bytes[0] = 0x7f;
+        serializer.deserialize(bytes);
+    }
+}
@@ -0,0 +1,167 @@
+package com.unisoft.algotrader.service;
+
+import com.lmax.disruptor.RingBuffer;
+import com.unisoft.algotrader.event.bus.RingBufferMarketDataEventBus;
+import com.unisoft.algotrader.model.event.data.Bar;
+import com.unisoft.algotrader.model.event.data.MarketDataContainer;
+import com.unisoft.algotrader.model.event.data.Quote;
+import com.unisoft.algotrader.model.event.data.Trade;
+import com.unisoft.algotrader.provider.ProviderId;
+import com.unisoft.algotrader.provider.ProviderManager;
+import com.unisoft.algotrader.provider.csv.CSVHistoricalDataStore;
+import com.unisoft.algotrader.provider.data.AbstractDataStoreProvider;
+import com.unisoft.algotrader.provider.data.DataService;
+import com.unisoft.algotrader.provider.data.HistoricalCursor;
+import com.unisoft.algotrader.provider.data.HistoricalSubscriptionKey;
+import com.unisoft.algotrader.provider.data.SubscriptionKey;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class DataImporterTest {
+
+    private final ProviderManager providerManager = new ProviderManager();
+    private final RecordingStore store = new RecordingStore(providerManager);
+    private RingBufferMarketDataEventBus marketDataEventBus;
+    private DataImporter importer;
+    private Thread thread;
+
+    /**
+     * Buffers the bars until flushed, as the CassandraHistoricalDataStore does.
+     */
+    private static class RecordingStore extends AbstractDataStoreProvider {
+        final AtomicInteger written = new AtomicInteger();
+        final AtomicInteger flushes = new AtomicInteger();
+        volatile RuntimeException failure;
+        int buffered;
+
+        RecordingStore(ProviderManager providerManager) {
+            super(providerManager);
+        }
+
+        @Override
+        public ProviderId providerId() {
+            return CSVHistoricalDataStore.PROVIDER_ID;
+        }
+
+        @Override
+        public boolean connected() {
+            return true;
+        }
+
+        @Override
+        public void onBar(Bar bar) {
+            buffered++;
+        }
+
+        @Override
+        public void onQuote(Quote quote) {
+            buffered++;
+        }
+
+        @Override
+        public void onTrade(Trade trade) {
+            buffered++;
+        }
+
+        @Override
+        public void flush() {
+            flushes.incrementAndGet();
+            if (failure != null) {
+                throw failure;
+            }
+            written.addAndGet(buffered);
+            buffered = 0;
+        }
+
+        @Override
+        public HistoricalCursor openHistoricalData(HistoricalSubscriptionKey subscriptionKey) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean subscribeHistoricalData(HistoricalSubscriptionKey subscriptionKey) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Publishes three daily bars of the subscribed instrument.
+     */
+    private class ReplayDataService implements DataService {
+
+        @Override
+        public HistoricalCursor openHistoricalData(HistoricalSubscriptionKey subscriptionKey) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean subscribeHistoricalData(HistoricalSubscriptionKey subscriptionKey) {
+            for (int i = 0; i < 3; i++) {
+                marketDataEventBus.publishBar(subscriptionKey.instId, 86400, subscriptionKey.fromDate + i * 86_400_000L, 10, 11, 9, 10.5, 1000, 0);
+            }
+            return true;
+        }
+
+        @Override
+        public boolean subscribeMarketData(SubscriptionKey subscriptionKey) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean unSubscribeMarketData(SubscriptionKey subscriptionKey) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @Before
+    public void setup(){
+        RingBuffer<MarketDataContainer> marketDataRB = RingBuffer.createSingleProducer(MarketDataContainer.FACTORY, 16);
+        marketDataEventBus = new RingBufferMarketDataEventBus(marketDataRB);
+        importer = new DataImporter(providerManager, new ReplayDataService(), marketDataRB);
+        thread = new Thread(importer);
+        thread.start();
+    }
+
+    @After
+    public void teardown() throws Exception {
+        importer.halt();
+        thread.join(5000);
+    }
+
+    private HistoricalSubscriptionKey key(){
+        return HistoricalSubscriptionKey.createDailySubscriptionKey(ProviderId.Yahoo.id, 1, new Date(0), new Date(10 * 86_400_000L));
+    }
+
+    @Test
+    public void test_no_flush_before_import() throws Exception {
+        thread.join(50);
+        assertEquals(0, store.flushes.get());
+    }
+
+    @Test
+    public void test_flush_buffered_data_on_idle() throws Exception {
+        assertTrue(importer.importData(key()));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (store.written.get() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(3, store.written.get());
+    }
+
+    @Test
+    public void test_flush_failure_stops_import() throws Exception {
+        store.failure = new IllegalStateException("batch failed");
+        importer.importData(key());
+
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+        assertEquals(0, store.written.get());
+    }
+}
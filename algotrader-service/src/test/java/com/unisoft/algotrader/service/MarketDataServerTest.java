@@ -0,0 +1,213 @@
+package com.unisoft.algotrader.service;
+
+import com.lmax.disruptor.RingBuffer;
+import com.unisoft.algotrader.model.event.bus.EventBusManager;
+import com.unisoft.algotrader.model.event.data.MarketDataContainer;
+import com.unisoft.algotrader.provider.ProviderId;
+import com.unisoft.algotrader.provider.ProviderManager;
+import com.unisoft.algotrader.provider.data.RealTimeDataProvider;
+import com.unisoft.algotrader.provider.data.SubscriptionKey;
+import com.unisoft.algotrader.utils.networking.Publisher;
+import com.unisoft.algotrader.utils.networking.aeron.AeronConfig;
+import com.unisoft.algotrader.utils.networking.aeron.AeronPublisher;
+import com.unisoft.algotrader.utils.serialization.DirectBufferSerializer;
+import com.unisoft.algotrader.utils.serialization.SequencedSerializer;
+import org.junit.Before;
+import org.junit.Test;
+import uk.co.real_logic.agrona.concurrent.UnsafeBuffer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class MarketDataServerTest {
+
+    private static final int PARTITIONS = 3;
+
+    private final RecordingPublisher[] publishers = new RecordingPublisher[PARTITIONS];
+    private final RecordingProvider provider = new RecordingProvider();
+    private MarketDataServer server;
+
+    /**
+     * Decodes the sequence and the instrument of each message published on a partition.
+     */
+    private static class RecordingPublisher implements Publisher {
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[512]);
+        final List<Long> sequences = new ArrayList<>();
+        final List<Long> instIds = new ArrayList<>();
+        boolean connected;
+
+        @Override
+        public void connect() {
+            connected = true;
+        }
+
+        @Override
+        public void disconnect() {
+            connected = false;
+        }
+
+        @Override
+        public boolean publish(byte[] bytes) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean publish(ByteBuffer byteBuffer, int length) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean publish(UnsafeBuffer buffer, int offset, int length) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean publish(Object content, DirectBufferSerializer serializer) {
+            serializer.serialize(content, buffer, 0);
+            sequences.add(SequencedSerializer.sequence(buffer, 0));
+            MarketDataContainer container = serializer.deserialize(buffer, 0);
+            instIds.add(container.instId);
+            return true;
+        }
+
+        @Override
+        public boolean connected() {
+            return connected;
+        }
+    }
+
+    private static class RecordingProvider implements RealTimeDataProvider {
+        final Set<SubscriptionKey> subscriptionKeys = new HashSet<>();
+        boolean connected;
+
+        @Override
+        public boolean subscribeMarketData(SubscriptionKey subscriptionKey) {
+            return subscriptionKeys.add(subscriptionKey);
+        }
+
+        @Override
+        public boolean unSubscribeMarketData(SubscriptionKey subscriptionKey) {
+            return subscriptionKeys.remove(subscriptionKey);
+        }
+
+        @Override
+        public ProviderId providerId() {
+            return ProviderId.IB;
+        }
+
+        @Override
+        public boolean connected() {
+            return connected;
+        }
+
+        @Override
+        public void connect() {
+            connected = true;
+        }
+    }
+
+    @Before
+    public void setup(){
+        for (int i = 0; i < PARTITIONS; i++){
+            publishers[i] = new RecordingPublisher();
+        }
+        ProviderManager providerManager = new ProviderManager();
+        providerManager.addRealTimeDataProvider(provider);
+        server = new MarketDataServer(providerManager, publishers, RingBuffer.createSingleProducer(MarketDataContainer.FACTORY, 16));
+    }
+
+    private void trade(long instId){
+        MarketDataContainer container = new MarketDataContainer();
+        container.setTrade(instId, 1000, 10, 100);
+        server.onMarketDataContainer(container);
+    }
+
+    @Test
+    public void test_publish_on_partition_of_instrument(){
+        for (long instId = 1; instId <= 30; instId++){
+            trade(instId);
+        }
+        trade(7);
+
+        int total = 0;
+        for (int i = 0; i < PARTITIONS; i++){
+            RecordingPublisher publisher = publishers[i];
+            for (int j = 0; j < publisher.instIds.size(); j++){
+                assertEquals(i, EventBusManager.partition(publisher.instIds.get(j), PARTITIONS));
+                // each partition is sequenced on its own
+                assertEquals(j + 1, (long) publisher.sequences.get(j));
+            }
+            assertEquals(publisher.instIds.size(), server.getSequence(i));
+            total += publisher.instIds.size();
+        }
+        assertEquals(31, total);
+        int partition = EventBusManager.partition(7, PARTITIONS);
+        List<Long> instIds = publishers[partition].instIds;
+        assertEquals(7, (long) instIds.get(instIds.size() - 1));
+    }
+
+    @Test(timeout = 5000)
+    public void test_partition_without_subscriber_does_not_stall_the_others(){
+        int silent = EventBusManager.partition(7, PARTITIONS);
+        // never connected, so it has no subscriber
+        AeronPublisher unconnected = new AeronPublisher(new AeronConfig.AeronConfigBuilder().build());
+        Publisher[] publishers = new Publisher[PARTITIONS];
+        for (int i = 0; i < PARTITIONS; i++){
+            publishers[i] = i == silent ? unconnected : this.publishers[i];
+        }
+        server = new MarketDataServer(new ProviderManager(), publishers, RingBuffer.createSingleProducer(MarketDataContainer.FACTORY, 16));
+
+        int dropped = 0;
+        for (long instId = 1; instId <= 30; instId++){
+            trade(instId);
+            if (EventBusManager.partition(instId, PARTITIONS) == silent){
+                dropped++;
+            }
+        }
+        assertEquals(dropped, server.getDropped(silent));
+        assertEquals(dropped, unconnected.getDropped());
+        // the dropped messages take their sequence numbers
+        assertEquals(dropped, server.getSequence(silent));
+
+        int delivered = 0;
+        for (int i = 0; i < PARTITIONS; i++){
+            if (i != silent){
+                assertEquals(0, server.getDropped(i));
+                assertEquals(this.publishers[i].instIds.size(), server.getSequence(i));
+                delivered += this.publishers[i].instIds.size();
+            }
+        }
+        assertEquals(30 - dropped, delivered);
+    }
+
+    @Test
+    public void test_connect_publishers(){
+        server.connect();
+        for (RecordingPublisher publisher : publishers){
+            assertTrue(publisher.connected);
+        }
+        server.disconnect();
+        for (RecordingPublisher publisher : publishers){
+            assertFalse(publisher.connected);
+        }
+    }
+
+    @Test
+    public void test_subscribe_at_provider(){
+        SubscriptionKey key = SubscriptionKey.createTradeSubscriptionKey(ProviderId.IB.id, 5);
+        assertTrue(server.subscribeMarketData(key));
+        assertTrue(provider.connected);
+        assertTrue(provider.subscriptionKeys.contains(key));
+
+        assertFalse(server.subscribeMarketData(SubscriptionKey.createTradeSubscriptionKey(ProviderId.Dummy.id, 5)));
+
+        assertTrue(server.unSubscribeMarketData(key));
+        assertTrue(provider.subscriptionKeys.isEmpty());
+        assertFalse(server.unSubscribeMarketData(key));
+    }
+}
@@ -0,0 +1,85 @@
+package com.unisoft.algotrader.service;
+
+import com.unisoft.algotrader.model.event.execution.Order;
+import com.unisoft.algotrader.model.trading.OrdStatus;
+import com.unisoft.algotrader.model.trading.OrdType;
+import com.unisoft.algotrader.model.trading.Side;
+import com.unisoft.algotrader.trading.OrderTable;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class OrderRiskCheckTest {
+
+    private OrderRiskCheck riskCheck;
+    private OrderTable orderTable;
+
+    @Before
+    public void setup(){
+        riskCheck = new OrderRiskCheck(1000, 50000, 2);
+        orderTable = new OrderTable();
+    }
+
+    private static Order order(long clOrderId, long instId, OrdType ordType, double qty, double limitPrice, double stopPrice){
+        Order order = new Order();
+        order.strategyId = 1;
+        order.clOrderId = clOrderId;
+        order.instId = instId;
+        order.side = Side.Buy;
+        order.ordType = ordType;
+        order.ordQty = qty;
+        order.limitPrice = limitPrice;
+        order.stopPrice = stopPrice;
+        return order;
+    }
+
+    @Test
+    public void test_new_order_limits(){
+        assertNull(riskCheck.checkNewOrder(order(1, 10, OrdType.Limit, 1000, 50, 0), orderTable));
+        assertNotNull(riskCheck.checkNewOrder(order(1, 10, OrdType.Limit, 0, 50, 0), orderTable));
+        assertNotNull(riskCheck.checkNewOrder(order(1, 10, OrdType.Limit, 1001, 1, 0), orderTable));
+        assertNotNull(riskCheck.checkNewOrder(order(1, 10, OrdType.Limit, 1000, 50.01, 0), orderTable));
+        // the stop price is used without limit price, a market order is only checked on quantity
+        assertNotNull(riskCheck.checkNewOrder(order(1, 10, OrdType.Stop, 1000, 0, 51), orderTable));
+        assertNull(riskCheck.checkNewOrder(order(1, 10, OrdType.Market, 1000, 0, 0), orderTable));
+    }
+
+    @Test
+    public void test_limits_not_positive_are_disabled(){
+        riskCheck = new OrderRiskCheck(0, 0, 0);
+        orderTable.addOrUpdateOrder(order(1, 10, OrdType.Limit, 10, 1, 0));
+        assertNull(riskCheck.checkNewOrder(order(2, 10, OrdType.Limit, 1e9, 1e9, 0), orderTable));
+    }
+
+    @Test
+    public void test_duplicate_and_max_open_orders(){
+        Order order1 = order(1, 10, OrdType.Limit, 10, 1, 0);
+        orderTable.addOrUpdateOrder(order1);
+        assertNotNull(riskCheck.checkNewOrder(order(1, 10, OrdType.Limit, 10, 1, 0), orderTable));
+
+        orderTable.addOrUpdateOrder(order(2, 10, OrdType.Limit, 10, 1, 0));
+        assertNotNull(riskCheck.checkNewOrder(order(3, 10, OrdType.Limit, 10, 1, 0), orderTable));
+        // the limit is per instrument and only counts the active orders
+        assertNull(riskCheck.checkNewOrder(order(3, 11, OrdType.Limit, 10, 1, 0), orderTable));
+        order1.ordStatus = OrdStatus.Filled;
+        assertNull(riskCheck.checkNewOrder(order(3, 10, OrdType.Limit, 10, 1, 0), orderTable));
+    }
+
+    @Test
+    public void test_replace_and_cancel_need_an_active_order(){
+        assertNotNull(riskCheck.checkCancelOrder(order(1, 10, OrdType.Limit, 10, 1, 0), orderTable));
+        assertNotNull(riskCheck.checkReplaceOrder(order(1, 10, OrdType.Limit, 10, 1, 0), orderTable));
+
+        Order order = order(1, 10, OrdType.Limit, 10, 1, 0);
+        orderTable.addOrUpdateOrder(order);
+        assertNull(riskCheck.checkCancelOrder(order(1, 10, OrdType.Limit, 10, 1, 0), orderTable));
+        assertNull(riskCheck.checkReplaceOrder(order(1, 10, OrdType.Limit, 20, 1, 0), orderTable));
+        assertNotNull(riskCheck.checkReplaceOrder(order(1, 10, OrdType.Limit, 2000, 1, 0), orderTable));
+
+        order.ordStatus = OrdStatus.Cancelled;
+        assertNotNull(riskCheck.checkCancelOrder(order(1, 10, OrdType.Limit, 10, 1, 0), orderTable));
+        assertNotNull(riskCheck.checkReplaceOrder(order(1, 10, OrdType.Limit, 20, 1, 0), orderTable));
+    }
+}
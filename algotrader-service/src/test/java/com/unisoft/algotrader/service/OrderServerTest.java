@@ -0,0 +1,321 @@
+package com.unisoft.algotrader.service;
+
+import com.unisoft.algotrader.event.bus.BackTestEventBusManager;
+import com.unisoft.algotrader.model.event.execution.ExecutionReport;
+import com.unisoft.algotrader.model.event.execution.Order;
+import com.unisoft.algotrader.model.event.execution.OrderEventContainer;
+import com.unisoft.algotrader.model.trading.ExecType;
+import com.unisoft.algotrader.model.trading.OrdStatus;
+import com.unisoft.algotrader.model.trading.OrdType;
+import com.unisoft.algotrader.model.trading.Side;
+import com.unisoft.algotrader.provider.ProviderId;
+import com.unisoft.algotrader.provider.ProviderManager;
+import com.unisoft.algotrader.provider.execution.ExecutionProvider;
+import com.unisoft.algotrader.provider.gateway.OrderRequestSerializer;
+import com.unisoft.algotrader.utils.networking.DataHandler;
+import com.unisoft.algotrader.utils.networking.Publisher;
+import com.unisoft.algotrader.utils.networking.Subscriber;
+import com.unisoft.algotrader.utils.networking.aeron.AeronConfig;
+import com.unisoft.algotrader.utils.networking.aeron.AeronPublisher;
+import com.unisoft.algotrader.utils.serialization.DirectBufferSerializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.co.real_logic.agrona.concurrent.UnsafeBuffer;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+public class OrderServerTest {
+
+    private static final int STRATEGY_ID = 7;
+
+    private final RecordingSubscriber subscriber = new RecordingSubscriber();
+    private final RecordingPublisher publisher = new RecordingPublisher();
+    private final RecordingProvider provider = new RecordingProvider();
+    private final OrderRequestSerializer serializer = new OrderRequestSerializer();
+    private OrderServer server;
+    private Thread thread;
+
+    @Before
+    public void setup(){
+        ProviderManager providerManager = new ProviderManager();
+        providerManager.addExecutionProvider(provider);
+        server = new OrderServer(new BackTestEventBusManager(), providerManager, new OrderRiskCheck(1000, 0, 0),
+                subscriber, strategyId -> publisher);
+        server.connect();
+    }
+
+    @After
+    public void teardown() throws Exception {
+        if (thread != null){
+            server.halt();
+            thread.join();
+        }
+    }
+
+    private void start(){
+        thread = new Thread(server);
+        thread.start();
+    }
+
+    private static Order order(long clOrderId, double qty, ProviderId providerId){
+        return order(STRATEGY_ID, clOrderId, qty, providerId);
+    }
+
+    private static Order order(int strategyId, long clOrderId, double qty, ProviderId providerId){
+        Order order = new Order();
+        order.strategyId = strategyId;
+        order.clOrderId = clOrderId;
+        order.providerId = providerId.id;
+        order.instId = 1000;
+        order.side = Side.Buy;
+        order.ordType = OrdType.Limit;
+        order.ordQty = qty;
+        order.limitPrice = 10;
+        return order;
+    }
+
+    private void send(int requestType, Order order){
+        OrderEventContainer container = new OrderEventContainer();
+        switch (requestType){
+            case OrderEventContainer.NEW_ORDER_BIT:
+                container.setNewOrderRequest(order);
+                break;
+            case OrderEventContainer.REPLACE_ORDER_BIT:
+                container.setReplaceOrderRequest(order);
+                break;
+            default:
+                container.setCancelOrderRequest(order);
+        }
+        subscriber.handler.onData(serializer.serialize(container));
+    }
+
+    private static void await(List<?> list, int size){
+        long deadline = System.currentTimeMillis() + 10000;
+        while (list.size() < size && System.currentTimeMillis() < deadline){
+            Thread.yield();
+        }
+        assertEquals(size, list.size());
+    }
+
+    @Test
+    public void test_requests_are_routed_to_the_provider(){
+        start();
+        send(OrderEventContainer.NEW_ORDER_BIT, order(1, 100, ProviderId.Simulation));
+        send(OrderEventContainer.CANCEL_ORDER_BIT, order(1, 100, ProviderId.Simulation));
+        await(provider.requests, 2);
+
+        assertEquals("new", provider.types.get(0));
+        assertEquals(1, provider.requests.get(0).clOrderId);
+        assertEquals("cancel", provider.types.get(1));
+        assertEquals(2, server.getRequests());
+        assertEquals(0, server.getRejects());
+    }
+
+    @Test
+    public void test_request_ring_buffer_does_not_overwrite_pending_requests() throws Exception {
+        int count = OrderServer.REQUEST_BUFFER_SIZE * 3;
+        // the transport fills the request ring buffer before the server starts, it waits for the server to catch up
+        Thread transport = new Thread(() -> {
+            for (int i = 1; i <= count; i++){
+                send(OrderEventContainer.NEW_ORDER_BIT, order(i, 100, ProviderId.Simulation));
+            }
+        });
+        transport.start();
+        Thread.sleep(200);
+        start();
+        transport.join();
+        await(provider.requests, count);
+        for (int i = 0; i < count; i++){
+            assertEquals(i + 1, provider.requests.get(i).clOrderId);
+        }
+    }
+
+    @Test
+    public void test_risk_check_rejects_new_order(){
+        server.onNewOrderRequest(order(1, 1001, ProviderId.Simulation));
+
+        assertEquals(0, provider.requests.size());
+        assertEquals(1, server.getRejects());
+        ExecutionReport report = publisher.reports.get(0);
+        assertEquals(STRATEGY_ID, report.strategyId);
+        assertEquals(1, report.clOrderId);
+        assertEquals(ExecType.Rejected, report.execType);
+        assertEquals(OrdStatus.Rejected, report.ordStatus);
+        assertNotNull(report.text);
+    }
+
+    @Test
+    public void test_rejected_cancel_and_replace_keep_the_state_of_the_live_order(){
+        Order order = order(1, 100, ProviderId.Simulation);
+        server.onNewOrderRequest(order);
+        assertSame(order, provider.requests.get(0));
+
+        // no provider for the request
+        server.onOrderCancelRequest(order(1, 100, ProviderId.IB));
+        // risk check
+        server.onOrderUpdateRequest(order(1, 5000, ProviderId.Simulation));
+
+        assertEquals(1, provider.requests.size());
+        assertEquals(2, publisher.reports.size());
+        for (ExecutionReport report : publisher.reports){
+            assertEquals(ExecType.Rejected, report.execType);
+            assertEquals(OrdStatus.New, report.ordStatus);
+            assertEquals(100, report.ordQty, 0.0);
+        }
+    }
+
+    @Test
+    public void test_new_order_without_provider_is_rejected(){
+        server.onNewOrderRequest(order(1, 100, ProviderId.IB));
+        assertEquals(OrdStatus.Rejected, publisher.reports.get(0).ordStatus);
+    }
+
+    @Test(timeout = 5000)
+    public void test_unconnected_strategy_does_not_block_the_reports_of_the_others(){
+        int absent = STRATEGY_ID + 1;
+        // never connected, as if the process of the strategy was not running
+        AeronPublisher unconnected = new AeronPublisher(new AeronConfig.AeronConfigBuilder().build()){
+            @Override
+            public void connect() {
+            }
+        };
+        ProviderManager providerManager = new ProviderManager();
+        providerManager.addExecutionProvider(provider);
+        server = new OrderServer(new BackTestEventBusManager(), providerManager, new OrderRiskCheck(1000, 0, 0),
+                subscriber, strategyId -> strategyId == absent ? unconnected : publisher);
+
+        server.onNewOrderRequest(order(absent, 1, 100, ProviderId.IB));
+        server.onNewOrderRequest(order(1, 100, ProviderId.IB));
+        server.onNewOrderRequest(order(absent, 2, 100, ProviderId.IB));
+        server.onNewOrderRequest(order(2, 100, ProviderId.IB));
+
+        assertEquals(2, server.getDroppedReports());
+        assertEquals(2, unconnected.getDropped());
+        assertEquals(2, publisher.reports.size());
+        assertEquals(1, publisher.reports.get(0).clOrderId);
+        assertEquals(2, publisher.reports.get(1).clOrderId);
+    }
+
+    @Test
+    public void test_report_publisher_failing_to_connect_is_retried(){
+        int[] connects = new int[1];
+        Publisher failing = new RecordingPublisher(){
+            @Override
+            public void connect() {
+                if (++connects[0] == 1){
+                    throw new IllegalStateException("no media driver");
+                }
+            }
+        };
+        ProviderManager providerManager = new ProviderManager();
+        server = new OrderServer(new BackTestEventBusManager(), providerManager, new OrderRiskCheck(1000, 0, 0),
+                subscriber, strategyId -> failing);
+
+        server.onNewOrderRequest(order(1, 100, ProviderId.IB));
+        server.onNewOrderRequest(order(2, 100, ProviderId.IB));
+
+        assertEquals(2, connects[0]);
+        assertEquals(1, server.getDroppedReports());
+        assertEquals(1, ((RecordingPublisher) failing).reports.size());
+    }
+
+    private static class RecordingProvider implements ExecutionProvider {
+        private final List<Order> requests = new CopyOnWriteArrayList<>();
+        private final List<String> types = new CopyOnWriteArrayList<>();
+
+        @Override
+        public ProviderId providerId() {
+            return ProviderId.Simulation;
+        }
+
+        @Override
+        public boolean connected() {
+            return true;
+        }
+
+        @Override
+        public void onNewOrderRequest(Order order) {
+            types.add("new");
+            requests.add(order);
+        }
+
+        @Override
+        public void onOrderUpdateRequest(Order order) {
+            types.add("replace");
+            requests.add(order);
+        }
+
+        @Override
+        public void onOrderCancelRequest(Order order) {
+            types.add("cancel");
+            requests.add(order);
+        }
+    }
+
+    private static class RecordingSubscriber implements Subscriber {
+        private DataHandler handler;
+
+        @Override
+        public void connect() {
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public boolean connected() {
+            return true;
+        }
+
+        @Override
+        public void subscribe(DataHandler handler) {
+            this.handler = handler;
+        }
+    }
+
+    private static class RecordingPublisher implements Publisher {
+        private final List<ExecutionReport> reports = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void connect() {
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public boolean publish(byte[] bytes) {
+            return true;
+        }
+
+        @Override
+        public boolean publish(ByteBuffer byteBuffer, int length) {
+            return true;
+        }
+
+        @Override
+        public boolean publish(UnsafeBuffer buffer, int offset, int length) {
+            return true;
+        }
+
+        @Override
+        public boolean publish(Object content, DirectBufferSerializer serializer) {
+            reports.add((ExecutionReport) content);
+            return true;
+        }
+
+        @Override
+        public boolean connected() {
+            return true;
+        }
+    }
+}